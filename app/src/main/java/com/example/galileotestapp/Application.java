@@ -1,7 +1,5 @@
 package com.example.galileotestapp;
 
-import com.example.galileotestapp.galileo.utils.NotificationHelper;
-
 public class Application extends android.app.Application {
     private static Application mApp;
 
@@ -13,7 +11,6 @@ public class Application extends android.app.Application {
     public void onCreate() {
         super.onCreate();
         mApp = this;
-        NotificationHelper.getInstance(this).init();
     }
 
     @Override
@@ -0,0 +1,419 @@
+package com.example.galileotestapp.galileo;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.location.*;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.annotation.RequiresApi;
+import com.example.galileotestapp.R;
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
+import com.example.galileotestapp.galileo.model.GnssType;
+import com.example.galileotestapp.galileo.utils.GpsTestUtil;
+
+import java.util.Collection;
+
+/**
+ * GnssSource backed by the Android location APIs.
+ *
+ * Registers for location, GnssStatus and GnssMeasurements updates on the given looper and copies every status,
+ * measurements event and location into the sink, so nothing but this adapter has to know about android.location.
+ * NMEA sentences are parsed as well, and their epochs published as long as GnssStatus never reported a Galileo
+ * satellite, so firmware that reports Galileo only through NMEA is still detected.
+ */
+@RequiresApi(api = Build.VERSION_CODES.N)
+public class AndroidGnssSource implements GnssSource, GpsListener {
+    private static final String TAG = AndroidGnssSource.class.getCanonicalName();
+
+    private final Context context;
+
+    private final LocationManager locationManager;
+
+    private final String provider;
+
+    private long minTime = SchedulingProfile.AGGRESSIVE.getSearchIntervalMillis();
+
+    private float minDistance = SchedulingProfile.AGGRESSIVE.getMinDistanceMeters();
+
+    private boolean measurements = SchedulingProfile.AGGRESSIVE.isMeasurements();
+
+    private final Looper callbackLooper;
+
+    private final Handler callbackHandler;
+
+    private EpochSink sink;
+
+    private GnssSource.Listener listener;
+
+    private boolean started;
+
+    private GnssStatus.Callback mGnssStatusListener;
+
+    private GnssMeasurementsEvent.Callback mGnssMeasurementsListener;
+
+    private OnNmeaMessageListener mNmeaListener;
+
+    /**
+     * Only used on the callback thread
+     */
+    private final NmeaParser nmeaParser = new NmeaParser();
+
+    /**
+     * Set on the callback thread once a GnssStatus of the current session listed a Galileo satellite, NMEA epochs are
+     * not needed for the rest of the session
+     */
+    private boolean statusReportsGalileo;
+
+    /**
+     * Prepares the callback thread state for a new session, before any callback of that session is delivered
+     */
+    private final Runnable resetSession = new Runnable() {
+        @Override
+        public void run() {
+            statusReportsGalileo = false;
+            nmeaParser.clear();
+            nmeaParser.setSink(sink);
+        }
+    };
+
+    private volatile GnssMetrics metrics;
+
+    /**
+     * @param callbackLooper looper all GNSS and location callbacks are delivered on, epochs are produced on its thread
+     */
+    public AndroidGnssSource(Context context, LocationManager locationManager, String provider,
+                             Looper callbackLooper) {
+        this.context = context;
+        this.locationManager = locationManager;
+        this.provider = provider;
+        this.callbackLooper = callbackLooper;
+        this.callbackHandler = new Handler(callbackLooper);
+        nmeaParser.setGalileoOnly(true);
+    }
+
+    /**
+     * Sets what is requested from the receiver. While started, only the requests that changed are updated.
+     *
+     * @param minTime      min time between location updates, in milliseconds
+     * @param minDistance  min distance between location updates, in meters
+     * @param measurements true to register for raw GNSS measurements
+     */
+    @SuppressLint("MissingPermission")
+    public synchronized void setRequest(long minTime, float minDistance, boolean measurements) {
+        final boolean locationChanged = minTime != this.minTime || minDistance != this.minDistance;
+        final boolean measurementsChanged = measurements != this.measurements;
+        this.minTime = minTime;
+        this.minDistance = minDistance;
+        this.measurements = measurements;
+        if (!started) {
+            return;
+        }
+
+        if (locationChanged) {
+            //Replaces the running request of this listener.
+            locationManager.requestLocationUpdates(provider, minTime, minDistance, this, callbackLooper);
+        }
+        if (measurementsChanged) {
+            if (measurements) {
+                locationManager.registerGnssMeasurementsCallback(getGnssMeasurementsListener(), callbackHandler);
+            } else {
+                locationManager.unregisterGnssMeasurementsCallback(mGnssMeasurementsListener);
+            }
+        }
+    }
+
+    /**
+     * Counts every status, measurements and location callback in the given metrics, null to stop counting
+     */
+    public void setMetrics(GnssMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public synchronized void start(EpochSink sink, GnssSource.Listener listener) {
+        if (started) {
+            return;
+        }
+        this.sink = sink;
+        this.listener = listener;
+        //Posted before the callbacks are registered, so it runs before the first callback of the session.
+        callbackHandler.post(resetSession);
+        gpsStart();
+    }
+
+    @Override
+    public synchronized void stop() {
+        gpsStop();
+    }
+
+    @SuppressLint("MissingPermission")
+    @Override
+    public synchronized void gpsStart() {
+        if (started) {
+            return;
+        }
+        started = true;
+
+        locationManager.requestLocationUpdates(provider, minTime, minDistance, this, callbackLooper);
+        locationManager.registerGnssStatusCallback(getGnssStatusListener(), callbackHandler);
+        locationManager.addNmeaListener(getNmeaListener(), callbackHandler);
+        if (measurements) {
+            locationManager.registerGnssMeasurementsCallback(getGnssMeasurementsListener(), callbackHandler);
+        }
+    }
+
+    @Override
+    public synchronized void gpsStop() {
+        if (!started) {
+            return;
+        }
+        started = false;
+
+        locationManager.removeUpdates(this);
+        locationManager.unregisterGnssStatusCallback(mGnssStatusListener);
+        locationManager.removeNmeaListener(mNmeaListener);
+        if (measurements) {
+            locationManager.unregisterGnssMeasurementsCallback(mGnssMeasurementsListener);
+        }
+    }
+
+    private GnssStatus.Callback getGnssStatusListener() {
+        if (mGnssStatusListener != null) {
+            return mGnssStatusListener;
+        }
+
+        mGnssStatusListener = new GnssStatus.Callback() {
+            @Override
+            public void onStarted() {
+                onGnssStarted();
+            }
+
+            @Override
+            public void onStopped() {
+                onGnssStopped();
+            }
+
+            @Override
+            public void onFirstFix(int ttffMillis) {
+                onGnssFirstFix(ttffMillis);
+            }
+
+            @Override
+            public void onSatelliteStatusChanged(GnssStatus status) {
+                AndroidGnssSource.this.onSatelliteStatusChanged(status);
+            }
+        };
+        return mGnssStatusListener;
+    }
+
+    private OnNmeaMessageListener getNmeaListener() {
+        if (mNmeaListener != null) {
+            return mNmeaListener;
+        }
+
+        mNmeaListener = new OnNmeaMessageListener() {
+            @Override
+            public void onNmeaMessage(String message, long timestamp) {
+                AndroidGnssSource.this.onNmeaMessage(message, timestamp);
+            }
+        };
+        return mNmeaListener;
+    }
+
+    private GnssMeasurementsEvent.Callback getGnssMeasurementsListener() {
+        if (mGnssMeasurementsListener != null) {
+            return mGnssMeasurementsListener;
+        }
+
+        mGnssMeasurementsListener = new GnssMeasurementsEvent.Callback() {
+            @Override
+            public void onGnssMeasurementsReceived(GnssMeasurementsEvent event) {
+                AndroidGnssSource.this.onGnssMeasurementsReceived(event);
+            }
+
+            @Override
+            public void onStatusChanged(int status) {
+                final String statusMessage;
+                switch (status) {
+                    case STATUS_LOCATION_DISABLED:
+                        statusMessage = context.getString(R.string.gnss_measurement_status_loc_disabled);
+                        break;
+                    case STATUS_NOT_SUPPORTED:
+                        statusMessage = context.getString(R.string.gnss_measurement_status_not_supported);
+                        break;
+                    case STATUS_READY:
+                        statusMessage = context.getString(R.string.gnss_measurement_status_ready);
+                        break;
+                    default:
+                        statusMessage = context.getString(R.string.gnss_status_unknown);
+                }
+                Log.d(TAG, "GnssMeasurementsEvent.Callback.onStatusChanged() - " + statusMessage);
+            }
+        };
+        return mGnssMeasurementsListener;
+    }
+
+    @Override
+    public void onGpsStatusChanged(int event, GpsStatus status) {
+
+    }
+
+    @Override
+    public void onGnssFirstFix(int ttffMillis) {
+        listener.onGnssFirstFix(ttffMillis);
+    }
+
+    /**
+     * Runs on the callback thread, copies the status into the next epoch of the sink
+     */
+    @Override
+    public void onSatelliteStatusChanged(GnssStatus status) {
+        countCallback();
+        EpochSnapshot epoch = sink.claim();
+        if (epoch == null) {
+            //Analysis fell behind, drop this epoch.
+            return;
+        }
+        if (fillEpoch(status, epoch)) {
+            statusReportsGalileo = true;
+        }
+        sink.publish();
+    }
+
+    /**
+     * Runs on the callback thread, parses the sentence in place and publishes an epoch once the next one starts
+     */
+    private void onNmeaMessage(String message, long timestamp) {
+        countCallback();
+        if (statusReportsGalileo) {
+            return;
+        }
+        nmeaParser.parse(message, timestamp, SystemClock.elapsedRealtimeNanos());
+    }
+
+    /**
+     * Copies the given status into the reusable epoch snapshot, without allocating per satellite.
+     *
+     * @return true if the status lists a Galileo satellite
+     */
+    private static boolean fillEpoch(GnssStatus status, EpochSnapshot epoch) {
+        boolean galileo = false;
+        final boolean carrierFrequenciesSupported = GpsTestUtil.isGnssCarrierFrequenciesSupported();
+        final int length = status.getSatelliteCount();
+        epoch.reset(length, SystemClock.elapsedRealtimeNanos());
+
+        for (int i = 0; i < length; i++) {
+            int flags = 0;
+            if (status.hasAlmanacData(i)) {
+                flags |= EpochSnapshot.FLAG_HAS_ALMANAC;
+            }
+            if (status.hasEphemerisData(i)) {
+                flags |= EpochSnapshot.FLAG_HAS_EPHEMERIS;
+            }
+            if (status.usedInFix(i)) {
+                flags |= EpochSnapshot.FLAG_USED_IN_FIX;
+            }
+
+            epoch.setSatellite(i, status.getSvid(i),
+                    GpsTestUtil.getGnssConstellationType(status.getConstellationType(i)),
+                    status.getCn0DbHz(i),
+                    status.getElevationDegrees(i),
+                    status.getAzimuthDegrees(i),
+                    flags);
+
+            if (carrierFrequenciesSupported && status.hasCarrierFrequencyHz(i)) {
+                epoch.setCarrierFrequencyHz(i, status.getCarrierFrequencyHz(i));
+            }
+            if (epoch.getGnssType(i) == GnssType.GALILEO) {
+                galileo = true;
+            }
+        }
+        return galileo;
+    }
+
+    @Override
+    public void onGnssStarted() {
+        listener.onGnssStarted();
+    }
+
+    @Override
+    public void onGnssStopped() {
+        listener.onGnssStopped();
+    }
+
+    /**
+     * Runs on the callback thread, copies the measurements into the next epoch of the sink
+     */
+    @Override
+    public void onGnssMeasurementsReceived(GnssMeasurementsEvent event) {
+        countCallback();
+        EpochSnapshot epoch = sink.claim();
+        if (epoch == null) {
+            return;
+        }
+        fillMeasurements(event, epoch);
+        sink.publish();
+    }
+
+    /**
+     * Copies the measurements of the given event into the reusable epoch snapshot, so no event or measurement objects
+     * are retained
+     */
+    private static void fillMeasurements(GnssMeasurementsEvent event, EpochSnapshot epoch) {
+        final Collection<GnssMeasurement> measurements = event.getMeasurements();
+        epoch.resetMeasurements(measurements.size(), SystemClock.elapsedRealtimeNanos());
+
+        int i = 0;
+        for (GnssMeasurement measurement : measurements) {
+            epoch.setMeasurement(i, measurement.getSvid(),
+                    GpsTestUtil.getGnssConstellationType(measurement.getConstellationType()),
+                    (float) measurement.getCn0DbHz(),
+                    (float) measurement.getPseudorangeRateMetersPerSecond(),
+                    (float) measurement.getPseudorangeRateUncertaintyMetersPerSecond(),
+                    measurement.getMultipathIndicator(),
+                    measurement.getState());
+
+            if (measurement.hasCarrierFrequencyHz()) {
+                epoch.setCarrierFrequencyHz(i, measurement.getCarrierFrequencyHz());
+            }
+            i++;
+        }
+    }
+
+    @Override
+    public void onLocationChanged(Location location) {
+        countCallback();
+        EpochSnapshot epoch = sink.claim();
+        if (epoch != null) {
+            epoch.setLocation(location.getElapsedRealtimeNanos(), location.getLatitude(), location.getLongitude(),
+                    location.getAltitude(), location.getAccuracy());
+            sink.publish();
+        }
+    }
+
+    private void countCallback() {
+        final GnssMetrics current = metrics;
+        if (current != null) {
+            current.increment(GnssMetrics.COUNTER_CALLBACKS);
+        }
+    }
+
+    @Override
+    public void onStatusChanged(String s, int i, Bundle bundle) {
+
+    }
+
+    @Override
+    public void onProviderEnabled(String s) {
+
+    }
+
+    @Override
+    public void onProviderDisabled(String s) {
+
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.galileotestapp.galileo;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.location.LocationManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * Versioned, TTL-aware cache of the Galileo detection result.
+ *
+ * Entries are keyed by a fingerprint of the device, OS build and GNSS hardware, so an OS or GNSS firmware update
+ * invalidates them. The persisted entry is read once on a background thread and then kept in memory, so repeat checks
+ * never touch the disk.
+ */
+public class CapabilityCache {
+
+    public static final int RESULT_UNKNOWN = 0;
+    public static final int RESULT_NOT_AVAILABLE = 1;
+    public static final int RESULT_AVAILABLE = 2;
+
+    public static final long DEFAULT_AVAILABLE_TTL_MILLIS = 30L * 24 * 60 * 60 * 1000;
+
+    public static final long DEFAULT_NOT_AVAILABLE_TTL_MILLIS = 3L * 24 * 60 * 60 * 1000;
+
+    /**
+     * Bump whenever the meaning of a cached result changes, so older entries are discarded
+     */
+    private static final int VERSION = 1;
+
+    private static final String PREFS_NAME = "galileo_prefs";
+
+    private static final String KEY_VERSION = "capability_version";
+    private static final String KEY_FINGERPRINT = "capability_fingerprint";
+    private static final String KEY_RESULT = "capability_result";
+    private static final String KEY_FREQUENCY = "capability_frequency";
+    private static final String KEY_TIMESTAMP = "capability_timestamp";
+    private static final String KEY_BANDS = "capability_bands";
+
+    // Keys of the unversioned cache used before this class existed.
+    private static final String LEGACY_KEY_ENABLED = "is_enabled";
+    private static final String LEGACY_KEY_FREQUENCY = "frequency";
+
+    public interface LoadCallback {
+        void onLoaded(CapabilityCache cache);
+    }
+
+    /**
+     * Immutable cached detection result
+     */
+    public static final class Entry {
+        private final int result;
+        private final int frequency;
+        private final long timestampMillis;
+        private final GnssCapabilities capabilities;
+
+        Entry(int result, int frequency, long timestampMillis, GnssCapabilities capabilities) {
+            this.result = result;
+            this.frequency = frequency;
+            this.timestampMillis = timestampMillis;
+            this.capabilities = capabilities;
+        }
+
+        /**
+         * @return one of RESULT_NOT_AVAILABLE or RESULT_AVAILABLE
+         */
+        public int getResult() {
+            return result;
+        }
+
+        /**
+         * @return 1 for single frequency, 2 for dual frequency, 0 if Galileo is not available
+         */
+        public int getFrequency() {
+            return frequency;
+        }
+
+        public long getTimestampMillis() {
+            return timestampMillis;
+        }
+
+        /**
+         * @return the bands found by the detection, or null if they were not recorded with this entry
+         */
+        public GnssCapabilities getCapabilities() {
+            return capabilities;
+        }
+    }
+
+    private final SharedPreferences prefs;
+
+    private final LocationManager locationManager;
+
+    private long availableTtlMillis = DEFAULT_AVAILABLE_TTL_MILLIS;
+
+    private long notAvailableTtlMillis = DEFAULT_NOT_AVAILABLE_TTL_MILLIS;
+
+    private volatile boolean loaded;
+
+    /**
+     * Computed on first use by whichever of put() and the load gets there first
+     */
+    private volatile String fingerprint;
+
+    private volatile Entry entry;
+
+    public CapabilityCache(Context context, LocationManager locationManager) {
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.locationManager = locationManager;
+    }
+
+    public void setTtlMillis(long availableTtlMillis, long notAvailableTtlMillis) {
+        this.availableTtlMillis = availableTtlMillis;
+        this.notAvailableTtlMillis = notAvailableTtlMillis;
+    }
+
+    /**
+     * Reads the persisted entry on a background thread and calls back on the calling looper once it is in memory
+     */
+    public void load(final LoadCallback callback) {
+        final Looper looper = Looper.myLooper();
+        final Handler handler = new Handler(looper != null ? looper : Looper.getMainLooper());
+        Thread loader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loadBlocking();
+                handler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onLoaded(CapabilityCache.this);
+                    }
+                });
+            }
+        }, "galileo-capability-cache");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Returns the in-memory entry for this device, or null if nothing valid is cached. Never touches the disk.
+     */
+    public Entry get() {
+        return entry;
+    }
+
+    /**
+     * Returns true if the given entry is older than the TTL for its result and should be verified again
+     */
+    public boolean isStale(Entry cached) {
+        final long ttl = cached.result == RESULT_AVAILABLE ? availableTtlMillis : notAvailableTtlMillis;
+        final long age = System.currentTimeMillis() - cached.timestampMillis;
+        return age < 0 || age > ttl;
+    }
+
+    /**
+     * Stores a new result in memory and persists it asynchronously
+     */
+    public void put(int result, int frequency, GnssCapabilities capabilities) {
+        final Entry updated = new Entry(result, frequency, System.currentTimeMillis(), capabilities);
+        synchronized (this) {
+            entry = updated;
+        }
+        prefs.edit()
+                .putInt(KEY_VERSION, VERSION)
+                .putString(KEY_FINGERPRINT, getFingerprint())
+                .putInt(KEY_RESULT, updated.result)
+                .putInt(KEY_FREQUENCY, updated.frequency)
+                .putLong(KEY_TIMESTAMP, updated.timestampMillis)
+                .putString(KEY_BANDS, capabilities != null ? capabilities.encode() : null)
+                .apply();
+    }
+
+    private void loadBlocking() {
+        final String fingerprint = getFingerprint();
+
+        if (prefs.contains(LEGACY_KEY_ENABLED)) {
+            // Legacy results were never tied to a build, so they can't be trusted.
+            prefs.edit().remove(LEGACY_KEY_ENABLED).remove(LEGACY_KEY_FREQUENCY).apply();
+        }
+
+        final int result = prefs.getInt(KEY_RESULT, RESULT_UNKNOWN);
+        if (prefs.getInt(KEY_VERSION, 0) == VERSION
+                && result != RESULT_UNKNOWN
+                && fingerprint.equals(prefs.getString(KEY_FINGERPRINT, null))) {
+            final Entry persisted = new Entry(result, prefs.getInt(KEY_FREQUENCY, 0), prefs.getLong(KEY_TIMESTAMP, 0),
+                    GnssCapabilities.decode(prefs.getString(KEY_BANDS, null)));
+            synchronized (this) {
+                // A result put while loading is newer than the persisted one
+                if (entry == null) {
+                    entry = persisted;
+                }
+            }
+        }
+
+        loaded = true;
+    }
+
+    private String getFingerprint() {
+        String result = fingerprint;
+        if (result == null) {
+            // Computing it twice on a race is harmless, the value is the same
+            result = computeFingerprint();
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    /**
+     * Identifies the device, OS build and GNSS hardware the cached result was measured on
+     */
+    private String computeFingerprint() {
+        StringBuilder builder = new StringBuilder(Build.FINGERPRINT)
+                .append('|').append(Build.VERSION.SDK_INT);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P && locationManager != null) {
+            builder.append('|').append(locationManager.getGnssYearOfHardware())
+                    .append('|').append(locationManager.getGnssHardwareModelName());
+        }
+        return builder.toString();
+    }
+}
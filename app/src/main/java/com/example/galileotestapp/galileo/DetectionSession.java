@@ -0,0 +1,265 @@
+package com.example.galileotestapp.galileo;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * A single, time-bounded Galileo detection run.
+ *
+ * The session owns the GnssSource while it runs. It stops the source itself when the answer is confirmed, when the
+ * time budget runs out or when it is cancelled, so the GNSS receiver is never left running after a check.
+ *
+ * Epochs and fixes may be reported from any thread. The finished callback and the deadline run on the looper of the
+ * thread that created the session.
+ */
+public class DetectionSession {
+
+    public static final long DEFAULT_BUDGET_MILLIS = 60000;
+
+    /**
+     * Number of status epochs to keep listening for a second Galileo band after Galileo was first seen
+     */
+    public static final int DEFAULT_CONFIRMATION_EPOCHS = 10;
+
+    /**
+     * Returned by the milestone getters for a milestone the session did not reach
+     */
+    public static final long NOT_REACHED = -1;
+
+    public interface Callback {
+        /**
+         * Called once, on the session looper, when the session ends for any reason other than cancellation
+         */
+        void onSessionFinished(DetectionSession session);
+    }
+
+    private final GnssSource source;
+
+    private final Handler handler;
+
+    private final long budgetMillis;
+
+    private final int confirmationEpochs;
+
+    private final Callback callback;
+
+    private boolean running;
+
+    private boolean finished;
+
+    private boolean timedOut;
+
+    private boolean cancelled;
+
+    private long startMillis;
+
+    private long stopMillis;
+
+    private boolean hadFix;
+
+    private boolean galileoFound;
+
+    private boolean dualFrequency;
+
+    private int epochsSinceGalileo;
+
+    /**
+     * Times since the session start, NOT_REACHED until the milestone is reached
+     */
+    private long firstFixMillis = NOT_REACHED;
+
+    private long firstGalileoMillis = NOT_REACHED;
+
+    private long firstDualFrequencyMillis = NOT_REACHED;
+
+    private GnssCapabilities capabilities = GnssCapabilities.NONE;
+
+    private final Runnable deadline = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (DetectionSession.this) {
+                timedOut = true;
+                finish();
+            }
+        }
+    };
+
+    private final Runnable finishedCallback = new Runnable() {
+        @Override
+        public void run() {
+            callback.onSessionFinished(DetectionSession.this);
+        }
+    };
+
+    public DetectionSession(GnssSource source, long budgetMillis, int confirmationEpochs, Callback callback) {
+        this.source = source;
+        this.budgetMillis = budgetMillis;
+        this.confirmationEpochs = confirmationEpochs;
+        this.callback = callback;
+        Looper looper = Looper.myLooper();
+        this.handler = new Handler(looper != null ? looper : Looper.getMainLooper());
+    }
+
+    /**
+     * Starts the source, delivering its epochs to the given sink, and starts the time budget
+     */
+    public synchronized void start(EpochSink sink, GnssSource.Listener listener) {
+        if (running || finished) {
+            return;
+        }
+
+        startMillis = SystemClock.elapsedRealtime();
+        running = true;
+
+        source.start(sink, listener);
+        handler.postDelayed(deadline, budgetMillis);
+    }
+
+    /**
+     * Reports the outcome of one status epoch, finishing the session early once the answer is confirmed
+     *
+     * @param galileo true if a Galileo satellite was seen in this epoch
+     * @param dual    true if a non-E1 Galileo band was seen in this epoch
+     */
+    public synchronized void onEpoch(boolean galileo, boolean dual) {
+        if (!running) {
+            return;
+        }
+
+        if (galileo && !galileoFound) {
+            galileoFound = true;
+            firstGalileoMillis = elapsedMillis();
+        }
+        if (dual && !dualFrequency) {
+            dualFrequency = true;
+            firstDualFrequencyMillis = elapsedMillis();
+        }
+
+        if (dualFrequency) {
+            // Nothing better to find.
+            finish();
+        } else if (galileoFound && ++epochsSinceGalileo >= confirmationEpochs) {
+            finish();
+        }
+    }
+
+    /**
+     * Reports the bands and satellite counts seen so far in this session
+     */
+    public synchronized void setCapabilities(GnssCapabilities capabilities) {
+        if (running) {
+            this.capabilities = capabilities;
+        }
+    }
+
+    public synchronized void onFix() {
+        if (running && !hadFix) {
+            firstFixMillis = elapsedMillis();
+        }
+        hadFix = true;
+    }
+
+    /**
+     * Stops the session without reporting a result
+     */
+    public synchronized void cancel() {
+        if (!running) {
+            return;
+        }
+        cancelled = true;
+        teardown();
+    }
+
+    public synchronized boolean isRunning() {
+        return running;
+    }
+
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    public synchronized boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    public synchronized boolean hadFix() {
+        return hadFix;
+    }
+
+    public synchronized boolean isGalileoFound() {
+        return galileoFound;
+    }
+
+    public synchronized boolean isDualFrequency() {
+        return dualFrequency;
+    }
+
+    public synchronized GnssCapabilities getCapabilities() {
+        return capabilities;
+    }
+
+    /**
+     * Returns the time from the session start to the first fix, or NOT_REACHED
+     */
+    public synchronized long getTimeToFirstFixMillis() {
+        return firstFixMillis;
+    }
+
+    /**
+     * Returns the time from the session start to the first epoch with a Galileo satellite, or NOT_REACHED
+     */
+    public synchronized long getTimeToGalileoMillis() {
+        return firstGalileoMillis;
+    }
+
+    /**
+     * Returns the time from the session start to the first epoch with a non-E1 Galileo band, or NOT_REACHED
+     */
+    public synchronized long getTimeToDualFrequencyMillis() {
+        return firstDualFrequencyMillis;
+    }
+
+    /**
+     * Returns the time from the session start to the confirmed result, or NOT_REACHED if the session timed out, was
+     * cancelled or is still running
+     */
+    public synchronized long getTimeToResultMillis() {
+        return finished && !timedOut ? stopMillis - startMillis : NOT_REACHED;
+    }
+
+    /**
+     * Returns how long the receiver has been (or was) requested by this session, in milliseconds
+     */
+    public synchronized long getReceiverOnMillis() {
+        if (startMillis == 0) {
+            return 0;
+        }
+        return (running ? SystemClock.elapsedRealtime() : stopMillis) - startMillis;
+    }
+
+    private long elapsedMillis() {
+        return SystemClock.elapsedRealtime() - startMillis;
+    }
+
+    private void finish() {
+        if (!running) {
+            return;
+        }
+        finished = true;
+        teardown();
+        handler.post(finishedCallback);
+    }
+
+    private void teardown() {
+        running = false;
+        stopMillis = SystemClock.elapsedRealtime();
+        handler.removeCallbacks(deadline);
+
+        source.stop();
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.galileotestapp.galileo;
+
+import android.os.Handler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Handle of one availability check started with GalileoRelevance.checkAvailability().
+ *
+ * Completes exactly once: with a detection result, by timing out or by being cancelled. All checks waiting for the
+ * same detection complete with the same result. Callbacks run on the main looper. Thread-safe, get() may block any
+ * thread except the main thread, which delivers the result.
+ */
+public final class GalileoCheck implements Future<CapabilityCache.Entry> {
+
+    public interface Callback {
+        /**
+         * Called once, on the main looper, when the check completed, timed out or was cancelled
+         */
+        void onComplete(GalileoCheck check);
+    }
+
+    private static final int PENDING = 0;
+    private static final int COMPLETED = 1;
+    private static final int TIMED_OUT = 2;
+    private static final int CANCELLED = 3;
+
+    private final Handler handler;
+
+    private final GalileoRelevance owner;
+
+    private final List<Callback> callbacks = new ArrayList<>();
+
+    private int state = PENDING;
+
+    private CapabilityCache.Entry entry;
+
+    private final Runnable timeout = new Runnable() {
+        @Override
+        public void run() {
+            if (finish(TIMED_OUT, null)) {
+                owner.onCheckAbandoned(GalileoCheck.this);
+            }
+        }
+    };
+
+    GalileoCheck(Handler handler, GalileoRelevance owner, long timeoutMillis) {
+        this.handler = handler;
+        this.owner = owner;
+        handler.postDelayed(timeout, timeoutMillis);
+    }
+
+    /**
+     * Adds a callback, which is called right away (but never synchronously) if the check is already done
+     */
+    public void addCallback(Callback callback) {
+        synchronized (this) {
+            if (state == PENDING) {
+                callbacks.add(callback);
+                return;
+            }
+        }
+        post(callback);
+    }
+
+    /**
+     * Completes the check with the given result, has no effect if it is already done
+     */
+    void complete(CapabilityCache.Entry result) {
+        finish(COMPLETED, result);
+    }
+
+    /**
+     * Stops waiting for the result. The detection itself is stopped once no check or listener is waiting for it.
+     */
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (!finish(CANCELLED, null)) {
+            return false;
+        }
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                owner.onCheckAbandoned(GalileoCheck.this);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return state == CANCELLED;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return state != PENDING;
+    }
+
+    public synchronized boolean isTimedOut() {
+        return state == TIMED_OUT;
+    }
+
+    /**
+     * Returns the result, or null if the check is not completed with a result
+     */
+    public synchronized CapabilityCache.Entry getNow() {
+        return entry;
+    }
+
+    @Override
+    public synchronized CapabilityCache.Entry get() throws InterruptedException, ExecutionException {
+        while (state == PENDING) {
+            wait();
+        }
+        return getResult();
+    }
+
+    @Override
+    public synchronized CapabilityCache.Entry get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long remaining;
+        while (state == PENDING) {
+            remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return getResult();
+    }
+
+    private CapabilityCache.Entry getResult() throws ExecutionException {
+        if (state == CANCELLED) {
+            throw new CancellationException();
+        }
+        if (state == TIMED_OUT) {
+            throw new ExecutionException(new TimeoutException("Galileo detection did not finish in time"));
+        }
+        return entry;
+    }
+
+    private boolean finish(int finalState, CapabilityCache.Entry result) {
+        final Callback[] toCall;
+        synchronized (this) {
+            if (state != PENDING) {
+                return false;
+            }
+            state = finalState;
+            entry = result;
+            toCall = callbacks.toArray(new Callback[callbacks.size()]);
+            callbacks.clear();
+            notifyAll();
+        }
+        handler.removeCallbacks(timeout);
+        for (Callback callback : toCall) {
+            post(callback);
+        }
+        return true;
+    }
+
+    private void post(final Callback callback) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                callback.onComplete(GalileoCheck.this);
+            }
+        });
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.galileotestapp.galileo;
+
+import android.os.Handler;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Copy-on-write registry of result listeners with edge-triggered, coalesced delivery.
+ *
+ * Results are reported with update() on the main thread. Listeners are only called when the result actually changes,
+ * and updates within the coalescing window are collapsed into the last one, so a burst of detections costs a single
+ * round of callbacks. GalileoListeners only hear about result or frequency changes, GnssCapabilitiesListeners only
+ * about capability changes. Listeners without an executor are called on the main thread.
+ */
+final class GalileoListenerRegistry {
+
+    private static final class Registration {
+        final GalileoListener listener;
+        final GnssCapabilitiesListener capabilitiesListener;
+        final Executor executor;
+
+        Registration(GalileoListener listener, GnssCapabilitiesListener capabilitiesListener, Executor executor) {
+            this.listener = listener;
+            this.capabilitiesListener = capabilitiesListener;
+            this.executor = executor;
+        }
+    }
+
+    private final CopyOnWriteArrayList<Registration> registrations = new CopyOnWriteArrayList<>();
+
+    private final Handler handler;
+
+    private volatile long coalescingMillis;
+
+    // Main thread only state below.
+
+    /**
+     * Latest reported result, delivered or waiting for the coalescing window to end
+     */
+    private int result = CapabilityCache.RESULT_UNKNOWN;
+
+    private int frequency;
+
+    private GnssCapabilities capabilities;
+
+    private int deliveredResult = CapabilityCache.RESULT_UNKNOWN;
+
+    private int deliveredFrequency;
+
+    private GnssCapabilities deliveredCapabilities;
+
+    private boolean flushScheduled;
+
+    private final Runnable flush = new Runnable() {
+        @Override
+        public void run() {
+            flushScheduled = false;
+            deliver();
+        }
+    };
+
+    GalileoListenerRegistry(Handler handler) {
+        this.handler = handler;
+    }
+
+    void add(GalileoListener listener, Executor executor) {
+        registrations.add(new Registration(listener, null, executor));
+    }
+
+    void add(GnssCapabilitiesListener listener, Executor executor) {
+        registrations.add(new Registration(null, listener, executor));
+    }
+
+    /**
+     * Removes every registration of the given GalileoListener or GnssCapabilitiesListener
+     */
+    void remove(Object listener) {
+        for (Registration registration : registrations) {
+            if (registration.listener == listener || registration.capabilitiesListener == listener) {
+                registrations.remove(registration);
+            }
+        }
+    }
+
+    /**
+     * Sets how long changes are collected before listeners are called, 0 delivers every change right away
+     */
+    void setCoalescingMillis(long coalescingMillis) {
+        this.coalescingMillis = coalescingMillis;
+    }
+
+    /**
+     * Main thread only. Reports the current result, listeners are called if it differs from what they last got.
+     *
+     * @param capabilities the capabilities the result came from, or null if they are not known
+     */
+    void update(int result, int frequency, GnssCapabilities capabilities) {
+        this.result = result;
+        this.frequency = frequency;
+        this.capabilities = capabilities;
+
+        final long window = coalescingMillis;
+        if (window <= 0) {
+            handler.removeCallbacks(flush);
+            flushScheduled = false;
+            deliver();
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            handler.postDelayed(flush, window);
+        }
+    }
+
+    /**
+     * Main thread only. Forgets what was delivered, so the next update() reaches every listener even if unchanged.
+     */
+    void invalidate() {
+        result = CapabilityCache.RESULT_UNKNOWN;
+        deliveredResult = CapabilityCache.RESULT_UNKNOWN;
+        deliveredCapabilities = null;
+    }
+
+    /**
+     * Main thread only. Returns the latest reported result, which may not be delivered yet.
+     */
+    int getResult() {
+        return result;
+    }
+
+    private void deliver() {
+        final boolean resultChanged = result != deliveredResult || frequency != deliveredFrequency;
+        final boolean capabilitiesChanged = capabilities != null && !capabilities.equals(deliveredCapabilities);
+        if (!resultChanged && !capabilitiesChanged) {
+            return;
+        }
+        deliveredResult = result;
+        deliveredFrequency = frequency;
+        if (capabilities != null) {
+            deliveredCapabilities = capabilities;
+        }
+
+        final int newResult = result;
+        final int newFrequency = frequency;
+        final GnssCapabilities newCapabilities = capabilities;
+        for (final Registration registration : registrations) {
+            final Runnable call;
+            if (registration.listener != null && resultChanged) {
+                call = new Runnable() {
+                    @Override
+                    public void run() {
+                        if (newResult == CapabilityCache.RESULT_AVAILABLE) {
+                            registration.listener.onGalileoAvailable(newFrequency);
+                        } else {
+                            registration.listener.onGalileoNotAvailable();
+                        }
+                    }
+                };
+            } else if (registration.capabilitiesListener != null && capabilitiesChanged) {
+                call = new Runnable() {
+                    @Override
+                    public void run() {
+                        registration.capabilitiesListener.onGnssCapabilities(newCapabilities);
+                    }
+                };
+            } else {
+                continue;
+            }
+
+            if (registration.executor != null) {
+                registration.executor.execute(call);
+            } else {
+                call.run();
+            }
+        }
+    }
+}
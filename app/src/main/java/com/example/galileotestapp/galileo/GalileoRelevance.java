@@ -2,368 +2,676 @@ package com.example.galileotestapp.galileo;
 
 import android.annotation.SuppressLint;
 import android.content.Context;
-import android.content.SharedPreferences;
-import android.location.*;
-import android.os.Build;
-import android.os.Bundle;
-import android.text.TextUtils;
+import android.location.LocationManager;
+import android.location.LocationProvider;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
 import android.util.Log;
-import androidx.annotation.RequiresApi;
-import com.example.galileotestapp.R;
+import com.example.galileotestapp.BuildConfig;
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
 import com.example.galileotestapp.galileo.model.GnssType;
-import com.example.galileotestapp.galileo.model.SatelliteStatus;
-import com.example.galileotestapp.galileo.utils.CarrierFreqUtils;
 import com.example.galileotestapp.galileo.utils.GpsTestUtil;
-import com.example.galileotestapp.galileo.utils.MathUtils;
-
-import static com.example.galileotestapp.galileo.model.SatelliteStatus.NO_DATA;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Galileo Relevance implementation.
  *
  * The purpose of this component is to verify if the device can receive Galileo signals.
  */
-public class GalileoRelevance implements GpsListener {
+public class GalileoRelevance implements GnssSource.Listener {
     private static final String TAG = GalileoRelevance.class.getCanonicalName();
 
-    private static GalileoRelevance instance;
+    private static final GnssTrace.Sink LOGCAT_SINK = new GnssTrace.Sink() {
+        @Override
+        public void println(int level, String tag, String message) {
+            Log.println(level, tag, message);
+        }
+    };
 
+    /**
+     * Listener set with setListener(), kept so it can be replaced
+     */
     private GalileoListener listener;
+
+    private GnssCapabilitiesListener capabilitiesListener;
     //Reference app context in order to avoid any leaks.
     private Context context;
 
-    private SharedPreferences prefs;
+    private CapabilityCache cache;
+
+    /**
+     * Persisted percentiles of the session milestones, e.g. time to first fix
+     */
+    private SessionTimings timings;
+
+    /**
+     * Set when verifyAvailability() is called before the cache finished loading
+     */
+    private boolean pendingVerification;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * All result listeners, only called when the result changes so a background re-verification only reports changes
+     */
+    private final GalileoListenerRegistry listeners = new GalileoListenerRegistry(mainHandler);
+
+    /**
+     * Checks waiting for the cache or for the running detection, only touched on the main thread
+     */
+    private final List<GalileoCheck> pendingChecks = new ArrayList<>();
 
-    public static synchronized GalileoRelevance getInstance() {
-        if (instance == null) {
-            instance = new GalileoRelevance();
+    /**
+     * Set while the running detection was started by verifyAvailability() or to refresh a stale result, so it keeps
+     * running when all checks waiting for it are cancelled
+     */
+    private boolean backgroundVerification;
+
+    private final CapabilityCache.LoadCallback cacheLoadCallback = new CapabilityCache.LoadCallback() {
+        @Override
+        public void onLoaded(CapabilityCache loadedCache) {
+            if (pendingVerification) {
+                pendingVerification = false;
+                verifyAvailability();
+            }
+            if (!pendingChecks.isEmpty()) {
+                final GalileoCheck[] waiting = pendingChecks.toArray(new GalileoCheck[pendingChecks.size()]);
+                pendingChecks.clear();
+                for (GalileoCheck check : waiting) {
+                    startCheck(check);
+                }
+            }
         }
+    };
+
+    /**
+     * Initialized on first use of getInstance(), by the class loader, so no lock is needed
+     */
+    private static final class InstanceHolder {
+        static final GalileoRelevance INSTANCE = new GalileoRelevance();
+    }
 
-        return instance;
+    public static GalileoRelevance getInstance() {
+        return InstanceHolder.INSTANCE;
     }
 
+    private GalileoRelevance() {
+        //The ring keeps its own counts, snapshots read them directly.
+        mMetrics.register(GnssMetrics.COUNTER_DROPPED_EPOCHS, new GnssMetrics.Gauge() {
+            @Override
+            public long get() {
+                return mEpochRing.getDroppedCount();
+            }
+        });
+        mMetrics.register(GnssMetrics.COUNTER_COALESCED_EPOCHS, new GnssMetrics.Gauge() {
+            @Override
+            public long get() {
+                return mEpochRing.getCoalescedCount();
+            }
+        });
+    }
+
+    /**
+     * Replaces the listener set by the previous call, other registered listeners are kept
+     */
     public void setListener(GalileoListener listener) {
+        if (this.listener != null) {
+            listeners.remove(this.listener);
+        }
         this.listener = listener;
+        if (listener != null) {
+            listeners.add(listener, null);
+        }
+    }
+
+    /**
+     * Replaces the capabilities listener set by the previous call, other registered listeners are kept
+     */
+    public void setCapabilitiesListener(GnssCapabilitiesListener capabilitiesListener) {
+        if (this.capabilitiesListener != null) {
+            listeners.remove(this.capabilitiesListener);
+        }
+        this.capabilitiesListener = capabilitiesListener;
+        if (capabilitiesListener != null) {
+            listeners.add(capabilitiesListener, null);
+        }
     }
 
-    private int isGalileoEnabled() {
-        // 0 - never checked, 1 - false, 2 - true
-        return prefs.getInt("is_enabled", 0);
+    /**
+     * Registers a listener that is called on the main thread
+     */
+    public void addListener(GalileoListener listener) {
+        listeners.add(listener, null);
     }
 
-    private void setGalileoEnabled(int enabled, int frequency) {
-        prefs.edit()
-                .putInt("is_enabled", enabled)
-                .putInt("frequency", frequency)
-                .apply();
+    /**
+     * Registers a listener that is called through the given executor
+     */
+    public void addListener(GalileoListener listener, Executor executor) {
+        listeners.add(listener, executor);
     }
 
-    private int getFrequency() {
-        return prefs.getInt("frequency", 0);
+    public void addCapabilitiesListener(GnssCapabilitiesListener listener, Executor executor) {
+        listeners.add(listener, executor);
     }
 
-    //Allow all location updates, we want to get GALILEO signals ASAP when possible.
-    private final long minTime = 1; // Min Time between location updates, in milliseconds
-    private final float minDistance = 0; // Min Distance between location updates, in meters
+    public void removeListener(GalileoListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void removeCapabilitiesListener(GnssCapabilitiesListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Sets how long result changes are collected before listeners are called, 0 (the default) calls them right away
+     */
+    public void setDeliveryCoalescingMillis(long coalescingMillis) {
+        listeners.setCoalescingMillis(coalescingMillis);
+    }
+
+    private void deliverResult(int result, int frequency, GnssCapabilities capabilities) {
+        listeners.update(result, frequency, capabilities);
+    }
+
+    /**
+     * Profile of sessions someone waits for, aggressive by default to get GALILEO signals ASAP
+     */
+    private volatile SchedulingProfile schedulingProfile = SchedulingProfile.AGGRESSIVE;
+
+    /**
+     * Profile of sessions that only refresh a stale cached answer
+     */
+    private volatile SchedulingProfile backgroundSchedulingProfile = SchedulingProfile.BACKGROUND;
+
+    /**
+     * Adjusts the requests of the GNSS source as sessions progress, without re-creating it
+     */
+    private final GnssScheduler mScheduler = new GnssScheduler(schedulingProfile);
 
     private LocationManager locationManager;
     private LocationProvider provider;
 
-    private Location mLastLocation;
+    /**
+     * Adapter from the Android location APIs to the epochs the detection engine consumes, created on first use
+     */
+    private GnssSource mGnssSource;
+
+    private long sessionBudgetMillis = DetectionSession.DEFAULT_BUDGET_MILLIS;
+
+    private volatile DetectionSession session;
+
+    private final DetectionSession.Callback sessionCallback = new DetectionSession.Callback() {
+        @Override
+        public void onSessionFinished(DetectionSession finishedSession) {
+            GalileoRelevance.this.onSessionFinished(finishedSession);
+        }
+    };
+
+    private static final int EPOCH_RING_CAPACITY = 16;
+
+    /**
+     * Preallocated epoch slots handed from the GNSS callback thread to the analysis thread, so steady-state
+     * processing does not allocate and never runs on the UI thread
+     */
+    private final EpochRing mEpochRing = new EpochRing(EPOCH_RING_CAPACITY);
 
     /**
-     * Android M (6.0.1) and below status and listener
+     * Looper all GNSS and location callbacks are delivered on
      */
-    private GpsStatus mLegacyStatus;
+    private HandlerThread mCallbackThread;
 
-    private GpsStatus.Listener mLegacyStatusListener;
+    private EpochAnalysisThread mAnalysisThread;
 
     /**
-     * Android N (7.0) and above status and listeners
+     * Detection state across the epochs of the current session, owned by the analysis thread
      */
-    private GnssStatus mGnssStatus;
+    private final GalileoDetector mDetector = new GalileoDetector();
 
-    private GnssStatus.Callback mGnssStatusListener;
+    /**
+     * Incremented for every new session, the analysis thread resets mDetector when it changes
+     */
+    private volatile int mSessionGeneration;
 
-    private GnssMeasurementsEvent.Callback mGnssMeasurementsListener;
+    private int mDetectorGeneration;
 
-    private boolean gpsStarted;
+    /**
+     * Capabilities last reported to the session, owned by the analysis thread
+     */
+    private GnssCapabilities mReportedCapabilities;
 
-    public void init(Context context) {
-        this.context = context;
-        locationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
-        provider = locationManager.getProvider(LocationManager.GPS_PROVIDER);
+    /**
+     * Pipeline counters and histograms, recorded without allocating
+     */
+    private final GnssMetrics mMetrics = new GnssMetrics();
 
-        prefs = context.getSharedPreferences("galileo_prefs", Context.MODE_PRIVATE);
-    }
+    /**
+     * 10 hours at 1 Hz, about 1.5 MB outside the heap
+     */
+    private static final int FIX_HISTORY_CAPACITY = 36000;
 
-    public void verifyAvailability() {
-        //cached check.
-        if (isGalileoEnabled() != 0) {
-            if (listener != null) {
-                if (isGalileoEnabled() == 1) {
-                    listener.onGalileoNotAvailable();
-                } else {
-                    listener.onGalileoAvailable(getFrequency());
+    /**
+     * Fixes of all sessions, appended by the analysis thread
+     */
+    private final FixHistory mFixHistory = FixHistory.allocate(FIX_HISTORY_CAPACITY);
+
+    /**
+     * Latest satellites, location and detection result, written by the analysis thread once per drained batch and
+     * whenever the ring goes idle
+     */
+    private final DetectionStatePublisher mStatePublisher = new DetectionStatePublisher();
+
+    private final EpochAnalysisThread.IdleConsumer mEpochConsumer = new EpochAnalysisThread.IdleConsumer() {
+        @Override
+        public void onEpoch(EpochSnapshot epoch) {
+            final int generation = mSessionGeneration;
+            if (generation != mDetectorGeneration) {
+                //A new session started, forget the satellites and location of the previous one.
+                mDetector.reset();
+                mDetectorGeneration = generation;
+                mReportedCapabilities = null;
+                mStatePublisher.reset();
+            }
+
+            if (epoch.getKind() != EpochSnapshot.KIND_LOCATION) {
+                final long startNanos = System.nanoTime();
+                processEpoch(epoch);
+                recordEpoch(epoch, System.nanoTime() - startNanos);
+            } else {
+                mMetrics.increment(GnssMetrics.COUNTER_LOCATION_EPOCHS);
+                final DetectionSession current = session;
+                if (current != null) {
+                    current.onFix();
                 }
+                mScheduler.onFix();
+                mFixHistory.append(epoch.getTimeNanos(), epoch.getLatitude(), epoch.getLongitude(),
+                        epoch.getAltitude(), epoch.getAccuracy());
+                GnssTrace.trace(GnssTrace.Event.LOCATION, 0, GnssType.UNKNOWN, GnssTrace.NO_BAND,
+                        epoch.getLatitude(), epoch.getLongitude(), epoch.getAccuracy());
             }
+            mStatePublisher.record(epoch, mDetector);
+        }
 
-            return;
+        @Override
+        public void onBatchEnd() {
+            mStatePublisher.publish();
         }
 
-        //In order to retrieve a Galileo signal from GNSS we have to request location updates from the GPS antenna.
-        gpsStart();
+        @Override
+        public void onIdle() {
+            //No later epoch will publish what the last batches held back.
+            mStatePublisher.flush();
+        }
+    };
 
-        if (GpsTestUtil.isGnssStatusListenerSupported()) {
-            addGnssStatusListener();
-            addGnssMeasurementsListener();
-        } else {
-            //We have no way to check for Galileo Signals.
-            gpsStop();
-            setGalileoEnabled(1, 0);
-            if (listener != null) {
-                listener.onGalileoNotAvailable();
-            }
+    public void init(Context context) {
+        this.context = context;
+        locationManager = (LocationManager) context.getSystemService(Context.LOCATION_SERVICE);
+        provider = locationManager.getProvider(LocationManager.GPS_PROVIDER);
+
+        if (mCallbackThread == null) {
+            mCallbackThread = new HandlerThread("galileo-gnss", Process.THREAD_PRIORITY_BACKGROUND);
+            mCallbackThread.start();
+            mAnalysisThread = new EpochAnalysisThread(mEpochRing, mEpochConsumer);
+            mAnalysisThread.start();
         }
-    }
 
-    public void stop() {
-        if (GpsTestUtil.isGnssStatusListenerSupported()) {
-            removeGnssStatusListener();
-            removeGnssMeasurementsListener();
+        if (cache == null) {
+            //Loaded off the main thread, later checks are answered from memory.
+            cache = new CapabilityCache(context, locationManager);
+            cache.load(cacheLoadCallback);
         }
 
-        gpsStop();
-    }
+        if (timings == null) {
+            timings = new SessionTimings(context);
+            timings.load();
+        }
 
-    @SuppressLint("MissingPermission")
-    @RequiresApi(Build.VERSION_CODES.N)
-    private void addGnssStatusListener() {
-        mGnssStatusListener = new GnssStatus.Callback() {
-            @Override
-            public void onStarted() {
-                onGnssStarted();
-            }
+        //Keep a full trace in debug builds, release builds only record session level events and never format them.
+        GnssTrace.setSink(LOGCAT_SINK);
+        GnssTrace.setTraceLevel(BuildConfig.DEBUG ? GnssTrace.VERBOSE : GnssTrace.INFO);
+        GnssTrace.setLogLevel(BuildConfig.DEBUG ? GnssTrace.DEBUG : GnssTrace.OFF);
+    }
 
-            @Override
-            public void onStopped() {
-                onGnssStopped();
-            }
+    /**
+     * Returns the satellites, location and detection result after the latest analyzed epochs. Lock-free, can be
+     * polled from any thread.
+     */
+    public DetectionState getDetectionState() {
+        return mStatePublisher.get();
+    }
 
-            @Override
-            public void onFirstFix(int ttffMillis) {
-                onGnssFirstFix(ttffMillis);
-            }
+    /**
+     * Returns the pipeline metrics since the app started, for periodic export
+     */
+    public GnssMetrics.Snapshot getMetricsSnapshot() {
+        return mMetrics.snapshot();
+    }
 
-            @Override
-            public void onSatelliteStatusChanged(GnssStatus status) {
-                mGnssStatus = status;
+    /**
+     * Returns the percentiles of time to first fix, to Galileo, to a second Galileo band and to the result, across
+     * all sessions on this device
+     */
+    public SessionTimings getSessionTimings() {
+        return timings;
+    }
 
-                GalileoRelevance.this.onSatelliteStatusChanged(mGnssStatus);
-            }
-        };
-        locationManager.registerGnssStatusCallback(mGnssStatusListener);
+    /**
+     * Returns the fixes received across sessions, queryable by elapsed realtime range
+     */
+    public FixHistory getFixHistory() {
+        return mFixHistory;
     }
 
-    @SuppressLint("MissingPermission")
-    @RequiresApi(api = Build.VERSION_CODES.N)
-    private void addGnssMeasurementsListener() {
-        mGnssMeasurementsListener = new GnssMeasurementsEvent.Callback() {
-            @Override
-            public void onGnssMeasurementsReceived(GnssMeasurementsEvent event) {
-                GalileoRelevance.this.onGnssMeasurementsReceived(event);
-            }
+    /**
+     * Sets the maximum time a single detection session may keep the GNSS receiver on
+     */
+    public void setSessionBudgetMillis(long budgetMillis) {
+        this.sessionBudgetMillis = budgetMillis;
+    }
 
-            @Override
-            public void onStatusChanged(int status) {
-                final String statusMessage;
-                switch (status) {
-                    case STATUS_LOCATION_DISABLED:
-                        statusMessage = context.getString(R.string.gnss_measurement_status_loc_disabled);
-                        break;
-                    case STATUS_NOT_SUPPORTED:
-                        statusMessage = context.getString(R.string.gnss_measurement_status_not_supported);
-                        break;
-                    case STATUS_READY:
-                        statusMessage = context.getString(R.string.gnss_measurement_status_ready);
-                        break;
-                    default:
-                        statusMessage = context.getString(R.string.gnss_status_unknown);
-                }
-                Log.d(TAG, "GnssMeasurementsEvent.Callback.onStatusChanged() - " + statusMessage);
-            }
-        };
-        locationManager.registerGnssMeasurementsCallback(mGnssMeasurementsListener);
+    /**
+     * Returns the receiver-on time of the current or last detection session, in milliseconds
+     */
+    public long getReceiverOnMillis() {
+        return session != null ? session.getReceiverOnMillis() : 0;
     }
 
-    @RequiresApi(Build.VERSION_CODES.N)
-    private void removeGnssStatusListener() {
-        if (locationManager != null) {
-            locationManager.unregisterGnssStatusCallback(mGnssStatusListener);
+    /**
+     * Sets the profile of detection sessions that a check or listener waits for. A running session switches to it
+     * right away.
+     */
+    public void setSchedulingProfile(SchedulingProfile profile) {
+        final boolean switchRunning = mScheduler.getProfile() == schedulingProfile;
+        schedulingProfile = profile;
+        if (switchRunning) {
+            mScheduler.setProfile(profile);
         }
     }
 
-    @RequiresApi(api = Build.VERSION_CODES.N)
-    private void removeGnssMeasurementsListener() {
-        if (locationManager != null && mGnssMeasurementsListener != null) {
-            locationManager.unregisterGnssMeasurementsCallback(mGnssMeasurementsListener);
+    /**
+     * Sets the profile of detection sessions that only refresh a stale cached answer
+     */
+    public void setBackgroundSchedulingProfile(SchedulingProfile profile) {
+        final boolean switchRunning = mScheduler.getProfile() == backgroundSchedulingProfile;
+        backgroundSchedulingProfile = profile;
+        if (switchRunning) {
+            mScheduler.setProfile(profile);
         }
     }
 
-    @SuppressLint("MissingPermission")
-    @Override
-    public void gpsStart() {
-        if (gpsStarted) {
+    /**
+     * Returns the profile of the running or last detection session
+     */
+    public SchedulingProfile getSchedulingProfile() {
+        return mScheduler.getProfile();
+    }
+
+    public void verifyAvailability() {
+        if (!cache.isLoaded()) {
+            pendingVerification = true;
             return;
         }
 
-        locationManager.requestLocationUpdates(provider.getName(), minTime, minDistance, this);
-        gpsStarted = true;
+        listeners.invalidate();
+
+        //cached check.
+        CapabilityCache.Entry cached = cache.get();
+        if (cached != null) {
+            deliverResult(cached.getResult(), cached.getFrequency(), cached.getCapabilities());
+
+            if (!cache.isStale(cached)) {
+                return;
+            }
+            //The stale answer was delivered, re-verify in the background and only report again if it changed.
+        }
+
+        if (!GpsTestUtil.isGnssStatusListenerSupported()) {
+            //We have no way to check for Galileo Signals.
+            GnssTrace.trace(GnssTrace.Event.GALILEO_NOT_AVAILABLE);
+            cache.put(CapabilityCache.RESULT_NOT_AVAILABLE, 0, null);
+            deliverResult(CapabilityCache.RESULT_NOT_AVAILABLE, 0, null);
+            return;
+        }
+
+        //In order to retrieve a Galileo signal from GNSS we have to request location updates from the GPS antenna.
+        backgroundVerification = true;
+        startSession(cached != null ? backgroundSchedulingProfile : schedulingProfile);
     }
 
-    @Override
-    public void gpsStop() {
-        locationManager.removeUpdates(this);
-        gpsStarted = false;
+    /**
+     * Checks Galileo availability, returning a handle that completes with the result.
+     *
+     * A fresh cached result completes the check right away without touching the GNSS receiver, a stale one completes
+     * it right away and is verified again in the background. Otherwise the check waits for the running detection,
+     * starting one if needed, so concurrent checks never start the receiver twice. Can be called from any thread.
+     *
+     * @param timeoutMillis time after which the check completes as timed out if no result is known
+     */
+    public GalileoCheck checkAvailability(long timeoutMillis) {
+        final GalileoCheck check = new GalileoCheck(mainHandler, this, timeoutMillis);
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            startCheck(check);
+        } else {
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    startCheck(check);
+                }
+            });
+        }
+        return check;
     }
 
-    @Override
-    public void onGpsStatusChanged(int event, GpsStatus status) {
+    private void startCheck(GalileoCheck check) {
+        if (check.isDone()) {
+            return;
+        }
+        if (!cache.isLoaded()) {
+            pendingChecks.add(check);
+            return;
+        }
 
+        CapabilityCache.Entry cached = cache.get();
+        if (cached != null) {
+            check.complete(cached);
+            if (cache.isStale(cached)) {
+                backgroundVerification = true;
+                startSession(backgroundSchedulingProfile);
+            }
+            return;
+        }
+
+        if (!GpsTestUtil.isGnssStatusListenerSupported()) {
+            cache.put(CapabilityCache.RESULT_NOT_AVAILABLE, 0, null);
+            check.complete(cache.get());
+            return;
+        }
+
+        pendingChecks.add(check);
+        gpsStart();
     }
 
-    @Override
-    public void onGnssFirstFix(int ttffMillis) {
+    /**
+     * Called on the main thread when a check timed out or was cancelled
+     */
+    void onCheckAbandoned(GalileoCheck check) {
+        pendingChecks.remove(check);
+        if (pendingChecks.isEmpty() && !backgroundVerification) {
+            //Nobody is waiting for the result anymore.
+            gpsStop();
+        }
+    }
 
+    private void completePendingChecks(CapabilityCache.Entry entry) {
+        final GalileoCheck[] waiting = pendingChecks.toArray(new GalileoCheck[pendingChecks.size()]);
+        pendingChecks.clear();
+        for (GalileoCheck check : waiting) {
+            check.complete(entry);
+        }
     }
 
-    @SuppressLint("NewApi")
-    @Override
-    public void onSatelliteStatusChanged(GnssStatus status) {
-        updateGnssStatus(status);
-    }
-
-    @RequiresApi(api = Build.VERSION_CODES.N)
-    private synchronized void updateGnssStatus(GnssStatus status) {
-        boolean foundGalileo = false;
-        boolean isDualFrequency = false;
-
-        final int length = status.getSatelliteCount();
-        int count = 0;
-        while (count < length) {
-            SatelliteStatus satStatus = new SatelliteStatus(status.getSvid(count), GpsTestUtil.getGnssConstellationType(status.getConstellationType(count)),
-                    status.getCn0DbHz(count),
-                    status.hasAlmanacData(count),
-                    status.hasEphemerisData(count),
-                    status.usedInFix(count),
-                    status.getElevationDegrees(count),
-                    status.getAzimuthDegrees(count));
-            if (GpsTestUtil.isGnssCarrierFrequenciesSupported()) {
-                if (status.hasCarrierFrequencyHz(count)) {
-                    satStatus.setHasCarrierFrequency(true);
-                    satStatus.setCarrierFrequencyHz(status.getCarrierFrequencyHz(count));
-                }
+    public void stop() {
+        backgroundVerification = false;
+        gpsStop();
+        if (!pendingChecks.isEmpty()) {
+            final GalileoCheck[] waiting = pendingChecks.toArray(new GalileoCheck[pendingChecks.size()]);
+            pendingChecks.clear();
+            for (GalileoCheck check : waiting) {
+                check.cancel(false);
             }
+        }
+    }
 
-            if (satStatus.getGnssType() == GnssType.SBAS) {
-                satStatus.setSbasType(GpsTestUtil.getSbasConstellationType(satStatus.getSvid()));
-                //We can keep track of SBAS here if we wish.
-            }
+    /**
+     * Starts a new detection session, which starts the GNSS source and stops it again on its own once it is finished.
+     * Does nothing where the GnssStatus listener is not supported, below API 24.
+     */
+    public void gpsStart() {
+        startSession(schedulingProfile);
+    }
 
-            count++;
-
-            String satType = null;
-            GnssType type = satStatus.getGnssType();
-            switch (type) {
-                case NAVSTAR:
-                   satType = "NAVSTAR";
-                    break;
-                case GLONASS:
-                    satType = "GLONASS";
-                    break;
-                case QZSS:
-                    satType = "QZSS";
-                    break;
-                case BEIDOU:
-                    satType = "BEIDOU";
-                    break;
-                case GALILEO: {
-                    satType = "GALILEO";
-                    foundGalileo = true;
-                }
-                break;
-                case SBAS:
-                    satType = "SBAS";
-                    break;
-                case UNKNOWN:
-                    satType = "UNKNOWN";
-                    break;
+    /**
+     * Starts a new detection session with the given profile. A running session is kept, and only switches to the
+     * given profile if someone now waits for it.
+     */
+    @SuppressLint("NewApi")
+    private void startSession(SchedulingProfile profile) {
+        if (!GpsTestUtil.isGnssStatusListenerSupported()) {
+            //AndroidGnssSource needs the GnssStatus API.
+            return;
+        }
+        if (session != null && session.isRunning()) {
+            if (profile != backgroundSchedulingProfile) {
+                mScheduler.setProfile(profile);
             }
+            return;
+        }
 
-            String frequencyLabel = null;
-            if (GpsTestUtil.isGnssCarrierFrequenciesSupported()) {
-                if (satStatus.getCarrierFrequencyHz() != NO_DATA) {
-                    // Convert Hz to MHz
-                    float carrierMhz = MathUtils.toMhz(satStatus.getCarrierFrequencyHz());
-                    String carrierLabel = CarrierFreqUtils.getCarrierFrequencyLabel(type,
-                            satStatus.getSvid(),
-                            carrierMhz);
-                    if (carrierLabel != null) {
-                        frequencyLabel = carrierLabel;
-                    }
-
-                    //E1 is Galileo Single frequency
-                    if (foundGalileo && !TextUtils.isEmpty(frequencyLabel) && !frequencyLabel.equals("E1")) {
-                        isDualFrequency = true;
-                    }
-                }
-            }
-            Log.e(TAG, "Sattelite: " + satType + " - frequency=" + frequencyLabel);
+        if (mGnssSource == null) {
+            AndroidGnssSource source = new AndroidGnssSource(context, locationManager, provider.getName(),
+                    mCallbackThread.getLooper());
+            source.setMetrics(mMetrics);
+            mGnssSource = source;
+            mScheduler.setSource(source);
         }
 
-        if (foundGalileo) {
-            setGalileoEnabled(2, isDualFrequency ? 2: 1);
+        mScheduler.onSessionStarting(profile);
+        mSessionGeneration++;
+        session = new DetectionSession(mGnssSource, sessionBudgetMillis,
+                DetectionSession.DEFAULT_CONFIRMATION_EPOCHS, sessionCallback);
+        session.start(mEpochRing, this);
+    }
 
-            if (listener != null) {
-                listener.onGalileoAvailable(isDualFrequency ? 2 : 1);
-            }
+    public void gpsStop() {
+        if (session != null && session.isRunning()) {
+            session.cancel();
+            recordSession(session);
         }
     }
 
-    @Override
-    public void onGnssStarted() {
-
+    private void recordSession(DetectionSession endedSession) {
+        final long receiverOnMillis = endedSession.getReceiverOnMillis();
+        mMetrics.increment(GnssMetrics.COUNTER_SESSIONS);
+        mMetrics.add(GnssMetrics.COUNTER_RECEIVER_ON_MILLIS, receiverOnMillis);
+        mMetrics.record(GnssMetrics.HISTOGRAM_SESSION_MILLIS, receiverOnMillis);
+        timings.record(endedSession);
     }
 
-    @Override
-    public void onGnssStopped() {
+    private void onSessionFinished(DetectionSession finishedSession) {
+        GnssTrace.trace(GnssTrace.Event.SESSION_FINISHED, finishedSession.getReceiverOnMillis());
+        //End the analysis thread's park early, so it flushes the detection state now instead of after a timeout.
+        mEpochRing.wakeUp();
+        recordSession(finishedSession);
 
-    }
+        final GnssCapabilities capabilities = finishedSession.getCapabilities();
+        if (finishedSession.isGalileoFound()) {
+            final int frequency = finishedSession.isDualFrequency() ? 2 : 1;
+            GnssTrace.trace(GnssTrace.Event.GALILEO_DETECTED, frequency);
+            cache.put(CapabilityCache.RESULT_AVAILABLE, frequency, capabilities);
 
-    @Override
-    public void onGnssMeasurementsReceived(GnssMeasurementsEvent event) {
+            deliverResult(CapabilityCache.RESULT_AVAILABLE, frequency, capabilities);
+        } else {
+            GnssTrace.trace(GnssTrace.Event.GALILEO_NOT_AVAILABLE);
+            //Only remember a negative answer if the receiver actually got a view of the sky.
+            if (finishedSession.hadFix()) {
+                cache.put(CapabilityCache.RESULT_NOT_AVAILABLE, 0, capabilities);
+            }
+
+            //A stale positive answer is only overruled by a session that had a fix.
+            final int reported = listeners.getResult();
+            if (reported == CapabilityCache.RESULT_UNKNOWN
+                    || (reported == CapabilityCache.RESULT_AVAILABLE && finishedSession.hadFix())) {
+                deliverResult(CapabilityCache.RESULT_NOT_AVAILABLE, 0, capabilities);
+            }
+        }
 
+        backgroundVerification = false;
+        //Same rule for waiting checks, a session without a fix doesn't overrule a cached answer.
+        CapabilityCache.Entry entry = cache.get();
+        if (entry == null) {
+            entry = new CapabilityCache.Entry(CapabilityCache.RESULT_NOT_AVAILABLE, 0, System.currentTimeMillis(),
+                    capabilities);
+        }
+        completePendingChecks(entry);
     }
 
     @Override
-    public void onLocationChanged(Location location) {
-        mLastLocation = location;
-        Log.w(TAG, "Location: lat=" + location.getLatitude() + ", lng=" + location.getLongitude() + ", acc=" + location.getAccuracy());
+    public void onGnssFirstFix(int ttffMillis) {
+        GnssTrace.trace(GnssTrace.Event.FIRST_FIX, ttffMillis);
+        final DetectionSession current = session;
+        if (current != null) {
+            current.onFix();
+        }
+        mScheduler.onFix();
     }
 
-    @Override
-    public void onStatusChanged(String s, int i, Bundle bundle) {
+    private void processEpoch(EpochSnapshot epoch) {
+        mDetector.process(epoch);
+        if (mDetector.isGalileoFound()) {
+            //Only the confirmation of a second band is left, the profile may back off.
+            mScheduler.onGalileo();
+        }
 
+        final DetectionSession current = session;
+        if (current == null) {
+            return;
+        }
+        //Same instance until a new band or a higher satellite count shows up.
+        final GnssCapabilities capabilities = mDetector.getCapabilities();
+        if (capabilities != mReportedCapabilities) {
+            mReportedCapabilities = capabilities;
+            current.setCapabilities(capabilities);
+        }
+        //Only status epochs count towards confirmation, measurements can only confirm a second band early.
+        if (epoch.getKind() == EpochSnapshot.KIND_STATUS || mDetector.isDualFrequency()) {
+            current.onEpoch(mDetector.isGalileoFound(), mDetector.isDualFrequency());
+        }
     }
 
-    @Override
-    public void onProviderEnabled(String s) {
-
+    private void recordEpoch(EpochSnapshot epoch, long processingNanos) {
+        mMetrics.record(GnssMetrics.HISTOGRAM_PROCESSING_NANOS, processingNanos);
+        if (epoch.getKind() == EpochSnapshot.KIND_STATUS) {
+            mMetrics.increment(GnssMetrics.COUNTER_STATUS_EPOCHS);
+            mMetrics.record(GnssMetrics.HISTOGRAM_SATELLITES_PER_EPOCH, epoch.getSatelliteCount());
+        } else {
+            mMetrics.increment(GnssMetrics.COUNTER_MEASUREMENT_EPOCHS);
+            mMetrics.record(GnssMetrics.HISTOGRAM_SIGNALS_PER_EPOCH, epoch.getSatelliteCount());
+        }
     }
 
     @Override
-    public void onProviderDisabled(String s) {
+    public void onGnssStarted() {
+        GnssTrace.trace(GnssTrace.Event.GNSS_STARTED);
+    }
 
+    @Override
+    public void onGnssStopped() {
+        GnssTrace.trace(GnssTrace.Event.GNSS_STOPPED);
     }
 }
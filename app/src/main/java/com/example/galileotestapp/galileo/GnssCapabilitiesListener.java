@@ -0,0 +1,12 @@
+package com.example.galileotestapp.galileo;
+
+/**
+ * Receives the per-constellation bands found by a detection, alongside the GalileoListener result
+ */
+public interface GnssCapabilitiesListener {
+    /**
+     * Called when the bands and satellite counts of the latest session or cached entry change. Not called for results
+     * that have no capabilities, e.g. when GNSS status is not supported.
+     */
+    void onGnssCapabilities(GnssCapabilities capabilities);
+}
@@ -0,0 +1,96 @@
+package com.example.galileotestapp.galileo;
+
+/**
+ * Applies a SchedulingProfile to the GNSS source as a detection session progresses.
+ *
+ * The session moves from searching to fixed to Galileo seen, and each step, as well as switching to another profile,
+ * only updates the requests of the running source. Milestones may be reported from any thread and on every epoch,
+ * requests are only touched when they change.
+ */
+class GnssScheduler {
+
+    private static final int PHASE_SEARCHING = 0;
+
+    private static final int PHASE_FIXED = 1;
+
+    private static final int PHASE_GALILEO = 2;
+
+    private AndroidGnssSource source;
+
+    private SchedulingProfile profile;
+
+    /**
+     * Written under the lock, read without it so milestones that were already reached cost a volatile read
+     */
+    private volatile int phase = PHASE_SEARCHING;
+
+    GnssScheduler(SchedulingProfile profile) {
+        this.profile = profile;
+    }
+
+    synchronized void setSource(AndroidGnssSource source) {
+        this.source = source;
+        apply();
+    }
+
+    synchronized SchedulingProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Switches to the given profile, a running session continues with it in its current phase
+     */
+    synchronized void setProfile(SchedulingProfile profile) {
+        if (this.profile == profile) {
+            return;
+        }
+        this.profile = profile;
+        apply();
+    }
+
+    /**
+     * Starts over at the search phase, before a new session starts the source
+     */
+    synchronized void onSessionStarting(SchedulingProfile profile) {
+        this.profile = profile;
+        phase = PHASE_SEARCHING;
+        apply();
+    }
+
+    void onFix() {
+        if (phase < PHASE_FIXED) {
+            advance(PHASE_FIXED);
+        }
+    }
+
+    void onGalileo() {
+        if (phase < PHASE_GALILEO) {
+            advance(PHASE_GALILEO);
+        }
+    }
+
+    private synchronized void advance(int newPhase) {
+        if (newPhase > phase) {
+            phase = newPhase;
+            apply();
+        }
+    }
+
+    private void apply() {
+        if (source == null) {
+            return;
+        }
+        final long intervalMillis;
+        switch (phase) {
+            case PHASE_GALILEO:
+                intervalMillis = profile.getGalileoIntervalMillis();
+                break;
+            case PHASE_FIXED:
+                intervalMillis = profile.getFixIntervalMillis();
+                break;
+            default:
+                intervalMillis = profile.getSearchIntervalMillis();
+        }
+        source.setRequest(intervalMillis, profile.getMinDistanceMeters(), profile.isMeasurements());
+    }
+}
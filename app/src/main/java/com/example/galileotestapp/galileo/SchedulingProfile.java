@@ -0,0 +1,86 @@
+package com.example.galileotestapp.galileo;
+
+/**
+ * How hard a detection session drives the GNSS receiver, trading detection latency against power.
+ *
+ * A profile sets the location request interval for each phase of a session: searching for a first fix, after the
+ * first fix, and after the first Galileo satellite, when only the confirmation of a second band is left. It also sets
+ * whether raw measurements are requested, which can confirm a second band early but keeps more of the chipset busy.
+ * Each phase is closer to the answer than the previous one, so the built-in profiles never speed up as it advances.
+ */
+public final class SchedulingProfile {
+
+    /**
+     * Maximum update rate for the whole session, the fastest answer
+     */
+    public static final SchedulingProfile AGGRESSIVE = new SchedulingProfile("aggressive", 1, 1, 1, 0, true);
+
+    /**
+     * 1 Hz until the first fix, then every 2 s for the rest of the session
+     */
+    public static final SchedulingProfile BALANCED = new SchedulingProfile("balanced", 1000, 2000, 2000, 0, true);
+
+    /**
+     * Slow updates and status only, for re-checking a known answer
+     */
+    public static final SchedulingProfile BACKGROUND = new SchedulingProfile("background", 1000, 5000, 5000, 0,
+            false);
+
+    private final String name;
+
+    private final long searchIntervalMillis;
+
+    private final long fixIntervalMillis;
+
+    private final long galileoIntervalMillis;
+
+    private final float minDistanceMeters;
+
+    private final boolean measurements;
+
+    /**
+     * @param searchIntervalMillis  location request interval until the first fix
+     * @param fixIntervalMillis     location request interval after the first fix, until a Galileo satellite is seen
+     * @param galileoIntervalMillis location request interval after the first Galileo satellite
+     * @param minDistanceMeters     min distance between location updates
+     * @param measurements          true to register for raw GNSS measurements
+     */
+    public SchedulingProfile(String name, long searchIntervalMillis, long fixIntervalMillis,
+                             long galileoIntervalMillis, float minDistanceMeters, boolean measurements) {
+        this.name = name;
+        this.searchIntervalMillis = searchIntervalMillis;
+        this.fixIntervalMillis = fixIntervalMillis;
+        this.galileoIntervalMillis = galileoIntervalMillis;
+        this.minDistanceMeters = minDistanceMeters;
+        this.measurements = measurements;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSearchIntervalMillis() {
+        return searchIntervalMillis;
+    }
+
+    public long getFixIntervalMillis() {
+        return fixIntervalMillis;
+    }
+
+    public long getGalileoIntervalMillis() {
+        return galileoIntervalMillis;
+    }
+
+    public float getMinDistanceMeters() {
+        return minDistanceMeters;
+    }
+
+    public boolean isMeasurements() {
+        return measurements;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.galileotestapp.galileo;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+/**
+ * Percentiles of the session milestones, persisted across sessions and app restarts.
+ *
+ * Every finished or cancelled session adds the milestones it reached to one QuantileSketch per milestone. The
+ * persisted sketches are read on a background thread and merged into the ones recorded meanwhile, so recording never
+ * waits for the disk. Thread-safe.
+ */
+public class SessionTimings {
+
+    public static final int TIME_TO_FIRST_FIX = 0;
+
+    public static final int TIME_TO_GALILEO = 1;
+
+    public static final int TIME_TO_DUAL_FREQUENCY = 2;
+
+    public static final int TIME_TO_RESULT = 3;
+
+    private static final int MILESTONE_COUNT = 4;
+
+    private static final String PREFS_NAME = "galileo_prefs";
+
+    private static final String[] KEYS = {
+            "timing_first_fix", "timing_galileo", "timing_dual_frequency", "timing_result"
+    };
+
+    private final SharedPreferences prefs;
+
+    private final QuantileSketch[] sketches = new QuantileSketch[MILESTONE_COUNT];
+
+    /**
+     * Set once the persisted sketches are merged, nothing is written before so the history is never overwritten
+     */
+    private boolean loaded;
+
+    public SessionTimings(Context context) {
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        for (int i = 0; i < MILESTONE_COUNT; i++) {
+            sketches[i] = new QuantileSketch();
+        }
+    }
+
+    /**
+     * Reads the persisted sketches on a background thread
+     */
+    public void load() {
+        Thread loader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                final QuantileSketch[] persisted = new QuantileSketch[MILESTONE_COUNT];
+                for (int i = 0; i < MILESTONE_COUNT; i++) {
+                    persisted[i] = QuantileSketch.decode(prefs.getString(KEYS[i], null));
+                }
+                synchronized (SessionTimings.this) {
+                    for (int i = 0; i < MILESTONE_COUNT; i++) {
+                        if (persisted[i] != null) {
+                            sketches[i].merge(persisted[i]);
+                        }
+                    }
+                    loaded = true;
+                }
+            }
+        }, "galileo-session-timings");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Adds the milestones the session reached and persists the sketches asynchronously
+     */
+    public void record(DetectionSession session) {
+        final SharedPreferences.Editor editor;
+        synchronized (this) {
+            add(TIME_TO_FIRST_FIX, session.getTimeToFirstFixMillis());
+            add(TIME_TO_GALILEO, session.getTimeToGalileoMillis());
+            add(TIME_TO_DUAL_FREQUENCY, session.getTimeToDualFrequencyMillis());
+            add(TIME_TO_RESULT, session.getTimeToResultMillis());
+            if (!loaded) {
+                //Persisted with the next session, once merged with the history.
+                return;
+            }
+            editor = prefs.edit();
+            for (int i = 0; i < MILESTONE_COUNT; i++) {
+                editor.putString(KEYS[i], sketches[i].encode());
+            }
+        }
+        editor.apply();
+    }
+
+    /**
+     * Returns the time to reach the milestone at the given quantile (0 to 1), in milliseconds, or NaN if no session
+     * reached it yet
+     *
+     * @param milestone one of the TIME_TO_* constants
+     */
+    public synchronized double getQuantileMillis(int milestone, double quantile) {
+        return sketches[milestone].getQuantile(quantile);
+    }
+
+    /**
+     * Returns how many sessions reached the milestone
+     */
+    public synchronized long getCount(int milestone) {
+        return sketches[milestone].getCount();
+    }
+
+    private void add(int milestone, long millis) {
+        if (millis != DetectionSession.NOT_REACHED) {
+            sketches[milestone].add(millis);
+        }
+    }
+}
@@ -32,8 +32,6 @@ import com.example.galileotestapp.galileo.model.SbasType;
 
 import java.lang.reflect.InvocationTargetException;
 
-import static com.example.galileotestapp.galileo.model.GnssType.*;
-
 public class GpsTestUtil {
 
     private static final String TAG = "GpsTestUtil";
@@ -44,8 +42,6 @@ public class GpsTestUtil {
 
     private static final String NM_OUTPUT_TAG = "GpsOutputNav";
 
-    private static StringBuilder mNmeaOutput = new StringBuilder();
-
     /**
      * Returns the Global Navigation Satellite System (GNSS) for a satellite given the PRN.  For
      * Android 6.0.1 (API Level 23) and lower.  Android 7.0 and higher should use getGnssConstellationType()
@@ -55,39 +51,7 @@ public class GpsTestUtil {
      */
     @Deprecated
     public static GnssType getGnssType(int prn) {
-        if (prn >= 1 && prn <= 32) {
-            return NAVSTAR;
-        } else if (prn == 33) {
-            return SBAS;
-        } else if (prn == 39) {
-            // See Issue #205
-            return SBAS;
-        } else if (prn >= 40 && prn <= 41) {
-            // See Issue #92
-            return SBAS;
-        } else if (prn == 46) {
-            return SBAS;
-        } else if (prn == 48) {
-            return SBAS;
-        } else if (prn == 49) {
-            return SBAS;
-        } else if (prn == 51) {
-            return SBAS;
-        } else if (prn >= 65 && prn <= 96) {
-            // See Issue #26 for details
-            return GLONASS;
-        } else if (prn >= 193 && prn <= 200) {
-            // See Issue #54 for details
-            return QZSS;
-        } else if (prn >= 201 && prn <= 235) {
-            // See Issue #54 for details
-            return BEIDOU;
-        } else if (prn >= 301 && prn <= 336) {
-            // See https://github.com/barbeau/gpstest/issues/58#issuecomment-252235124 for details
-            return GALILEO;
-        } else {
-            return UNKNOWN;
-        }
+        return SatelliteTables.getGnssTypeForPrn(prn);
     }
 
     /**
@@ -102,24 +66,7 @@ public class GpsTestUtil {
      */
     @RequiresApi(api = Build.VERSION_CODES.N)
     public static GnssType getGnssConstellationType(int gnssConstellationType) {
-        switch (gnssConstellationType) {
-            case GnssStatus.CONSTELLATION_GPS:
-                return NAVSTAR;
-            case GnssStatus.CONSTELLATION_GLONASS:
-                return GLONASS;
-            case GnssStatus.CONSTELLATION_BEIDOU:
-                return BEIDOU;
-            case GnssStatus.CONSTELLATION_QZSS:
-                return QZSS;
-            case GnssStatus.CONSTELLATION_GALILEO:
-                return GALILEO;
-            case GnssStatus.CONSTELLATION_SBAS:
-                return SBAS;
-            case GnssStatus.CONSTELLATION_UNKNOWN:
-                return UNKNOWN;
-            default:
-                return UNKNOWN;
-        }
+        return SatelliteTables.getGnssTypeForConstellation(gnssConstellationType);
     }
 
     /**
@@ -131,16 +78,7 @@ public class GpsTestUtil {
      */
     @RequiresApi(api = Build.VERSION_CODES.N)
     public static SbasType getSbasConstellationType(int svid) {
-        if (svid == 120 || svid == 123 || svid == 126 || svid == 136) {
-            return SbasType.EGNOS;
-        } else if (svid == 131 || svid == 133 || svid == 135 || svid == 138) {
-            return SbasType.WAAS;
-        } else if (svid == 127 || svid == 128 || svid == 139) {
-            return SbasType.GAGAN;
-        } else if (svid == 129 || svid == 137) {
-            return SbasType.MSAS;
-        }
-        return SbasType.UNKNOWN;
+        return SatelliteTables.getSbasType(svid);
     }
 
     /**
@@ -165,42 +103,7 @@ public class GpsTestUtil {
      */
     @RequiresApi(api = Build.VERSION_CODES.N)
     public static SatelliteName getSatelliteName(GnssType gnssType, int svid) {
-        // TODO - support more satellite names
-        switch (gnssType) {
-            case NAVSTAR:
-                return SatelliteName.UNKNOWN;
-            case GLONASS:
-                return SatelliteName.UNKNOWN;
-            case BEIDOU:
-                return SatelliteName.UNKNOWN;
-            case QZSS:
-                return SatelliteName.UNKNOWN;
-            case GALILEO:
-                return SatelliteName.UNKNOWN;
-            case SBAS:
-                if (svid == 120) {
-                    return SatelliteName.INMARSAT_3F2;
-                } else if (svid == 123) {
-                    return SatelliteName.ASTRA_5B;
-                } else if (svid == 126) {
-                    return SatelliteName.INMARSAT_3F5;
-                } else if (svid == 131) {
-                    return SatelliteName.GEO5;
-                } else if (svid == 133) {
-                    return SatelliteName.INMARSAT_4F3;
-                } else if (svid == 135) {
-                    return SatelliteName.GALAXY_15;
-                } else if (svid == 136) {
-                    return SatelliteName.SES_5;
-                } else if (svid == 138) {
-                    return SatelliteName.ANIK;
-                }
-                return SatelliteName.UNKNOWN;
-            case UNKNOWN:
-                return SatelliteName.UNKNOWN;
-            default:
-                return SatelliteName.UNKNOWN;
-        }
+        return SatelliteTables.getSatelliteName(gnssType, svid);
     }
 
     /**
@@ -271,6 +174,7 @@ public class GpsTestUtil {
      *
      * @return a unique key to identify this satellite using a combination of both the svid and
      * constellation type
+     * @see SignalKeys for allocation-free keys that can also identify a single band of a satellite
      */
     public static String createGnssSatelliteKey(int svid, int constellationType) {
         return String.valueOf(svid) + " " + String.valueOf(constellationType);
@@ -285,13 +189,13 @@ public class GpsTestUtil {
      *                  log
      */
     public static void writeNmeaToLog(String nmea, long timestamp) {
-        mNmeaOutput.setLength(0);
+        //A builder per call, this may be called from several callback threads at once.
         if (timestamp != Long.MIN_VALUE) {
-            mNmeaOutput.append(timestamp);
-            mNmeaOutput.append(",");
+            Log.d(NMEA_OUTPUT_TAG, new StringBuilder(nmea.length() + 21).append(timestamp).append(',')
+                    .append(nmea).toString());
+        } else {
+            Log.d(NMEA_OUTPUT_TAG, nmea);
         }
-        mNmeaOutput.append(nmea);
-        Log.d(NMEA_OUTPUT_TAG, mNmeaOutput.toString());
     }
 
     /**
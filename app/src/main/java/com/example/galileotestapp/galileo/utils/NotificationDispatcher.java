@@ -0,0 +1,252 @@
+package com.example.galileotestapp.galileo.utils;
+
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+import android.service.notification.StatusBarNotification;
+
+import androidx.annotation.RequiresApi;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Posts notifications off the main thread, without repeating or flooding them.
+ *
+ * Requests are collected for a short batch window and only the latest message per notification id is kept. A message
+ * equal to the one still shown under its id is dropped, and each channel posts at most once per minimum interval.
+ * Notifications are dismissed by the user or auto-cancelled, so from API 23 on the NotificationManager tells whether
+ * one is still shown, and on older versions it is assumed shown for POSTED_TTL_MILLIS after posting. The active
+ * notifications are queried at most once per minimum interval, so repeated messages cost no binder call.
+ * Notifications are built and handed to the NotificationManager on a background thread, so callers never block on
+ * binder calls.
+ */
+public class NotificationDispatcher {
+
+    public static final long DEFAULT_BATCH_WINDOW_MILLIS = 300;
+
+    public static final long DEFAULT_MIN_INTERVAL_MILLIS = 5000;
+
+    /**
+     * Time a posted message suppresses the same message below API 23, where active notifications can't be queried
+     */
+    public static final long POSTED_TTL_MILLIS = 60000;
+
+    private static NotificationDispatcher instance;
+
+    private static final class Posted {
+        final String message;
+        final long timeMillis;
+
+        Posted(String message, long timeMillis) {
+            this.message = message;
+            this.timeMillis = timeMillis;
+        }
+    }
+
+    private static final class Pending {
+        final NotificationHelper.Channel channel;
+        final String message;
+
+        Pending(NotificationHelper.Channel channel, String message) {
+            this.channel = channel;
+            this.message = message;
+        }
+    }
+
+    private final Context mContext;
+
+    private final Handler mHandler;
+
+    private volatile long mBatchWindowMillis = DEFAULT_BATCH_WINDOW_MILLIS;
+
+    private volatile long mMinIntervalMillis = DEFAULT_MIN_INTERVAL_MILLIS;
+
+    // State below is only touched on the dispatcher thread.
+
+    /**
+     * Latest requested message per notification id, not posted yet
+     */
+    private final Map<Integer, Pending> mPending = new HashMap<>();
+
+    /**
+     * Message last posted per notification id, it may have been dismissed since
+     */
+    private final Map<Integer, Posted> mPosted = new HashMap<>();
+
+    private final Map<NotificationHelper.Channel, Long> mLastPostMillis =
+            new EnumMap<>(NotificationHelper.Channel.class);
+
+    /**
+     * Ids of the notifications shown, as of the last query of the NotificationManager plus the ones posted since
+     */
+    private final Set<Integer> mActiveIds = new HashSet<>();
+
+    /**
+     * Time from which mActiveIds is queried again
+     */
+    private long mActiveIdsExpiryMillis;
+
+    private NotificationManager mNotificationManager;
+
+    private long mFlushAtMillis = Long.MAX_VALUE;
+
+    private final Runnable mFlush = new Runnable() {
+        @Override
+        public void run() {
+            mFlushAtMillis = Long.MAX_VALUE;
+            flush();
+        }
+    };
+
+    public static synchronized NotificationDispatcher getInstance(Context context) {
+        if (instance == null) {
+            instance = new NotificationDispatcher(context);
+        }
+        return instance;
+    }
+
+    private NotificationDispatcher(Context context) {
+        mContext = context.getApplicationContext();
+        HandlerThread thread = new HandlerThread("galileo-notifications", Process.THREAD_PRIORITY_BACKGROUND);
+        thread.start();
+        mHandler = new Handler(thread.getLooper());
+    }
+
+    public void setBatchWindowMillis(long batchWindowMillis) {
+        mBatchWindowMillis = batchWindowMillis;
+    }
+
+    /**
+     * Sets the minimum time between two notifications posted on the same channel
+     */
+    public void setMinIntervalMillis(long minIntervalMillis) {
+        mMinIntervalMillis = minIntervalMillis;
+    }
+
+    /**
+     * Requests a notification with the given message, from any thread. Replaces a pending request for the same id.
+     */
+    public void post(final NotificationHelper.Channel channel, final int id, final String message) {
+        mHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                enqueue(channel, id, message);
+            }
+        });
+    }
+
+    private void enqueue(NotificationHelper.Channel channel, int id, String message) {
+        if (isShown(id, message)) {
+            //Already shown, a different pending message for this id is superseded as well.
+            mPending.remove(id);
+            return;
+        }
+        mPending.put(id, new Pending(channel, message));
+        scheduleFlush(Math.max(SystemClock.uptimeMillis() + mBatchWindowMillis, getNextAllowedMillis(channel)));
+    }
+
+    private void flush() {
+        final long now = SystemClock.uptimeMillis();
+        long nextFlush = Long.MAX_VALUE;
+
+        final Iterator<Map.Entry<Integer, Pending>> iterator = mPending.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<Integer, Pending> entry = iterator.next();
+            final Pending pending = entry.getValue();
+            final long allowedAt = getNextAllowedMillis(pending.channel);
+            if (allowedAt > now) {
+                //Channel is rate limited, keep the latest message until it may post again.
+                nextFlush = Math.min(nextFlush, allowedAt);
+                continue;
+            }
+
+            iterator.remove();
+            show(pending.channel, entry.getKey(), pending.message);
+            mActiveIds.add(entry.getKey());
+            mPosted.put(entry.getKey(), new Posted(pending.message, now));
+            mLastPostMillis.put(pending.channel, now);
+        }
+
+        if (nextFlush != Long.MAX_VALUE) {
+            scheduleFlush(nextFlush);
+        }
+    }
+
+    /**
+     * Returns true if the given message was posted under the id and is still shown
+     */
+    private boolean isShown(int id, String message) {
+        final Posted posted = mPosted.get(id);
+        if (posted == null || !posted.message.equals(message)) {
+            return false;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            if (isActive(id)) {
+                return true;
+            }
+        } else if (SystemClock.uptimeMillis() - posted.timeMillis < POSTED_TTL_MILLIS) {
+            return true;
+        }
+        mPosted.remove(id);
+        return false;
+    }
+
+    /**
+     * Returns true if a notification with the id is shown. A dismissal can go unnoticed for up to one minimum
+     * interval, the same delay the channel rate limit may add to a post.
+     */
+    @RequiresApi(api = Build.VERSION_CODES.M)
+    private boolean isActive(int id) {
+        final long now = SystemClock.uptimeMillis();
+        if (now >= mActiveIdsExpiryMillis) {
+            mActiveIds.clear();
+            for (StatusBarNotification notification : getNotificationManager().getActiveNotifications()) {
+                if (notification.getTag() == null) {
+                    mActiveIds.add(notification.getId());
+                }
+            }
+            mActiveIdsExpiryMillis = now + mMinIntervalMillis;
+        }
+        return mActiveIds.contains(id);
+    }
+
+    private NotificationManager getNotificationManager() {
+        if (mNotificationManager == null) {
+            mNotificationManager = (NotificationManager) mContext.getSystemService(Context.NOTIFICATION_SERVICE);
+        }
+        return mNotificationManager;
+    }
+
+    private void show(NotificationHelper.Channel channel, int id, String message) {
+        Notification notification = NotificationUtils.buildNotification(mContext,
+                NotificationHelper.getInstance(mContext).getChannelId(channel), message);
+        getNotificationManager().notify(id, notification);
+    }
+
+    private long getNextAllowedMillis(NotificationHelper.Channel channel) {
+        final Long last = mLastPostMillis.get(channel);
+        return last != null ? last + mMinIntervalMillis : 0;
+    }
+
+    /**
+     * Makes sure a flush runs no later than the given time
+     */
+    private void scheduleFlush(long atMillis) {
+        if (atMillis >= mFlushAtMillis) {
+            return;
+        }
+        mFlushAtMillis = atMillis;
+        mHandler.removeCallbacks(mFlush);
+        mHandler.postAtTime(mFlush, atMillis);
+    }
+}
@@ -25,7 +25,7 @@ public class NotificationHelper {
     }
 
     private NotificationHelper(Context mContext) {
-        this.mContext = mContext;
+        this.mContext = mContext.getApplicationContext();
     }
 
     public enum Channel {
@@ -42,7 +42,11 @@ public class NotificationHelper {
         }
     };
 
-    public void init() {
+    /**
+     * Creates the notification channels, only the first call has an effect. Called by getChannelId(), so callers
+     * don't have to initialize eagerly.
+     */
+    public synchronized void init() {
         if (mInitialized) {
             return;
         }
@@ -83,6 +87,15 @@ public class NotificationHelper {
         }
     }
 
+    /**
+     * Returns the id of the given channel, creating the channels on first use. Never talks to the NotificationManager
+     * once the channels exist.
+     */
+    public String getChannelId(Channel definedChannel) {
+        init();
+        return mDefinedNotificationChannels.get(definedChannel);
+    }
+
     @TargetApi(26)
     public NotificationChannel getNotificationChannel(Channel definedChannel) {
         final NotificationManager notificationManager = (NotificationManager) mContext.getSystemService(Context.NOTIFICATION_SERVICE);
@@ -1,7 +1,6 @@
 package com.example.galileotestapp.galileo.utils;
 
 import android.app.Notification;
-import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
@@ -13,16 +12,26 @@ import com.example.galileotestapp.SplashActivity;
 
 public class NotificationUtils {
 
+    public static final int NOTIFICATION_ID = 172;
+
+    /**
+     * Shows the message in the app notification. Repeated and rapid calls are deduplicated and rate limited by the
+     * NotificationDispatcher.
+     */
     public static void postNotification(Context context, String message) {
+        NotificationDispatcher.getInstance(context).post(NotificationHelper.Channel.DEFAULT, NOTIFICATION_ID, message);
+    }
+
+    /**
+     * Builds the app notification for the given message
+     *
+     * @param channelId id of the channel to post on, ignored before Android O
+     */
+    public static Notification buildNotification(Context context, String channelId, String message) {
         Notification.Builder notificationBuilder = new Notification.Builder(context);
 
         Intent intent = new Intent(context, SplashActivity.class);
-        String channelId = null;
         intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP);
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            channelId = NotificationHelper.getInstance(context)
-                    .getNotificationChannel(NotificationHelper.Channel.DEFAULT).getId();
-        }
 
         PendingIntent pendingIntent = PendingIntent.getActivity(context, 0, intent, PendingIntent.FLAG_ONE_SHOT);
 
@@ -40,8 +49,6 @@ public class NotificationUtils {
             notificationBuilder.setChannelId(channelId);
         }
 
-        Notification notification = notificationBuilder.build();
-        NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
-        notificationManager.notify(172, notification);
+        return notificationBuilder.build();
     }
 }
@@ -0,0 +1,40 @@
+package com.example.galileotestapp.benchmark;
+
+import com.android.gpstest.model.AvgError;
+import com.android.gpstest.model.MeasuredError;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Cost of adding one error measurement to AvgError. One operation is one measurement.
+ */
+@State(Scope.Thread)
+public class AvgErrorBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private final MeasuredError[] measurements = new MeasuredError[SAMPLES];
+
+    private AvgError avgError;
+
+    private int next;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            measurements[i] = new MeasuredError(random.nextFloat() * 10, random.nextGaussian() * 5);
+        }
+        avgError = new AvgError();
+    }
+
+    @Benchmark
+    public float addMeasurement() {
+        avgError.addMeasurement(measurements[next++ & (SAMPLES - 1)]);
+        return avgError.getAvgError();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.galileotestapp.benchmark;
+
+import com.example.galileotestapp.galileo.utils.CarrierFreqUtils;
+import com.example.galileotestapp.galileo.utils.MathUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of classifying the carrier frequency of every satellite of one epoch. One operation is one epoch.
+ */
+@State(Scope.Thread)
+public class CarrierFreqBenchmark {
+
+    @Param({"20", "40", "80"})
+    public int satelliteCount;
+
+    private EpochFixtures fixtures;
+
+    @Setup
+    public void setUp() {
+        fixtures = EpochFixtures.create(satelliteCount, 42);
+    }
+
+    @Benchmark
+    public void carrierFrequencyLabel(Blackhole blackhole) {
+        for (int i = 0; i < fixtures.count; i++) {
+            blackhole.consume(CarrierFreqUtils.getCarrierFrequencyLabel(fixtures.types[i], fixtures.svids[i],
+                    MathUtils.toMhz(fixtures.carrierFrequenciesHz[i])));
+        }
+    }
+
+    @Benchmark
+    public void carrierBandCode(Blackhole blackhole) {
+        for (int i = 0; i < fixtures.count; i++) {
+            blackhole.consume(CarrierFreqUtils.getCarrierBandCode(fixtures.types[i], fixtures.svids[i],
+                    MathUtils.toMhz(fixtures.carrierFrequenciesHz[i])));
+        }
+    }
+}
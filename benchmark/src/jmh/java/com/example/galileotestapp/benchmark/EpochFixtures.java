@@ -0,0 +1,108 @@
+package com.example.galileotestapp.benchmark;
+
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
+import com.example.galileotestapp.galileo.model.GnssType;
+
+import java.util.Random;
+
+/**
+ * Synthetic status epochs of realistic size, with a fixed seed so every run measures the same data.
+ *
+ * Satellites are spread over GPS (L1/L5), GLONASS (L1 FDMA channels), Galileo (E1/E5a), BeiDou (B1/B2a), QZSS and
+ * SBAS, in roughly the proportions a dual-frequency phone reports them.
+ */
+final class EpochFixtures {
+
+    private static final GnssType[] TYPES = {
+            GnssType.NAVSTAR, GnssType.NAVSTAR, GnssType.NAVSTAR,
+            GnssType.GLONASS, GnssType.GLONASS,
+            GnssType.GALILEO, GnssType.GALILEO,
+            GnssType.BEIDOU, GnssType.BEIDOU,
+            GnssType.QZSS,
+            GnssType.SBAS
+    };
+
+    private static final int[] SBAS_SVIDS = {120, 123, 126, 127, 129, 131, 133, 135, 136, 138};
+
+    final int count;
+    final int[] svids;
+    final int[] prns;
+    final GnssType[] types;
+    final float[] cn0DbHz;
+    final float[] elevations;
+    final float[] azimuths;
+    final float[] carrierFrequenciesHz;
+    final int[] flags;
+
+    private EpochFixtures(int count) {
+        this.count = count;
+        svids = new int[count];
+        prns = new int[count];
+        types = new GnssType[count];
+        cn0DbHz = new float[count];
+        elevations = new float[count];
+        azimuths = new float[count];
+        carrierFrequenciesHz = new float[count];
+        flags = new int[count];
+    }
+
+    static EpochFixtures create(int count, long seed) {
+        final Random random = new Random(seed);
+        final EpochFixtures fixtures = new EpochFixtures(count);
+        for (int i = 0; i < count; i++) {
+            final GnssType type = TYPES[random.nextInt(TYPES.length)];
+            // Second band on roughly a third of the signals
+            final boolean secondBand = random.nextInt(3) == 0;
+            fixtures.types[i] = type;
+            fixtures.cn0DbHz[i] = 15 + random.nextFloat() * 35;
+            fixtures.elevations[i] = random.nextFloat() * 90;
+            fixtures.azimuths[i] = random.nextFloat() * 360;
+            fixtures.flags[i] = random.nextInt(1 << 3);
+
+            switch (type) {
+                case NAVSTAR:
+                    fixtures.svids[i] = 1 + random.nextInt(32);
+                    fixtures.prns[i] = fixtures.svids[i];
+                    fixtures.carrierFrequenciesHz[i] = secondBand ? 1176.45e6f : 1575.42e6f;
+                    break;
+                case GLONASS:
+                    fixtures.svids[i] = 1 + random.nextInt(24);
+                    fixtures.prns[i] = 64 + fixtures.svids[i];
+                    fixtures.carrierFrequenciesHz[i] = (1602f + (random.nextInt(14) - 7) * 0.5625f) * 1e6f;
+                    break;
+                case GALILEO:
+                    fixtures.svids[i] = 1 + random.nextInt(36);
+                    fixtures.prns[i] = 300 + fixtures.svids[i];
+                    fixtures.carrierFrequenciesHz[i] = secondBand ? 1176.45e6f : 1575.42e6f;
+                    break;
+                case BEIDOU:
+                    fixtures.svids[i] = 1 + random.nextInt(35);
+                    fixtures.prns[i] = 200 + fixtures.svids[i];
+                    fixtures.carrierFrequenciesHz[i] = secondBand ? 1176.45e6f : 1561.098e6f;
+                    break;
+                case QZSS:
+                    fixtures.svids[i] = 193 + random.nextInt(8);
+                    fixtures.prns[i] = fixtures.svids[i];
+                    fixtures.carrierFrequenciesHz[i] = secondBand ? 1176.45e6f : 1575.42e6f;
+                    break;
+                default:
+                    fixtures.svids[i] = SBAS_SVIDS[random.nextInt(SBAS_SVIDS.length)];
+                    fixtures.prns[i] = fixtures.svids[i] - 87;
+                    fixtures.carrierFrequenciesHz[i] = 1575.42e6f;
+                    break;
+            }
+        }
+        return fixtures;
+    }
+
+    /**
+     * Copies the fixtures into the snapshot the same way GalileoRelevance copies a GnssStatus
+     */
+    void fill(EpochSnapshot epoch, long timeNanos) {
+        epoch.reset(count, timeNanos);
+        for (int i = 0; i < count; i++) {
+            epoch.setSatellite(i, svids[i], types[i], cn0DbHz[i], elevations[i], azimuths[i], flags[i]);
+            epoch.setCarrierFrequencyHz(i, carrierFrequenciesHz[i]);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.galileotestapp.benchmark;
+
+import com.example.galileotestapp.galileo.GalileoDetector;
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of processing one status epoch, i.e. what GalileoRelevance does for every GnssStatus callback: copying the
+ * status into the epoch snapshot and running detection over it. One operation is one epoch.
+ */
+@State(Scope.Thread)
+public class EpochProcessingBenchmark {
+
+    private static final long EPOCH_INTERVAL_NANOS = 1000000000L;
+
+    @Param({"20", "40", "80"})
+    public int satelliteCount;
+
+    private EpochFixtures fixtures;
+
+    private EpochSnapshot epoch;
+
+    private GalileoDetector detector;
+
+    private long timeNanos;
+
+    @Setup
+    public void setUp() {
+        fixtures = EpochFixtures.create(satelliteCount, 42);
+        epoch = new EpochSnapshot();
+        detector = new GalileoDetector();
+    }
+
+    @Benchmark
+    public boolean fillAndDetect() {
+        timeNanos += EPOCH_INTERVAL_NANOS;
+        fixtures.fill(epoch, timeNanos);
+        detector.process(epoch);
+        return detector.isDualFrequency();
+    }
+
+    @Benchmark
+    public boolean detect() {
+        detector.process(epoch);
+        return detector.isDualFrequency();
+    }
+}
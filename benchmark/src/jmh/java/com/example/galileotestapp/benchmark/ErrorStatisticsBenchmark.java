@@ -0,0 +1,54 @@
+package com.example.galileotestapp.benchmark;
+
+import com.android.gpstest.model.AvgError;
+import com.android.gpstest.model.MeasuredError;
+import com.example.galileotestapp.galileo.ErrorStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Random;
+
+/**
+ * Cost of adding one error measurement from 4 threads at once, ErrorStatistics against the synchronized AvgError.
+ * One operation is one measurement.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+public class ErrorStatisticsBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    private final MeasuredError[] measurements = new MeasuredError[SAMPLES];
+
+    private AvgError avgError;
+
+    private ErrorStatistics errorStatistics;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            measurements[i] = new MeasuredError(random.nextFloat() * 10, random.nextGaussian() * 5);
+        }
+        avgError = new AvgError();
+        errorStatistics = new ErrorStatistics();
+    }
+
+    @Benchmark
+    public void avgError(Cursor cursor) {
+        avgError.addMeasurement(measurements[cursor.next++ & (SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    public void errorStatistics(Cursor cursor) {
+        errorStatistics.addMeasurement(measurements[cursor.next++ & (SAMPLES - 1)]);
+    }
+}
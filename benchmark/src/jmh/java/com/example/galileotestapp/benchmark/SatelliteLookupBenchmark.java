@@ -0,0 +1,49 @@
+package com.example.galileotestapp.benchmark;
+
+import com.example.galileotestapp.galileo.utils.SatelliteTables;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of the GpsTestUtil type, SBAS and name lookups for every satellite of one epoch. GpsTestUtil delegates these to
+ * SatelliteTables, which is benchmarked directly because GpsTestUtil itself depends on Android. One operation is one
+ * epoch.
+ */
+@State(Scope.Thread)
+public class SatelliteLookupBenchmark {
+
+    @Param({"20", "40", "80"})
+    public int satelliteCount;
+
+    private EpochFixtures fixtures;
+
+    @Setup
+    public void setUp() {
+        fixtures = EpochFixtures.create(satelliteCount, 42);
+    }
+
+    @Benchmark
+    public void gnssTypeForPrn(Blackhole blackhole) {
+        for (int i = 0; i < fixtures.count; i++) {
+            blackhole.consume(SatelliteTables.getGnssTypeForPrn(fixtures.prns[i]));
+        }
+    }
+
+    @Benchmark
+    public void sbasType(Blackhole blackhole) {
+        for (int i = 0; i < fixtures.count; i++) {
+            blackhole.consume(SatelliteTables.getSbasType(fixtures.svids[i]));
+        }
+    }
+
+    @Benchmark
+    public void satelliteName(Blackhole blackhole) {
+        for (int i = 0; i < fixtures.count; i++) {
+            blackhole.consume(SatelliteTables.getSatelliteName(fixtures.types[i], fixtures.svids[i]));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.galileotestapp.fleet;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Answers "what share of the fleet sees Galileo and dual-frequency" from a directory tree of recorded GnssLogger
+ * sessions.
+ *
+ * Sessions are analyzed in parallel on a fork-join pool. Tasks split the file list in halves down to a few files, each
+ * worker thread reuses one SessionAnalyzer, and the per-task reports are merged while joining, so workers never share
+ * mutable state.
+ *
+ * Usage: FleetAnalyzer &lt;directory&gt; [parallelism]
+ */
+public final class FleetAnalyzer {
+
+    /**
+     * Files analyzed sequentially by one task, small enough to balance uneven session lengths
+     */
+    private static final int FILES_PER_TASK = 4;
+
+    private static final String LOG_EXTENSION = ".txt";
+
+    private static final ThreadLocal<SessionAnalyzer> ANALYZERS = new ThreadLocal<SessionAnalyzer>() {
+        @Override
+        protected SessionAnalyzer initialValue() {
+            return new SessionAnalyzer();
+        }
+    };
+
+    private FleetAnalyzer() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: FleetAnalyzer <directory> [parallelism]");
+            System.exit(1);
+        }
+        final File root = new File(args[0]);
+        final int parallelism = args.length > 1 ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+
+        final List<File> sessions = new ArrayList<>();
+        findSessions(root, sessions);
+
+        final long start = System.nanoTime();
+        final FleetReport report = analyze(sessions, new ForkJoinPool(parallelism));
+        report.print(System.out, System.nanoTime() - start);
+    }
+
+    static FleetReport analyze(List<File> sessions, ForkJoinPool pool) {
+        return pool.invoke(new AnalyzeTask(sessions, 0, sessions.size()));
+    }
+
+    /**
+     * Adds all GnssLogger logs below the given directory to the list
+     */
+    static void findSessions(File directory, List<File> sessions) {
+        final File[] files = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isDirectory() || file.getName().endsWith(LOG_EXTENSION);
+            }
+        });
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                findSessions(file, sessions);
+            } else {
+                sessions.add(file);
+            }
+        }
+    }
+
+    private static final class AnalyzeTask extends RecursiveTask<FleetReport> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<File> sessions;
+
+        private final int from;
+
+        private final int to;
+
+        AnalyzeTask(List<File> sessions, int from, int to) {
+            this.sessions = sessions;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected FleetReport compute() {
+            if (to - from <= FILES_PER_TASK) {
+                final SessionAnalyzer analyzer = ANALYZERS.get();
+                final FleetReport report = new FleetReport();
+                for (int i = from; i < to; i++) {
+                    report.add(analyzer.analyze(sessions.get(i)));
+                }
+                return report;
+            }
+
+            final int middle = (from + to) >>> 1;
+            final AnalyzeTask left = new AnalyzeTask(sessions, from, middle);
+            left.fork();
+            final FleetReport report = new AnalyzeTask(sessions, middle, to).compute();
+            report.merge(left.join());
+            return report;
+        }
+    }
+}
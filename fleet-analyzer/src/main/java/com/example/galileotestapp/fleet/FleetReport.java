@@ -0,0 +1,151 @@
+package com.example.galileotestapp.fleet;
+
+import com.example.galileotestapp.galileo.model.GnssBand;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-device-model, per-OS and per-band aggregates of session results.
+ *
+ * Reports are built per fork-join task without locking and merged on the way up, merging is associative so the split
+ * doesn't change the result.
+ */
+final class FleetReport {
+
+    // Cached because values() clones the array on every call.
+    private static final GnssBand[] BANDS = GnssBand.values();
+
+    static final class Aggregate {
+        long sessions;
+        long failed;
+        long withFix;
+        long galileo;
+        long dualFrequency;
+
+        void add(SessionResult result) {
+            sessions++;
+            if (result.failed) {
+                failed++;
+                return;
+            }
+            if (result.hadFix) {
+                withFix++;
+            }
+            if (result.galileoFound) {
+                galileo++;
+            }
+            if (result.dualFrequency) {
+                dualFrequency++;
+            }
+        }
+
+        void merge(Aggregate other) {
+            sessions += other.sessions;
+            failed += other.failed;
+            withFix += other.withFix;
+            galileo += other.galileo;
+            dualFrequency += other.dualFrequency;
+        }
+    }
+
+    final Aggregate total = new Aggregate();
+
+    final Map<String, Aggregate> byModel = new HashMap<>();
+
+    final Map<String, Aggregate> byPlatform = new HashMap<>();
+
+    /**
+     * Number of sessions each band was seen in, by band code
+     */
+    final long[] sessionsByBand = new long[BANDS.length];
+
+    long epochs;
+
+    void add(SessionResult result) {
+        total.add(result);
+        aggregate(byModel, result.model).add(result);
+        aggregate(byPlatform, result.platform).add(result);
+        for (int band = 0; band < sessionsByBand.length; band++) {
+            if ((result.bandMask & (1 << band)) != 0) {
+                sessionsByBand[band]++;
+            }
+        }
+        epochs += result.epochs;
+    }
+
+    void merge(FleetReport other) {
+        total.merge(other.total);
+        merge(byModel, other.byModel);
+        merge(byPlatform, other.byPlatform);
+        for (int band = 0; band < sessionsByBand.length; band++) {
+            sessionsByBand[band] += other.sessionsByBand[band];
+        }
+        epochs += other.epochs;
+    }
+
+    void print(PrintStream out, long elapsedNanos) {
+        final double seconds = elapsedNanos / 1e9;
+        out.printf("%d sessions, %d epochs in %.1f s (%.0f sessions/s, %.0f epochs/s), %d failed%n",
+                total.sessions, epochs, seconds, total.sessions / seconds, epochs / seconds, total.failed);
+        out.println();
+        printTable(out, "All", Collections.singletonMap("all", total));
+        printTable(out, "Model", byModel);
+        printTable(out, "OS", byPlatform);
+
+        out.printf("%-10s %10s %8s%n", "Band", "Sessions", "Share");
+        final long analyzed = total.sessions - total.failed;
+        for (int band = 0; band < sessionsByBand.length; band++) {
+            if (sessionsByBand[band] > 0) {
+                out.printf("%-10s %10d %7.1f%%%n", BANDS[band].getLabel(), sessionsByBand[band],
+                        percent(sessionsByBand[band], analyzed));
+            }
+        }
+    }
+
+    private static void printTable(PrintStream out, String title, Map<String, Aggregate> aggregates) {
+        final List<Map.Entry<String, Aggregate>> rows = new ArrayList<>(aggregates.entrySet());
+        // Largest groups first
+        Collections.sort(rows, new Comparator<Map.Entry<String, Aggregate>>() {
+            @Override
+            public int compare(Map.Entry<String, Aggregate> a, Map.Entry<String, Aggregate> b) {
+                final int bySessions = Long.compare(b.getValue().sessions, a.getValue().sessions);
+                return bySessions != 0 ? bySessions : a.getKey().compareTo(b.getKey());
+            }
+        });
+
+        out.printf("%-32s %10s %8s %8s %8s%n", title, "Sessions", "Fix", "Galileo", "Dual");
+        for (Map.Entry<String, Aggregate> row : rows) {
+            final Aggregate aggregate = row.getValue();
+            final long analyzed = aggregate.sessions - aggregate.failed;
+            out.printf("%-32s %10d %7.1f%% %7.1f%% %7.1f%%%n", row.getKey(), aggregate.sessions,
+                    percent(aggregate.withFix, analyzed), percent(aggregate.galileo, analyzed),
+                    percent(aggregate.dualFrequency, analyzed));
+        }
+        out.println();
+    }
+
+    private static double percent(long count, long total) {
+        return total > 0 ? 100.0 * count / total : 0;
+    }
+
+    private static Aggregate aggregate(Map<String, Aggregate> aggregates, String key) {
+        Aggregate aggregate = aggregates.get(key);
+        if (aggregate == null) {
+            aggregate = new Aggregate();
+            aggregates.put(key, aggregate);
+        }
+        return aggregate;
+    }
+
+    private static void merge(Map<String, Aggregate> into, Map<String, Aggregate> from) {
+        for (Map.Entry<String, Aggregate> entry : from.entrySet()) {
+            aggregate(into, entry.getKey()).merge(entry.getValue());
+        }
+    }
+}
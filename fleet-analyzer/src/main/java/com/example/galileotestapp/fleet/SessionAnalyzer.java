@@ -0,0 +1,106 @@
+package com.example.galileotestapp.fleet;
+
+import com.example.galileotestapp.galileo.EpochRing;
+import com.example.galileotestapp.galileo.GalileoDetector;
+import com.example.galileotestapp.galileo.GnssCapabilities;
+import com.example.galileotestapp.galileo.GnssSource;
+import com.example.galileotestapp.galileo.SynchronousEpochSink;
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
+import com.example.galileotestapp.galileo.model.GnssBand;
+import com.example.galileotestapp.galileo.model.GnssType;
+import com.example.galileotestapp.galileo.replay.GnssLogHeader;
+import com.example.galileotestapp.galileo.replay.GnssLogReplaySource;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Runs the app's per-epoch detection over recorded sessions, one at a time.
+ *
+ * Every epoch goes through GalileoDetector exactly like in GalileoRelevance, but the session is replayed to the end
+ * instead of stopping once the answer is confirmed, so the band statistics cover the whole recording. Not
+ * thread-safe, each worker thread uses its own analyzer.
+ */
+final class SessionAnalyzer {
+
+    private final GalileoDetector detector = new GalileoDetector();
+
+    private boolean galileoFound;
+
+    private boolean dualFrequency;
+
+    private boolean hadFix;
+
+    private final SynchronousEpochSink sink = new SynchronousEpochSink(new EpochRing.Consumer() {
+        @Override
+        public void onEpoch(EpochSnapshot epoch) {
+            if (epoch.getKind() == EpochSnapshot.KIND_STATUS) {
+                detector.process(epoch);
+                galileoFound |= detector.isGalileoFound();
+                dualFrequency |= detector.isDualFrequency();
+            } else {
+                hadFix = true;
+            }
+        }
+    });
+
+    private final GnssSource.Listener listener = new GnssSource.Listener() {
+        @Override
+        public void onGnssStarted() {
+        }
+
+        @Override
+        public void onGnssStopped() {
+        }
+
+        @Override
+        public void onGnssFirstFix(int ttffMillis) {
+            hadFix = true;
+        }
+    };
+
+    SessionResult analyze(File file) {
+        detector.reset();
+        galileoFound = false;
+        dualFrequency = false;
+        hadFix = false;
+
+        final GnssLogReplaySource source = new GnssLogReplaySource(file,
+                GnssLogReplaySource.Playback.AS_FAST_AS_POSSIBLE);
+        try {
+            source.replay(sink, listener);
+        } catch (IOException e) {
+            return SessionResult.failed(getModel(source.getHeader()), getPlatform(source.getHeader()));
+        }
+
+        final GnssLogHeader header = source.getHeader();
+        return new SessionResult(getModel(header), getPlatform(header), false, hadFix, galileoFound, dualFrequency,
+                getBandMask(detector.getCapabilities()), source.getEpochCount());
+    }
+
+    /**
+     * Returns the known bands seen for any constellation
+     */
+    private static int getBandMask(GnssCapabilities capabilities) {
+        int mask = 0;
+        for (GnssType type : GnssType.values()) {
+            mask |= capabilities.getBandMask(type);
+        }
+        return mask & ~(1 << GnssBand.UNKNOWN.ordinal());
+    }
+
+    private static String getModel(GnssLogHeader header) {
+        if (header == null || header.getModel().isEmpty()) {
+            return SessionResult.UNKNOWN;
+        }
+        return header.getManufacturer().isEmpty() ? header.getModel()
+                : header.getManufacturer() + " " + header.getModel();
+    }
+
+    private static String getPlatform(GnssLogHeader header) {
+        if (header == null || header.getPlatform().isEmpty()) {
+            return SessionResult.UNKNOWN;
+        }
+        return header.getPlatform();
+    }
+}
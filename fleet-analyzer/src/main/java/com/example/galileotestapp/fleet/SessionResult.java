@@ -0,0 +1,44 @@
+package com.example.galileotestapp.fleet;
+
+/**
+ * Detection outcome of one recorded session
+ */
+final class SessionResult {
+
+    static final String UNKNOWN = "unknown";
+
+    final String model;
+
+    final String platform;
+
+    final boolean failed;
+
+    final boolean hadFix;
+
+    final boolean galileoFound;
+
+    final boolean dualFrequency;
+
+    /**
+     * Mask of the band codes (GnssBand ordinals) seen in the session
+     */
+    final int bandMask;
+
+    final long epochs;
+
+    SessionResult(String model, String platform, boolean failed, boolean hadFix, boolean galileoFound,
+                  boolean dualFrequency, int bandMask, long epochs) {
+        this.model = model;
+        this.platform = platform;
+        this.failed = failed;
+        this.hadFix = hadFix;
+        this.galileoFound = galileoFound;
+        this.dualFrequency = dualFrequency;
+        this.bandMask = bandMask;
+        this.epochs = epochs;
+    }
+
+    static SessionResult failed(String model, String platform) {
+        return new SessionResult(model, platform, true, false, false, false, 0, 0);
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.model.DilutionOfPrecision;
+import com.example.galileotestapp.galileo.model.GnssBand;
+import com.example.galileotestapp.galileo.model.GnssType;
+
+/**
+ * Immutable view of the detection engine after a batch of epochs: the satellites of the latest status epoch, the
+ * latest location and the detection result.
+ *
+ * Published by a DetectionStatePublisher, so any thread can read a consistent state without locking.
+ */
+public final class DetectionState {
+
+    // Cached because values() clones the array on every call.
+    private static final GnssBand[] BANDS = GnssBand.values();
+
+    private static final double[] UNKNOWN_DOPS = {
+            Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN
+    };
+
+    public static final DetectionState EMPTY = new DetectionState(0, 0, new int[0], new GnssType[0], new float[0],
+            new int[0], new boolean[0], false, 0, 0, 0, 0, 0, false, false, GnssCapabilities.NONE, UNKNOWN_DOPS);
+
+    private final long epochCount;
+
+    private final long timeNanos;
+
+    private final int[] svids;
+
+    private final GnssType[] gnssTypes;
+
+    private final float[] cn0DbHz;
+
+    private final int[] bandCodes;
+
+    private final boolean[] usedInFix;
+
+    private final boolean hasLocation;
+
+    private final long locationTimeNanos;
+
+    private final double latitude;
+
+    private final double longitude;
+
+    private final double altitude;
+
+    private final float accuracy;
+
+    private final boolean galileoFound;
+
+    private final boolean dualFrequency;
+
+    private final GnssCapabilities capabilities;
+
+    /**
+     * Position, horizontal, vertical and time DOP with all constellations, followed by the same without Galileo
+     */
+    private final double[] dops;
+
+    DetectionState(long epochCount, long timeNanos, int[] svids, GnssType[] gnssTypes, float[] cn0DbHz,
+                   int[] bandCodes, boolean[] usedInFix, boolean hasLocation, long locationTimeNanos, double latitude,
+                   double longitude, double altitude, float accuracy, boolean galileoFound, boolean dualFrequency,
+                   GnssCapabilities capabilities, double[] dops) {
+        this.epochCount = epochCount;
+        this.timeNanos = timeNanos;
+        this.svids = svids;
+        this.gnssTypes = gnssTypes;
+        this.cn0DbHz = cn0DbHz;
+        this.bandCodes = bandCodes;
+        this.usedInFix = usedInFix;
+        this.hasLocation = hasLocation;
+        this.locationTimeNanos = locationTimeNanos;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.altitude = altitude;
+        this.accuracy = accuracy;
+        this.galileoFound = galileoFound;
+        this.dualFrequency = dualFrequency;
+        this.capabilities = capabilities;
+        this.dops = dops;
+    }
+
+    /**
+     * Returns the number of epochs processed in the session up to this state
+     */
+    public long getEpochCount() {
+        return epochCount;
+    }
+
+    /**
+     * Returns the time of the latest status epoch, in nanoseconds
+     */
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    /**
+     * Returns the number of satellites in the latest status epoch
+     */
+    public int getSatelliteCount() {
+        return svids.length;
+    }
+
+    public int getSvid(int index) {
+        return svids[index];
+    }
+
+    public GnssType getGnssType(int index) {
+        return gnssTypes[index];
+    }
+
+    public float getCn0DbHz(int index) {
+        return cn0DbHz[index];
+    }
+
+    /**
+     * Returns the band code (GnssBand ordinal) of the satellite, GnssBand.UNKNOWN if it has no carrier frequency
+     */
+    public int getBandCode(int index) {
+        return bandCodes[index];
+    }
+
+    public GnssBand getBand(int index) {
+        return BANDS[bandCodes[index]];
+    }
+
+    public boolean usedInFix(int index) {
+        return usedInFix[index];
+    }
+
+    public boolean hasLocation() {
+        return hasLocation;
+    }
+
+    public long getLocationTimeNanos() {
+        return locationTimeNanos;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public double getAltitude() {
+        return altitude;
+    }
+
+    public float getAccuracy() {
+        return accuracy;
+    }
+
+    /**
+     * Returns true if a Galileo satellite was seen, or measured, in the latest epoch
+     */
+    public boolean isGalileoFound() {
+        return galileoFound;
+    }
+
+    /**
+     * Returns true if a non-E1 Galileo band was seen, or is tracked, in the latest epoch
+     */
+    public boolean isDualFrequency() {
+        return dualFrequency;
+    }
+
+    /**
+     * Returns the bands and satellite counts seen across the session
+     */
+    public GnssCapabilities getCapabilities() {
+        return capabilities;
+    }
+
+    /**
+     * Returns the DOP of the satellites used in the latest fix, NaN values if they do not determine a position
+     */
+    public DilutionOfPrecision getDop() {
+        return new DilutionOfPrecision(dops[0], dops[1], dops[2], dops[3]);
+    }
+
+    /**
+     * Returns the DOP the satellites used in the latest fix would give without Galileo
+     */
+    public DilutionOfPrecision getDopWithoutGalileo() {
+        return new DilutionOfPrecision(dops[4], dops[5], dops[6], dops[7]);
+    }
+}
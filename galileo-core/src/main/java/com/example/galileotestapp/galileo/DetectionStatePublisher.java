@@ -0,0 +1,244 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.model.DilutionOfPrecision;
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
+import com.example.galileotestapp.galileo.model.GnssType;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes the DetectionState of a single writer thread to any number of readers.
+ *
+ * The writer records epochs into reusable arrays and calls publish() once per batch, which swaps in a new immutable
+ * state through an AtomicReference. Readers never lock and never contend with the writer. A state is only allocated
+ * when a published field changed: right away when the detection result changed, otherwise at most once per
+ * MIN_PUBLISH_INTERVAL_NANOS of epoch time, as C/N0 alone changes on nearly every status epoch. A change held back
+ * that way is published by the next publish() after the interval, or by flush() once no more epochs are coming. The
+ * epoch count and time are brought up to date by the next publish, they never trigger one.
+ */
+public final class DetectionStatePublisher {
+
+    /**
+     * Minimum epoch time between two states whose detection result is the same
+     */
+    public static final long MIN_PUBLISH_INTERVAL_NANOS = 200000000L;
+
+    private static final int DOP_COUNT = 8;
+
+    private final AtomicReference<DetectionState> state = new AtomicReference<>(DetectionState.EMPTY);
+
+    // Writer-only state below.
+
+    /**
+     * Set when a published field changed since the last publish
+     */
+    private boolean changed;
+
+    /**
+     * Set when the detection result changed since the last publish, which is published without waiting
+     */
+    private boolean resultChanged;
+
+    /**
+     * Whether a state was published since the last reset, and the epoch time of the last one
+     */
+    private boolean published;
+
+    private long lastPublishNanos;
+
+    private long lastEpochNanos;
+
+    private long epochCount;
+
+    private long timeNanos;
+
+    private int satelliteCount;
+
+    private int[] svids = new int[0];
+
+    private GnssType[] gnssTypes = new GnssType[0];
+
+    private float[] cn0DbHz = new float[0];
+
+    private int[] bandCodes = new int[0];
+
+    private boolean[] usedInFix = new boolean[0];
+
+    private boolean hasLocation;
+
+    private long locationTimeNanos;
+
+    private double latitude;
+
+    private double longitude;
+
+    private double altitude;
+
+    private float accuracy;
+
+    private boolean galileoFound;
+
+    private boolean dualFrequency;
+
+    private GnssCapabilities capabilities = GnssCapabilities.NONE;
+
+    /**
+     * In the order of DetectionState: with all constellations, then without Galileo
+     */
+    private final double[] dops = unknownDops();
+
+    private final DilutionOfPrecision dop = new DilutionOfPrecision(Double.NaN, Double.NaN, Double.NaN);
+
+    /**
+     * Returns the latest published state, from any thread
+     */
+    public DetectionState get() {
+        return state.get();
+    }
+
+    /**
+     * Writer only. Records an epoch after the detector processed it.
+     */
+    public void record(EpochSnapshot epoch, GalileoDetector detector) {
+        epochCount++;
+        lastEpochNanos = epoch.getTimeNanos();
+        if (epoch.getKind() == EpochSnapshot.KIND_LOCATION) {
+            if (!hasLocation || latitude != epoch.getLatitude() || longitude != epoch.getLongitude()
+                    || altitude != epoch.getAltitude() || accuracy != epoch.getAccuracy()) {
+                changed = true;
+            }
+            hasLocation = true;
+            locationTimeNanos = epoch.getTimeNanos();
+            latitude = epoch.getLatitude();
+            longitude = epoch.getLongitude();
+            altitude = epoch.getAltitude();
+            accuracy = epoch.getAccuracy();
+            return;
+        }
+
+        if (galileoFound != detector.isGalileoFound() || dualFrequency != detector.isDualFrequency()
+                || capabilities != detector.getCapabilities()) {
+            changed = true;
+            resultChanged = true;
+            galileoFound = detector.isGalileoFound();
+            dualFrequency = detector.isDualFrequency();
+            capabilities = detector.getCapabilities();
+        }
+        if (epoch.getKind() == EpochSnapshot.KIND_STATUS) {
+            recordSatellites(epoch, detector);
+            final DopEngine engine = detector.getDop();
+            engine.compute(DopEngine.ALL_CONSTELLATIONS, true, dop);
+            recordDop(0, dop);
+            engine.compute(DopEngine.ALL_CONSTELLATIONS & ~DopEngine.maskOf(GnssType.GALILEO), true, dop);
+            recordDop(4, dop);
+        }
+    }
+
+    private void recordSatellites(EpochSnapshot epoch, GalileoDetector detector) {
+        final int length = epoch.getSatelliteCount();
+        if (length > svids.length) {
+            svids = Arrays.copyOf(svids, length);
+            gnssTypes = Arrays.copyOf(gnssTypes, length);
+            cn0DbHz = Arrays.copyOf(cn0DbHz, length);
+            bandCodes = Arrays.copyOf(bandCodes, length);
+            usedInFix = Arrays.copyOf(usedInFix, length);
+        }
+
+        timeNanos = epoch.getTimeNanos();
+        if (length != satelliteCount) {
+            changed = true;
+            satelliteCount = length;
+        }
+        for (int i = 0; i < length; i++) {
+            final int svid = epoch.getSvid(i);
+            final GnssType type = epoch.getGnssType(i);
+            final float cn0 = epoch.getCn0DbHz(i);
+            final int bandCode = detector.getStatusBandCode(i);
+            final boolean used = epoch.usedInFix(i);
+            if (svids[i] != svid || gnssTypes[i] != type || cn0DbHz[i] != cn0 || bandCodes[i] != bandCode
+                    || usedInFix[i] != used) {
+                changed = true;
+                svids[i] = svid;
+                gnssTypes[i] = type;
+                cn0DbHz[i] = cn0;
+                bandCodes[i] = bandCode;
+                usedInFix[i] = used;
+            }
+        }
+    }
+
+    private void recordDop(int offset, DilutionOfPrecision value) {
+        recordDop(offset, value.getPositionDop());
+        recordDop(offset + 1, value.getHorizontalDop());
+        recordDop(offset + 2, value.getVerticalDop());
+        recordDop(offset + 3, value.getTimeDop());
+    }
+
+    private void recordDop(int index, double value) {
+        // compare() so an unknown DOP that stays unknown is no change
+        if (Double.compare(dops[index], value) != 0) {
+            changed = true;
+            dops[index] = value;
+        }
+    }
+
+    /**
+     * Writer only. Makes the epochs recorded since the last call visible to readers, unless nothing changed or only
+     * values other than the detection result changed less than MIN_PUBLISH_INTERVAL_NANOS after the last state.
+     */
+    public void publish() {
+        if (published && !resultChanged && lastEpochNanos - lastPublishNanos < MIN_PUBLISH_INTERVAL_NANOS) {
+            return;
+        }
+        flush();
+    }
+
+    /**
+     * Writer only. Makes the epochs recorded since the last publish visible to readers if anything changed, without
+     * waiting for MIN_PUBLISH_INTERVAL_NANOS, e.g. when the ring went idle or the session ended.
+     */
+    public void flush() {
+        if (!changed) {
+            return;
+        }
+        changed = false;
+        resultChanged = false;
+        published = true;
+        lastPublishNanos = lastEpochNanos;
+        state.set(new DetectionState(epochCount, timeNanos,
+                Arrays.copyOf(svids, satelliteCount),
+                Arrays.copyOf(gnssTypes, satelliteCount),
+                Arrays.copyOf(cn0DbHz, satelliteCount),
+                Arrays.copyOf(bandCodes, satelliteCount),
+                Arrays.copyOf(usedInFix, satelliteCount),
+                hasLocation, locationTimeNanos, latitude, longitude, altitude, accuracy,
+                galileoFound, dualFrequency, capabilities, Arrays.copyOf(dops, DOP_COUNT)));
+    }
+
+    private static double[] unknownDops() {
+        final double[] dops = new double[DOP_COUNT];
+        Arrays.fill(dops, Double.NaN);
+        return dops;
+    }
+
+    /**
+     * Writer only. Forgets everything recorded and publishes the empty state, e.g. when a new session starts.
+     */
+    public void reset() {
+        changed = false;
+        resultChanged = false;
+        published = false;
+        lastPublishNanos = 0;
+        lastEpochNanos = 0;
+        epochCount = 0;
+        timeNanos = 0;
+        satelliteCount = 0;
+        hasLocation = false;
+        galileoFound = false;
+        dualFrequency = false;
+        capabilities = GnssCapabilities.NONE;
+        Arrays.fill(dops, Double.NaN);
+        state.set(DetectionState.EMPTY);
+    }
+}
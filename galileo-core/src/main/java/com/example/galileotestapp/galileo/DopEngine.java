@@ -0,0 +1,261 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.model.DilutionOfPrecision;
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
+import com.example.galileotestapp.galileo.model.GnssType;
+import com.example.galileotestapp.galileo.utils.SignalKeys;
+
+/**
+ * Dilution of precision from the elevation and azimuth of the satellites of a status epoch.
+ *
+ * Each status epoch is folded into one small normal matrix per constellation: the sums of the line-of-sight unit
+ * vectors, of their outer products and the satellite count. The DOP of any set of constellations, e.g. with and
+ * without Galileo, is then a sum of those matrices and a 3x3 inversion, with the receiver clocks eliminated in closed
+ * form. Clocks are either one shared clock or one per constellation, as multi-GNSS receivers estimate inter-system
+ * biases.
+ *
+ * Allocation-free once the first epochs were seen. Not thread-safe, epochs must be processed from a single thread.
+ */
+public final class DopEngine {
+
+    // Cached because values() clones the array on every call.
+    private static final GnssType[] GNSS_TYPES = GnssType.values();
+
+    public static final float DEFAULT_ELEVATION_MASK_DEGREES = 5f;
+
+    /**
+     * Constellations that range, SBAS and unknown satellites are never counted
+     */
+    public static final int ALL_CONSTELLATIONS = maskOf(GnssType.NAVSTAR) | maskOf(GnssType.GLONASS)
+            | maskOf(GnssType.GALILEO) | maskOf(GnssType.QZSS) | maskOf(GnssType.BEIDOU);
+
+    private static final double MIN_DETERMINANT = 1e-9;
+
+    // Per-constellation normal matrix sums, indexed by GnssType ordinal.
+    private final int[] count = new int[GNSS_TYPES.length];
+    private final double[] sumE = new double[GNSS_TYPES.length];
+    private final double[] sumN = new double[GNSS_TYPES.length];
+    private final double[] sumU = new double[GNSS_TYPES.length];
+    private final double[] sumEE = new double[GNSS_TYPES.length];
+    private final double[] sumEN = new double[GNSS_TYPES.length];
+    private final double[] sumEU = new double[GNSS_TYPES.length];
+    private final double[] sumNN = new double[GNSS_TYPES.length];
+    private final double[] sumNU = new double[GNSS_TYPES.length];
+    private final double[] sumUU = new double[GNSS_TYPES.length];
+
+    /**
+     * Satellites already counted in the current epoch, a status epoch lists a satellite once per band
+     */
+    private int[] seen = new int[64];
+
+    private float elevationMaskDegrees = DEFAULT_ELEVATION_MASK_DEGREES;
+
+    private boolean usedInFixOnly = true;
+
+    /**
+     * Returns the constellation mask bit of the given type, for compute()
+     */
+    public static int maskOf(GnssType type) {
+        return 1 << type.ordinal();
+    }
+
+    /**
+     * Sets the elevation below which satellites are ignored
+     */
+    public void setElevationMaskDegrees(float elevationMaskDegrees) {
+        this.elevationMaskDegrees = elevationMaskDegrees;
+    }
+
+    /**
+     * Sets whether only satellites used in the fix are counted (the default), or all satellites in view
+     */
+    public void setUsedInFixOnly(boolean usedInFixOnly) {
+        this.usedInFixOnly = usedInFixOnly;
+    }
+
+    /**
+     * Replaces the geometry with the satellites of the given status epoch, other epochs are ignored
+     */
+    public void update(EpochSnapshot epoch) {
+        if (epoch.getKind() != EpochSnapshot.KIND_STATUS) {
+            return;
+        }
+        clear();
+
+        final int length = epoch.getSatelliteCount();
+        if (length > seen.length) {
+            seen = new int[Math.max(length, 2 * seen.length)];
+        }
+        int seenCount = 0;
+        for (int i = 0; i < length; i++) {
+            final GnssType type = epoch.getGnssType(i);
+            final float elevation = epoch.getElevationDegrees(i);
+            if ((maskOf(type) & ALL_CONSTELLATIONS) == 0 || !(elevation >= elevationMaskDegrees)
+                    || (usedInFixOnly && !epoch.usedInFix(i))) {
+                continue;
+            }
+            final int key = SignalKeys.satelliteKey(type, epoch.getSvid(i));
+            if (contains(seen, seenCount, key)) {
+                continue;
+            }
+            seen[seenCount++] = key;
+            add(type, elevation, epoch.getAzimuthDegrees(i));
+        }
+    }
+
+    /**
+     * Adds one satellite to the geometry, e.g. when it does not come from a status epoch
+     */
+    public void add(GnssType type, double elevationDegrees, double azimuthDegrees) {
+        final double elevation = Math.toRadians(elevationDegrees);
+        final double azimuth = Math.toRadians(azimuthDegrees);
+        // Line-of-sight unit vector in east, north, up
+        final double e = Math.cos(elevation) * Math.sin(azimuth);
+        final double n = Math.cos(elevation) * Math.cos(azimuth);
+        final double u = Math.sin(elevation);
+
+        final int c = type.ordinal();
+        count[c]++;
+        sumE[c] += e;
+        sumN[c] += n;
+        sumU[c] += u;
+        sumEE[c] += e * e;
+        sumEN[c] += e * n;
+        sumEU[c] += e * u;
+        sumNN[c] += n * n;
+        sumNU[c] += n * u;
+        sumUU[c] += u * u;
+    }
+
+    /**
+     * Returns the number of satellites of the constellation in the current geometry
+     */
+    public int getSatelliteCount(GnssType type) {
+        return count[type.ordinal()];
+    }
+
+    /**
+     * Computes the DOP of the given constellations into out. The time DOP is that of the single clock or, with
+     * separate clocks, of the constellation with the most satellites.
+     *
+     * @param constellations mask of maskOf() bits, e.g. ALL_CONSTELLATIONS & ~maskOf(GnssType.GALILEO)
+     * @param separateClocks true to estimate one clock per constellation rather than a shared one
+     * @return false, with all values of out set to NaN, if the satellites do not determine a position
+     */
+    public boolean compute(int constellations, boolean separateClocks, DilutionOfPrecision out) {
+        // Position block of the normal matrix with the clocks eliminated (Schur complement)
+        double pEE = 0, pEN = 0, pEU = 0, pNN = 0, pNU = 0, pUU = 0;
+        // Shared clock sums, or those of the reference clock with separate clocks
+        int clockCount = 0;
+        double clockE = 0, clockN = 0, clockU = 0;
+        int satellites = 0;
+        int clocks = 0;
+
+        for (int c = 0; c < GNSS_TYPES.length; c++) {
+            final int n = count[c];
+            if ((constellations & (1 << c)) == 0 || n == 0) {
+                continue;
+            }
+            satellites += n;
+            pEE += sumEE[c];
+            pEN += sumEN[c];
+            pEU += sumEU[c];
+            pNN += sumNN[c];
+            pNU += sumNU[c];
+            pUU += sumUU[c];
+            if (separateClocks) {
+                clocks++;
+                pEE -= sumE[c] * sumE[c] / n;
+                pEN -= sumE[c] * sumN[c] / n;
+                pEU -= sumE[c] * sumU[c] / n;
+                pNN -= sumN[c] * sumN[c] / n;
+                pNU -= sumN[c] * sumU[c] / n;
+                pUU -= sumU[c] * sumU[c] / n;
+                if (n > clockCount) {
+                    clockCount = n;
+                    clockE = sumE[c];
+                    clockN = sumN[c];
+                    clockU = sumU[c];
+                }
+            } else {
+                clocks = 1;
+                clockCount += n;
+                clockE += sumE[c];
+                clockN += sumN[c];
+                clockU += sumU[c];
+            }
+        }
+        if (!separateClocks && clockCount > 0) {
+            pEE -= clockE * clockE / clockCount;
+            pEN -= clockE * clockN / clockCount;
+            pEU -= clockE * clockU / clockCount;
+            pNN -= clockN * clockN / clockCount;
+            pNU -= clockN * clockU / clockCount;
+            pUU -= clockU * clockU / clockCount;
+        }
+
+        if (clocks == 0 || satellites < 3 + clocks) {
+            setUnknown(out);
+            return false;
+        }
+
+        // Inverse of the symmetric 3x3 position block, from its cofactors
+        final double cEE = pNN * pUU - pNU * pNU;
+        final double cEN = pNU * pEU - pEN * pUU;
+        final double cEU = pEN * pNU - pNN * pEU;
+        final double determinant = pEE * cEE + pEN * cEN + pEU * cEU;
+        if (!(determinant > MIN_DETERMINANT)) {
+            setUnknown(out);
+            return false;
+        }
+        final double qEE = cEE / determinant;
+        final double qEN = cEN / determinant;
+        final double qEU = cEU / determinant;
+        final double qNN = (pEE * pUU - pEU * pEU) / determinant;
+        final double qNU = (pEN * pEU - pEE * pNU) / determinant;
+        final double qUU = (pEE * pNN - pEN * pEN) / determinant;
+
+        // Clock variance 1/n + s'Qs/n^2, s being the sum of the unit vectors of the clock's satellites
+        final double sQs = clockE * (qEE * clockE + qEN * clockN + qEU * clockU)
+                + clockN * (qEN * clockE + qNN * clockN + qNU * clockU)
+                + clockU * (qEU * clockE + qNU * clockN + qUU * clockU);
+        final double qTT = 1.0 / clockCount + sQs / ((double) clockCount * clockCount);
+
+        out.setHorizontalDop(Math.sqrt(qEE + qNN));
+        out.setVerticalDop(Math.sqrt(qUU));
+        out.setPositionDop(Math.sqrt(qEE + qNN + qUU));
+        out.setTimeDop(Math.sqrt(qTT));
+        return true;
+    }
+
+    public void clear() {
+        for (int c = 0; c < GNSS_TYPES.length; c++) {
+            count[c] = 0;
+            sumE[c] = 0;
+            sumN[c] = 0;
+            sumU[c] = 0;
+            sumEE[c] = 0;
+            sumEN[c] = 0;
+            sumEU[c] = 0;
+            sumNN[c] = 0;
+            sumNU[c] = 0;
+            sumUU[c] = 0;
+        }
+    }
+
+    private static boolean contains(int[] keys, int length, int key) {
+        for (int i = 0; i < length; i++) {
+            if (keys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static void setUnknown(DilutionOfPrecision out) {
+        out.setPositionDop(Double.NaN);
+        out.setHorizontalDop(Double.NaN);
+        out.setVerticalDop(Double.NaN);
+        out.setTimeDop(Double.NaN);
+    }
+}
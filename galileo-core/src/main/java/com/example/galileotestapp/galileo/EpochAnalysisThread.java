@@ -0,0 +1,56 @@
+package com.example.galileotestapp.galileo;
+
+/**
+ * Dedicated thread that drains an EpochRing in batches, so GNSS analysis never runs on the callback or UI thread.
+ */
+public final class EpochAnalysisThread extends Thread {
+
+    /**
+     * Batch consumer that is also told when the ring went idle: a park ended without a new epoch to drain. Called
+     * once per idle period, e.g. to publish results held back while epochs kept coming.
+     */
+    public interface IdleConsumer extends EpochRing.BatchConsumer {
+        void onIdle();
+    }
+
+    private static final int BATCH_SIZE = 16;
+
+    /**
+     * Upper bound on a single park, the ring normally wakes the thread as soon as an epoch is published
+     */
+    private static final long IDLE_PARK_NANOS = 500000000L;
+
+    private final EpochRing ring;
+
+    private final EpochRing.Consumer consumer;
+
+    private volatile boolean quit;
+
+    public EpochAnalysisThread(EpochRing ring, EpochRing.Consumer consumer) {
+        super("galileo-analysis");
+        this.ring = ring;
+        this.consumer = consumer;
+        setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+        int emptyDrains = 0;
+        while (!quit) {
+            if (ring.drain(consumer, BATCH_SIZE) != 0) {
+                emptyDrains = 0;
+                continue;
+            }
+            // The first empty drain follows every batch, only one after a park means the ring stayed idle.
+            if (++emptyDrains == 2 && consumer instanceof IdleConsumer) {
+                ((IdleConsumer) consumer).onIdle();
+            }
+            ring.await(IDLE_PARK_NANOS);
+        }
+    }
+
+    public void quit() {
+        quit = true;
+        ring.wakeUp();
+    }
+}
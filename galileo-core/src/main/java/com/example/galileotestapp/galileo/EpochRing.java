@@ -0,0 +1,192 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free single-producer/single-consumer ring of preallocated epoch slots.
+ *
+ * The GNSS callback thread claims a slot, fills it in place and publishes it. The analysis thread drains published
+ * slots in batches. When the ring is full new epochs are dropped, and with the COALESCE policy the consumer only
+ * analyzes the newest of several queued status epochs, so a bursty receiver can never queue up unbounded work.
+ */
+public final class EpochRing implements EpochSink {
+
+    public enum Policy {
+        /**
+         * Analyze every queued epoch, dropping new epochs only while the ring is full
+         */
+        DROP_NEWEST,
+        /**
+         * Analyze only the newest of the GnssStatus epochs queued in a batch. Location, measurement and NMEA epochs
+         * are always analyzed, so an alternate source is never skipped in favor of the primary one.
+         */
+        COALESCE
+    }
+
+    public interface Consumer {
+        void onEpoch(EpochSnapshot epoch);
+    }
+
+    /**
+     * Consumer that is also told when a drained batch ends, e.g. to publish results once per batch
+     */
+    public interface BatchConsumer extends Consumer {
+        void onBatchEnd();
+    }
+
+    private final EpochSnapshot[] slots;
+
+    private final int mask;
+
+    /**
+     * Next slot to be consumed, written by the consumer only
+     */
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * Next slot to be published, written by the producer only
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Producer-local copy of head, refreshed only when the ring looks full
+     */
+    private long cachedHead;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong coalesced = new AtomicLong();
+
+    private volatile Policy policy = Policy.COALESCE;
+
+    private volatile Thread consumerThread;
+
+    private volatile boolean consumerWaiting;
+
+    /**
+     * @param capacity number of slots, must be a power of two
+     */
+    public EpochRing(int capacity) {
+        if (capacity <= 0 || (capacity & (capacity - 1)) != 0) {
+            throw new IllegalArgumentException("capacity (" + capacity + ") must be a power of two");
+        }
+        slots = new EpochSnapshot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new EpochSnapshot();
+        }
+        mask = capacity - 1;
+    }
+
+    public void setPolicy(Policy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Producer only. Returns the next free slot to fill, or null if the ring is full and the epoch must be dropped.
+     */
+    @Override
+    public EpochSnapshot claim() {
+        final long t = tail.get();
+        if (t - cachedHead > mask) {
+            cachedHead = head.get();
+            if (t - cachedHead > mask) {
+                dropped.incrementAndGet();
+                return null;
+            }
+        }
+        return slots[(int) (t & mask)];
+    }
+
+    /**
+     * Producer only. Makes the slot returned by the last claim() visible to the consumer.
+     */
+    @Override
+    public void publish() {
+        tail.set(tail.get() + 1);
+        if (consumerWaiting) {
+            LockSupport.unpark(consumerThread);
+        }
+    }
+
+    /**
+     * Consumer only. Hands up to maxBatch published epochs to the given consumer, applying the current policy.
+     *
+     * @return the number of slots released, including coalesced ones
+     */
+    public int drain(Consumer consumer, int maxBatch) {
+        final long h = head.get();
+        final long end = Math.min(tail.get(), h + maxBatch);
+        if (end == h) {
+            return 0;
+        }
+
+        long latestStatus = -1;
+        if (policy == Policy.COALESCE) {
+            for (long n = end - 1; n >= h; n--) {
+                if (isCoalescable(slots[(int) (n & mask)])) {
+                    latestStatus = n;
+                    break;
+                }
+            }
+        }
+
+        for (long n = h; n < end; n++) {
+            final EpochSnapshot epoch = slots[(int) (n & mask)];
+            if (latestStatus >= 0 && n != latestStatus && isCoalescable(epoch)) {
+                coalesced.incrementAndGet();
+                continue;
+            }
+            consumer.onEpoch(epoch);
+        }
+        if (consumer instanceof BatchConsumer) {
+            ((BatchConsumer) consumer).onBatchEnd();
+        }
+
+        // The producer may reuse the slots as soon as it sees the new head.
+        head.lazySet(end);
+        return (int) (end - h);
+    }
+
+    private static boolean isCoalescable(EpochSnapshot epoch) {
+        return epoch.getKind() == EpochSnapshot.KIND_STATUS && !epoch.isFromNmea();
+    }
+
+    /**
+     * Consumer only. Parks the calling thread until an epoch is published or the timeout elapses.
+     */
+    public void await(long timeoutNanos) {
+        consumerThread = Thread.currentThread();
+        consumerWaiting = true;
+        if (head.get() == tail.get()) {
+            LockSupport.parkNanos(this, timeoutNanos);
+        }
+        consumerWaiting = false;
+    }
+
+    /**
+     * Wakes the consumer if it is parked in await()
+     */
+    public void wakeUp() {
+        final Thread thread = consumerThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Returns the number of epochs dropped because the ring was full
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of status epochs skipped by the COALESCE policy
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+}
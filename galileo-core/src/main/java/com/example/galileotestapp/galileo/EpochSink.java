@@ -0,0 +1,20 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
+
+/**
+ * Receives the epochs of a GnssSource. The source fills each epoch in place, so sinks can hand out preallocated
+ * snapshots and epochs never allocate.
+ */
+public interface EpochSink {
+
+    /**
+     * Returns the snapshot to fill with the next epoch, or null if the epoch should be dropped
+     */
+    EpochSnapshot claim();
+
+    /**
+     * Hands over the snapshot returned by the last claim(), which must not be touched afterwards
+     */
+    void publish();
+}
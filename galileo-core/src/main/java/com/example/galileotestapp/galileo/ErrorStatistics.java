@@ -0,0 +1,417 @@
+package com.example.galileotestapp.galileo;
+
+import com.android.gpstest.model.MeasuredError;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Streaming statistics of horizontal and vertical position errors, fed from any number of threads.
+ *
+ * Every producer thread writes to a stripe of its own, so updates never contend and never lock: a stripe has a single
+ * writer and publishes through a sequence counter that readers retry on. Each stripe keeps Welford mean and variance
+ * in double and log-bucket counts compatible with QuantileSketch, so percentiles come without storing samples.
+ * snapshot() merges the stripes.
+ *
+ * With a window, statistics are kept in time slices and only the slices of the last window are reported, e.g. the
+ * last 5 minutes. Without, everything since the last reset() is reported.
+ */
+public final class ErrorStatistics {
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    /**
+     * Errors are counted in centimeters, so the log buckets resolve errors below one meter
+     */
+    private static final double SKETCH_UNITS_PER_METER = 100;
+
+    // Layout of one slice in a stripe, doubles are stored as raw long bits.
+    private static final int TAG = 0;
+    private static final int H_COUNT = 1;
+    private static final int H_MEAN = 2;
+    private static final int H_M2 = 3;
+    private static final int H_MIN = 4;
+    private static final int H_MAX = 5;
+    private static final int V_COUNT = 6;
+    private static final int V_MEAN = 7;
+    private static final int V_M2 = 8;
+    private static final int V_ABS_SUM = 9;
+    private static final int V_ABS_MIN = 10;
+    private static final int V_ABS_MAX = 11;
+    private static final int HEADER_SIZE = 12;
+
+    private static final long EMPTY_TAG = Long.MIN_VALUE;
+
+    /**
+     * Only used for its bucket layout
+     */
+    private static final QuantileSketch LAYOUT = new QuantileSketch();
+
+    private static final int BUCKETS = LAYOUT.getBucketCount();
+
+    private static final int SLICE_SIZE = HEADER_SIZE + 2 * BUCKETS;
+
+    private final long sliceMillis;
+
+    private final int slices;
+
+    private final CopyOnWriteArrayList<Stripe> stripes = new CopyOnWriteArrayList<>();
+
+    private final ThreadLocal<Stripe> localStripe = new ThreadLocal<Stripe>() {
+        @Override
+        protected Stripe initialValue() {
+            final Stripe stripe = new Stripe(slices);
+            stripes.add(stripe);
+            return stripe;
+        }
+    };
+
+    /**
+     * Incremented by reset(), stripes of an older generation are cleared by their writer and ignored by readers
+     */
+    private volatile long generation;
+
+    /**
+     * Statistics of all errors since the last reset()
+     */
+    public ErrorStatistics() {
+        this.sliceMillis = 0;
+        this.slices = 1;
+    }
+
+    /**
+     * Statistics of the errors of the last window
+     *
+     * @param windowMillis length of the window
+     * @param slices       number of slices the window is kept in, the window advances one slice at a time
+     */
+    public ErrorStatistics(long windowMillis, int slices) {
+        if (windowMillis <= 0 || slices <= 0 || windowMillis < slices) {
+            throw new IllegalArgumentException("Invalid window " + windowMillis + " ms in " + slices + " slices");
+        }
+        this.sliceMillis = windowMillis / slices;
+        this.slices = slices;
+    }
+
+    /**
+     * Adds an error measured now
+     */
+    public void addMeasurement(MeasuredError measuredError) {
+        add(measuredError.getError(), measuredError.getVertError(), nowMillis());
+    }
+
+    /**
+     * Adds an error
+     *
+     * @param horizontalMeters horizontal error
+     * @param verticalMeters   signed vertical error, NaN if not known
+     * @param timeMillis       time of the measurement on the System.nanoTime() clock, in milliseconds
+     */
+    public void add(double horizontalMeters, double verticalMeters, long timeMillis) {
+        final Stripe stripe = localStripe.get();
+        final AtomicLongArray data = stripe.data;
+        final long currentGeneration = generation;
+        final long tag = sliceMillis == 0 ? 0 : timeMillis / sliceMillis;
+        final int base = (int) (floorMod(tag, slices) * SLICE_SIZE);
+
+        stripe.beginWrite();
+        if (stripe.generation != currentGeneration) {
+            for (int slice = 0; slice < slices; slice++) {
+                data.lazySet(slice * SLICE_SIZE + TAG, EMPTY_TAG);
+            }
+            stripe.generation = currentGeneration;
+        }
+        if (data.get(base + TAG) != tag) {
+            clearSlice(data, base, tag);
+        }
+
+        final double horizontal = horizontalMeters * SKETCH_UNITS_PER_METER;
+        addWelford(data, base + H_COUNT, horizontal);
+        putMin(data, base + H_MIN, horizontal);
+        putMax(data, base + H_MAX, horizontal);
+        increment(data, base + HEADER_SIZE + LAYOUT.getBucketIndex(horizontal));
+
+        if (!Double.isNaN(verticalMeters)) {
+            final double vertical = verticalMeters * SKETCH_UNITS_PER_METER;
+            final double verticalAbs = Math.abs(vertical);
+            addWelford(data, base + V_COUNT, vertical);
+            putDouble(data, base + V_ABS_SUM, getDouble(data, base + V_ABS_SUM) + verticalAbs);
+            putMin(data, base + V_ABS_MIN, verticalAbs);
+            putMax(data, base + V_ABS_MAX, verticalAbs);
+            increment(data, base + HEADER_SIZE + BUCKETS + LAYOUT.getBucketIndex(verticalAbs));
+        }
+        stripe.endWrite();
+    }
+
+    /**
+     * Returns the merged statistics of all stripes, at the current time for a windowed instance
+     */
+    public Snapshot snapshot() {
+        return snapshot(nowMillis());
+    }
+
+    /**
+     * Returns the merged statistics of all stripes, for a windowed instance those of the window ending at the given
+     * time
+     */
+    public Snapshot snapshot(long timeMillis) {
+        final Summary horizontal = new Summary();
+        final Summary vertical = new Summary();
+        final long currentGeneration = generation;
+        final long newestTag = sliceMillis == 0 ? 0 : timeMillis / sliceMillis;
+        final long[] slice = new long[SLICE_SIZE];
+
+        for (Stripe stripe : stripes) {
+            for (int s = 0; s < slices; s++) {
+                if (!stripe.read(s * SLICE_SIZE, slice) || stripe.generation != currentGeneration) {
+                    continue;
+                }
+                final long tag = slice[TAG];
+                if (tag == EMPTY_TAG || tag > newestTag || tag <= newestTag - slices) {
+                    continue;
+                }
+                horizontal.merge(slice, H_COUNT, HEADER_SIZE, slice[H_MIN], slice[H_MAX]);
+                vertical.merge(slice, V_COUNT, HEADER_SIZE + BUCKETS, slice[V_ABS_MIN], slice[V_ABS_MAX]);
+                vertical.absSum += Double.longBitsToDouble(slice[V_ABS_SUM]);
+            }
+        }
+        return new Snapshot(horizontal, vertical);
+    }
+
+    /**
+     * Forgets all errors. Writers clear their stripe on their next update.
+     */
+    public void reset() {
+        generation++;
+    }
+
+    private static long nowMillis() {
+        return System.nanoTime() / NANOS_PER_MILLI;
+    }
+
+    private static long floorMod(long value, int divisor) {
+        final long mod = value % divisor;
+        return mod < 0 ? mod + divisor : mod;
+    }
+
+    private static void clearSlice(AtomicLongArray data, int base, long tag) {
+        for (int i = 1; i < SLICE_SIZE; i++) {
+            data.lazySet(base + i, 0);
+        }
+        putDouble(data, base + H_MIN, Double.POSITIVE_INFINITY);
+        putDouble(data, base + H_MAX, Double.NEGATIVE_INFINITY);
+        putDouble(data, base + V_ABS_MIN, Double.POSITIVE_INFINITY);
+        putDouble(data, base + V_ABS_MAX, Double.NEGATIVE_INFINITY);
+        data.lazySet(base + TAG, tag);
+    }
+
+    /**
+     * Welford update of the count, mean and M2 stored at index, index + 1 and index + 2
+     */
+    private static void addWelford(AtomicLongArray data, int index, double value) {
+        final long count = data.get(index) + 1;
+        final double mean = getDouble(data, index + 1);
+        final double delta = value - mean;
+        final double newMean = mean + delta / count;
+        data.lazySet(index, count);
+        putDouble(data, index + 1, newMean);
+        putDouble(data, index + 2, getDouble(data, index + 2) + delta * (value - newMean));
+    }
+
+    private static void increment(AtomicLongArray data, int index) {
+        data.lazySet(index, data.get(index) + 1);
+    }
+
+    private static double getDouble(AtomicLongArray data, int index) {
+        return Double.longBitsToDouble(data.get(index));
+    }
+
+    private static void putDouble(AtomicLongArray data, int index, double value) {
+        data.lazySet(index, Double.doubleToRawLongBits(value));
+    }
+
+    private static void putMin(AtomicLongArray data, int index, double value) {
+        if (value < getDouble(data, index)) {
+            putDouble(data, index, value);
+        }
+    }
+
+    private static void putMax(AtomicLongArray data, int index, double value) {
+        if (value > getDouble(data, index)) {
+            putDouble(data, index, value);
+        }
+    }
+
+    /**
+     * Slices of a single writer thread, guarded by a sequence counter that is odd while a write is in progress
+     */
+    private static final class Stripe {
+
+        final AtomicLongArray data;
+
+        private volatile int sequence;
+
+        /**
+         * Written by the owning thread only, inside a write
+         */
+        volatile long generation;
+
+        Stripe(int slices) {
+            data = new AtomicLongArray(slices * SLICE_SIZE);
+            for (int slice = 0; slice < slices; slice++) {
+                data.set(slice * SLICE_SIZE + TAG, EMPTY_TAG);
+            }
+        }
+
+        void beginWrite() {
+            sequence++;
+        }
+
+        void endWrite() {
+            sequence++;
+        }
+
+        /**
+         * Copies the slice at base into the given array, returns false if a write kept it from being consistent
+         */
+        boolean read(int base, long[] slice) {
+            for (int attempt = 0; attempt < 100; attempt++) {
+                final int before = sequence;
+                if ((before & 1) != 0) {
+                    Thread.yield();
+                    continue;
+                }
+                for (int i = 0; i < SLICE_SIZE; i++) {
+                    slice[i] = data.get(base + i);
+                }
+                if (sequence == before) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Merged statistics of one error component, in sketch units while merging
+     */
+    private static final class Summary {
+        long count;
+        double mean;
+        double m2;
+        double absSum;
+        final QuantileSketch sketch = new QuantileSketch();
+
+        /**
+         * Adds the slice statistics using the parallel variant of Welford's algorithm
+         */
+        void merge(long[] slice, int welford, int buckets, long minBits, long maxBits) {
+            final long otherCount = slice[welford];
+            if (otherCount == 0) {
+                return;
+            }
+            final double otherMean = Double.longBitsToDouble(slice[welford + 1]);
+            final double otherM2 = Double.longBitsToDouble(slice[welford + 2]);
+            final long total = count + otherCount;
+            final double delta = otherMean - mean;
+            mean += delta * otherCount / total;
+            m2 += otherM2 + delta * delta * count * otherCount / total;
+            count = total;
+
+            final double min = Double.longBitsToDouble(minBits);
+            final double max = Double.longBitsToDouble(maxBits);
+            for (int i = 0; i < BUCKETS; i++) {
+                sketch.addBucket(i, slice[buckets + i], min, max);
+            }
+        }
+    }
+
+    /**
+     * Immutable merged statistics, in meters
+     */
+    public static final class Snapshot {
+
+        private final long horizontalCount;
+        private final double horizontalMean;
+        private final double horizontalVariance;
+        private final QuantileSketch horizontalSketch;
+
+        private final long verticalCount;
+        private final double verticalMean;
+        private final double verticalVariance;
+        private final double verticalAbsMean;
+        private final QuantileSketch verticalAbsSketch;
+
+        Snapshot(Summary horizontal, Summary vertical) {
+            final double units = SKETCH_UNITS_PER_METER;
+            horizontalCount = horizontal.count;
+            horizontalMean = horizontal.count == 0 ? Double.NaN : horizontal.mean / units;
+            horizontalVariance = horizontal.count < 2 ? Double.NaN
+                    : horizontal.m2 / (horizontal.count - 1) / (units * units);
+            horizontalSketch = horizontal.sketch;
+
+            verticalCount = vertical.count;
+            verticalMean = vertical.count == 0 ? Double.NaN : vertical.mean / units;
+            verticalVariance = vertical.count < 2 ? Double.NaN
+                    : vertical.m2 / (vertical.count - 1) / (units * units);
+            verticalAbsMean = vertical.count == 0 ? Double.NaN : vertical.absSum / vertical.count / units;
+            verticalAbsSketch = vertical.sketch;
+        }
+
+        public long getCount() {
+            return horizontalCount;
+        }
+
+        public double getMeanError() {
+            return horizontalMean;
+        }
+
+        /**
+         * Returns the sample variance of the horizontal error, NaN for fewer than two errors
+         */
+        public double getErrorVariance() {
+            return horizontalVariance;
+        }
+
+        public double getErrorStdDev() {
+            return Math.sqrt(horizontalVariance);
+        }
+
+        /**
+         * Returns the horizontal error at the given quantile (0 to 1), e.g. 0.95 for p95
+         */
+        public double getErrorQuantile(double quantile) {
+            return horizontalSketch.getQuantile(quantile) / SKETCH_UNITS_PER_METER;
+        }
+
+        /**
+         * Returns the number of errors with a vertical component
+         */
+        public long getVertCount() {
+            return verticalCount;
+        }
+
+        public double getMeanVertError() {
+            return verticalMean;
+        }
+
+        public double getMeanVertAbsError() {
+            return verticalAbsMean;
+        }
+
+        public double getVertErrorVariance() {
+            return verticalVariance;
+        }
+
+        public double getVertErrorStdDev() {
+            return Math.sqrt(verticalVariance);
+        }
+
+        /**
+         * Returns the absolute vertical error at the given quantile (0 to 1)
+         */
+        public double getVertAbsErrorQuantile(double quantile) {
+            return verticalAbsSketch.getQuantile(quantile) / SKETCH_UNITS_PER_METER;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.galileotestapp.galileo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Fixed-capacity ring of location fixes and their errors, stored column by column outside the Java heap.
+ *
+ * Every fix takes 44 bytes of a direct or memory-mapped ByteBuffer, so hours of 1 Hz or 10 Hz data cost a predictable
+ * few MB and appending never allocates. Once full, the oldest fixes are overwritten. Fixes must be appended in time
+ * order, which lets time ranges be found by binary search. A mapped history is written through to its file and is
+ * resumed when the same file is mapped again with the same capacity, as long as the device was not rebooted since:
+ * fix times are elapsed realtime, which starts over at every boot.
+ *
+ * Rows are addressed by index, 0 being the oldest fix still stored. Thread-safe, forEach() visits a consistent range.
+ */
+public final class FixHistory {
+
+    public interface Visitor {
+        /**
+         * @param horizontalError horizontal error in meters, NaN if not known
+         * @param verticalError   signed vertical error in meters, NaN if not known
+         */
+        void onFix(long timeNanos, double latitude, double longitude, double altitude, float accuracy,
+                   float horizontalError, float verticalError);
+    }
+
+    private static final int MAGIC = 0x47464832;
+
+    // File header: magic, capacity, number of fixes written so far and the boot the fix times belong to.
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_CAPACITY = 4;
+    private static final int HEADER_WRITTEN = 8;
+    private static final int HEADER_BOOT_ID = 16;
+    private static final int HEADER_SIZE = 24;
+
+    private static final int ROW_SIZE = 8 + 8 + 8 + 8 + 4 + 4 + 4;
+
+    private static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_SIZE) / ROW_SIZE;
+
+    private final ByteBuffer buffer;
+
+    private final int capacity;
+
+    // Start of each column in the buffer.
+    private final int timeColumn;
+    private final int latitudeColumn;
+    private final int longitudeColumn;
+    private final int altitudeColumn;
+    private final int accuracyColumn;
+    private final int horizontalErrorColumn;
+    private final int verticalErrorColumn;
+
+    /**
+     * Number of fixes appended since the history was created, the newest one is stored at (written - 1) % capacity
+     */
+    private long written;
+
+    private FixHistory(ByteBuffer buffer, int capacity, long bootId) {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        this.capacity = capacity;
+        timeColumn = HEADER_SIZE;
+        latitudeColumn = timeColumn + 8 * capacity;
+        longitudeColumn = latitudeColumn + 8 * capacity;
+        altitudeColumn = longitudeColumn + 8 * capacity;
+        accuracyColumn = altitudeColumn + 8 * capacity;
+        horizontalErrorColumn = accuracyColumn + 4 * capacity;
+        verticalErrorColumn = horizontalErrorColumn + 4 * capacity;
+
+        if (buffer.getInt(HEADER_MAGIC) == MAGIC && buffer.getInt(HEADER_CAPACITY) == capacity
+                && buffer.getLong(HEADER_WRITTEN) >= 0 && buffer.getLong(HEADER_BOOT_ID) == bootId) {
+            written = buffer.getLong(HEADER_WRITTEN);
+        } else {
+            buffer.putInt(HEADER_MAGIC, MAGIC);
+            buffer.putInt(HEADER_CAPACITY, capacity);
+            buffer.putLong(HEADER_WRITTEN, 0);
+            buffer.putLong(HEADER_BOOT_ID, bootId);
+        }
+    }
+
+    /**
+     * Creates a history in a direct buffer of the given capacity, in fixes
+     */
+    public static FixHistory allocate(int capacity) {
+        checkCapacity(capacity);
+        return new FixHistory(ByteBuffer.allocateDirect(getSizeBytes(capacity)), capacity, 0);
+    }
+
+    /**
+     * Creates a history spilled to the given file, which is memory-mapped so the OS pages it out instead of it taking
+     * RAM. Fixes the file already holds are kept if it was written with the same capacity and boot ID, otherwise it
+     * starts over.
+     *
+     * @param bootId identifies the boot the fix times are counted from, e.g. Settings.Global.BOOT_COUNT on Android
+     */
+    public static FixHistory map(File file, int capacity, long bootId) throws IOException {
+        checkCapacity(capacity);
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            final MappedByteBuffer mapped = randomAccessFile.getChannel()
+                    .map(FileChannel.MapMode.READ_WRITE, 0, getSizeBytes(capacity));
+            return new FixHistory(mapped, capacity, bootId);
+        } finally {
+            // The mapping stays valid after the channel is closed.
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Returns the buffer size a history of the given capacity needs, in bytes
+     */
+    public static int getSizeBytes(int capacity) {
+        return HEADER_SIZE + ROW_SIZE * capacity;
+    }
+
+    private static void checkCapacity(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity (" + capacity + ") must be in [1, " + MAX_CAPACITY + "]");
+        }
+    }
+
+    /**
+     * Appends a fix, overwriting the oldest one when full. Returns false, and drops the fix, if it is older than the
+     * newest fix stored.
+     */
+    public synchronized boolean append(long timeNanos, double latitude, double longitude, double altitude,
+                                       float accuracy, float horizontalError, float verticalError) {
+        if (written > 0 && timeNanos < getTimeNanosAt(slotOf(written - 1))) {
+            return false;
+        }
+        final int slot = slotOf(written);
+        buffer.putLong(timeColumn + 8 * slot, timeNanos);
+        buffer.putDouble(latitudeColumn + 8 * slot, latitude);
+        buffer.putDouble(longitudeColumn + 8 * slot, longitude);
+        buffer.putDouble(altitudeColumn + 8 * slot, altitude);
+        buffer.putFloat(accuracyColumn + 4 * slot, accuracy);
+        buffer.putFloat(horizontalErrorColumn + 4 * slot, horizontalError);
+        buffer.putFloat(verticalErrorColumn + 4 * slot, verticalError);
+        written++;
+        buffer.putLong(HEADER_WRITTEN, written);
+        return true;
+    }
+
+    /**
+     * Appends a fix with unknown errors
+     */
+    public boolean append(long timeNanos, double latitude, double longitude, double altitude, float accuracy) {
+        return append(timeNanos, latitude, longitude, altitude, accuracy, Float.NaN, Float.NaN);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of fixes stored
+     */
+    public synchronized int size() {
+        return (int) Math.min(written, capacity);
+    }
+
+    public synchronized long getTimeNanos(int index) {
+        return getTimeNanosAt(slotOfIndex(index));
+    }
+
+    public synchronized double getLatitude(int index) {
+        return buffer.getDouble(latitudeColumn + 8 * slotOfIndex(index));
+    }
+
+    public synchronized double getLongitude(int index) {
+        return buffer.getDouble(longitudeColumn + 8 * slotOfIndex(index));
+    }
+
+    public synchronized double getAltitude(int index) {
+        return buffer.getDouble(altitudeColumn + 8 * slotOfIndex(index));
+    }
+
+    public synchronized float getAccuracy(int index) {
+        return buffer.getFloat(accuracyColumn + 4 * slotOfIndex(index));
+    }
+
+    public synchronized float getHorizontalError(int index) {
+        return buffer.getFloat(horizontalErrorColumn + 4 * slotOfIndex(index));
+    }
+
+    public synchronized float getVerticalError(int index) {
+        return buffer.getFloat(verticalErrorColumn + 4 * slotOfIndex(index));
+    }
+
+    /**
+     * Returns the index of the first fix at or after the given time, size() if there is none
+     */
+    public synchronized int indexOf(long timeNanos) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (getTimeNanosAt(slotOfIndex(mid)) < timeNanos) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the number of fixes from fromNanos (inclusive) to toNanos (exclusive)
+     */
+    public synchronized int count(long fromNanos, long toNanos) {
+        return Math.max(0, indexOf(toNanos) - indexOf(fromNanos));
+    }
+
+    /**
+     * Visits the fixes from fromNanos (inclusive) to toNanos (exclusive) in time order. Appending waits until the
+     * visitor returns, so it should not block.
+     */
+    public synchronized void forEach(long fromNanos, long toNanos, Visitor visitor) {
+        final int end = indexOf(toNanos);
+        for (int index = indexOf(fromNanos); index < end; index++) {
+            final int slot = slotOfIndex(index);
+            visitor.onFix(getTimeNanosAt(slot),
+                    buffer.getDouble(latitudeColumn + 8 * slot),
+                    buffer.getDouble(longitudeColumn + 8 * slot),
+                    buffer.getDouble(altitudeColumn + 8 * slot),
+                    buffer.getFloat(accuracyColumn + 4 * slot),
+                    buffer.getFloat(horizontalErrorColumn + 4 * slot),
+                    buffer.getFloat(verticalErrorColumn + 4 * slot));
+        }
+    }
+
+    public synchronized void clear() {
+        written = 0;
+        buffer.putLong(HEADER_WRITTEN, 0);
+    }
+
+    /**
+     * Writes a mapped history to its file now, instead of whenever the OS does. Does nothing for a direct buffer.
+     */
+    public synchronized void force() {
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        }
+    }
+
+    private long getTimeNanosAt(int slot) {
+        return buffer.getLong(timeColumn + 8 * slot);
+    }
+
+    private int slotOf(long sequence) {
+        return (int) (sequence % capacity);
+    }
+
+    private int slotOfIndex(int index) {
+        final int size = size();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+        return slotOf(written - size + index);
+    }
+}
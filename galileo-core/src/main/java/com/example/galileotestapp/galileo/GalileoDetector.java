@@ -0,0 +1,220 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
+import com.example.galileotestapp.galileo.model.GnssBand;
+import com.example.galileotestapp.galileo.model.GnssType;
+import com.example.galileotestapp.galileo.utils.CarrierFreqUtils;
+import com.example.galileotestapp.galileo.utils.MathUtils;
+import com.example.galileotestapp.galileo.utils.SatelliteTables;
+import com.example.galileotestapp.galileo.utils.SignalKeys;
+
+import static com.example.galileotestapp.galileo.model.SatelliteStatus.NO_DATA;
+
+/**
+ * Galileo detection over status and measurement epochs.
+ *
+ * Status epochs are classified by their carrier frequencies, in a single pass that also builds the per-constellation
+ * band masks of the GnssCapabilities. Measurement epochs feed a MeasurementAggregator, and only count a signal once it
+ * is tracked steadily: enough recent samples with code lock and a usable C/N0.
+ *
+ * Has no Android dependencies, so the same per-epoch processing runs in the app, in benchmarks and in tests. Not
+ * thread-safe, epochs must be processed from a single thread.
+ */
+public final class GalileoDetector {
+
+    private static final int UNKNOWN_BAND = GnssBand.UNKNOWN.ordinal();
+
+    /**
+     * Minimum samples, mean C/N0 and share of samples with code lock for a measured signal to count as tracked
+     */
+    private static final int MIN_TRACKED_SAMPLES = 5;
+
+    private static final float MIN_TRACKED_CN0_DB_HZ = 20f;
+
+    private static final float MIN_TRACKED_CODE_LOCK_SHARE = 0.8f;
+
+    /**
+     * Per-satellite state across the processed epochs
+     */
+    private final SatelliteStateMap satellites = new SatelliteStateMap();
+
+    /**
+     * Per-signal rolling measurement statistics across the processed epochs
+     */
+    private final MeasurementAggregator measurements = new MeasurementAggregator();
+
+    /**
+     * Per-constellation bands and satellite counts, of the last epoch and across the processed epochs
+     */
+    private final GnssCapabilities.Accumulator capabilities = new GnssCapabilities.Accumulator();
+
+    /**
+     * Satellite geometry of the last status epoch
+     */
+    private final DopEngine dop = new DopEngine();
+
+    /**
+     * Band code of each satellite of the last status epoch
+     */
+    private int[] statusBandCodes = new int[64];
+
+    private boolean galileoFound;
+
+    private boolean dualFrequency;
+
+    /**
+     * Runs detection over one status or measurement epoch and updates the per-satellite state, location epochs are
+     * ignored
+     */
+    public void process(EpochSnapshot epoch) {
+        if (epoch.getKind() == EpochSnapshot.KIND_STATUS) {
+            processStatus(epoch);
+        } else if (epoch.getKind() == EpochSnapshot.KIND_MEASUREMENTS) {
+            processMeasurements(epoch);
+        }
+    }
+
+    private void processStatus(EpochSnapshot epoch) {
+        capabilities.startEpoch();
+
+        final int length = epoch.getSatelliteCount();
+        if (length > statusBandCodes.length) {
+            statusBandCodes = new int[Math.max(length, 2 * statusBandCodes.length)];
+        }
+        for (int i = 0; i < length; i++) {
+            GnssType type = epoch.getGnssType(i);
+            if (!isKnownSvid(type, epoch.getSvid(i))) {
+                statusBandCodes[i] = UNKNOWN_BAND;
+                continue;
+            }
+
+            float carrierMhz = 0;
+            int band = UNKNOWN_BAND;
+            if (epoch.hasCarrierFrequencyHz(i) && epoch.getCarrierFrequencyHz(i) != NO_DATA) {
+                // Convert Hz to MHz
+                carrierMhz = MathUtils.toMhz(epoch.getCarrierFrequencyHz(i));
+                band = CarrierFreqUtils.getCarrierBandCode(type, epoch.getSvid(i), carrierMhz);
+            }
+            statusBandCodes[i] = band;
+            capabilities.add(type, band);
+
+            satellites.update(SignalKeys.satelliteKey(type, epoch.getSvid(i)), epoch.getTimeNanos(),
+                    epoch.getCn0DbHz(i), band == UNKNOWN_BAND ? GnssTrace.NO_BAND : band, epoch.usedInFix(i));
+
+            GnssTrace.trace(GnssTrace.Event.SATELLITE, epoch.getSvid(i), type,
+                    band == UNKNOWN_BAND ? GnssTrace.NO_BAND : band, epoch.getCn0DbHz(i), carrierMhz, 0);
+        }
+
+        dop.update(epoch);
+
+        galileoFound = capabilities.getEpochBandMask(GnssType.GALILEO) != 0;
+        //E1 is Galileo Single frequency
+        dualFrequency = capabilities.isEpochGalileoDualFrequency();
+    }
+
+    private void processMeasurements(EpochSnapshot epoch) {
+        boolean foundGalileo = false;
+        capabilities.startEpoch();
+
+        final int length = epoch.getSatelliteCount();
+        for (int i = 0; i < length; i++) {
+            GnssType type = epoch.getGnssType(i);
+            if (!isKnownSvid(type, epoch.getSvid(i))) {
+                continue;
+            }
+            int band = UNKNOWN_BAND;
+            if (epoch.hasCarrierFrequencyHz(i)) {
+                band = CarrierFreqUtils.getCarrierBandCode(type, epoch.getSvid(i),
+                        MathUtils.toMhz(epoch.getCarrierFrequencyHz(i)));
+            }
+
+            final int slot = measurements.update(SignalKeys.signalKey(type, epoch.getSvid(i), band),
+                    epoch.getTimeNanos(), epoch.getCn0DbHz(i), epoch.getPseudorangeRateMetersPerSecond(i),
+                    epoch.getPseudorangeRateUncertaintyMetersPerSecond(i), epoch.getMultipathIndicator(i),
+                    epoch.getState(i));
+
+            if (type == GnssType.GALILEO) {
+                foundGalileo = true;
+            }
+            // Only steadily tracked signals count towards the capabilities
+            if (isTracked(slot)) {
+                capabilities.add(type, band);
+            }
+        }
+
+        galileoFound = foundGalileo;
+        dualFrequency = capabilities.isEpochGalileoDualFrequency();
+    }
+
+    /**
+     * Galileo svids that are not in SatelliteTables are ignored, so a receiver reporting a placeholder svid can't make
+     * Galileo look available
+     */
+    private static boolean isKnownSvid(GnssType type, int svid) {
+        return type != GnssType.GALILEO || (SatelliteTables.getGalileoFlags(svid) & SatelliteTables.GALILEO_VALID) != 0;
+    }
+
+    private boolean isTracked(int slot) {
+        return measurements.getSampleCount(slot) >= MIN_TRACKED_SAMPLES
+                && measurements.getMeanCn0DbHz(slot) >= MIN_TRACKED_CN0_DB_HZ
+                && measurements.getCodeLockShare(slot) >= MIN_TRACKED_CODE_LOCK_SHARE;
+    }
+
+    /**
+     * Returns true if a Galileo satellite was seen, or measured, in the last processed epoch
+     */
+    public boolean isGalileoFound() {
+        return galileoFound;
+    }
+
+    /**
+     * Returns true if a non-E1 Galileo band was seen, or is tracked according to the measurements, in the last
+     * processed epoch
+     */
+    public boolean isDualFrequency() {
+        return dualFrequency;
+    }
+
+    public SatelliteStateMap getSatellites() {
+        return satellites;
+    }
+
+    public MeasurementAggregator getMeasurements() {
+        return measurements;
+    }
+
+    /**
+     * Returns the DOP engine holding the geometry of the last status epoch
+     */
+    public DopEngine getDop() {
+        return dop;
+    }
+
+    /**
+     * Returns the band code of the given satellite of the last status epoch, that of GnssBand.UNKNOWN if its carrier
+     * frequency is not known
+     */
+    public int getStatusBandCode(int index) {
+        return statusBandCodes[index];
+    }
+
+    /**
+     * Returns the bands and satellite counts seen across the processed epochs. Returns the same instance until they
+     * change, so callers can detect changes by identity.
+     */
+    public GnssCapabilities getCapabilities() {
+        return capabilities.getCapabilities();
+    }
+
+    /**
+     * Forgets all per-satellite state, e.g. when a new session starts
+     */
+    public void reset() {
+        satellites.clear();
+        measurements.clear();
+        capabilities.clear();
+        dop.clear();
+        galileoFound = false;
+        dualFrequency = false;
+    }
+}
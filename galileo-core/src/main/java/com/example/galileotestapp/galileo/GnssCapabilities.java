@@ -0,0 +1,280 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.model.GnssBand;
+import com.example.galileotestapp.galileo.model.GnssType;
+
+import java.util.Arrays;
+
+/**
+ * Immutable summary of the signals a receiver tracked: per constellation, a bitmask of the bands (GnssBand ordinals)
+ * it was seen on, and the most satellites tracked on each band in a single epoch.
+ *
+ * Every question about the receiver, e.g. Galileo E5a, GPS L5 or BeiDou B2a support, is a mask test. Satellites
+ * without a carrier frequency are recorded on GnssBand.UNKNOWN.
+ */
+public final class GnssCapabilities {
+
+    // Cached because values() clones the array on every call.
+    private static final GnssType[] TYPES = GnssType.values();
+    private static final GnssBand[] BANDS = GnssBand.values();
+
+    private static final int TYPE_COUNT = TYPES.length;
+    private static final int BAND_COUNT = BANDS.length;
+
+    /**
+     * Galileo bands that don't make a receiver dual-frequency on their own
+     */
+    private static final int GALILEO_SINGLE_FREQUENCY_BANDS =
+            1 << GnssBand.E1.ordinal() | 1 << GnssBand.UNKNOWN.ordinal();
+
+    public static final GnssCapabilities NONE = new GnssCapabilities(new int[TYPE_COUNT],
+            new int[TYPE_COUNT * BAND_COUNT]);
+
+    private final int[] bandMasks;
+
+    /**
+     * Most satellites tracked in one epoch, indexed by GnssType ordinal * BAND_COUNT + band code
+     */
+    private final int[] satelliteCounts;
+
+    private GnssCapabilities(int[] bandMasks, int[] satelliteCounts) {
+        this.bandMasks = bandMasks;
+        this.satelliteCounts = satelliteCounts;
+    }
+
+    /**
+     * Returns the mask of the band codes the constellation was tracked on
+     */
+    public int getBandMask(GnssType gnssType) {
+        return bandMasks[gnssType.ordinal()];
+    }
+
+    public boolean hasConstellation(GnssType gnssType) {
+        return bandMasks[gnssType.ordinal()] != 0;
+    }
+
+    public boolean hasBand(GnssType gnssType, GnssBand band) {
+        return (bandMasks[gnssType.ordinal()] & 1 << band.ordinal()) != 0;
+    }
+
+    /**
+     * Returns the most satellites of the constellation tracked on the band in a single epoch
+     */
+    public int getSatelliteCount(GnssType gnssType, GnssBand band) {
+        return satelliteCounts[gnssType.ordinal() * BAND_COUNT + band.ordinal()];
+    }
+
+    /**
+     * Returns the number of distinct known bands the constellation was tracked on
+     */
+    public int getBandCount(GnssType gnssType) {
+        return Integer.bitCount(bandMasks[gnssType.ordinal()] & ~(1 << GnssBand.UNKNOWN.ordinal()));
+    }
+
+    public boolean isGalileoAvailable() {
+        return hasConstellation(GnssType.GALILEO);
+    }
+
+    /**
+     * Returns true if a Galileo signal on a band other than E1 was tracked
+     */
+    public boolean isGalileoDualFrequency() {
+        return isGalileoDualFrequency(bandMasks[GnssType.GALILEO.ordinal()]);
+    }
+
+    /**
+     * Returns 2 if Galileo is dual-frequency, 1 if it is only tracked on E1 and 0 if it is not available, like
+     * GalileoListener.onGalileoAvailable()
+     */
+    public int getGalileoFrequency() {
+        return isGalileoDualFrequency() ? 2 : isGalileoAvailable() ? 1 : 0;
+    }
+
+    /**
+     * Returns a compact String form that decode() turns back into equal capabilities, for persisting
+     */
+    public String encode() {
+        final StringBuilder builder = new StringBuilder();
+        for (int type = 0; type < TYPE_COUNT; type++) {
+            if (bandMasks[type] == 0) {
+                continue;
+            }
+            if (builder.length() > 0) {
+                builder.append(';');
+            }
+            builder.append(TYPES[type].name()).append(':').append(bandMasks[type]);
+            for (int band = 0; band < BAND_COUNT; band++) {
+                if ((bandMasks[type] & 1 << band) != 0) {
+                    builder.append(',').append(satelliteCounts[type * BAND_COUNT + band]);
+                }
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Parses the output of encode(), returns null if the value is malformed
+     */
+    public static GnssCapabilities decode(String encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        if (encoded.isEmpty()) {
+            return NONE;
+        }
+        final int[] masks = new int[TYPE_COUNT];
+        final int[] counts = new int[TYPE_COUNT * BAND_COUNT];
+        try {
+            for (String constellation : encoded.split(";")) {
+                final int colon = constellation.indexOf(':');
+                final int type = GnssType.valueOf(constellation.substring(0, colon)).ordinal();
+                final String[] values = constellation.substring(colon + 1).split(",");
+                masks[type] = Integer.parseInt(values[0]);
+                int value = 1;
+                for (int band = 0; band < BAND_COUNT; band++) {
+                    if ((masks[type] & 1 << band) != 0) {
+                        counts[type * BAND_COUNT + band] = Integer.parseInt(values[value++]);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            // Unknown constellation name, missing or non-numeric values
+            return null;
+        }
+        return new GnssCapabilities(masks, counts);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GnssCapabilities)) {
+            return false;
+        }
+        final GnssCapabilities other = (GnssCapabilities) o;
+        return Arrays.equals(bandMasks, other.bandMasks) && Arrays.equals(satelliteCounts, other.satelliteCounts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(bandMasks) + Arrays.hashCode(satelliteCounts);
+    }
+
+    /**
+     * Returns e.g. "GALILEO[E1:6 E5a:3] NAVSTAR[L1:9 L5:4]"
+     */
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        for (int type = 0; type < TYPE_COUNT; type++) {
+            if (bandMasks[type] == 0) {
+                continue;
+            }
+            if (builder.length() > 0) {
+                builder.append(' ');
+            }
+            builder.append(TYPES[type].name()).append('[');
+            boolean first = true;
+            for (int band = 0; band < BAND_COUNT; band++) {
+                if ((bandMasks[type] & 1 << band) != 0) {
+                    if (!first) {
+                        builder.append(' ');
+                    }
+                    first = false;
+                    final String label = BANDS[band].getLabel();
+                    builder.append(label != null ? label : "?").append(':')
+                            .append(satelliteCounts[type * BAND_COUNT + band]);
+                }
+            }
+            builder.append(']');
+        }
+        return builder.toString();
+    }
+
+    private static boolean isGalileoDualFrequency(int galileoBandMask) {
+        return (galileoBandMask & ~GALILEO_SINGLE_FREQUENCY_BANDS) != 0;
+    }
+
+    /**
+     * Builds capabilities from epochs in a single pass over their signals.
+     *
+     * Signals of the current epoch are added between startEpoch() calls. Band masks are combined over all epochs and
+     * satellite counts keep their per-epoch maximum, both updated as each signal is added. Not thread-safe.
+     */
+    public static final class Accumulator {
+
+        private final int[] epochBandMasks = new int[TYPE_COUNT];
+
+        private final int[] epochCounts = new int[TYPE_COUNT * BAND_COUNT];
+
+        private final int[] bandMasks = new int[TYPE_COUNT];
+
+        private final int[] maxCounts = new int[TYPE_COUNT * BAND_COUNT];
+
+        private GnssCapabilities snapshot = NONE;
+
+        private boolean changed;
+
+        /**
+         * Starts a new epoch, forgetting the signals of the previous one
+         */
+        public void startEpoch() {
+            Arrays.fill(epochBandMasks, 0);
+            Arrays.fill(epochCounts, 0);
+        }
+
+        /**
+         * Adds one satellite signal of the current epoch
+         *
+         * @param bandCode band code (GnssBand ordinal) of the signal, GnssBand.UNKNOWN if the band is not known
+         */
+        public void add(GnssType gnssType, int bandCode) {
+            final int type = gnssType.ordinal();
+            final int bit = 1 << bandCode;
+            epochBandMasks[type] |= bit;
+            if ((bandMasks[type] & bit) == 0) {
+                bandMasks[type] |= bit;
+                changed = true;
+            }
+            final int index = type * BAND_COUNT + bandCode;
+            if (++epochCounts[index] > maxCounts[index]) {
+                maxCounts[index] = epochCounts[index];
+                changed = true;
+            }
+        }
+
+        /**
+         * Returns the mask of the band codes the constellation was seen on in the current epoch
+         */
+        public int getEpochBandMask(GnssType gnssType) {
+            return epochBandMasks[gnssType.ordinal()];
+        }
+
+        /**
+         * Returns true if a Galileo signal on a band other than E1 was seen in the current epoch
+         */
+        public boolean isEpochGalileoDualFrequency() {
+            return isGalileoDualFrequency(epochBandMasks[GnssType.GALILEO.ordinal()]);
+        }
+
+        /**
+         * Returns the capabilities of all epochs so far. Only allocates if something changed since the last call.
+         */
+        public GnssCapabilities getCapabilities() {
+            if (changed) {
+                snapshot = new GnssCapabilities(bandMasks.clone(), maxCounts.clone());
+                changed = false;
+            }
+            return snapshot;
+        }
+
+        public void clear() {
+            startEpoch();
+            Arrays.fill(bandMasks, 0);
+            Arrays.fill(maxCounts, 0);
+            snapshot = NONE;
+            changed = false;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.example.galileotestapp.galileo;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Counters and fixed-bucket histograms of the GNSS pipeline.
+ *
+ * Recording only touches primitive atomics, so it never allocates or locks and may be done from any thread, e.g. the
+ * callback thread counts callbacks while the analysis thread records processing times. Counters maintained elsewhere,
+ * e.g. the drop count of an EpochRing, are registered as gauges and read when a snapshot is taken. snapshot() copies
+ * everything for periodic export.
+ */
+public final class GnssMetrics {
+
+    /**
+     * Source of a counter that is maintained elsewhere, read from the thread taking the snapshot
+     */
+    public interface Gauge {
+        long get();
+    }
+
+    /**
+     * GNSS callbacks received from the platform: status, measurements and location
+     */
+    public static final int COUNTER_CALLBACKS = 0;
+
+    public static final int COUNTER_STATUS_EPOCHS = 1;
+
+    public static final int COUNTER_MEASUREMENT_EPOCHS = 2;
+
+    public static final int COUNTER_LOCATION_EPOCHS = 3;
+
+    /**
+     * Epochs dropped because the analysis fell behind
+     */
+    public static final int COUNTER_DROPPED_EPOCHS = 4;
+
+    /**
+     * Status epochs skipped because a newer one was queued
+     */
+    public static final int COUNTER_COALESCED_EPOCHS = 5;
+
+    public static final int COUNTER_SESSIONS = 6;
+
+    /**
+     * Total time the receiver was requested by detection sessions, in milliseconds
+     */
+    public static final int COUNTER_RECEIVER_ON_MILLIS = 7;
+
+    private static final int COUNTER_COUNT = 8;
+
+    /**
+     * Time to process one status or measurement epoch, in nanoseconds
+     */
+    public static final int HISTOGRAM_PROCESSING_NANOS = 0;
+
+    public static final int HISTOGRAM_SATELLITES_PER_EPOCH = 1;
+
+    public static final int HISTOGRAM_SIGNALS_PER_EPOCH = 2;
+
+    /**
+     * Receiver-on time of a single detection session, in milliseconds
+     */
+    public static final int HISTOGRAM_SESSION_MILLIS = 3;
+
+    private static final int HISTOGRAM_COUNT = 4;
+
+    private final AtomicLongArray counters = new AtomicLongArray(COUNTER_COUNT);
+
+    private final AtomicReferenceArray<Gauge> gauges = new AtomicReferenceArray<>(COUNTER_COUNT);
+
+    private final Histogram[] histograms = new Histogram[HISTOGRAM_COUNT];
+
+    public GnssMetrics() {
+        // 1 us to ~0.5 s
+        histograms[HISTOGRAM_PROCESSING_NANOS] = Histogram.exponential(1000, 20);
+        histograms[HISTOGRAM_SATELLITES_PER_EPOCH] = Histogram.linear(8, 16);
+        histograms[HISTOGRAM_SIGNALS_PER_EPOCH] = Histogram.linear(8, 24);
+        // 1 s to ~17 min
+        histograms[HISTOGRAM_SESSION_MILLIS] = Histogram.exponential(1000, 11);
+    }
+
+    public void increment(int counter) {
+        counters.incrementAndGet(counter);
+    }
+
+    public void add(int counter, long delta) {
+        counters.addAndGet(counter, delta);
+    }
+
+    /**
+     * Reads the counter from the gauge instead, from then on. Increments of the counter are ignored.
+     */
+    public void register(int counter, Gauge gauge) {
+        gauges.set(counter, gauge);
+    }
+
+    public void record(int histogram, long value) {
+        histograms[histogram].record(value);
+    }
+
+    /**
+     * Returns a copy of all counters and histograms
+     */
+    public Snapshot snapshot() {
+        final long[] counterValues = new long[COUNTER_COUNT];
+        for (int i = 0; i < COUNTER_COUNT; i++) {
+            final Gauge gauge = gauges.get(i);
+            counterValues[i] = gauge != null ? gauge.get() : counters.get(i);
+        }
+        final HistogramSnapshot[] histogramSnapshots = new HistogramSnapshot[HISTOGRAM_COUNT];
+        for (int i = 0; i < HISTOGRAM_COUNT; i++) {
+            histogramSnapshots[i] = histograms[i].snapshot();
+        }
+        return new Snapshot(System.nanoTime(), counterValues, histogramSnapshots);
+    }
+
+    /**
+     * Zeroes all counters and histograms, counters read from a gauge are left to their owner
+     */
+    public void clear() {
+        for (int i = 0; i < COUNTER_COUNT; i++) {
+            counters.set(i, 0);
+        }
+        for (Histogram histogram : histograms) {
+            histogram.clear();
+        }
+    }
+
+    /**
+     * Histogram with fixed upper bucket bounds and an overflow bucket
+     */
+    static final class Histogram {
+
+        private final long[] bounds;
+
+        /**
+         * Bucket counts, followed by the overflow bucket, the total count and the sum of all values
+         */
+        private final AtomicLongArray values;
+
+        private Histogram(long[] bounds) {
+            this.bounds = bounds;
+            this.values = new AtomicLongArray(bounds.length + 3);
+        }
+
+        /**
+         * Buckets with upper bounds first, 2 * first, 4 * first and so on
+         */
+        static Histogram exponential(long first, int buckets) {
+            final long[] bounds = new long[buckets];
+            for (int i = 0; i < buckets; i++) {
+                bounds[i] = first << i;
+            }
+            return new Histogram(bounds);
+        }
+
+        /**
+         * Buckets with upper bounds width, 2 * width, 3 * width and so on
+         */
+        static Histogram linear(long width, int buckets) {
+            final long[] bounds = new long[buckets];
+            for (int i = 0; i < buckets; i++) {
+                bounds[i] = width * (i + 1);
+            }
+            return new Histogram(bounds);
+        }
+
+        void record(long value) {
+            // Values equal to a bound belong to the bucket below it
+            int low = 0;
+            int high = bounds.length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (bounds[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            values.incrementAndGet(low);
+            values.incrementAndGet(bounds.length + 1);
+            values.addAndGet(bounds.length + 2, value);
+        }
+
+        HistogramSnapshot snapshot() {
+            final long[] counts = new long[bounds.length + 1];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = values.get(i);
+            }
+            return new HistogramSnapshot(bounds, counts, values.get(bounds.length + 1),
+                    values.get(bounds.length + 2));
+        }
+
+        void clear() {
+            for (int i = 0; i < values.length(); i++) {
+                values.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * Immutable copy of a histogram. The copy is not atomic, counts recorded during the copy may be partially included.
+     */
+    public static final class HistogramSnapshot {
+
+        private final long[] bounds;
+
+        private final long[] counts;
+
+        private final long count;
+
+        private final long sum;
+
+        HistogramSnapshot(long[] bounds, long[] counts, long count, long sum) {
+            this.bounds = bounds;
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * Returns the number of buckets, including the last, unbounded one
+         */
+        public int getBuckets() {
+            return counts.length;
+        }
+
+        /**
+         * Returns the inclusive upper bound of the bucket, Long.MAX_VALUE for the last one
+         */
+        public long getBucketBound(int bucket) {
+            return bucket < bounds.length ? bounds[bucket] : Long.MAX_VALUE;
+        }
+
+        public long getBucketCount(int bucket) {
+            return counts[bucket];
+        }
+
+        /**
+         * Returns the upper bound of the bucket holding the given quantile (0 to 1), 0 if nothing was recorded
+         */
+        public long getQuantileBound(double quantile) {
+            long total = 0;
+            for (long bucketCount : counts) {
+                total += bucketCount;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            final long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && counts[i] > 0) {
+                    return getBucketBound(i);
+                }
+            }
+            return getBucketBound(counts.length - 1);
+        }
+    }
+
+    /**
+     * Immutable copy of all metrics at one point in time
+     */
+    public static final class Snapshot {
+
+        private final long timeNanos;
+
+        private final long[] counters;
+
+        private final HistogramSnapshot[] histograms;
+
+        Snapshot(long timeNanos, long[] counters, HistogramSnapshot[] histograms) {
+            this.timeNanos = timeNanos;
+            this.counters = counters;
+            this.histograms = histograms;
+        }
+
+        /**
+         * Returns the System.nanoTime() the snapshot was taken at
+         */
+        public long getTimeNanos() {
+            return timeNanos;
+        }
+
+        public long getCounter(int counter) {
+            return counters[counter];
+        }
+
+        public HistogramSnapshot getHistogram(int histogram) {
+            return histograms[histogram];
+        }
+
+        /**
+         * Returns how fast the counter grew per second since the given earlier snapshot
+         */
+        public double getRatePerSecond(int counter, Snapshot since) {
+            final long elapsedNanos = timeNanos - since.timeNanos;
+            if (elapsedNanos <= 0) {
+                return 0;
+            }
+            return (counters[counter] - since.counters[counter]) * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            final HistogramSnapshot processing = histograms[HISTOGRAM_PROCESSING_NANOS];
+            return "callbacks=" + counters[COUNTER_CALLBACKS]
+                    + " status=" + counters[COUNTER_STATUS_EPOCHS]
+                    + " measurements=" + counters[COUNTER_MEASUREMENT_EPOCHS]
+                    + " locations=" + counters[COUNTER_LOCATION_EPOCHS]
+                    + " dropped=" + counters[COUNTER_DROPPED_EPOCHS]
+                    + " coalesced=" + counters[COUNTER_COALESCED_EPOCHS]
+                    + " sessions=" + counters[COUNTER_SESSIONS]
+                    + " receiverOnMs=" + counters[COUNTER_RECEIVER_ON_MILLIS]
+                    + " processingMeanNs=" + (long) processing.getMean()
+                    + " processingP99Ns<=" + processing.getQuantileBound(0.99)
+                    + " satellitesMean=" + histograms[HISTOGRAM_SATELLITES_PER_EPOCH].getMean();
+        }
+    }
+}
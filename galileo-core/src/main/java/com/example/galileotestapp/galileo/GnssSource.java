@@ -0,0 +1,28 @@
+package com.example.galileotestapp.galileo;
+
+/**
+ * A source of GNSS epochs, such as the Android location APIs or a recorded log.
+ *
+ * Once started, a source fills status and location epochs into its sink from a single thread until it is stopped.
+ * Events that don't carry epoch data are reported to the listener on the same thread.
+ */
+public interface GnssSource {
+
+    interface Listener {
+        void onGnssStarted();
+
+        void onGnssStopped();
+
+        void onGnssFirstFix(int ttffMillis);
+    }
+
+    /**
+     * Starts delivering epochs to the sink, has no effect if the source is already started
+     */
+    void start(EpochSink sink, Listener listener);
+
+    /**
+     * Stops delivering epochs, has no effect if the source is not started
+     */
+    void stop();
+}
@@ -0,0 +1,224 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.model.GnssBand;
+import com.example.galileotestapp.galileo.model.GnssType;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Structured trace facility for the galileo package.
+ *
+ * Events are written as primitive records (event, svid, constellation, band code, timestamp and up to three numeric
+ * values) into a fixed-size in-memory ring buffer, overwriting the oldest records when full. Recording never allocates
+ * and nothing is formatted until the buffer is dumped, or the event level is at or above the configured log level, so
+ * release builds pay nothing for per-satellite tracing.
+ *
+ * Levels use the same values as android.util.Log priorities so that a sink can forward them unchanged.
+ */
+public final class GnssTrace {
+
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+    public static final int OFF = Integer.MAX_VALUE;
+
+    /**
+     * Band code used when no carrier frequency is known for a record, otherwise band codes are GnssBand ordinals
+     */
+    public static final int NO_BAND = -1;
+
+    private static final String TAG = "GnssTrace";
+
+    /**
+     * Must be a power of two
+     */
+    private static final int CAPACITY = 4096;
+
+    private static final int MASK = CAPACITY - 1;
+
+    public enum Event {
+        /**
+         * One satellite of a status epoch: a = C/N0 (dB-Hz), b = carrier frequency (MHz)
+         */
+        SATELLITE(VERBOSE),
+        /**
+         * Location fix: a = latitude, b = longitude, c = accuracy (meters)
+         */
+        LOCATION(DEBUG),
+        GNSS_STARTED(INFO),
+        GNSS_STOPPED(INFO),
+        /**
+         * First fix: a = time to first fix (ms)
+         */
+        FIRST_FIX(INFO),
+        /**
+         * Galileo detected: a = 1 for single frequency, 2 for dual frequency
+         */
+        GALILEO_DETECTED(INFO),
+        GALILEO_NOT_AVAILABLE(INFO),
+        /**
+         * Detection session finished: a = receiver-on time (ms)
+         */
+        SESSION_FINISHED(INFO);
+
+        final int level;
+
+        Event(int level) {
+            this.level = level;
+        }
+    }
+
+    /**
+     * Receives formatted trace lines
+     */
+    public interface Sink {
+        void println(int level, String tag, String message);
+    }
+
+    // Cached because values() clones the array on every call.
+    private static final Event[] EVENTS = Event.values();
+
+    private static final GnssType[] GNSS_TYPES = GnssType.values();
+
+    private static final GnssBand[] BANDS = GnssBand.values();
+
+    private static final byte[] events = new byte[CAPACITY];
+    private static final int[] svids = new int[CAPACITY];
+    private static final byte[] constellations = new byte[CAPACITY];
+    private static final int[] bands = new int[CAPACITY];
+    private static final long[] timestamps = new long[CAPACITY];
+    private static final double[] valuesA = new double[CAPACITY];
+    private static final double[] valuesB = new double[CAPACITY];
+    private static final float[] valuesC = new float[CAPACITY];
+
+    private static final AtomicLong writeIndex = new AtomicLong();
+
+    private static volatile int traceLevel = INFO;
+
+    private static volatile int logLevel = OFF;
+
+    private static volatile Sink sink;
+
+    private GnssTrace() {
+    }
+
+    /**
+     * Sets the minimum level of events recorded into the ring buffer
+     */
+    public static void setTraceLevel(int level) {
+        traceLevel = level;
+    }
+
+    /**
+     * Sets the minimum level of events that are also formatted and written to the sink as they are recorded
+     */
+    public static void setLogLevel(int level) {
+        logLevel = level;
+    }
+
+    public static void setSink(Sink traceSink) {
+        sink = traceSink;
+    }
+
+    /**
+     * Returns true if an event of the given level would be recorded, so callers can skip gathering its values
+     */
+    public static boolean isTraceable(int level) {
+        return level >= traceLevel;
+    }
+
+    public static void trace(Event event) {
+        trace(event, 0, GnssType.UNKNOWN, NO_BAND, 0, 0, 0);
+    }
+
+    public static void trace(Event event, double a) {
+        trace(event, 0, GnssType.UNKNOWN, NO_BAND, a, 0, 0);
+    }
+
+    /**
+     * Records a single event into the ring buffer
+     *
+     * @param event    event id
+     * @param svid     satellite id, or 0 if not related to a satellite
+     * @param gnssType constellation of the satellite
+     * @param band     band code, or NO_BAND
+     * @param a        first event specific value
+     * @param b        second event specific value
+     * @param c        third event specific value
+     */
+    public static void trace(Event event, int svid, GnssType gnssType, int band, double a, double b, float c) {
+        if (event.level < traceLevel) {
+            return;
+        }
+
+        final long timestamp = System.nanoTime();
+        final int i = (int) (writeIndex.getAndIncrement() & MASK);
+        events[i] = (byte) event.ordinal();
+        svids[i] = svid;
+        constellations[i] = (byte) gnssType.ordinal();
+        bands[i] = band;
+        timestamps[i] = timestamp;
+        valuesA[i] = a;
+        valuesB[i] = b;
+        valuesC[i] = c;
+
+        final Sink s = sink;
+        if (event.level >= logLevel && s != null) {
+            s.println(event.level, TAG, format(new StringBuilder(64), i).toString());
+        }
+    }
+
+    /**
+     * Formats every record currently held in the ring buffer, oldest first, and writes it to the given sink
+     */
+    public static void dump(Sink target) {
+        final long end = writeIndex.get();
+        final long start = Math.max(0, end - CAPACITY);
+        final StringBuilder builder = new StringBuilder(64);
+        for (long n = start; n < end; n++) {
+            final int i = (int) (n & MASK);
+            builder.setLength(0);
+            target.println(EVENTS[events[i]].level, TAG, format(builder, i).toString());
+        }
+    }
+
+    /**
+     * Discards all recorded events
+     */
+    public static void clear() {
+        writeIndex.set(0);
+    }
+
+    private static StringBuilder format(StringBuilder builder, int i) {
+        final Event event = EVENTS[events[i]];
+        builder.append(timestamps[i]).append(' ').append(event.name());
+        switch (event) {
+            case SATELLITE:
+                builder.append(' ').append(GNSS_TYPES[constellations[i]])
+                        .append(" svid=").append(svids[i])
+                        .append(" band=").append(bands[i] == NO_BAND ? null : BANDS[bands[i]])
+                        .append(" cn0=").append(valuesA[i])
+                        .append(" mhz=").append(valuesB[i]);
+                break;
+            case LOCATION:
+                builder.append(" lat=").append(valuesA[i])
+                        .append(" lng=").append(valuesB[i])
+                        .append(" acc=").append(valuesC[i]);
+                break;
+            case FIRST_FIX:
+                builder.append(" ttff=").append((long) valuesA[i]);
+                break;
+            case SESSION_FINISHED:
+                builder.append(" receiverOnMs=").append((long) valuesA[i]);
+                break;
+            case GALILEO_DETECTED:
+                builder.append(" frequency=").append((int) valuesA[i]);
+                break;
+            default:
+                break;
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,366 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.utils.SignalKeys;
+
+import java.util.Arrays;
+
+/**
+ * Rolling statistics over the last raw measurements of every signal, keyed by SignalKeys signal keys.
+ *
+ * Every signal owns a fixed-size ring window per tracked quantity, stored together in flat primitive arrays indexed
+ * by slot * window. Adding a measurement replaces the oldest sample of the window and adjusts running sums, so an
+ * update is O(1) and rolling means, deviations and shares are read without scanning the window. The sums are
+ * recomputed from the window every time it wraps around, so float rounding can't accumulate over long sessions.
+ *
+ * Arrays are only reallocated when the number of signals grows past half of the capacity. Not thread-safe, the
+ * aggregator is meant to be owned by the analysis thread.
+ */
+public final class MeasurementAggregator {
+
+    public static final int DEFAULT_WINDOW = 16;
+
+    /**
+     * GnssMeasurement.STATE_CODE_LOCK
+     */
+    public static final int STATE_CODE_LOCK = 1;
+
+    /**
+     * GnssMeasurement.MULTIPATH_INDICATOR_DETECTED
+     */
+    public static final int MULTIPATH_INDICATOR_DETECTED = 1;
+
+    private static final int DEFAULT_CAPACITY = 128;
+
+    private final int window;
+
+    private int[] keys;
+
+    private int mask;
+
+    private int size;
+
+    private float[] cn0Windows;
+
+    private float[] pseudorangeRateWindows;
+
+    private float[] pseudorangeRateUncertaintyWindows;
+
+    private byte[] multipathWindows;
+
+    private byte[] codeLockWindows;
+
+    /**
+     * Index of the oldest sample in the window and number of samples, per slot
+     */
+    private int[] heads;
+
+    private int[] counts;
+
+    private double[] cn0Sums;
+
+    private double[] cn0SquareSums;
+
+    private double[] pseudorangeRateSums;
+
+    private double[] pseudorangeRateSquareSums;
+
+    private double[] pseudorangeRateUncertaintySums;
+
+    private int[] multipathCounts;
+
+    private int[] codeLockCounts;
+
+    private int[] lastStates;
+
+    private long[] lastUpdateNanos;
+
+    public MeasurementAggregator() {
+        this(DEFAULT_WINDOW, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param window   number of samples kept per signal
+     * @param capacity initial number of signal slots, rounded up to a power of two
+     */
+    public MeasurementAggregator(int window, int capacity) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window (" + window + ") must be positive");
+        }
+        this.window = window;
+        allocate(Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1));
+    }
+
+    /**
+     * Adds one measurement of a signal, evicting its oldest sample once the window is full
+     *
+     * @param key                key from SignalKeys.signalKey()
+     * @param timeNanos          time of the measurement, in nanoseconds
+     * @param multipathIndicator one of the GnssMeasurement.MULTIPATH_INDICATOR_* values
+     * @param state              GnssMeasurement.STATE_* flags
+     * @return the slot of the signal
+     */
+    public int update(int key, long timeNanos, float cn0DbHz, float pseudorangeRateMetersPerSecond,
+                      float pseudorangeRateUncertaintyMetersPerSecond, int multipathIndicator, int state) {
+        int slot = find(key);
+        if (keys[slot] == SignalKeys.NO_KEY) {
+            if ((size + 1) * 2 > keys.length) {
+                rehash(keys.length * 2);
+                slot = find(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+
+        final int base = slot * window;
+        final int multipath = multipathIndicator == MULTIPATH_INDICATOR_DETECTED ? 1 : 0;
+        final int codeLock = (state & STATE_CODE_LOCK) != 0 ? 1 : 0;
+        final int index;
+        if (counts[slot] < window) {
+            index = base + (heads[slot] + counts[slot]) % window;
+            counts[slot]++;
+        } else {
+            // Window is full, the new sample replaces the oldest one
+            index = base + heads[slot];
+            cn0Sums[slot] -= cn0Windows[index];
+            cn0SquareSums[slot] -= (double) cn0Windows[index] * cn0Windows[index];
+            pseudorangeRateSums[slot] -= pseudorangeRateWindows[index];
+            pseudorangeRateSquareSums[slot] -= (double) pseudorangeRateWindows[index] * pseudorangeRateWindows[index];
+            pseudorangeRateUncertaintySums[slot] -= pseudorangeRateUncertaintyWindows[index];
+            multipathCounts[slot] -= multipathWindows[index];
+            codeLockCounts[slot] -= codeLockWindows[index];
+            heads[slot] = heads[slot] + 1 == window ? 0 : heads[slot] + 1;
+        }
+
+        cn0Windows[index] = cn0DbHz;
+        pseudorangeRateWindows[index] = pseudorangeRateMetersPerSecond;
+        pseudorangeRateUncertaintyWindows[index] = pseudorangeRateUncertaintyMetersPerSecond;
+        multipathWindows[index] = (byte) multipath;
+        codeLockWindows[index] = (byte) codeLock;
+        lastStates[slot] = state;
+        lastUpdateNanos[slot] = timeNanos;
+
+        if (counts[slot] == window && heads[slot] == 0) {
+            recomputeSums(slot);
+        } else {
+            cn0Sums[slot] += cn0DbHz;
+            cn0SquareSums[slot] += (double) cn0DbHz * cn0DbHz;
+            pseudorangeRateSums[slot] += pseudorangeRateMetersPerSecond;
+            pseudorangeRateSquareSums[slot] += (double) pseudorangeRateMetersPerSecond * pseudorangeRateMetersPerSecond;
+            pseudorangeRateUncertaintySums[slot] += pseudorangeRateUncertaintyMetersPerSecond;
+            multipathCounts[slot] += multipath;
+            codeLockCounts[slot] += codeLock;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the slot of the signal identified by the key, or -1 if it was never measured
+     */
+    public int indexOf(int key) {
+        final int slot = find(key);
+        return keys[slot] == SignalKeys.NO_KEY ? -1 : slot;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of slots, iterate over 0..capacity() and skip slots where isOccupied() is false
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    public boolean isOccupied(int slot) {
+        return keys[slot] != SignalKeys.NO_KEY;
+    }
+
+    public int getKey(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Returns the number of samples in the window of the signal, at most the window size
+     */
+    public int getSampleCount(int slot) {
+        return counts[slot];
+    }
+
+    public long getLastUpdateNanos(int slot) {
+        return lastUpdateNanos[slot];
+    }
+
+    /**
+     * Returns the GnssMeasurement.STATE_* flags of the last measurement of the signal
+     */
+    public int getLastState(int slot) {
+        return lastStates[slot];
+    }
+
+    public float getMeanCn0DbHz(int slot) {
+        return mean(cn0Sums[slot], counts[slot]);
+    }
+
+    public float getCn0StdDev(int slot) {
+        return stdDev(cn0Sums[slot], cn0SquareSums[slot], counts[slot]);
+    }
+
+    public float getMeanPseudorangeRateMetersPerSecond(int slot) {
+        return mean(pseudorangeRateSums[slot], counts[slot]);
+    }
+
+    public float getPseudorangeRateStdDev(int slot) {
+        return stdDev(pseudorangeRateSums[slot], pseudorangeRateSquareSums[slot], counts[slot]);
+    }
+
+    public float getMeanPseudorangeRateUncertaintyMetersPerSecond(int slot) {
+        return mean(pseudorangeRateUncertaintySums[slot], counts[slot]);
+    }
+
+    /**
+     * Returns the share (0..1) of the samples in the window with multipath detected
+     */
+    public float getMultipathShare(int slot) {
+        return counts[slot] == 0 ? 0 : (float) multipathCounts[slot] / counts[slot];
+    }
+
+    /**
+     * Returns the share (0..1) of the samples in the window with code lock
+     */
+    public float getCodeLockShare(int slot) {
+        return counts[slot] == 0 ? 0 : (float) codeLockCounts[slot] / counts[slot];
+    }
+
+    /**
+     * Removes all signals, keeping the current capacity
+     */
+    public void clear() {
+        Arrays.fill(keys, SignalKeys.NO_KEY);
+        Arrays.fill(heads, 0);
+        Arrays.fill(counts, 0);
+        Arrays.fill(cn0Sums, 0);
+        Arrays.fill(cn0SquareSums, 0);
+        Arrays.fill(pseudorangeRateSums, 0);
+        Arrays.fill(pseudorangeRateSquareSums, 0);
+        Arrays.fill(pseudorangeRateUncertaintySums, 0);
+        Arrays.fill(multipathCounts, 0);
+        Arrays.fill(codeLockCounts, 0);
+        Arrays.fill(lastStates, 0);
+        Arrays.fill(lastUpdateNanos, 0);
+        size = 0;
+    }
+
+    private static float mean(double sum, int count) {
+        return count == 0 ? Float.NaN : (float) (sum / count);
+    }
+
+    private static float stdDev(double sum, double squareSum, int count) {
+        if (count == 0) {
+            return Float.NaN;
+        }
+        final double mean = sum / count;
+        // Clamped because rounding can make the variance of a constant signal slightly negative
+        return (float) Math.sqrt(Math.max(0, squareSum / count - mean * mean));
+    }
+
+    private void recomputeSums(int slot) {
+        final int base = slot * window;
+        double cn0 = 0;
+        double cn0Squares = 0;
+        double rate = 0;
+        double rateSquares = 0;
+        double uncertainty = 0;
+        int multipath = 0;
+        int codeLock = 0;
+        for (int i = base; i < base + counts[slot]; i++) {
+            cn0 += cn0Windows[i];
+            cn0Squares += (double) cn0Windows[i] * cn0Windows[i];
+            rate += pseudorangeRateWindows[i];
+            rateSquares += (double) pseudorangeRateWindows[i] * pseudorangeRateWindows[i];
+            uncertainty += pseudorangeRateUncertaintyWindows[i];
+            multipath += multipathWindows[i];
+            codeLock += codeLockWindows[i];
+        }
+        cn0Sums[slot] = cn0;
+        cn0SquareSums[slot] = cn0Squares;
+        pseudorangeRateSums[slot] = rate;
+        pseudorangeRateSquareSums[slot] = rateSquares;
+        pseudorangeRateUncertaintySums[slot] = uncertainty;
+        multipathCounts[slot] = multipath;
+        codeLockCounts[slot] = codeLock;
+    }
+
+    private int find(int key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != SignalKeys.NO_KEY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(int key) {
+        // Murmur3 finalizer, spreads the svid, constellation and band bits over the whole int
+        int h = key;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private void rehash(int capacity) {
+        final int[] oldKeys = keys;
+        final float[] oldCn0Windows = cn0Windows;
+        final float[] oldRateWindows = pseudorangeRateWindows;
+        final float[] oldUncertaintyWindows = pseudorangeRateUncertaintyWindows;
+        final byte[] oldMultipathWindows = multipathWindows;
+        final byte[] oldCodeLockWindows = codeLockWindows;
+        final int[] oldHeads = heads;
+        final int[] oldCounts = counts;
+        final int[] oldLastStates = lastStates;
+        final long[] oldLastUpdateNanos = lastUpdateNanos;
+
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == SignalKeys.NO_KEY) {
+                continue;
+            }
+            final int slot = find(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            System.arraycopy(oldCn0Windows, i * window, cn0Windows, slot * window, window);
+            System.arraycopy(oldRateWindows, i * window, pseudorangeRateWindows, slot * window, window);
+            System.arraycopy(oldUncertaintyWindows, i * window, pseudorangeRateUncertaintyWindows, slot * window,
+                    window);
+            System.arraycopy(oldMultipathWindows, i * window, multipathWindows, slot * window, window);
+            System.arraycopy(oldCodeLockWindows, i * window, codeLockWindows, slot * window, window);
+            heads[slot] = oldHeads[i];
+            counts[slot] = oldCounts[i];
+            lastStates[slot] = oldLastStates[i];
+            lastUpdateNanos[slot] = oldLastUpdateNanos[i];
+            recomputeSums(slot);
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        cn0Windows = new float[capacity * window];
+        pseudorangeRateWindows = new float[capacity * window];
+        pseudorangeRateUncertaintyWindows = new float[capacity * window];
+        multipathWindows = new byte[capacity * window];
+        codeLockWindows = new byte[capacity * window];
+        heads = new int[capacity];
+        counts = new int[capacity];
+        cn0Sums = new double[capacity];
+        cn0SquareSums = new double[capacity];
+        pseudorangeRateSums = new double[capacity];
+        pseudorangeRateSquareSums = new double[capacity];
+        pseudorangeRateUncertaintySums = new double[capacity];
+        multipathCounts = new int[capacity];
+        codeLockCounts = new int[capacity];
+        lastStates = new int[capacity];
+        lastUpdateNanos = new long[capacity];
+        mask = capacity - 1;
+    }
+}
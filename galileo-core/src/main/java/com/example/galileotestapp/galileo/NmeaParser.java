@@ -0,0 +1,580 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
+import com.example.galileotestapp.galileo.model.GnssType;
+import com.example.galileotestapp.galileo.utils.SatelliteTables;
+import com.example.galileotestapp.galileo.utils.SignalKeys;
+
+/**
+ * Turns NMEA GSV, GSA and GNS sentences into status epochs, for receivers that report some constellations only
+ * through NMEA.
+ *
+ * Sentences are read in place from any CharSequence: the checksum is validated and fields are located by offset, so
+ * parsing allocates nothing. GSV sentences give the satellites in view, with their band when the NMEA 4.10 signal ID
+ * is present, GSA sentences the satellites used in the fix and GNS sentences whether a constellation took part in the
+ * fix. Sentences with the same timestamp form one epoch, which is published to the sink when the next timestamp
+ * arrives or on flush(). Not thread-safe, sentences must be parsed from a single thread.
+ */
+public final class NmeaParser {
+
+    // Cached because values() clones the array on every call.
+    private static final GnssType[] GNSS_TYPES = GnssType.values();
+
+    private static final int MAX_FIELDS = 32;
+
+    private static final int MAX_SIGNALS = 256;
+
+    private static final int MAX_USED_IN_FIX = 64;
+
+    private static final int SENTENCE_GSV = 1;
+
+    private static final int SENTENCE_GSA = 2;
+
+    private static final int SENTENCE_GNS = 3;
+
+    /**
+     * Position of Galileo in the GNS mode indicator, after GPS and GLONASS
+     */
+    private static final int GNS_GALILEO_MODE = 2;
+
+    /**
+     * Carrier frequencies by GnssType ordinal and NMEA 4.11 signal ID, 0 where unknown
+     */
+    private static final float[][] SIGNAL_FREQUENCIES_HZ = new float[GNSS_TYPES.length][16];
+
+    private static final float L1_HZ = 1575.42e6f;
+    private static final float L2_HZ = 1227.6e6f;
+    private static final float L5_HZ = 1176.45e6f;
+    private static final float E5B_HZ = 1207.14e6f;
+    private static final float E6_HZ = 1278.75e6f;
+
+    static {
+        putSignals(GnssType.NAVSTAR, L1_HZ, L1_HZ, L1_HZ, L2_HZ, L2_HZ, L2_HZ, L5_HZ, L5_HZ);
+        // FDMA channel centers, the channel itself is not part of NMEA
+        putSignals(GnssType.GLONASS, 1602e6f, 1602e6f, 1246e6f, 1246e6f);
+        putSignals(GnssType.GALILEO, L5_HZ, E5B_HZ, 1191.795e6f, E6_HZ, E6_HZ, L1_HZ, L1_HZ);
+        putSignals(GnssType.BEIDOU, 1561.098e6f, 1561.098e6f, L1_HZ, L1_HZ, L5_HZ, E5B_HZ, 1191.795e6f,
+                1268.52e6f, 1268.52e6f, 1268.52e6f, E5B_HZ, E5B_HZ);
+        putSignals(GnssType.QZSS, L1_HZ, L1_HZ, L1_HZ, L1_HZ, L2_HZ, L2_HZ, L5_HZ, L5_HZ, E6_HZ, E6_HZ);
+    }
+
+    private final int[] fieldStarts = new int[MAX_FIELDS];
+
+    private final int[] fieldEnds = new int[MAX_FIELDS];
+
+    private int fieldCount;
+
+    private CharSequence text;
+
+    private EpochSink sink;
+
+    private boolean galileoOnly;
+
+    // Epoch being collected.
+
+    private boolean pending;
+
+    private long pendingTimestamp;
+
+    private long pendingTimeNanos;
+
+    private int signalCount;
+
+    private final int[] svids = new int[MAX_SIGNALS];
+
+    private final GnssType[] gnssTypes = new GnssType[MAX_SIGNALS];
+
+    private final float[] cn0DbHz = new float[MAX_SIGNALS];
+
+    private final float[] elevationDegrees = new float[MAX_SIGNALS];
+
+    private final float[] azimuthDegrees = new float[MAX_SIGNALS];
+
+    private final float[] carrierFrequencyHz = new float[MAX_SIGNALS];
+
+    /**
+     * Satellite keys listed by the GSA sentences of the epoch
+     */
+    private final int[] usedInFix = new int[MAX_USED_IN_FIX];
+
+    private int usedInFixCount;
+
+    private boolean galileoUsedInFixListed;
+
+    private boolean galileoInFix;
+
+    // Counters.
+
+    private long sentenceCount;
+
+    private long invalidSentenceCount;
+
+    private long epochCount;
+
+    private long droppedEpochCount;
+
+    /**
+     * Sets the sink complete epochs are published to, null to discard them
+     */
+    public void setSink(EpochSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Only publishes epochs with at least one Galileo satellite, e.g. when GnssStatus already reports the other
+     * constellations
+     */
+    public void setGalileoOnly(boolean galileoOnly) {
+        this.galileoOnly = galileoOnly;
+    }
+
+    /**
+     * Parses one sentence. Text before the leading '$' and after the checksum is ignored, so a whole log line can be
+     * passed.
+     *
+     * @param timestamp sentences with the same timestamp belong to one epoch, e.g. the OnNmeaMessageListener one
+     * @param timeNanos time of the epoch if this sentence starts it, in nanoseconds
+     * @return true if the sentence was valid and is one of the supported types
+     */
+    public boolean parse(CharSequence sentence, long timestamp, long timeNanos) {
+        text = sentence;
+        try {
+            if (!split()) {
+                invalidSentenceCount++;
+                return false;
+            }
+            sentenceCount++;
+
+            final int type = getSentenceType();
+            if (type == 0) {
+                return false;
+            }
+            if (pending && timestamp != pendingTimestamp) {
+                flush();
+            }
+            if (!pending) {
+                pending = true;
+                pendingTimestamp = timestamp;
+                pendingTimeNanos = timeNanos;
+            }
+
+            switch (type) {
+                case SENTENCE_GSV:
+                    parseGsv();
+                    break;
+                case SENTENCE_GSA:
+                    parseGsa();
+                    break;
+                default:
+                    parseGns();
+            }
+            return true;
+        } finally {
+            text = null;
+        }
+    }
+
+    /**
+     * Publishes the epoch being collected, if any
+     */
+    public void flush() {
+        if (!pending) {
+            return;
+        }
+        pending = false;
+        final int count = signalCount;
+        final boolean galileoUsedFromGns = galileoInFix && !galileoUsedInFixListed;
+        boolean hasGalileo = false;
+        for (int i = 0; i < count; i++) {
+            if (gnssTypes[i] == GnssType.GALILEO) {
+                hasGalileo = true;
+                break;
+            }
+        }
+
+        if (count > 0 && sink != null && (hasGalileo || !galileoOnly)) {
+            final EpochSnapshot epoch = sink.claim();
+            if (epoch == null) {
+                droppedEpochCount++;
+            } else {
+                epoch.reset(count, pendingTimeNanos);
+                epoch.setFromNmea();
+                for (int i = 0; i < count; i++) {
+                    final GnssType type = gnssTypes[i];
+                    final boolean used = contains(usedInFix, usedInFixCount, SignalKeys.satelliteKey(type, svids[i]))
+                            || (galileoUsedFromGns && type == GnssType.GALILEO && cn0DbHz[i] > 0);
+                    epoch.setSatellite(i, svids[i], type, cn0DbHz[i], elevationDegrees[i], azimuthDegrees[i],
+                            used ? EpochSnapshot.FLAG_USED_IN_FIX : 0);
+                    if (carrierFrequencyHz[i] != 0) {
+                        epoch.setCarrierFrequencyHz(i, carrierFrequencyHz[i]);
+                    }
+                }
+                sink.publish();
+                epochCount++;
+            }
+        }
+
+        signalCount = 0;
+        usedInFixCount = 0;
+        galileoUsedInFixListed = false;
+        galileoInFix = false;
+    }
+
+    /**
+     * Forgets the epoch being collected without publishing it
+     */
+    public void clear() {
+        pending = false;
+        signalCount = 0;
+        usedInFixCount = 0;
+        galileoUsedInFixListed = false;
+        galileoInFix = false;
+    }
+
+    /**
+     * Returns the number of valid sentences read, of any type
+     */
+    public long getSentenceCount() {
+        return sentenceCount;
+    }
+
+    /**
+     * Returns the number of sentences rejected for a bad checksum or format
+     */
+    public long getInvalidSentenceCount() {
+        return invalidSentenceCount;
+    }
+
+    public long getEpochCount() {
+        return epochCount;
+    }
+
+    /**
+     * Returns the number of epochs dropped because the sink was full
+     */
+    public long getDroppedEpochCount() {
+        return droppedEpochCount;
+    }
+
+    /**
+     * Finds the sentence in the text, validates its checksum and locates its fields, the address being field 0
+     */
+    private boolean split() {
+        final int length = text.length();
+        int start = 0;
+        while (start < length && text.charAt(start) != '$') {
+            start++;
+        }
+        if (start == length) {
+            return false;
+        }
+
+        int checksum = 0;
+        fieldCount = 0;
+        int fieldStart = start + 1;
+        int i = fieldStart;
+        for (; i < length; i++) {
+            final char c = text.charAt(i);
+            if (c == '*') {
+                break;
+            }
+            checksum ^= c;
+            if (c == ',') {
+                if (fieldCount == MAX_FIELDS) {
+                    return false;
+                }
+                fieldStarts[fieldCount] = fieldStart;
+                fieldEnds[fieldCount++] = i;
+                fieldStart = i + 1;
+            }
+        }
+        if (i + 2 >= length || fieldCount == MAX_FIELDS) {
+            // No '*', fewer than two checksum digits or too many fields
+            return false;
+        }
+        fieldStarts[fieldCount] = fieldStart;
+        fieldEnds[fieldCount++] = i;
+
+        final int high = hexDigit(text.charAt(i + 1));
+        final int low = hexDigit(text.charAt(i + 2));
+        return high >= 0 && low >= 0 && (high << 4 | low) == checksum;
+    }
+
+    /**
+     * Returns the SENTENCE_* type of the sentence, 0 if it is not supported
+     */
+    private int getSentenceType() {
+        // Talker (2 characters) and sentence formatter (3 characters)
+        if (fieldEnds[0] - fieldStarts[0] != 5) {
+            return 0;
+        }
+        final int formatter = fieldStarts[0] + 2;
+        final char c0 = text.charAt(formatter);
+        final char c1 = text.charAt(formatter + 1);
+        final char c2 = text.charAt(formatter + 2);
+        if (c0 == 'G' && c1 == 'S' && c2 == 'V') {
+            return SENTENCE_GSV;
+        }
+        if (c0 == 'G' && c1 == 'S' && c2 == 'A') {
+            return SENTENCE_GSA;
+        }
+        if (c0 == 'G' && c1 == 'N' && c2 == 'S') {
+            return SENTENCE_GNS;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the constellation of the talker ID, UNKNOWN for GN (combined) and unknown talkers
+     */
+    private GnssType getTalkerType() {
+        final char c0 = text.charAt(fieldStarts[0]);
+        final char c1 = text.charAt(fieldStarts[0] + 1);
+        if (c0 == 'G') {
+            switch (c1) {
+                case 'P':
+                    return GnssType.NAVSTAR;
+                case 'L':
+                    return GnssType.GLONASS;
+                case 'A':
+                    return GnssType.GALILEO;
+                case 'B':
+                    return GnssType.BEIDOU;
+                case 'Q':
+                    return GnssType.QZSS;
+                default:
+                    return GnssType.UNKNOWN;
+            }
+        }
+        if (c0 == 'B' && c1 == 'D') {
+            return GnssType.BEIDOU;
+        }
+        if (c0 == 'Q' && c1 == 'Z') {
+            return GnssType.QZSS;
+        }
+        return GnssType.UNKNOWN;
+    }
+
+    /**
+     * $xxGSV,total,number,inView{,svid,elevation,azimuth,snr}[,signalId]
+     */
+    private void parseGsv() {
+        final GnssType talker = getTalkerType();
+        final int satelliteFields = fieldCount - 4;
+        final boolean hasSignalId = satelliteFields % 4 == 1;
+        final int signalId = hasSignalId ? parseHex(fieldCount - 1) : 0;
+
+        for (int field = 4; field + 3 < fieldCount; field += 4) {
+            final int nmeaSvid = parseInt(field, -1);
+            if (nmeaSvid <= 0 || signalCount == MAX_SIGNALS) {
+                continue;
+            }
+            final GnssType type = getGnssType(talker, nmeaSvid);
+            if (type == GnssType.UNKNOWN) {
+                continue;
+            }
+            final int index = signalCount++;
+            svids[index] = toSvid(type, nmeaSvid);
+            gnssTypes[index] = type;
+            elevationDegrees[index] = parseFloat(field + 1, 0);
+            azimuthDegrees[index] = parseFloat(field + 2, 0);
+            cn0DbHz[index] = parseFloat(field + 3, 0);
+            carrierFrequencyHz[index] = signalId > 0 && signalId < 16
+                    ? SIGNAL_FREQUENCIES_HZ[type.ordinal()][signalId] : 0;
+        }
+    }
+
+    /**
+     * $xxGSA,mode,fixType,svid x 12,pdop,hdop,vdop[,systemId]
+     */
+    private void parseGsa() {
+        if (parseInt(2, 1) < 2) {
+            // No fix
+            return;
+        }
+        GnssType system = GnssType.UNKNOWN;
+        if (fieldCount > 18) {
+            system = getSystemType(parseHex(18));
+        }
+        if (system == GnssType.UNKNOWN) {
+            system = getTalkerType();
+        }
+
+        for (int field = 3; field < 15 && field < fieldCount; field++) {
+            final int nmeaSvid = parseInt(field, -1);
+            if (nmeaSvid <= 0 || usedInFixCount == MAX_USED_IN_FIX) {
+                continue;
+            }
+            final GnssType type = getGnssType(system, nmeaSvid);
+            if (type == GnssType.UNKNOWN) {
+                continue;
+            }
+            if (type == GnssType.GALILEO) {
+                galileoUsedInFixListed = true;
+            }
+            usedInFix[usedInFixCount++] = SignalKeys.satelliteKey(type, toSvid(type, nmeaSvid));
+        }
+    }
+
+    /**
+     * $xxGNS,time,lat,N,lon,E,mode,... where mode has one character per constellation, N for not used
+     */
+    private void parseGns() {
+        if (fieldCount <= 6) {
+            return;
+        }
+        final int mode = fieldStarts[6] + GNS_GALILEO_MODE;
+        if (mode < fieldEnds[6] && text.charAt(mode) != 'N') {
+            galileoInFix = true;
+        }
+    }
+
+    /**
+     * Returns the constellation of an NMEA svid given by a talker or system ID, using the legacy svid ranges for
+     * combined GN sentences
+     */
+    private static GnssType getGnssType(GnssType talker, int nmeaSvid) {
+        if (talker == GnssType.NAVSTAR && nmeaSvid > 32 && nmeaSvid <= 64) {
+            return GnssType.SBAS;
+        }
+        if (talker != GnssType.UNKNOWN) {
+            return talker;
+        }
+        if (nmeaSvid > 64 && nmeaSvid <= 96) {
+            return GnssType.GLONASS;
+        }
+        if (nmeaSvid > 32 && nmeaSvid <= 64) {
+            return GnssType.SBAS;
+        }
+        return SatelliteTables.getGnssTypeForPrn(nmeaSvid);
+    }
+
+    /**
+     * Converts an NMEA svid to the GnssStatus numbering
+     */
+    private static int toSvid(GnssType type, int nmeaSvid) {
+        switch (type) {
+            case GLONASS:
+                return nmeaSvid > 64 ? nmeaSvid - 64 : nmeaSvid;
+            case SBAS:
+                return nmeaSvid + 87;
+            case GALILEO:
+                return nmeaSvid > 300 ? nmeaSvid - 300 : nmeaSvid;
+            case BEIDOU:
+                return nmeaSvid > 400 ? nmeaSvid - 400 : nmeaSvid > 200 ? nmeaSvid - 200 : nmeaSvid;
+            case QZSS:
+                return nmeaSvid <= 10 ? nmeaSvid + 192 : nmeaSvid;
+            default:
+                return nmeaSvid;
+        }
+    }
+
+    /**
+     * Returns the constellation of an NMEA 4.10 GNSS system ID
+     */
+    private static GnssType getSystemType(int systemId) {
+        switch (systemId) {
+            case 1:
+                return GnssType.NAVSTAR;
+            case 2:
+                return GnssType.GLONASS;
+            case 3:
+                return GnssType.GALILEO;
+            case 4:
+                return GnssType.BEIDOU;
+            case 5:
+                return GnssType.QZSS;
+            default:
+                return GnssType.UNKNOWN;
+        }
+    }
+
+    private int parseInt(int field, int defaultValue) {
+        final int start = fieldStarts[field];
+        final int end = fieldEnds[field];
+        if (start == end) {
+            return defaultValue;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            final int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return defaultValue;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private int parseHex(int field) {
+        final int start = fieldStarts[field];
+        final int end = fieldEnds[field];
+        if (end - start != 1) {
+            return 0;
+        }
+        return Math.max(0, hexDigit(text.charAt(start)));
+    }
+
+    /**
+     * Parses a plain decimal number, e.g. "45" or "-3.5"
+     */
+    private float parseFloat(int field, float defaultValue) {
+        final int start = fieldStarts[field];
+        final int end = fieldEnds[field];
+        if (start == end) {
+            return defaultValue;
+        }
+        int i = start;
+        final boolean negative = text.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        float value = 0;
+        float scale = 0;
+        for (; i < end; i++) {
+            final char c = text.charAt(i);
+            if (c == '.' && scale == 0) {
+                scale = 1;
+                continue;
+            }
+            final int digit = c - '0';
+            if (digit < 0 || digit > 9) {
+                return defaultValue;
+            }
+            if (scale == 0) {
+                value = value * 10 + digit;
+            } else {
+                scale *= 0.1f;
+                value += digit * scale;
+            }
+        }
+        return negative ? -value : value;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    private static boolean contains(int[] keys, int length, int key) {
+        for (int i = 0; i < length; i++) {
+            if (keys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void putSignals(GnssType type, float... frequenciesHz) {
+        // Signal ID 0 means all signals, IDs start at 1
+        System.arraycopy(frequenciesHz, 0, SIGNAL_FREQUENCIES_HZ[type.ordinal()], 1, frequenciesHz.length);
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.galileotestapp.galileo;
+
+/**
+ * Streaming quantile sketch with logarithmic buckets and a fixed relative error.
+ *
+ * A value v is counted in bucket ceil(log(v) / log(gamma)), so every quantile is answered within the configured
+ * relative accuracy, whatever the distribution, from a fixed number of counters. Sketches with the same parameters
+ * can be merged, e.g. a persisted history with the sessions recorded since, and encoded into a compact String.
+ * Values below 1 share the first bucket. Not thread-safe.
+ */
+public final class QuantileSketch {
+
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.02;
+
+    public static final double DEFAULT_MAX_VALUE = 1e7;
+
+    private static final String ENCODING_VERSION = "1";
+
+    private final double relativeAccuracy;
+
+    private final double maxValue;
+
+    private final double gamma;
+
+    private final double logGamma;
+
+    private final long[] counts;
+
+    private long count;
+
+    private double min = Double.POSITIVE_INFINITY;
+
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY, DEFAULT_MAX_VALUE);
+    }
+
+    /**
+     * @param relativeAccuracy relative error of the quantiles, between 0 and 1
+     * @param maxValue         values above are counted in the last bucket, with a larger error
+     */
+    public QuantileSketch(double relativeAccuracy, double maxValue) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("relativeAccuracy (" + relativeAccuracy + ") must be in (0, 1)");
+        }
+        if (maxValue <= 1) {
+            throw new IllegalArgumentException("maxValue (" + maxValue + ") must be greater than 1");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxValue = maxValue;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.counts = new long[(int) Math.ceil(Math.log(maxValue) / logGamma) + 1];
+    }
+
+    public void add(double value) {
+        counts[indexOf(value)]++;
+        count++;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Adds all values counted by the other sketch, which must have the same accuracy and max value
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy || other.maxValue != maxValue) {
+            throw new IllegalArgumentException("Sketches with different parameters can't be merged");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the smallest added value, NaN if the sketch is empty
+     */
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * Returns the largest added value, NaN if the sketch is empty
+     */
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    /**
+     * Returns the value at the given quantile (0 to 1), NaN if the sketch is empty
+     */
+    public double getQuantile(double quantile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (quantile <= 0) {
+            return min;
+        }
+        if (quantile >= 1) {
+            return max;
+        }
+
+        final long rank = (long) (quantile * (count - 1));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                // Bucket midpoint in relative terms, clamped to what was actually seen
+                final double value = i == 0 ? 1 : 2 * Math.pow(gamma, i) / (gamma + 1);
+                return Math.max(min, Math.min(max, value));
+            }
+        }
+        return max;
+    }
+
+    public void clear() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+        count = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Returns a compact String form that decode() reads back, only non-empty buckets are written
+     */
+    public String encode() {
+        final StringBuilder builder = new StringBuilder()
+                .append(ENCODING_VERSION).append(';')
+                .append(relativeAccuracy).append(';')
+                .append(maxValue).append(';')
+                .append(count).append(';')
+                .append(count == 0 ? 0 : min).append(';')
+                .append(count == 0 ? 0 : max).append(';');
+        boolean first = true;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                if (!first) {
+                    builder.append(',');
+                }
+                first = false;
+                builder.append(i).append(':').append(counts[i]);
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Parses the output of encode(), returns null if the value is missing or malformed
+     */
+    public static QuantileSketch decode(String encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        final String[] parts = encoded.split(";", -1);
+        if (parts.length != 7 || !ENCODING_VERSION.equals(parts[0])) {
+            return null;
+        }
+        try {
+            final QuantileSketch sketch = new QuantileSketch(Double.parseDouble(parts[1]),
+                    Double.parseDouble(parts[2]));
+            sketch.count = Long.parseLong(parts[3]);
+            if (sketch.count > 0) {
+                sketch.min = Double.parseDouble(parts[4]);
+                sketch.max = Double.parseDouble(parts[5]);
+            }
+            if (!parts[6].isEmpty()) {
+                for (String bucket : parts[6].split(",")) {
+                    final int colon = bucket.indexOf(':');
+                    sketch.counts[Integer.parseInt(bucket.substring(0, colon))] =
+                            Long.parseLong(bucket.substring(colon + 1));
+                }
+            }
+            return sketch;
+        } catch (RuntimeException e) {
+            // Non-numeric values, bucket indexes out of range or invalid parameters
+            return null;
+        }
+    }
+
+    /**
+     * Returns the number of buckets, for callers keeping their own bucket counts
+     */
+    int getBucketCount() {
+        return counts.length;
+    }
+
+    /**
+     * Returns the bucket the value is counted in, for callers keeping their own bucket counts
+     */
+    int getBucketIndex(double value) {
+        return indexOf(value);
+    }
+
+    /**
+     * Adds counts kept outside the sketch for one of its buckets, together with the range of the counted values
+     */
+    void addBucket(int index, long bucketCount, double bucketMin, double bucketMax) {
+        if (bucketCount == 0) {
+            return;
+        }
+        counts[index] += bucketCount;
+        count += bucketCount;
+        min = Math.min(min, bucketMin);
+        max = Math.max(max, bucketMax);
+    }
+
+    private int indexOf(double value) {
+        if (value <= 1) {
+            return 0;
+        }
+        return Math.min((int) Math.ceil(Math.log(value) / logGamma), counts.length - 1);
+    }
+}
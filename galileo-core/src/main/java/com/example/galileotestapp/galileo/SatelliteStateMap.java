@@ -0,0 +1,208 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.utils.SignalKeys;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from packed SignalKeys keys to per-satellite running state, kept across epochs.
+ *
+ * State lives in parallel primitive arrays indexed by slot, so there are no entry objects and updates never allocate.
+ * Arrays are only reallocated when the map grows past half of its capacity. Not thread-safe, the map is meant to be
+ * owned by the analysis thread.
+ */
+public final class SatelliteStateMap {
+
+    private static final int DEFAULT_CAPACITY = 128;
+
+    private int[] keys;
+
+    private long[] firstSeenNanos;
+
+    private long[] lastSeenNanos;
+
+    private float[] maxCn0DbHz;
+
+    private int[] bandMasks;
+
+    private int[] epochsSeen;
+
+    private int[] epochsUsedInFix;
+
+    private int size;
+
+    private int mask;
+
+    public SatelliteStateMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity initial number of slots, rounded up to a power of two
+     */
+    public SatelliteStateMap(int capacity) {
+        allocate(Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1));
+    }
+
+    /**
+     * Records one observation of a signal in the epoch taken at timeNanos. Several signals of the same satellite in
+     * one epoch only count as one epoch.
+     *
+     * @param key        key from SignalKeys, the band is ignored
+     * @param timeNanos  epoch time, in nanoseconds
+     * @param cn0DbHz    carrier-to-noise density of the signal
+     * @param bandCode   band code of the signal, or a negative value if unknown
+     * @param usedInFix  true if the satellite was used in the fix of this epoch
+     * @return the slot of the satellite
+     */
+    public int update(int key, long timeNanos, float cn0DbHz, int bandCode, boolean usedInFix) {
+        key = SignalKeys.toSatelliteKey(key);
+        int slot = find(key);
+        if (keys[slot] == SignalKeys.NO_KEY) {
+            if ((size + 1) * 2 > keys.length) {
+                rehash(keys.length * 2);
+                slot = find(key);
+            }
+            keys[slot] = key;
+            firstSeenNanos[slot] = timeNanos;
+            lastSeenNanos[slot] = Long.MIN_VALUE;
+            maxCn0DbHz[slot] = cn0DbHz;
+            size++;
+        }
+
+        if (lastSeenNanos[slot] != timeNanos) {
+            lastSeenNanos[slot] = timeNanos;
+            epochsSeen[slot]++;
+            if (usedInFix) {
+                epochsUsedInFix[slot]++;
+            }
+        }
+        if (cn0DbHz > maxCn0DbHz[slot]) {
+            maxCn0DbHz[slot] = cn0DbHz;
+        }
+        if (bandCode >= 0 && bandCode < 32) {
+            bandMasks[slot] |= 1 << bandCode;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the slot of the satellite identified by the key, or -1 if it was never seen
+     */
+    public int indexOf(int key) {
+        final int slot = find(SignalKeys.toSatelliteKey(key));
+        return keys[slot] == SignalKeys.NO_KEY ? -1 : slot;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of slots, iterate over 0..capacity() and skip slots where isOccupied() is false
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    public boolean isOccupied(int slot) {
+        return keys[slot] != SignalKeys.NO_KEY;
+    }
+
+    public int getKey(int slot) {
+        return keys[slot];
+    }
+
+    public long getFirstSeenNanos(int slot) {
+        return firstSeenNanos[slot];
+    }
+
+    public long getLastSeenNanos(int slot) {
+        return lastSeenNanos[slot];
+    }
+
+    public float getMaxCn0DbHz(int slot) {
+        return maxCn0DbHz[slot];
+    }
+
+    /**
+     * Returns the mask of band codes (GnssBand ordinals) observed for the satellite
+     */
+    public int getBandMask(int slot) {
+        return bandMasks[slot];
+    }
+
+    public int getEpochsSeen(int slot) {
+        return epochsSeen[slot];
+    }
+
+    public int getEpochsUsedInFix(int slot) {
+        return epochsUsedInFix[slot];
+    }
+
+    /**
+     * Removes all satellites, keeping the current capacity
+     */
+    public void clear() {
+        Arrays.fill(keys, SignalKeys.NO_KEY);
+        Arrays.fill(bandMasks, 0);
+        Arrays.fill(epochsSeen, 0);
+        Arrays.fill(epochsUsedInFix, 0);
+        size = 0;
+    }
+
+    private int find(int key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != SignalKeys.NO_KEY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(int key) {
+        // Murmur3 finalizer, spreads the svid and constellation bits over the whole int
+        int h = key;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private void rehash(int capacity) {
+        final int[] oldKeys = keys;
+        final long[] oldFirstSeen = firstSeenNanos;
+        final long[] oldLastSeen = lastSeenNanos;
+        final float[] oldMaxCn0 = maxCn0DbHz;
+        final int[] oldBandMasks = bandMasks;
+        final int[] oldEpochsSeen = epochsSeen;
+        final int[] oldEpochsUsedInFix = epochsUsedInFix;
+
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == SignalKeys.NO_KEY) {
+                continue;
+            }
+            final int slot = find(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            firstSeenNanos[slot] = oldFirstSeen[i];
+            lastSeenNanos[slot] = oldLastSeen[i];
+            maxCn0DbHz[slot] = oldMaxCn0[i];
+            bandMasks[slot] = oldBandMasks[i];
+            epochsSeen[slot] = oldEpochsSeen[i];
+            epochsUsedInFix[slot] = oldEpochsUsedInFix[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        firstSeenNanos = new long[capacity];
+        lastSeenNanos = new long[capacity];
+        maxCn0DbHz = new float[capacity];
+        bandMasks = new int[capacity];
+        epochsSeen = new int[capacity];
+        epochsUsedInFix = new int[capacity];
+        mask = capacity - 1;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
+
+/**
+ * EpochSink that processes every epoch on the publishing thread, reusing a single snapshot.
+ *
+ * Used where there is no callback thread to protect, e.g. when analyzing recorded sessions on a JVM.
+ */
+public final class SynchronousEpochSink implements EpochSink {
+
+    private final EpochSnapshot epoch = new EpochSnapshot();
+
+    private final EpochRing.Consumer consumer;
+
+    public SynchronousEpochSink(EpochRing.Consumer consumer) {
+        this.consumer = consumer;
+    }
+
+    @Override
+    public EpochSnapshot claim() {
+        return epoch;
+    }
+
+    @Override
+    public void publish() {
+        consumer.onEpoch(epoch);
+        // Every epoch is a batch of its own
+        if (consumer instanceof EpochRing.BatchConsumer) {
+            ((EpochRing.BatchConsumer) consumer).onBatchEnd();
+        }
+    }
+}
@@ -26,12 +26,19 @@ public class DilutionOfPrecision {
 
     double mVerticalDop;
 
+    double mTimeDop = Double.NaN;
+
     public DilutionOfPrecision(double positionDop, double horizontalDop, double verticalDop) {
         this.mPositionDop = positionDop;
         this.mHorizontalDop = horizontalDop;
         this.mVerticalDop = verticalDop;
     }
 
+    public DilutionOfPrecision(double positionDop, double horizontalDop, double verticalDop, double timeDop) {
+        this(positionDop, horizontalDop, verticalDop);
+        this.mTimeDop = timeDop;
+    }
+
     public double getPositionDop() {
         return mPositionDop;
     }
@@ -55,4 +62,22 @@ public class DilutionOfPrecision {
     public void setVerticalDop(double verticalDop) {
         this.mVerticalDop = verticalDop;
     }
+
+    /**
+     * Returns the time (clock bias) DOP, NaN if it is not known, e.g. when the DOP came from NMEA
+     */
+    public double getTimeDop() {
+        return mTimeDop;
+    }
+
+    public void setTimeDop(double timeDop) {
+        this.mTimeDop = timeDop;
+    }
+
+    /**
+     * Returns the geometric DOP, combining position and time, NaN if the time DOP is not known
+     */
+    public double getGeometricDop() {
+        return Math.sqrt(mPositionDop * mPositionDop + mTimeDop * mTimeDop);
+    }
 }
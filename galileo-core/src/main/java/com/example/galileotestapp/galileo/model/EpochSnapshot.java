@@ -0,0 +1,313 @@
+package com.example.galileotestapp.galileo.model;
+
+import java.util.Arrays;
+
+import static com.example.galileotestapp.galileo.model.SatelliteStatus.NO_DATA;
+
+/**
+ * Reusable, struct-of-arrays copy of a single GNSS status epoch, of a single GNSS measurements event, or of a single
+ * location fix.
+ *
+ * Mirrors the per-satellite accessors of GnssStatus (https://developer.android.com/reference/android/location/GnssStatus),
+ * but keeps every field in primitive arrays. The arrays are only reallocated when the satellite count grows past the
+ * current capacity, so filling and scanning an epoch does not allocate in steady state.
+ */
+public class EpochSnapshot {
+
+    /**
+     * The snapshot holds satellite status
+     */
+    public static final int KIND_STATUS = 0;
+
+    /**
+     * The snapshot holds a location fix, and no satellites
+     */
+    public static final int KIND_LOCATION = 1;
+
+    /**
+     * The snapshot holds raw measurements, one per tracked signal. Elevation, azimuth and the almanac, ephemeris and
+     * used in fix flags are not set.
+     */
+    public static final int KIND_MEASUREMENTS = 2;
+
+    public static final int FLAG_HAS_ALMANAC = 1;
+    public static final int FLAG_HAS_EPHEMERIS = 1 << 1;
+    public static final int FLAG_USED_IN_FIX = 1 << 2;
+    public static final int FLAG_HAS_CARRIER_FREQUENCY = 1 << 3;
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    // Cached because GnssType.values() clones the array on every call.
+    private static final GnssType[] GNSS_TYPES = GnssType.values();
+
+    private int kind;
+
+    private int count;
+
+    private long timeNanos;
+
+    /**
+     * True for a status epoch parsed from NMEA rather than reported by GnssStatus
+     */
+    private boolean fromNmea;
+
+    private double latitude;
+
+    private double longitude;
+
+    private double altitude;
+
+    private float accuracy;
+
+    private int[] svids;
+
+    private byte[] gnssTypes;
+
+    private float[] cn0DbHz;
+
+    private float[] elevationDegrees;
+
+    private float[] azimuthDegrees;
+
+    private float[] carrierFrequencyHz;
+
+    private byte[] flags;
+
+    private float[] pseudorangeRateMetersPerSecond;
+
+    private float[] pseudorangeRateUncertaintyMetersPerSecond;
+
+    private byte[] multipathIndicators;
+
+    private int[] states;
+
+    public EpochSnapshot() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public EpochSnapshot(int capacity) {
+        allocate(capacity);
+    }
+
+    /**
+     * Prepares the snapshot to receive a new epoch, growing the backing arrays if needed
+     *
+     * @param satelliteCount number of satellites in the new epoch
+     * @param timeNanos      elapsed realtime of the epoch, in nanoseconds
+     */
+    public void reset(int satelliteCount, long timeNanos) {
+        if (satelliteCount > svids.length) {
+            allocate(Math.max(satelliteCount, svids.length * 2));
+        }
+        this.kind = KIND_STATUS;
+        this.count = satelliteCount;
+        this.timeNanos = timeNanos;
+        this.fromNmea = false;
+    }
+
+    /**
+     * Prepares the snapshot to receive a new measurements event, growing the backing arrays if needed
+     *
+     * @param measurementCount number of measurements in the new event
+     * @param timeNanos        elapsed realtime of the event, in nanoseconds
+     */
+    public void resetMeasurements(int measurementCount, long timeNanos) {
+        reset(measurementCount, timeNanos);
+        this.kind = KIND_MEASUREMENTS;
+    }
+
+    /**
+     * Turns the snapshot into a location fix
+     *
+     * @param timeNanos elapsed realtime of the fix, in nanoseconds
+     */
+    public void setLocation(long timeNanos, double latitude, double longitude, double altitude, float accuracy) {
+        this.kind = KIND_LOCATION;
+        this.count = 0;
+        this.fromNmea = false;
+        this.timeNanos = timeNanos;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.altitude = altitude;
+        this.accuracy = accuracy;
+    }
+
+    /**
+     * Sets all the fields of the satellite at the given index, clearing any carrier frequency from a previous epoch
+     */
+    public void setSatellite(int index, int svid, GnssType gnssType, float cn0DbHz, float elevationDegrees,
+                             float azimuthDegrees, int flags) {
+        this.svids[index] = svid;
+        this.gnssTypes[index] = (byte) gnssType.ordinal();
+        this.cn0DbHz[index] = cn0DbHz;
+        this.elevationDegrees[index] = elevationDegrees;
+        this.azimuthDegrees[index] = azimuthDegrees;
+        this.carrierFrequencyHz[index] = NO_DATA;
+        this.flags[index] = (byte) (flags & ~FLAG_HAS_CARRIER_FREQUENCY);
+    }
+
+    /**
+     * Sets all the fields of the measurement at the given index, clearing any carrier frequency from a previous epoch
+     *
+     * @param multipathIndicator one of the GnssMeasurement.MULTIPATH_INDICATOR_* values
+     * @param state              GnssMeasurement.STATE_* flags
+     */
+    public void setMeasurement(int index, int svid, GnssType gnssType, float cn0DbHz,
+                               float pseudorangeRateMetersPerSecond, float pseudorangeRateUncertaintyMetersPerSecond,
+                               int multipathIndicator, int state) {
+        setSatellite(index, svid, gnssType, cn0DbHz, NO_DATA, NO_DATA, 0);
+        this.pseudorangeRateMetersPerSecond[index] = pseudorangeRateMetersPerSecond;
+        this.pseudorangeRateUncertaintyMetersPerSecond[index] = pseudorangeRateUncertaintyMetersPerSecond;
+        this.multipathIndicators[index] = (byte) multipathIndicator;
+        this.states[index] = state;
+    }
+
+    /**
+     * Appends a measurement to an event started with resetMeasurements(0, timeNanos), for sources that don't know the
+     * number of measurements up front. Grows the backing arrays if needed, keeping the measurements already set.
+     *
+     * @return the index of the new measurement
+     */
+    public int addMeasurement(int svid, GnssType gnssType, float cn0DbHz, float pseudorangeRateMetersPerSecond,
+                              float pseudorangeRateUncertaintyMetersPerSecond, int multipathIndicator, int state) {
+        if (count == svids.length) {
+            grow(Math.max(DEFAULT_CAPACITY, 2 * svids.length));
+        }
+        final int index = count++;
+        setMeasurement(index, svid, gnssType, cn0DbHz, pseudorangeRateMetersPerSecond,
+                pseudorangeRateUncertaintyMetersPerSecond, multipathIndicator, state);
+        return index;
+    }
+
+    public void setCarrierFrequencyHz(int index, float carrierFrequencyHz) {
+        this.carrierFrequencyHz[index] = carrierFrequencyHz;
+        this.flags[index] |= FLAG_HAS_CARRIER_FREQUENCY;
+    }
+
+    public int getKind() {
+        return kind;
+    }
+
+    /**
+     * Marks a status epoch as parsed from NMEA, after reset()
+     */
+    public void setFromNmea() {
+        this.fromNmea = true;
+    }
+
+    public boolean isFromNmea() {
+        return fromNmea;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    public double getAltitude() {
+        return altitude;
+    }
+
+    public float getAccuracy() {
+        return accuracy;
+    }
+
+    public int getSatelliteCount() {
+        return count;
+    }
+
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    public int getSvid(int index) {
+        return svids[index];
+    }
+
+    public GnssType getGnssType(int index) {
+        return GNSS_TYPES[gnssTypes[index]];
+    }
+
+    public float getCn0DbHz(int index) {
+        return cn0DbHz[index];
+    }
+
+    public float getElevationDegrees(int index) {
+        return elevationDegrees[index];
+    }
+
+    public float getAzimuthDegrees(int index) {
+        return azimuthDegrees[index];
+    }
+
+    public float getCarrierFrequencyHz(int index) {
+        return carrierFrequencyHz[index];
+    }
+
+    public int getFlags(int index) {
+        return flags[index];
+    }
+
+    public boolean hasAlmanacData(int index) {
+        return (flags[index] & FLAG_HAS_ALMANAC) != 0;
+    }
+
+    public boolean hasEphemerisData(int index) {
+        return (flags[index] & FLAG_HAS_EPHEMERIS) != 0;
+    }
+
+    public boolean usedInFix(int index) {
+        return (flags[index] & FLAG_USED_IN_FIX) != 0;
+    }
+
+    public boolean hasCarrierFrequencyHz(int index) {
+        return (flags[index] & FLAG_HAS_CARRIER_FREQUENCY) != 0;
+    }
+
+    public float getPseudorangeRateMetersPerSecond(int index) {
+        return pseudorangeRateMetersPerSecond[index];
+    }
+
+    public float getPseudorangeRateUncertaintyMetersPerSecond(int index) {
+        return pseudorangeRateUncertaintyMetersPerSecond[index];
+    }
+
+    public int getMultipathIndicator(int index) {
+        return multipathIndicators[index];
+    }
+
+    public int getState(int index) {
+        return states[index];
+    }
+
+    private void grow(int capacity) {
+        svids = Arrays.copyOf(svids, capacity);
+        gnssTypes = Arrays.copyOf(gnssTypes, capacity);
+        cn0DbHz = Arrays.copyOf(cn0DbHz, capacity);
+        elevationDegrees = Arrays.copyOf(elevationDegrees, capacity);
+        azimuthDegrees = Arrays.copyOf(azimuthDegrees, capacity);
+        carrierFrequencyHz = Arrays.copyOf(carrierFrequencyHz, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        pseudorangeRateMetersPerSecond = Arrays.copyOf(pseudorangeRateMetersPerSecond, capacity);
+        pseudorangeRateUncertaintyMetersPerSecond = Arrays.copyOf(pseudorangeRateUncertaintyMetersPerSecond, capacity);
+        multipathIndicators = Arrays.copyOf(multipathIndicators, capacity);
+        states = Arrays.copyOf(states, capacity);
+    }
+
+    private void allocate(int capacity) {
+        svids = new int[capacity];
+        gnssTypes = new byte[capacity];
+        cn0DbHz = new float[capacity];
+        elevationDegrees = new float[capacity];
+        azimuthDegrees = new float[capacity];
+        carrierFrequencyHz = new float[capacity];
+        flags = new byte[capacity];
+        pseudorangeRateMetersPerSecond = new float[capacity];
+        pseudorangeRateUncertaintyMetersPerSecond = new float[capacity];
+        multipathIndicators = new byte[capacity];
+        states = new int[capacity];
+    }
+}
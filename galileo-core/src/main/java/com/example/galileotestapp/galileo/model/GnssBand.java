@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2016-2019 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.galileotestapp.galileo.model;
+
+/**
+ * Carrier bands of Global Navigation Satellite Systems. The ordinal is used as a compact band code, and as a bit
+ * index in band masks, so there must never be more than 32 values.
+ */
+public enum GnssBand {
+    L1("L1"),
+    L1_C("L1-C"),
+    L2("L2"),
+    L3("L3"),
+    L4("L4"),
+    L5("L5"),
+    L6("L6"),
+    B1("B1"),
+    B1_2("B1-2"),
+    B1C("B1C"),
+    B2("B2"),
+    B2A("B2a"),
+    B3("B3"),
+    E1("E1"),
+    E5("E5"),
+    E5A("E5a"),
+    E5B("E5b"),
+    E6("E6"),
+    UNKNOWN(null);
+
+    private final String label;
+
+    GnssBand(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Returns the label that should be displayed for this band, or null for UNKNOWN
+     */
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,393 @@
+package com.example.galileotestapp.galileo.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Reads comma separated lines of an ASCII stream into a reusable buffer.
+ *
+ * Fields are exposed as offsets into the buffer and numbers are parsed in place, so reading a line allocates nothing
+ * and memory stays constant regardless of the stream size. The buffer only grows if a single line doesn't fit. Only
+ * getString() creates objects, and is meant for header lines.
+ */
+public final class CsvLineReader implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final int INITIAL_MAX_FIELDS = 64;
+
+    // StandardCharsets needs API 19.
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    /**
+     * Exact powers of ten representable by a double
+     */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final InputStream in;
+
+    private byte[] buffer;
+
+    /**
+     * Start of the unread data and end of the valid data in the buffer
+     */
+    private int position;
+
+    private int limit;
+
+    private boolean endOfStream;
+
+    private int lineStart;
+
+    private int lineEnd;
+
+    private int[] fieldStarts = new int[INITIAL_MAX_FIELDS];
+
+    private int[] fieldEnds = new int[INITIAL_MAX_FIELDS];
+
+    private int fieldCount;
+
+    private long lineNumber;
+
+    /**
+     * Characters of the current line, read from the buffer in place
+     */
+    private final CharSequence lineChars = new CharSequence() {
+        @Override
+        public int length() {
+            return lineEnd - lineStart;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (buffer[lineStart + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return getLine();
+        }
+    };
+
+    public CsvLineReader(InputStream in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvLineReader(InputStream in, int bufferSize) {
+        this.in = in;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Advances to the next line, returns false at the end of the stream
+     */
+    public boolean next() throws IOException {
+        int newline = indexOfNewline(position);
+        while (newline < 0 && !endOfStream) {
+            final int scanned = limit - position;
+            fill();
+            newline = indexOfNewline(position + scanned);
+        }
+        if (newline < 0) {
+            if (position == limit) {
+                fieldCount = 0;
+                return false;
+            }
+            // Last line without a line terminator
+            newline = limit;
+        }
+
+        lineStart = position;
+        lineEnd = newline > lineStart && buffer[newline - 1] == '\r' ? newline - 1 : newline;
+        position = newline < limit ? newline + 1 : limit;
+        lineNumber++;
+        split();
+        return true;
+    }
+
+    /**
+     * Returns the number of the current line, starting at 1
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns true if the current line is empty or only holds whitespace
+     */
+    public boolean isBlank() {
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (buffer[i] > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the current line starts with the given ASCII prefix
+     */
+    public boolean startsWith(String prefix) {
+        final int length = prefix.length();
+        if (lineEnd - lineStart < length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer[lineStart + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Returns true if the field is missing or empty
+     */
+    public boolean isEmpty(int field) {
+        return field < 0 || field >= fieldCount || fieldStarts[field] == fieldEnds[field];
+    }
+
+    /**
+     * Returns true if the field equals the given ASCII value, ignoring case
+     */
+    public boolean fieldEqualsIgnoreCase(int field, String value) {
+        if (field < 0 || field >= fieldCount) {
+            return false;
+        }
+        final int start = fieldStarts[field];
+        final int length = value.length();
+        if (fieldEnds[field] - start != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (Character.toLowerCase((char) buffer[start + i]) != Character.toLowerCase(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the field as an int, or defaultValue if it is missing or not an integer
+     */
+    public int getInt(int field, int defaultValue) {
+        final long value = getLong(field, Long.MIN_VALUE);
+        return value == Long.MIN_VALUE || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE
+                ? defaultValue : (int) value;
+    }
+
+    /**
+     * Returns the field as a long, or defaultValue if it is missing or not an integer
+     */
+    public long getLong(int field, long defaultValue) {
+        if (isEmpty(field)) {
+            return defaultValue;
+        }
+        int i = fieldStarts[field];
+        final int end = fieldEnds[field];
+        boolean negative = false;
+        if (buffer[i] == '-' || buffer[i] == '+') {
+            negative = buffer[i] == '-';
+            i++;
+        }
+        if (i == end || end - i > 18) {
+            return defaultValue;
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            final int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return defaultValue;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Returns the field as a double, or defaultValue if it is missing or not a decimal number. Accepts an optional
+     * sign, fraction and exponent, e.g. "-12.5" or "1.57542E9".
+     */
+    public double getDouble(int field, double defaultValue) {
+        if (isEmpty(field)) {
+            return defaultValue;
+        }
+        int i = fieldStarts[field];
+        final int end = fieldEnds[field];
+        boolean negative = false;
+        if (buffer[i] == '-' || buffer[i] == '+') {
+            negative = buffer[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            final byte c = buffer[i];
+            if (c >= '0' && c <= '9') {
+                if (mantissa < 100000000000000000L) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (fraction) {
+                        exponent--;
+                    }
+                } else if (!fraction) {
+                    // Digits beyond the precision of a long only scale the value
+                    exponent++;
+                }
+                digits++;
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else if ((c == 'e' || c == 'E') && digits > 0) {
+                final int exponentStart = i + 1;
+                final long explicitExponent = parseExponent(exponentStart, end);
+                if (explicitExponent == Long.MIN_VALUE) {
+                    return defaultValue;
+                }
+                exponent += (int) explicitExponent;
+                i = end;
+                break;
+            } else {
+                return defaultValue;
+            }
+        }
+        if (digits == 0) {
+            return defaultValue;
+        }
+
+        double value = mantissa;
+        if (exponent > 0) {
+            value = exponent < POWERS_OF_TEN.length ? value * POWERS_OF_TEN[exponent] : value * Math.pow(10, exponent);
+        } else if (exponent < 0) {
+            value = -exponent < POWERS_OF_TEN.length ? value / POWERS_OF_TEN[-exponent] : value * Math.pow(10, exponent);
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Returns the field as a String. Allocates, meant for header lines only.
+     */
+    public String getString(int field) {
+        if (field < 0 || field >= fieldCount) {
+            return "";
+        }
+        return new String(buffer, fieldStarts[field], fieldEnds[field] - fieldStarts[field], ASCII);
+    }
+
+    /**
+     * Returns a view of the current line that reads the buffer in place, valid until the next call to next()
+     */
+    public CharSequence getLineChars() {
+        return lineChars;
+    }
+
+    /**
+     * Returns the whole line as a String. Allocates, meant for header lines only.
+     */
+    public String getLine() {
+        return new String(buffer, lineStart, lineEnd - lineStart, ASCII);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private long parseExponent(int i, int end) {
+        boolean negative = false;
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+        if (i == end || end - i > 3) {
+            return Long.MIN_VALUE;
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            final int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private int indexOfNewline(int from) {
+        for (int i = from; i < limit; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the unread data to the front of the buffer, growing it if it is full, and reads more data
+     */
+    private void fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        } else if (limit == buffer.length) {
+            final byte[] grown = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, grown, 0, limit);
+            buffer = grown;
+        }
+
+        final int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfStream = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private void split() {
+        fieldCount = 0;
+        int start = lineStart;
+        for (int i = lineStart; i <= lineEnd; i++) {
+            if (i == lineEnd || buffer[i] == ',') {
+                if (fieldCount == fieldStarts.length) {
+                    growFields();
+                }
+                fieldStarts[fieldCount] = start;
+                fieldEnds[fieldCount] = trimEnd(start, i);
+                fieldCount++;
+                start = i + 1;
+            }
+        }
+    }
+
+    private int trimEnd(int start, int end) {
+        while (end > start && buffer[end - 1] == ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    private void growFields() {
+        final int[] starts = new int[fieldStarts.length * 2];
+        final int[] ends = new int[fieldEnds.length * 2];
+        System.arraycopy(fieldStarts, 0, starts, 0, fieldCount);
+        System.arraycopy(fieldEnds, 0, ends, 0, fieldCount);
+        fieldStarts = starts;
+        fieldEnds = ends;
+    }
+}
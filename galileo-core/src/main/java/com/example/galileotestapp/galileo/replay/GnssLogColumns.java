@@ -0,0 +1,115 @@
+package com.example.galileotestapp.galileo.replay;
+
+/**
+ * Column indexes of the GnssLogger record types the replay understands.
+ *
+ * GnssLogger writes a "# Status,...", "# Fix,..." and "# Raw,..." header describing every record type, and the column
+ * names changed between logger versions. Indexes are resolved once from the headers, so data lines are read by index
+ * only. The defaults match the current logger layout and are used for logs without headers.
+ */
+final class GnssLogColumns {
+
+    static final String STATUS = "Status";
+
+    static final String FIX = "Fix";
+
+    static final String NMEA = "NMEA";
+
+    static final String RAW = "Raw";
+
+    // Status
+    int statusUnixTimeMillis = 1;
+    int statusSignalCount = 2;
+    int statusSignalIndex = 3;
+    int statusConstellationType = 4;
+    int statusSvid = 5;
+    int statusCarrierFrequencyHz = 6;
+    int statusCn0DbHz = 7;
+    int statusAzimuthDegrees = 8;
+    int statusElevationDegrees = 9;
+    int statusUsedInFix = 10;
+    int statusHasAlmanacData = 11;
+    int statusHasEphemerisData = 12;
+
+    // Fix
+    int fixProvider = 1;
+    int fixLatitude = 2;
+    int fixLongitude = 3;
+    int fixAltitude = 4;
+    int fixAccuracy = 6;
+    int fixTimeMillis = 8;
+
+    // Raw, -1 for the wall clock time of logs that only have the elapsed realtime
+    int rawUnixTimeMillis = 1;
+    int rawTimeNanos = 2;
+    int rawSvid = 11;
+    int rawState = 13;
+    int rawCn0DbHz = 16;
+    int rawPseudorangeRateMetersPerSecond = 17;
+    int rawPseudorangeRateUncertaintyMetersPerSecond = 18;
+    int rawCarrierFrequencyHz = 22;
+    int rawMultipathIndicator = 26;
+    int rawConstellationType = 28;
+
+    /**
+     * Resolves the columns of the record type described by a "# Type,..." header line, returns false if the record
+     * type is not one the replay reads
+     */
+    boolean readHeader(CsvLineReader line) {
+        if (line.startsWith("# " + STATUS + ",")) {
+            statusUnixTimeMillis = find(line, statusUnixTimeMillis, "UnixTimeMillis");
+            statusSignalCount = find(line, statusSignalCount, "SignalCount");
+            statusSignalIndex = find(line, statusSignalIndex, "SignalIndex");
+            statusConstellationType = find(line, statusConstellationType, "ConstellationType");
+            statusSvid = find(line, statusSvid, "Svid");
+            statusCarrierFrequencyHz = find(line, statusCarrierFrequencyHz, "CarrierFrequencyHz");
+            statusCn0DbHz = find(line, statusCn0DbHz, "Cn0DbHz");
+            statusAzimuthDegrees = find(line, statusAzimuthDegrees, "AzimuthDegrees");
+            statusElevationDegrees = find(line, statusElevationDegrees, "ElevationDegrees");
+            statusUsedInFix = find(line, statusUsedInFix, "UsedInFix");
+            statusHasAlmanacData = find(line, statusHasAlmanacData, "HasAlmanacData");
+            statusHasEphemerisData = find(line, statusHasEphemerisData, "HasEphemerisData");
+            return true;
+        }
+        if (line.startsWith("# " + FIX + ",")) {
+            fixProvider = find(line, fixProvider, "Provider");
+            fixLatitude = find(line, fixLatitude, "LatitudeDegrees", "Latitude");
+            fixLongitude = find(line, fixLongitude, "LongitudeDegrees", "Longitude");
+            fixAltitude = find(line, fixAltitude, "AltitudeMeters", "Altitude");
+            fixAccuracy = find(line, fixAccuracy, "AccuracyMeters", "Accuracy");
+            fixTimeMillis = find(line, fixTimeMillis, "UnixTimeMillis", "(UTC)TimeInMs");
+            return true;
+        }
+        if (line.startsWith("# " + RAW + ",")) {
+            // Older loggers wrote ElapsedRealtimeMillis in place of utcTimeMillis
+            rawUnixTimeMillis = find(line, -1, "utcTimeMillis", "UnixTimeMillis");
+            rawTimeNanos = find(line, rawTimeNanos, "TimeNanos");
+            rawSvid = find(line, rawSvid, "Svid");
+            rawState = find(line, rawState, "State");
+            rawCn0DbHz = find(line, rawCn0DbHz, "Cn0DbHz");
+            rawPseudorangeRateMetersPerSecond = find(line, rawPseudorangeRateMetersPerSecond,
+                    "PseudorangeRateMetersPerSecond");
+            rawPseudorangeRateUncertaintyMetersPerSecond = find(line, rawPseudorangeRateUncertaintyMetersPerSecond,
+                    "PseudorangeRateUncertaintyMetersPerSecond");
+            rawCarrierFrequencyHz = find(line, rawCarrierFrequencyHz, "CarrierFrequencyHz");
+            rawMultipathIndicator = find(line, rawMultipathIndicator, "MultipathIndicator");
+            rawConstellationType = find(line, rawConstellationType, "ConstellationType");
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index of the first of the given column names found in the header, or defaultIndex
+     */
+    private static int find(CsvLineReader header, int defaultIndex, String... names) {
+        for (String name : names) {
+            for (int i = 1; i < header.getFieldCount(); i++) {
+                if (header.fieldEqualsIgnoreCase(i, name)) {
+                    return i;
+                }
+            }
+        }
+        return defaultIndex;
+    }
+}
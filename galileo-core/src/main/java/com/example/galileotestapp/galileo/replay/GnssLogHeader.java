@@ -0,0 +1,70 @@
+package com.example.galileotestapp.galileo.replay;
+
+/**
+ * Device and logger information from the "# Version: ... Platform: ... Manufacturer: ... Model: ..." line GnssLogger
+ * writes at the top of every log. Values that are missing from the line are empty Strings.
+ */
+public final class GnssLogHeader {
+
+    static final String PREFIX = "# Version:";
+
+    private static final String[] KEYS = {"Version:", "Platform:", "Manufacturer:", "Model:"};
+
+    private final String loggerVersion;
+
+    private final String platform;
+
+    private final String manufacturer;
+
+    private final String model;
+
+    public GnssLogHeader(String loggerVersion, String platform, String manufacturer, String model) {
+        this.loggerVersion = loggerVersion;
+        this.platform = platform;
+        this.manufacturer = manufacturer;
+        this.model = model;
+    }
+
+    /**
+     * Parses a version header line, values may contain spaces, e.g. "Model: Pixel 4 XL"
+     */
+    public static GnssLogHeader parse(String line) {
+        final String[] values = new String[KEYS.length];
+        for (int i = 0; i < KEYS.length; i++) {
+            final int key = line.indexOf(KEYS[i]);
+            if (key < 0) {
+                values[i] = "";
+                continue;
+            }
+            final int start = key + KEYS[i].length();
+            int end = line.length();
+            for (int j = i + 1; j < KEYS.length; j++) {
+                final int next = line.indexOf(KEYS[j], start);
+                if (next >= 0) {
+                    end = Math.min(end, next);
+                }
+            }
+            values[i] = line.substring(start, end).trim();
+        }
+        return new GnssLogHeader(values[0], values[1], values[2], values[3]);
+    }
+
+    public String getLoggerVersion() {
+        return loggerVersion;
+    }
+
+    /**
+     * Returns the Android version the log was recorded on, e.g. "10"
+     */
+    public String getPlatform() {
+        return platform;
+    }
+
+    public String getManufacturer() {
+        return manufacturer;
+    }
+
+    public String getModel() {
+        return model;
+    }
+}
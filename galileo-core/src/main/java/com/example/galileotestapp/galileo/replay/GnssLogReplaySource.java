@@ -0,0 +1,458 @@
+package com.example.galileotestapp.galileo.replay;
+
+import com.example.galileotestapp.galileo.EpochSink;
+import com.example.galileotestapp.galileo.GnssSource;
+import com.example.galileotestapp.galileo.NmeaParser;
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
+import com.example.galileotestapp.galileo.utils.SatelliteTables;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * GnssSource that replays a log recorded in the GnssLogger text format.
+ *
+ * Status lines are grouped into epochs by their SignalIndex/SignalCount columns, consecutive Raw lines with the same
+ * receiver clock into measurement epochs, and GPS provider Fix lines become location epochs, so a replayed session
+ * drives the pipeline like the live receiver did. NMEA lines are skipped unless setNmeaEnabled() is set, in which
+ * case their GSV, GSA and GNS sentences are replayed as additional status epochs. The file is streamed through a
+ * CsvLineReader, so memory use doesn't depend on the file size.
+ *
+ * With Playback.REAL_TIME epochs are published at their recorded pace and dropped if the sink is full, like live
+ * epochs. With Playback.AS_FAST_AS_POSSIBLE the replay waits for the sink instead, so no epoch is lost. For
+ * deterministic runs use a SynchronousEpochSink, or an EpochRing with the DROP_NEWEST policy.
+ */
+public class GnssLogReplaySource implements GnssSource {
+
+    public enum Playback {
+        REAL_TIME,
+        AS_FAST_AS_POSSIBLE
+    }
+
+    private static final String GPS_PROVIDER = "gps";
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    /**
+     * How long to wait for the sink to free a slot before trying again
+     */
+    private static final long SINK_FULL_PARK_NANOS = 50000L;
+
+    private final File file;
+
+    private final Playback playback;
+
+    private volatile boolean stopped;
+
+    private volatile Thread replayThread;
+
+    private volatile IOException error;
+
+    private volatile GnssLogHeader header;
+
+    private volatile boolean nmeaEnabled;
+
+    private final NmeaParser nmeaParser = new NmeaParser();
+
+    private long lineCount;
+
+    private long epochCount;
+
+    private long measurementEpochCount;
+
+    private long fixCount;
+
+    private long droppedEpochCount;
+
+    private long malformedLineCount;
+
+    public GnssLogReplaySource(File file, Playback playback) {
+        this.file = file;
+        this.playback = playback;
+    }
+
+    /**
+     * Also replays the NMEA lines of the log, e.g. for devices that only report Galileo through NMEA. Takes effect on
+     * the next start().
+     */
+    public void setNmeaEnabled(boolean nmeaEnabled) {
+        this.nmeaEnabled = nmeaEnabled;
+    }
+
+    /**
+     * Returns the parser of the NMEA lines, for its counters
+     */
+    public NmeaParser getNmeaParser() {
+        return nmeaParser;
+    }
+
+    /**
+     * Replays the file on a new thread, has no effect if a replay is already running
+     */
+    @Override
+    public synchronized void start(final EpochSink sink, final Listener listener) {
+        if (replayThread != null) {
+            return;
+        }
+        stopped = false;
+        error = null;
+        replayThread = new Thread("galileo-replay") {
+            @Override
+            public void run() {
+                try {
+                    replay(sink, listener);
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    replayThread = null;
+                }
+            }
+        };
+        replayThread.setDaemon(true);
+        replayThread.start();
+    }
+
+    /**
+     * Stops a replay started with start() or running in replay(), the listener still gets onGnssStopped()
+     */
+    @Override
+    public void stop() {
+        stopped = true;
+        final Thread thread = replayThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Returns the error that ended the last replay started with start(), or null
+     */
+    public IOException getError() {
+        return error;
+    }
+
+    /**
+     * Replays the whole file on the calling thread and returns when it is done or stopped
+     */
+    public void replay(EpochSink sink, Listener listener) throws IOException {
+        lineCount = 0;
+        epochCount = 0;
+        measurementEpochCount = 0;
+        fixCount = 0;
+        droppedEpochCount = 0;
+        malformedLineCount = 0;
+        header = null;
+        stopped = false;
+
+        final GnssLogColumns columns = new GnssLogColumns();
+        final CsvLineReader line = new CsvLineReader(new FileInputStream(file));
+
+        // Epoch being assembled from Status lines, null while lines of a dropped or broken epoch are skipped
+        EpochSnapshot epoch = null;
+        int nextSignalIndex = 0;
+
+        // Measurement epoch being assembled from Raw lines with the receiver clock rawClockNanos, null if dropped
+        boolean rawOpen = false;
+        long rawClockNanos = 0;
+        EpochSnapshot measurements = null;
+
+        long firstTimeMillis = Long.MIN_VALUE;
+        long lastTimeMillis = 0;
+        long startNanos = System.nanoTime();
+        boolean hadFix = false;
+
+        final boolean nmea = nmeaEnabled;
+        nmeaParser.clear();
+        nmeaParser.setSink(waitingSink(sink));
+
+        listener.onGnssStarted();
+        try {
+            while (!stopped && line.next()) {
+                lineCount++;
+                if (line.startsWith("#")) {
+                    if (line.startsWith(GnssLogHeader.PREFIX)) {
+                        header = GnssLogHeader.parse(line.getLine());
+                    } else {
+                        columns.readHeader(line);
+                    }
+                    continue;
+                }
+
+                final boolean raw = line.fieldEqualsIgnoreCase(0, GnssLogColumns.RAW);
+                if (rawOpen && !raw) {
+                    // The Raw lines of one measurements event are consecutive, any other line completes it
+                    rawOpen = false;
+                    if (measurements != null) {
+                        sink.publish();
+                        measurements = null;
+                        measurementEpochCount++;
+                    }
+                }
+
+                if (raw) {
+                    // A measurements event can't be written while a status epoch is open in the same sink
+                    if (epoch != null) {
+                        continue;
+                    }
+                    final long clockNanos = line.getLong(columns.rawTimeNanos, Long.MIN_VALUE);
+                    if (clockNanos == Long.MIN_VALUE || line.isEmpty(columns.rawSvid)
+                            || line.isEmpty(columns.rawConstellationType)) {
+                        malformedLineCount++;
+                        continue;
+                    }
+                    if (!rawOpen || clockNanos != rawClockNanos) {
+                        if (measurements != null) {
+                            sink.publish();
+                            measurementEpochCount++;
+                        }
+                        rawOpen = true;
+                        rawClockNanos = clockNanos;
+                        // Without a wall clock time the event belongs to the time of the previous line
+                        final long timeMillis = line.getLong(columns.rawUnixTimeMillis, Long.MIN_VALUE);
+                        if (timeMillis != Long.MIN_VALUE) {
+                            lastTimeMillis = timeMillis;
+                            if (firstTimeMillis == Long.MIN_VALUE) {
+                                firstTimeMillis = lastTimeMillis;
+                            }
+                        }
+                        if (firstTimeMillis != Long.MIN_VALUE) {
+                            awaitPlaybackTime(startNanos, lastTimeMillis - firstTimeMillis);
+                        }
+                        measurements = claim(sink);
+                        if (measurements == null) {
+                            droppedEpochCount++;
+                            continue;
+                        }
+                        measurements.resetMeasurements(0, lastTimeMillis * NANOS_PER_MILLI);
+                    }
+                    if (measurements != null) {
+                        readMeasurement(line, columns, measurements);
+                    }
+                } else if (line.fieldEqualsIgnoreCase(0, GnssLogColumns.STATUS)) {
+                    final int signalCount = line.getInt(columns.statusSignalCount, -1);
+                    final int signalIndex = line.getInt(columns.statusSignalIndex, -1);
+                    if (signalCount <= 0 || signalIndex < 0 || signalIndex >= signalCount) {
+                        malformedLineCount++;
+                        continue;
+                    }
+
+                    if (signalIndex == 0) {
+                        // An epoch that is still open here was incomplete, its slot is reused without publishing
+                        lastTimeMillis = line.getLong(columns.statusUnixTimeMillis, lastTimeMillis);
+                        if (firstTimeMillis == Long.MIN_VALUE) {
+                            firstTimeMillis = lastTimeMillis;
+                        }
+                        awaitPlaybackTime(startNanos, lastTimeMillis - firstTimeMillis);
+                        epoch = epoch != null ? epoch : claim(sink);
+                        if (epoch == null) {
+                            droppedEpochCount++;
+                            continue;
+                        }
+                        epoch.reset(signalCount, lastTimeMillis * NANOS_PER_MILLI);
+                        nextSignalIndex = 0;
+                    }
+
+                    if (epoch == null || signalIndex != nextSignalIndex || signalCount != epoch.getSatelliteCount()) {
+                        if (epoch != null) {
+                            malformedLineCount++;
+                        }
+                        continue;
+                    }
+
+                    readSatellite(line, columns, epoch, signalIndex);
+                    if (++nextSignalIndex == signalCount) {
+                        sink.publish();
+                        epoch = null;
+                        epochCount++;
+                    }
+                } else if (line.fieldEqualsIgnoreCase(0, GnssLogColumns.FIX)) {
+                    if (!line.fieldEqualsIgnoreCase(columns.fixProvider, GPS_PROVIDER)) {
+                        continue;
+                    }
+                    if (line.isEmpty(columns.fixLatitude) || line.isEmpty(columns.fixLongitude)) {
+                        malformedLineCount++;
+                        continue;
+                    }
+                    lastTimeMillis = line.getLong(columns.fixTimeMillis, lastTimeMillis);
+                    if (firstTimeMillis == Long.MIN_VALUE) {
+                        firstTimeMillis = lastTimeMillis;
+                    }
+                    if (!hadFix) {
+                        hadFix = true;
+                        listener.onGnssFirstFix((int) (lastTimeMillis - firstTimeMillis));
+                    }
+                    fixCount++;
+
+                    // A location can't be written while a status epoch is open in the same sink
+                    if (epoch != null) {
+                        continue;
+                    }
+                    awaitPlaybackTime(startNanos, lastTimeMillis - firstTimeMillis);
+                    final EpochSnapshot location = claim(sink);
+                    if (location == null) {
+                        continue;
+                    }
+                    location.setLocation(lastTimeMillis * NANOS_PER_MILLI,
+                            line.getDouble(columns.fixLatitude, 0),
+                            line.getDouble(columns.fixLongitude, 0),
+                            line.getDouble(columns.fixAltitude, 0),
+                            (float) line.getDouble(columns.fixAccuracy, 0));
+                    sink.publish();
+                } else if (nmea && line.fieldEqualsIgnoreCase(0, GnssLogColumns.NMEA)) {
+                    // The parser claims its own slot, which can't happen while a status epoch is open
+                    if (epoch != null) {
+                        continue;
+                    }
+                    final long timeMillis = line.getLong(line.getFieldCount() - 1, lastTimeMillis);
+                    if (firstTimeMillis != Long.MIN_VALUE) {
+                        awaitPlaybackTime(startNanos, timeMillis - firstTimeMillis);
+                    }
+                    nmeaParser.parse(line.getLineChars(), timeMillis, timeMillis * NANOS_PER_MILLI);
+                }
+            }
+            if (measurements != null) {
+                sink.publish();
+                measurementEpochCount++;
+            }
+            if (nmea && epoch == null) {
+                nmeaParser.flush();
+            }
+        } finally {
+            line.close();
+            listener.onGnssStopped();
+        }
+    }
+
+    /**
+     * Returns the device information of the current or last replayed log, or null if it has no version header
+     */
+    public GnssLogHeader getHeader() {
+        return header;
+    }
+
+    /**
+     * Returns the number of lines read by the current or last replay
+     */
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the number of complete status epochs published by the current or last replay
+     */
+    public long getEpochCount() {
+        return epochCount;
+    }
+
+    /**
+     * Returns the number of measurement epochs published by the current or last replay
+     */
+    public long getMeasurementEpochCount() {
+        return measurementEpochCount;
+    }
+
+    /**
+     * Returns the number of GPS provider fixes read by the current or last replay
+     */
+    public long getFixCount() {
+        return fixCount;
+    }
+
+    /**
+     * Returns the number of status and measurement epochs dropped because the sink was full
+     */
+    public long getDroppedEpochCount() {
+        return droppedEpochCount;
+    }
+
+    /**
+     * Returns the number of Status, Raw and Fix lines that couldn't be read
+     */
+    public long getMalformedLineCount() {
+        return malformedLineCount;
+    }
+
+    private static void readSatellite(CsvLineReader line, GnssLogColumns columns, EpochSnapshot epoch, int index) {
+        int flags = 0;
+        if (line.getInt(columns.statusHasAlmanacData, 0) != 0) {
+            flags |= EpochSnapshot.FLAG_HAS_ALMANAC;
+        }
+        if (line.getInt(columns.statusHasEphemerisData, 0) != 0) {
+            flags |= EpochSnapshot.FLAG_HAS_EPHEMERIS;
+        }
+        if (line.getInt(columns.statusUsedInFix, 0) != 0) {
+            flags |= EpochSnapshot.FLAG_USED_IN_FIX;
+        }
+
+        epoch.setSatellite(index, line.getInt(columns.statusSvid, 0),
+                SatelliteTables.getGnssTypeForConstellation(line.getInt(columns.statusConstellationType, 0)),
+                (float) line.getDouble(columns.statusCn0DbHz, 0),
+                (float) line.getDouble(columns.statusElevationDegrees, 0),
+                (float) line.getDouble(columns.statusAzimuthDegrees, 0),
+                flags);
+
+        if (!line.isEmpty(columns.statusCarrierFrequencyHz)) {
+            epoch.setCarrierFrequencyHz(index, (float) line.getDouble(columns.statusCarrierFrequencyHz, 0));
+        }
+    }
+
+    private static void readMeasurement(CsvLineReader line, GnssLogColumns columns, EpochSnapshot epoch) {
+        final int index = epoch.addMeasurement(line.getInt(columns.rawSvid, 0),
+                SatelliteTables.getGnssTypeForConstellation(line.getInt(columns.rawConstellationType, 0)),
+                (float) line.getDouble(columns.rawCn0DbHz, 0),
+                (float) line.getDouble(columns.rawPseudorangeRateMetersPerSecond, 0),
+                (float) line.getDouble(columns.rawPseudorangeRateUncertaintyMetersPerSecond, 0),
+                line.getInt(columns.rawMultipathIndicator, 0),
+                line.getInt(columns.rawState, 0));
+
+        if (!line.isEmpty(columns.rawCarrierFrequencyHz)) {
+            epoch.setCarrierFrequencyHz(index, (float) line.getDouble(columns.rawCarrierFrequencyHz, 0));
+        }
+    }
+
+    /**
+     * Returns the next slot of the sink, waiting for a free one unless the replay runs in real time
+     */
+    private EpochSnapshot claim(EpochSink sink) {
+        EpochSnapshot epoch = sink.claim();
+        while (epoch == null && playback == Playback.AS_FAST_AS_POSSIBLE && !stopped) {
+            LockSupport.parkNanos(SINK_FULL_PARK_NANOS);
+            epoch = sink.claim();
+        }
+        return epoch;
+    }
+
+    /**
+     * Wraps the sink so epochs the NMEA parser assembles are claimed like the others, waiting for a free slot unless
+     * the replay runs in real time
+     */
+    private EpochSink waitingSink(final EpochSink sink) {
+        return new EpochSink() {
+            @Override
+            public EpochSnapshot claim() {
+                return GnssLogReplaySource.this.claim(sink);
+            }
+
+            @Override
+            public void publish() {
+                sink.publish();
+            }
+        };
+    }
+
+    /**
+     * In real time playback, waits until the given offset from the start of the log is reached
+     */
+    private void awaitPlaybackTime(long startNanos, long offsetMillis) {
+        if (playback != Playback.REAL_TIME) {
+            return;
+        }
+        final long deadline = startNanos + offsetMillis * NANOS_PER_MILLI;
+        long remaining;
+        while (!stopped && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
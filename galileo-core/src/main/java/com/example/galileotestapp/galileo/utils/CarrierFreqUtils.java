@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2016-2019 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.galileotestapp.galileo.utils;
+
+
+import com.example.galileotestapp.galileo.model.GnssBand;
+import com.example.galileotestapp.galileo.model.GnssType;
+
+import java.util.Arrays;
+
+/**
+ * Classifies carrier frequencies into bands.
+ *
+ * Classification is table driven: every constellation has a byte table indexed by the carrier frequency quantized to
+ * 1/8 MHz between 1160 and 1620 MHz, holding the band code (GnssBand ordinal) for that frequency. Classifying a signal
+ * costs one array load instead of a chain of floating point comparisons.
+ */
+public class CarrierFreqUtils {
+
+    private static final float TOLERANCE_MHZ = 1f;
+
+    private static final float TABLE_MIN_MHZ = 1160f;
+
+    private static final float TABLE_MAX_MHZ = 1620f;
+
+    private static final int STEPS_PER_MHZ = 8;
+
+    private static final int TABLE_SIZE = (int) ((TABLE_MAX_MHZ - TABLE_MIN_MHZ) * STEPS_PER_MHZ) + 1;
+
+    private static final byte NO_BAND = (byte) GnssBand.UNKNOWN.ordinal();
+
+    // Cached because values() clones the array on every call.
+    private static final GnssBand[] BANDS = GnssBand.values();
+
+    /**
+     * Band tables indexed by GnssType ordinal, then by quantized frequency
+     */
+    private static final byte[][] BAND_TABLES = new byte[GnssType.values().length][];
+
+    private static final float GLONASS_L1_BASE_MHZ = 1602f;
+
+    private static final float GLONASS_L1_CHANNEL_SPACING_MHZ = 0.5625f;
+
+    private static final float GLONASS_L2_BASE_MHZ = 1246f;
+
+    private static final float GLONASS_L2_CHANNEL_SPACING_MHZ = 0.4375f;
+
+    static {
+        // Bands are added in priority order, the first band claiming a frequency wins where tolerances overlap
+        final byte[] gps = newTable(GnssType.NAVSTAR);
+        put(gps, 1575.42f, GnssBand.L1);
+        put(gps, 1227.6f, GnssBand.L2);
+        put(gps, 1381.05f, GnssBand.L3);
+        put(gps, 1379.913f, GnssBand.L4);
+        put(gps, 1176.45f, GnssBand.L5);
+
+        final byte[] glonass = newTable(GnssType.GLONASS);
+        // Actual range is 1598.0625 MHz to 1609.3125, but allow padding for float comparisons - #103
+        putRange(glonass, 1598.0000f, 1610.000f, GnssBand.L1);
+        // Actual range is 1242.9375 - 1251.6875, but allow padding for float comparisons - #103
+        putRange(glonass, 1242.0000f, 1252.000f, GnssBand.L2);
+        // Exact range is unclear - appears to be 1202.025 - 1207.14 - #103
+        put(glonass, 1207.14f, GnssBand.L3);
+        put(glonass, 1176.45f, GnssBand.L5);
+        put(glonass, 1575.42f, GnssBand.L1_C);
+
+        final byte[] beidou = newTable(GnssType.BEIDOU);
+        put(beidou, 1561.098f, GnssBand.B1);
+        put(beidou, 1589.742f, GnssBand.B1_2);
+        put(beidou, 1575.42f, GnssBand.B1C);
+        put(beidou, 1207.14f, GnssBand.B2);
+        put(beidou, 1176.45f, GnssBand.B2A);
+        put(beidou, 1268.52f, GnssBand.B3);
+
+        final byte[] qzss = newTable(GnssType.QZSS);
+        put(qzss, 1575.42f, GnssBand.L1);
+        put(qzss, 1227.6f, GnssBand.L2);
+        put(qzss, 1176.45f, GnssBand.L5);
+        put(qzss, 1278.75f, GnssBand.L6);
+
+        final byte[] galileo = newTable(GnssType.GALILEO);
+        put(galileo, 1575.42f, GnssBand.E1);
+        put(galileo, 1191.795f, GnssBand.E5);
+        put(galileo, 1176.45f, GnssBand.E5A);
+        put(galileo, 1207.14f, GnssBand.E5B);
+        put(galileo, 1278.75f, GnssBand.E6);
+
+        // SBAS satellites share one table, filtered by the bands each svid broadcasts on
+        final byte[] sbas = newTable(GnssType.SBAS);
+        put(sbas, 1575.42f, GnssBand.L1);
+        put(sbas, 1176.45f, GnssBand.L5);
+    }
+
+    /**
+     * Returns the band code (GnssBand ordinal) for a given GNSS constellation, svid, and carrier frequency in MHz, or
+     * the ordinal of GnssBand.UNKNOWN if the frequency doesn't match a known band of that constellation
+     *
+     * @param gnssType constellation type defined in GnssType
+     * @param svid identification number provided by the GnssStatus.getSvid() method
+     * @param carrierFrequencyMhz carrier frequency for the signal in MHz
+     * @return the band code for the signal
+     */
+    public static int getCarrierBandCode(GnssType gnssType, int svid, float carrierFrequencyMhz) {
+        final byte[] table = BAND_TABLES[gnssType.ordinal()];
+        // Written so that NaN fails the range check as well
+        if (table == null || !(carrierFrequencyMhz >= TABLE_MIN_MHZ && carrierFrequencyMhz <= TABLE_MAX_MHZ)) {
+            return NO_BAND;
+        }
+
+        final int band = table[(int) ((carrierFrequencyMhz - TABLE_MIN_MHZ) * STEPS_PER_MHZ + 0.5f)];
+        if (gnssType == GnssType.SBAS && band != NO_BAND
+                && (SatelliteTables.getSbasBandMask(svid) & (1 << band)) == 0) {
+            return NO_BAND;
+        }
+        return band;
+    }
+
+    /**
+     * Returns the band for a given GNSS constellation, svid, and carrier frequency in MHz, or GnssBand.UNKNOWN
+     *
+     * @see #getCarrierBandCode(GnssType, int, float)
+     */
+    public static GnssBand getCarrierBand(GnssType gnssType, int svid, float carrierFrequencyMhz) {
+        return BANDS[getCarrierBandCode(gnssType, svid, carrierFrequencyMhz)];
+    }
+
+    /**
+     * Returns the GnssBand for a band code returned by getCarrierBandCode()
+     */
+    public static GnssBand fromBandCode(int bandCode) {
+        return BANDS[bandCode];
+    }
+
+    /**
+     * Returns the label that should be displayed for a given GNSS constellation, svid, and carrier
+     * frequency in MHz, or null if no carrier frequency label is found
+     *
+     * @param gnssType constellation type defined in GnssType
+     * @param svid identification number provided by the GnssStatus.getSvid() method
+     * @param carrierFrequencyMhz carrier frequency for the signal in MHz
+     * @return the label that should be displayed for a given GNSS constellation, svid, and carrier
+     * frequency in MHz or null if no carrier frequency label is found
+     */
+    public static String getCarrierFrequencyLabel(GnssType gnssType, int svid, float carrierFrequencyMhz) {
+        return getCarrierBand(gnssType, svid, carrierFrequencyMhz).getLabel();
+    }
+
+    /**
+     * Returns the GLONASS FDMA frequency channel number (-7 to +6) for a GLONASS L1 or L2 carrier frequency in MHz, or
+     * Integer.MIN_VALUE if the frequency is not a GLONASS FDMA frequency
+     *
+     * @param carrierFrequencyMhz carrier frequency for the signal in MHz
+     * @return the FDMA channel number, or Integer.MIN_VALUE
+     */
+    public static int getGlonassFdmaChannel(float carrierFrequencyMhz) {
+        final int band = getCarrierBandCode(GnssType.GLONASS, 0, carrierFrequencyMhz);
+        final float channel;
+        if (band == GnssBand.L1.ordinal()) {
+            channel = (carrierFrequencyMhz - GLONASS_L1_BASE_MHZ) / GLONASS_L1_CHANNEL_SPACING_MHZ;
+        } else if (band == GnssBand.L2.ordinal()) {
+            channel = (carrierFrequencyMhz - GLONASS_L2_BASE_MHZ) / GLONASS_L2_CHANNEL_SPACING_MHZ;
+        } else {
+            return Integer.MIN_VALUE;
+        }
+
+        final int k = Math.round(channel);
+        return k >= -7 && k <= 6 ? k : Integer.MIN_VALUE;
+    }
+
+    private static byte[] newTable(GnssType gnssType) {
+        final byte[] table = new byte[TABLE_SIZE];
+        Arrays.fill(table, NO_BAND);
+        BAND_TABLES[gnssType.ordinal()] = table;
+        return table;
+    }
+
+    private static void put(byte[] table, float centerMhz, GnssBand band) {
+        putRange(table, centerMhz - TOLERANCE_MHZ, centerMhz + TOLERANCE_MHZ, band);
+    }
+
+    private static void putRange(byte[] table, float minMhz, float maxMhz, GnssBand band) {
+        final int from = (int) Math.ceil((minMhz - TABLE_MIN_MHZ) * STEPS_PER_MHZ);
+        final int to = (int) Math.floor((maxMhz - TABLE_MIN_MHZ) * STEPS_PER_MHZ);
+        for (int i = Math.max(from, 0); i <= to && i < TABLE_SIZE; i++) {
+            if (table[i] == NO_BAND) {
+                table[i] = (byte) band.ordinal();
+            }
+        }
+    }
+}
@@ -16,9 +16,6 @@
  */
 package com.example.galileotestapp.galileo.utils;
 
-import android.util.Base64;
-
-import java.io.UnsupportedEncodingException;
 import java.text.NumberFormat;
 import java.text.ParseException;
 
@@ -157,16 +154,6 @@ public class MathUtils {
         }
     }
 
-    /**
-     * Converts the provided base 64 string to UTF-8
-     * @param base64 the base 64 string to convert to UTF-8
-     * @return the input string converted to UTF-8
-     */
-    public static String fromBase64(String base64) throws UnsupportedEncodingException {
-        byte[] data = Base64.decode(base64, Base64.DEFAULT);
-        return new String(data, "UTF-8");
-    }
-
     /**
      * Converts the provided string input to a double, and handles locale issues such as commas
      * instead of periods.  Does NOT validate input.
@@ -0,0 +1,221 @@
+/*
+ * Copyright (C) 2013 Sean J. Barbeau
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.example.galileotestapp.galileo.utils;
+
+import com.example.galileotestapp.galileo.model.GnssBand;
+import com.example.galileotestapp.galileo.model.GnssType;
+import com.example.galileotestapp.galileo.model.SatelliteName;
+import com.example.galileotestapp.galileo.model.SbasType;
+
+import java.util.Arrays;
+
+/**
+ * Dense, statically initialized lookup tables for PRN, constellation and SVID mappings.
+ *
+ * This is the single source for constellation ranges, SBAS systems, satellite names and Galileo SV metadata. Every
+ * lookup is one bounds check plus one array load, and supporting a new SBAS or Galileo satellite is a change to the
+ * data in the static initializer.
+ */
+public final class SatelliteTables {
+
+    /**
+     * The svid is a valid Galileo svid
+     */
+    public static final int GALILEO_VALID = 1;
+
+    /**
+     * In-Orbit Validation satellite (GSAT01xx)
+     */
+    public static final int GALILEO_IOV = 1 << 1;
+
+    /**
+     * Full Operational Capability satellite launched into an eccentric orbit (GSAT0201, GSAT0202)
+     */
+    public static final int GALILEO_ECCENTRIC_ORBIT = 1 << 2;
+
+    private static final int MAX_PRN = 400;
+
+    private static final int SBAS_MIN_SVID = 120;
+
+    private static final int SBAS_MAX_SVID = 158;
+
+    private static final int GALILEO_MAX_SVID = 36;
+
+    // Cached because values() clones the array on every call.
+    private static final GnssType[] GNSS_TYPES = GnssType.values();
+    private static final SbasType[] SBAS_TYPES = SbasType.values();
+    private static final SatelliteName[] SATELLITE_NAMES = SatelliteName.values();
+
+    /**
+     * GnssType ordinal by legacy GpsSatellite PRN
+     */
+    private static final byte[] GNSS_TYPE_BY_PRN = new byte[MAX_PRN + 1];
+
+    /**
+     * GnssType ordinal by GnssStatus.CONSTELLATION_* value
+     */
+    private static final byte[] GNSS_TYPE_BY_CONSTELLATION = new byte[8];
+
+    /**
+     * SbasType ordinal, SatelliteName ordinal and band mask by svid - SBAS_MIN_SVID
+     */
+    private static final byte[] SBAS_TYPE_BY_SVID = new byte[SBAS_MAX_SVID - SBAS_MIN_SVID + 1];
+    private static final byte[] SBAS_NAME_BY_SVID = new byte[SBAS_MAX_SVID - SBAS_MIN_SVID + 1];
+    private static final int[] SBAS_BANDS_BY_SVID = new int[SBAS_MAX_SVID - SBAS_MIN_SVID + 1];
+
+    /**
+     * GALILEO_* flags by svid
+     */
+    private static final byte[] GALILEO_FLAGS_BY_SVID = new byte[GALILEO_MAX_SVID + 1];
+
+    static {
+        Arrays.fill(GNSS_TYPE_BY_PRN, (byte) GnssType.UNKNOWN.ordinal());
+        putPrns(1, 32, GnssType.NAVSTAR);
+        putPrns(33, 33, GnssType.SBAS);
+        // See Issue #205
+        putPrns(39, 39, GnssType.SBAS);
+        // See Issue #92
+        putPrns(40, 41, GnssType.SBAS);
+        putPrns(46, 46, GnssType.SBAS);
+        putPrns(48, 49, GnssType.SBAS);
+        putPrns(51, 51, GnssType.SBAS);
+        // See Issue #26 for details
+        putPrns(65, 96, GnssType.GLONASS);
+        // See Issue #54 for details
+        putPrns(193, 200, GnssType.QZSS);
+        putPrns(201, 235, GnssType.BEIDOU);
+        // See https://github.com/barbeau/gpstest/issues/58#issuecomment-252235124 for details
+        putPrns(301, 336, GnssType.GALILEO);
+
+        // Values of the GnssStatus.CONSTELLATION_* constants, IRNSS (7) has no GnssType yet
+        Arrays.fill(GNSS_TYPE_BY_CONSTELLATION, (byte) GnssType.UNKNOWN.ordinal());
+        GNSS_TYPE_BY_CONSTELLATION[1] = (byte) GnssType.NAVSTAR.ordinal();
+        GNSS_TYPE_BY_CONSTELLATION[2] = (byte) GnssType.SBAS.ordinal();
+        GNSS_TYPE_BY_CONSTELLATION[3] = (byte) GnssType.GLONASS.ordinal();
+        GNSS_TYPE_BY_CONSTELLATION[4] = (byte) GnssType.QZSS.ordinal();
+        GNSS_TYPE_BY_CONSTELLATION[5] = (byte) GnssType.BEIDOU.ordinal();
+        GNSS_TYPE_BY_CONSTELLATION[6] = (byte) GnssType.GALILEO.ordinal();
+
+        Arrays.fill(SBAS_TYPE_BY_SVID, (byte) SbasType.UNKNOWN.ordinal());
+        Arrays.fill(SBAS_NAME_BY_SVID, (byte) SatelliteName.UNKNOWN.ordinal());
+        final int l1 = 1 << GnssBand.L1.ordinal();
+        final int l1l5 = l1 | 1 << GnssBand.L5.ordinal();
+        // EGNOS - https://gssc.esa.int/navipedia/index.php/EGNOS_Space_Segment
+        putSbas(120, SbasType.EGNOS, SatelliteName.INMARSAT_3F2, l1l5);
+        putSbas(123, SbasType.EGNOS, SatelliteName.ASTRA_5B, l1l5);
+        putSbas(126, SbasType.EGNOS, SatelliteName.INMARSAT_3F5, l1l5);
+        putSbas(136, SbasType.EGNOS, SatelliteName.SES_5, l1l5);
+        // WAAS
+        putSbas(131, SbasType.WAAS, SatelliteName.GEO5, l1l5);
+        putSbas(133, SbasType.WAAS, SatelliteName.INMARSAT_4F3, l1l5);
+        putSbas(135, SbasType.WAAS, SatelliteName.GALAXY_15, l1l5);
+        putSbas(138, SbasType.WAAS, SatelliteName.ANIK, l1l5);
+        // GAGAN (India)
+        putSbas(127, SbasType.GAGAN, SatelliteName.UNKNOWN, l1);
+        putSbas(128, SbasType.GAGAN, SatelliteName.UNKNOWN, l1);
+        putSbas(139, SbasType.GAGAN, SatelliteName.UNKNOWN, l1);
+        // MSAS (Japan) - https://gssc.esa.int/navipedia/index.php/MSAS_Space_Segment
+        putSbas(129, SbasType.MSAS, SatelliteName.UNKNOWN, l1l5);
+        putSbas(137, SbasType.MSAS, SatelliteName.UNKNOWN, l1l5);
+
+        for (int svid = 1; svid <= GALILEO_MAX_SVID; svid++) {
+            GALILEO_FLAGS_BY_SVID[svid] = GALILEO_VALID;
+        }
+        // GSAT0101, GSAT0102, GSAT0103, GSAT0104
+        putGalileo(GALILEO_IOV, 11, 12, 19, 20);
+        // GSAT0201, GSAT0202
+        putGalileo(GALILEO_ECCENTRIC_ORBIT, 14, 18);
+    }
+
+    private SatelliteTables() {
+    }
+
+    /**
+     * Returns the GnssType for a legacy GpsSatellite PRN
+     */
+    public static GnssType getGnssTypeForPrn(int prn) {
+        if (prn < 0 || prn > MAX_PRN) {
+            return GnssType.UNKNOWN;
+        }
+        return GNSS_TYPES[GNSS_TYPE_BY_PRN[prn]];
+    }
+
+    /**
+     * Returns the GnssType for a GnssStatus.CONSTELLATION_* value
+     */
+    public static GnssType getGnssTypeForConstellation(int constellationType) {
+        if (constellationType < 0 || constellationType >= GNSS_TYPE_BY_CONSTELLATION.length) {
+            return GnssType.UNKNOWN;
+        }
+        return GNSS_TYPES[GNSS_TYPE_BY_CONSTELLATION[constellationType]];
+    }
+
+    /**
+     * Returns the SbasType for an SBAS svid
+     */
+    public static SbasType getSbasType(int svid) {
+        if (svid < SBAS_MIN_SVID || svid > SBAS_MAX_SVID) {
+            return SbasType.UNKNOWN;
+        }
+        return SBAS_TYPES[SBAS_TYPE_BY_SVID[svid - SBAS_MIN_SVID]];
+    }
+
+    /**
+     * Returns the mask of GnssBand ordinals an SBAS svid is known to broadcast on, or 0 if unknown
+     */
+    public static int getSbasBandMask(int svid) {
+        if (svid < SBAS_MIN_SVID || svid > SBAS_MAX_SVID) {
+            return 0;
+        }
+        return SBAS_BANDS_BY_SVID[svid - SBAS_MIN_SVID];
+    }
+
+    /**
+     * Returns the satellite name for a constellation and svid
+     */
+    public static SatelliteName getSatelliteName(GnssType gnssType, int svid) {
+        if (gnssType != GnssType.SBAS || svid < SBAS_MIN_SVID || svid > SBAS_MAX_SVID) {
+            return SatelliteName.UNKNOWN;
+        }
+        return SATELLITE_NAMES[SBAS_NAME_BY_SVID[svid - SBAS_MIN_SVID]];
+    }
+
+    /**
+     * Returns the GALILEO_* flags for a Galileo svid, or 0 if the svid is not a valid Galileo svid
+     */
+    public static int getGalileoFlags(int svid) {
+        if (svid < 0 || svid > GALILEO_MAX_SVID) {
+            return 0;
+        }
+        return GALILEO_FLAGS_BY_SVID[svid];
+    }
+
+    private static void putPrns(int from, int to, GnssType gnssType) {
+        Arrays.fill(GNSS_TYPE_BY_PRN, from, to + 1, (byte) gnssType.ordinal());
+    }
+
+    private static void putSbas(int svid, SbasType sbasType, SatelliteName name, int bandMask) {
+        SBAS_TYPE_BY_SVID[svid - SBAS_MIN_SVID] = (byte) sbasType.ordinal();
+        SBAS_NAME_BY_SVID[svid - SBAS_MIN_SVID] = (byte) name.ordinal();
+        SBAS_BANDS_BY_SVID[svid - SBAS_MIN_SVID] = bandMask;
+    }
+
+    private static void putGalileo(int flag, int... svids) {
+        for (int svid : svids) {
+            GALILEO_FLAGS_BY_SVID[svid] |= flag;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.galileotestapp.galileo.utils;
+
+import com.example.galileotestapp.galileo.model.GnssBand;
+import com.example.galileotestapp.galileo.model.GnssType;
+
+/**
+ * Packs a constellation, svid and band into a single int key, so per-satellite and per-signal state can be tracked
+ * without building Strings or boxing values.
+ *
+ * Layout: bits 24-31 hold the GnssType ordinal + 1, bits 8-23 the svid and bits 0-7 the band code (GnssBand ordinal),
+ * or ANY_BAND for a whole satellite. A valid key is never 0, so 0 can be used as an empty marker.
+ */
+public final class SignalKeys {
+
+    public static final int NO_KEY = 0;
+
+    /**
+     * Band code of a key that identifies a satellite rather than one of its signals
+     */
+    public static final int ANY_BAND = 0xFF;
+
+    // Cached because values() clones the array on every call.
+    private static final GnssType[] GNSS_TYPES = GnssType.values();
+
+    private SignalKeys() {
+    }
+
+    /**
+     * Creates a key identifying one signal (band) of a satellite
+     */
+    public static int signalKey(GnssType gnssType, int svid, int bandCode) {
+        return (gnssType.ordinal() + 1) << 24 | (svid & 0xFFFF) << 8 | (bandCode & 0xFF);
+    }
+
+    /**
+     * Creates a key identifying a satellite, regardless of band
+     */
+    public static int satelliteKey(GnssType gnssType, int svid) {
+        return signalKey(gnssType, svid, ANY_BAND);
+    }
+
+    /**
+     * Returns the satellite key of a signal key
+     */
+    public static int toSatelliteKey(int key) {
+        return key | ANY_BAND;
+    }
+
+    public static GnssType getGnssType(int key) {
+        return GNSS_TYPES[(key >>> 24) - 1];
+    }
+
+    public static int getSvid(int key) {
+        return (key >>> 8) & 0xFFFF;
+    }
+
+    /**
+     * Returns the band code of the key, or ANY_BAND for a satellite key
+     */
+    public static int getBandCode(int key) {
+        return key & 0xFF;
+    }
+
+    /**
+     * Returns the band of the key, or GnssBand.UNKNOWN for a satellite key
+     */
+    public static GnssBand getBand(int key) {
+        final int band = getBandCode(key);
+        return band == ANY_BAND ? GnssBand.UNKNOWN : CarrierFreqUtils.fromBandCode(band);
+    }
+}
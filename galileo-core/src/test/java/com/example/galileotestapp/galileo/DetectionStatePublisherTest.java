@@ -0,0 +1,135 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
+import com.example.galileotestapp.galileo.model.GnssType;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DetectionStatePublisherTest {
+
+    private static final long MILLIS = 1000000L;
+
+    private final GalileoDetector detector = new GalileoDetector();
+
+    private final DetectionStatePublisher publisher = new DetectionStatePublisher();
+
+    private final EpochSnapshot epoch = new EpochSnapshot();
+
+    /**
+     * Records and publishes a status epoch with a GPS satellite, and a Galileo one if galileo is set
+     */
+    private DetectionState status(long timeNanos, float cn0DbHz, boolean galileo) {
+        epoch.reset(2, timeNanos);
+        epoch.setSatellite(0, 5, GnssType.NAVSTAR, cn0DbHz, 40, 100, EpochSnapshot.FLAG_USED_IN_FIX);
+        epoch.setSatellite(1, 11, galileo ? GnssType.GALILEO : GnssType.NAVSTAR, 30, 40, 200, 0);
+        return record(epoch);
+    }
+
+    private DetectionState location(long timeNanos, double latitude) {
+        epoch.setLocation(timeNanos, latitude, 11.5, 540, 5);
+        return record(epoch);
+    }
+
+    private DetectionState record(EpochSnapshot snapshot) {
+        if (snapshot.getKind() != EpochSnapshot.KIND_LOCATION) {
+            detector.process(snapshot);
+        }
+        publisher.record(snapshot, detector);
+        publisher.publish();
+        return publisher.get();
+    }
+
+    @Test
+    public void firstChangeIsPublishedRightAway() {
+        assertSame(DetectionState.EMPTY, publisher.get());
+        final DetectionState state = status(1000 * MILLIS, 30, false);
+        assertNotSame(DetectionState.EMPTY, state);
+        assertEquals(1, state.getEpochCount());
+        assertEquals(2, state.getSatelliteCount());
+        assertEquals(30, state.getCn0DbHz(0), 0);
+    }
+
+    @Test
+    public void unchangedEpochsPublishNothing() {
+        final DetectionState state = status(1000 * MILLIS, 30, false);
+        for (int i = 1; i <= 10; i++) {
+            assertSame(state, status(1000 * MILLIS + i * DetectionStatePublisher.MIN_PUBLISH_INTERVAL_NANOS, 30,
+                    false));
+        }
+        publisher.flush();
+        assertSame(state, publisher.get());
+    }
+
+    @Test
+    public void otherChangesWaitForTheInterval() {
+        final long start = 1000 * MILLIS;
+        final DetectionState first = status(start, 30, false);
+
+        // C/N0 changes on every epoch, at 10 Hz only every other one is published
+        assertSame(first, status(start + 100 * MILLIS, 31, false));
+        final DetectionState second = status(start + 200 * MILLIS, 32, false);
+        assertNotSame(first, second);
+        assertEquals(32, second.getCn0DbHz(0), 0);
+        assertEquals(3, second.getEpochCount());
+
+        // The interval counts from the last published state, not from the first held back change
+        assertSame(second, status(start + 300 * MILLIS, 33, false));
+        assertSame(second, location(start + 350 * MILLIS, 48.1));
+        final DetectionState third = status(start + 400 * MILLIS, 33, false);
+        assertNotSame(second, third);
+        assertTrue(third.hasLocation());
+        assertEquals(48.1, third.getLatitude(), 0);
+    }
+
+    @Test
+    public void resultChangesArePublishedRightAway() {
+        final long start = 1000 * MILLIS;
+        final DetectionState first = status(start, 30, false);
+        assertFalse(first.isGalileoFound());
+
+        final DetectionState galileo = status(start + 1 * MILLIS, 30, true);
+        assertNotSame(first, galileo);
+        assertTrue(galileo.isGalileoFound());
+        assertEquals(GnssType.GALILEO, galileo.getGnssType(1));
+
+        // Not a result change, held back again
+        assertSame(galileo, status(start + 2 * MILLIS, 35, true));
+    }
+
+    @Test
+    public void flushPublishesHeldBackChanges() {
+        final long start = 1000 * MILLIS;
+        final DetectionState first = status(start, 30, false);
+        assertSame(first, location(start + 50 * MILLIS, 48.1));
+
+        // No later epoch comes, e.g. the session ended
+        publisher.flush();
+        final DetectionState flushed = publisher.get();
+        assertNotSame(first, flushed);
+        assertTrue(flushed.hasLocation());
+        assertEquals(2, flushed.getEpochCount());
+
+        publisher.flush();
+        assertSame(flushed, publisher.get());
+        // The flush restarted the interval
+        assertSame(flushed, status(start + 100 * MILLIS, 31, false));
+    }
+
+    @Test
+    public void resetPublishesEmptyState() {
+        status(1000 * MILLIS, 30, true);
+        publisher.reset();
+        assertSame(DetectionState.EMPTY, publisher.get());
+
+        detector.reset();
+        final DetectionState state = status(10 * MILLIS, 30, false);
+        assertEquals(1, state.getEpochCount());
+        assertFalse(state.isGalileoFound());
+    }
+}
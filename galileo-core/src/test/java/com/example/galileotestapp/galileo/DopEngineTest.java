@@ -0,0 +1,142 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.model.DilutionOfPrecision;
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
+import com.example.galileotestapp.galileo.model.GnssType;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DopEngineTest {
+
+    private static final double DELTA = 1e-9;
+
+    private static final int GPS_AND_GALILEO = DopEngine.maskOf(GnssType.NAVSTAR) | DopEngine.maskOf(GnssType.GALILEO);
+
+    private final DilutionOfPrecision dop = new DilutionOfPrecision(0, 0, 0);
+
+    /**
+     * One satellite at the zenith and three on the horizon 120 degrees apart: the normal matrix is
+     * diag(1.5, 1.5) for east and north, and [[1, 1], [1, 4]] for up and the clock
+     */
+    private static void addTetrahedron(DopEngine engine, GnssType type) {
+        engine.add(type, 90, 0);
+        engine.add(type, 0, 0);
+        engine.add(type, 0, 120);
+        engine.add(type, 0, 240);
+    }
+
+    @Test
+    public void singleConstellationMatchesClosedForm() {
+        final DopEngine engine = new DopEngine();
+        addTetrahedron(engine, GnssType.NAVSTAR);
+
+        assertTrue(engine.compute(DopEngine.ALL_CONSTELLATIONS, false, dop));
+        assertEquals(Math.sqrt(4.0 / 3), dop.getHorizontalDop(), DELTA);
+        assertEquals(Math.sqrt(4.0 / 3), dop.getVerticalDop(), DELTA);
+        assertEquals(Math.sqrt(8.0 / 3), dop.getPositionDop(), DELTA);
+        assertEquals(Math.sqrt(1.0 / 3), dop.getTimeDop(), DELTA);
+
+        // A single constellation has a single clock either way
+        final DilutionOfPrecision separate = new DilutionOfPrecision(0, 0, 0);
+        assertTrue(engine.compute(DopEngine.ALL_CONSTELLATIONS, true, separate));
+        assertEquals(dop.getPositionDop(), separate.getPositionDop(), DELTA);
+        assertEquals(dop.getTimeDop(), separate.getTimeDop(), DELTA);
+    }
+
+    @Test
+    public void sharedAndSeparateClocks() {
+        final DopEngine engine = new DopEngine();
+        addTetrahedron(engine, GnssType.NAVSTAR);
+        addTetrahedron(engine, GnssType.GALILEO);
+
+        // Shared clock: position block diag(3, 3, 2) minus ss'/8 with s = (0, 0, 2)
+        assertTrue(engine.compute(GPS_AND_GALILEO, false, dop));
+        assertEquals(Math.sqrt(2.0 / 3), dop.getHorizontalDop(), DELTA);
+        assertEquals(Math.sqrt(2.0 / 3), dop.getVerticalDop(), DELTA);
+        assertEquals(Math.sqrt(4.0 / 3), dop.getPositionDop(), DELTA);
+        assertEquals(Math.sqrt(1.0 / 8 + (2.0 / 3) * 4 / 64), dop.getTimeDop(), DELTA);
+
+        // One clock each: diag(1.5, 1.5, 0.75) per constellation, time DOP of a 4 satellite clock
+        assertTrue(engine.compute(GPS_AND_GALILEO, true, dop));
+        assertEquals(Math.sqrt(2.0 / 3), dop.getHorizontalDop(), DELTA);
+        assertEquals(Math.sqrt(2.0 / 3), dop.getVerticalDop(), DELTA);
+        assertEquals(Math.sqrt(4.0 / 3), dop.getPositionDop(), DELTA);
+        assertEquals(Math.sqrt(1.0 / 4 + (2.0 / 3) / 16), dop.getTimeDop(), DELTA);
+
+        // Without Galileo only the GPS tetrahedron is left
+        assertTrue(engine.compute(DopEngine.ALL_CONSTELLATIONS & ~DopEngine.maskOf(GnssType.GALILEO), true, dop));
+        assertEquals(Math.sqrt(8.0 / 3), dop.getPositionDop(), DELTA);
+    }
+
+    @Test
+    public void tooFewSatellitesHaveNoDop() {
+        final DopEngine engine = new DopEngine();
+        engine.add(GnssType.NAVSTAR, 90, 0);
+        engine.add(GnssType.NAVSTAR, 30, 0);
+        engine.add(GnssType.NAVSTAR, 30, 120);
+        engine.add(GnssType.GALILEO, 30, 240);
+
+        // 4 satellites determine position and one clock, not two
+        assertTrue(engine.compute(GPS_AND_GALILEO, false, dop));
+        assertFalse(engine.compute(GPS_AND_GALILEO, true, dop));
+        assertTrue(Double.isNaN(dop.getPositionDop()));
+        assertTrue(Double.isNaN(dop.getHorizontalDop()));
+        assertTrue(Double.isNaN(dop.getVerticalDop()));
+        assertTrue(Double.isNaN(dop.getTimeDop()));
+    }
+
+    @Test
+    public void coplanarSatellitesHaveNoDop() {
+        final DopEngine engine = new DopEngine();
+        for (int azimuth = 0; azimuth < 360; azimuth += 60) {
+            engine.add(GnssType.NAVSTAR, 45, azimuth);
+        }
+        // Same elevation everywhere, up and clock can't be told apart
+        assertFalse(engine.compute(DopEngine.ALL_CONSTELLATIONS, false, dop));
+    }
+
+    @Test
+    public void updateFiltersStatusEpoch() {
+        final EpochSnapshot epoch = new EpochSnapshot();
+        epoch.reset(9, 0);
+        epoch.setSatellite(0, 1, GnssType.NAVSTAR, 40, 80, 0, EpochSnapshot.FLAG_USED_IN_FIX);
+        epoch.setSatellite(1, 2, GnssType.NAVSTAR, 40, 20, 0, EpochSnapshot.FLAG_USED_IN_FIX);
+        epoch.setSatellite(2, 3, GnssType.NAVSTAR, 40, 20, 120, EpochSnapshot.FLAG_USED_IN_FIX);
+        epoch.setSatellite(3, 4, GnssType.NAVSTAR, 40, 20, 240, EpochSnapshot.FLAG_USED_IN_FIX);
+        // Second band of satellite 4, below the mask, not used in the fix and SBAS are all ignored
+        epoch.setSatellite(4, 4, GnssType.NAVSTAR, 40, 20, 240, EpochSnapshot.FLAG_USED_IN_FIX);
+        epoch.setSatellite(5, 5, GnssType.NAVSTAR, 40, 2, 60, EpochSnapshot.FLAG_USED_IN_FIX);
+        epoch.setSatellite(6, 6, GnssType.NAVSTAR, 40, 50, 60, 0);
+        epoch.setSatellite(7, 127, GnssType.SBAS, 40, 30, 180, EpochSnapshot.FLAG_USED_IN_FIX);
+        epoch.setSatellite(8, 11, GnssType.GALILEO, 40, 60, 300, EpochSnapshot.FLAG_USED_IN_FIX);
+
+        final DopEngine engine = new DopEngine();
+        engine.update(epoch);
+        assertEquals(4, engine.getSatelliteCount(GnssType.NAVSTAR));
+        assertEquals(1, engine.getSatelliteCount(GnssType.GALILEO));
+        assertEquals(0, engine.getSatelliteCount(GnssType.SBAS));
+
+        final DopEngine expected = new DopEngine();
+        expected.add(GnssType.NAVSTAR, 80, 0);
+        expected.add(GnssType.NAVSTAR, 20, 0);
+        expected.add(GnssType.NAVSTAR, 20, 120);
+        expected.add(GnssType.NAVSTAR, 20, 240);
+        expected.add(GnssType.GALILEO, 60, 300);
+        final DilutionOfPrecision expectedDop = new DilutionOfPrecision(0, 0, 0);
+        assertTrue(expected.compute(DopEngine.ALL_CONSTELLATIONS, false, expectedDop));
+        assertTrue(engine.compute(DopEngine.ALL_CONSTELLATIONS, false, dop));
+        assertEquals(expectedDop.getPositionDop(), dop.getPositionDop(), DELTA);
+        assertEquals(expectedDop.getTimeDop(), dop.getTimeDop(), DELTA);
+
+        // The next status epoch replaces the geometry
+        epoch.reset(1, 1);
+        epoch.setSatellite(0, 1, GnssType.NAVSTAR, 40, 80, 0, EpochSnapshot.FLAG_USED_IN_FIX);
+        engine.update(epoch);
+        assertEquals(1, engine.getSatelliteCount(GnssType.NAVSTAR));
+        assertEquals(0, engine.getSatelliteCount(GnssType.GALILEO));
+    }
+}
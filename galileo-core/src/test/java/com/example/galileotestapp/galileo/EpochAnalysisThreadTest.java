@@ -0,0 +1,73 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
+
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class EpochAnalysisThreadTest {
+
+    private static final class Counter implements EpochAnalysisThread.IdleConsumer {
+        final AtomicInteger epochs = new AtomicInteger();
+        final AtomicInteger batches = new AtomicInteger();
+        /**
+         * Number of epochs analyzed at every onIdle()
+         */
+        final BlockingQueue<Integer> idle = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onEpoch(EpochSnapshot epoch) {
+            epochs.incrementAndGet();
+        }
+
+        @Override
+        public void onBatchEnd() {
+            batches.incrementAndGet();
+        }
+
+        @Override
+        public void onIdle() {
+            idle.add(epochs.get());
+        }
+    }
+
+    @Test
+    public void idleFollowsTheLastBatch() throws InterruptedException {
+        final EpochRing ring = new EpochRing(8);
+        ring.setPolicy(EpochRing.Policy.DROP_NEWEST);
+        final Counter counter = new Counter();
+        final EpochAnalysisThread thread = new EpochAnalysisThread(ring, counter);
+        thread.start();
+        try {
+            for (int round = 1; round <= 3; round++) {
+                for (int i = 0; i < 3; i++) {
+                    ring.claim().reset(0, i);
+                    ring.publish();
+                }
+                // Woken early instead of waiting for the park to time out
+                ring.wakeUp();
+                awaitIdle(counter, 3 * round);
+            }
+            assertTrue(counter.batches.get() >= 3);
+        } finally {
+            thread.quit();
+            thread.join();
+        }
+    }
+
+    private static void awaitIdle(Counter counter, int epochs) throws InterruptedException {
+        Integer analyzed;
+        // An idle period that ended before the epochs were published may be reported first
+        do {
+            analyzed = counter.idle.poll(5, TimeUnit.SECONDS);
+            assertNotNull(analyzed);
+        } while (analyzed < epochs);
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class EpochRingTest {
+
+    /**
+     * Records the time of every epoch it is handed, which identifies the epoch in these tests
+     */
+    private static final class Recorder implements EpochRing.BatchConsumer {
+        final List<Long> times = new ArrayList<>();
+        int batches;
+
+        @Override
+        public void onEpoch(EpochSnapshot epoch) {
+            times.add(epoch.getTimeNanos());
+        }
+
+        @Override
+        public void onBatchEnd() {
+            batches++;
+        }
+    }
+
+    private static void publishStatus(EpochRing ring, long timeNanos) {
+        ring.claim().reset(0, timeNanos);
+        ring.publish();
+    }
+
+    private static void publishNmeaStatus(EpochRing ring, long timeNanos) {
+        final EpochSnapshot epoch = ring.claim();
+        epoch.reset(0, timeNanos);
+        epoch.setFromNmea();
+        ring.publish();
+    }
+
+    private static void publishLocation(EpochRing ring, long timeNanos) {
+        ring.claim().setLocation(timeNanos, 0, 0, 0, 0);
+        ring.publish();
+    }
+
+    private static void publishMeasurements(EpochRing ring, long timeNanos) {
+        ring.claim().resetMeasurements(0, timeNanos);
+        ring.publish();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityMustBePowerOfTwo() {
+        new EpochRing(12);
+    }
+
+    @Test
+    public void fullRingDropsNewEpochs() {
+        final EpochRing ring = new EpochRing(4);
+        ring.setPolicy(EpochRing.Policy.DROP_NEWEST);
+        for (int i = 0; i < 4; i++) {
+            publishStatus(ring, i);
+        }
+        assertNull(ring.claim());
+        assertEquals(1, ring.getDroppedCount());
+
+        final Recorder recorder = new Recorder();
+        assertEquals(2, ring.drain(recorder, 2));
+        assertNotNull(ring.claim());
+        assertEquals(2, ring.drain(recorder, 16));
+        assertEquals(0, ring.drain(recorder, 16));
+        assertEquals(2, recorder.batches);
+        assertEquals(listOf(0, 1, 2, 3), recorder.times);
+    }
+
+    @Test
+    public void slotsAreReusedAcrossWraps() {
+        final EpochRing ring = new EpochRing(4);
+        ring.setPolicy(EpochRing.Policy.DROP_NEWEST);
+        final Recorder recorder = new Recorder();
+        final List<Long> expected = new ArrayList<>();
+        long time = 0;
+        for (int round = 0; round < 10; round++) {
+            // 3 then 1 epochs per drain, so head and tail wrap at different slots
+            final int count = round % 2 == 0 ? 3 : 1;
+            for (int i = 0; i < count; i++) {
+                publishStatus(ring, time);
+                expected.add(time++);
+            }
+            assertEquals(count, ring.drain(recorder, 16));
+        }
+        assertEquals(expected, recorder.times);
+        assertEquals(0, ring.getDroppedCount());
+    }
+
+    @Test
+    public void coalesceKeepsLatestStatusEpochOnly() {
+        final EpochRing ring = new EpochRing(16);
+        ring.setPolicy(EpochRing.Policy.COALESCE);
+        publishStatus(ring, 1);
+        publishLocation(ring, 2);
+        publishStatus(ring, 3);
+        publishMeasurements(ring, 4);
+        publishStatus(ring, 5);
+        publishLocation(ring, 6);
+
+        final Recorder recorder = new Recorder();
+        assertEquals(6, ring.drain(recorder, 16));
+        assertEquals(listOf(2, 4, 5, 6), recorder.times);
+        assertEquals(2, ring.getCoalescedCount());
+    }
+
+    @Test
+    public void coalesceNeverSkipsNmeaEpochs() {
+        final EpochRing ring = new EpochRing(16);
+        ring.setPolicy(EpochRing.Policy.COALESCE);
+        publishNmeaStatus(ring, 1);
+        publishStatus(ring, 2);
+        publishNmeaStatus(ring, 3);
+        publishStatus(ring, 4);
+
+        final Recorder recorder = new Recorder();
+        ring.drain(recorder, 16);
+        assertEquals(listOf(1, 3, 4), recorder.times);
+        assertEquals(1, ring.getCoalescedCount());
+    }
+
+    @Test
+    public void coalesceOnlyLooksAtTheDrainedBatch() {
+        final EpochRing ring = new EpochRing(16);
+        ring.setPolicy(EpochRing.Policy.COALESCE);
+        for (int i = 0; i < 4; i++) {
+            publishStatus(ring, i);
+        }
+
+        final Recorder recorder = new Recorder();
+        assertEquals(2, ring.drain(recorder, 2));
+        assertEquals(2, ring.drain(recorder, 2));
+        assertEquals(listOf(1, 3), recorder.times);
+    }
+
+    @Test
+    public void producerAndConsumerThreads() throws InterruptedException {
+        final EpochRing ring = new EpochRing(8);
+        ring.setPolicy(EpochRing.Policy.DROP_NEWEST);
+        final int epochs = 100000;
+        final Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < epochs; i++) {
+                    EpochSnapshot epoch;
+                    while ((epoch = ring.claim()) == null) {
+                        Thread.yield();
+                    }
+                    epoch.reset(0, i);
+                    ring.publish();
+                }
+            }
+        });
+        producer.start();
+
+        final long[] next = {0};
+        final EpochRing.Consumer checker = new EpochRing.Consumer() {
+            @Override
+            public void onEpoch(EpochSnapshot epoch) {
+                assertEquals(next[0]++, epoch.getTimeNanos());
+            }
+        };
+        while (next[0] < epochs) {
+            if (ring.drain(checker, 4) == 0) {
+                ring.await(1000000L);
+            }
+        }
+        producer.join();
+    }
+
+    private static List<Long> listOf(long... values) {
+        final List<Long> list = new ArrayList<>();
+        for (long value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.galileotestapp.galileo;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ErrorStatisticsTest {
+
+    @Test
+    public void momentsMatchTwoPassComputation() {
+        final ErrorStatistics statistics = new ErrorStatistics();
+        final Random random = new Random(7);
+        final double[] horizontal = new double[5000];
+        final double[] vertical = new double[horizontal.length];
+        for (int i = 0; i < horizontal.length; i++) {
+            horizontal[i] = 3 + 2 * Math.abs(random.nextGaussian());
+            vertical[i] = 5 * random.nextGaussian();
+            statistics.add(horizontal[i], vertical[i], 0);
+        }
+
+        final ErrorStatistics.Snapshot snapshot = statistics.snapshot(0);
+        assertEquals(horizontal.length, snapshot.getCount());
+        assertEquals(vertical.length, snapshot.getVertCount());
+        assertEquals(mean(horizontal), snapshot.getMeanError(), 1e-9);
+        assertEquals(variance(horizontal), snapshot.getErrorVariance(), 1e-9);
+        assertEquals(mean(vertical), snapshot.getMeanVertError(), 1e-9);
+        assertEquals(variance(vertical), snapshot.getVertErrorVariance(), 1e-9);
+    }
+
+    @Test
+    public void stripesOfSeveralThreadsAreMerged() throws InterruptedException {
+        final ErrorStatistics statistics = new ErrorStatistics();
+        final int threads = 4;
+        final int perThread = 10000;
+        final Thread[] writers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            // Thread t writes the errors t + 1 and -(t + 1)
+            final double error = t + 1;
+            writers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < perThread; i++) {
+                        statistics.add(error, i % 2 == 0 ? error : -error, 0);
+                    }
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        final ErrorStatistics.Snapshot snapshot = statistics.snapshot(0);
+        assertEquals(threads * perThread, snapshot.getCount());
+        assertEquals(2.5, snapshot.getMeanError(), 1e-9);
+        // Population variance of 1, 2, 3, 4 with the sample correction
+        final long n = threads * perThread;
+        assertEquals(1.25 * n / (n - 1), snapshot.getErrorVariance(), 1e-9);
+        assertEquals(0, snapshot.getMeanVertError(), 1e-9);
+        assertEquals(2.5, snapshot.getMeanVertAbsError(), 1e-9);
+        assertEquals(4, snapshot.getErrorQuantile(1), 0);
+        assertEquals(1, snapshot.getErrorQuantile(0), 0);
+    }
+
+    @Test
+    public void quantilesAreWithinSketchAccuracy() {
+        final ErrorStatistics statistics = new ErrorStatistics();
+        for (int i = 1; i <= 1000; i++) {
+            statistics.add(i / 10.0, Double.NaN, 0);
+        }
+        final ErrorStatistics.Snapshot snapshot = statistics.snapshot(0);
+        assertEquals(0, snapshot.getVertCount());
+        assertEquals(95.0, snapshot.getErrorQuantile(0.95), 95.0 * QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+        assertEquals(50.0, snapshot.getErrorQuantile(0.5), 50.0 * QuantileSketch.DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    @Test
+    public void windowKeepsOnlyRecentSlices() {
+        // 10 s window in 10 slices of 1 s
+        final ErrorStatistics statistics = new ErrorStatistics(10000, 10);
+        for (int second = 0; second < 20; second++) {
+            statistics.add(second, Double.NaN, second * 1000L + 500);
+        }
+
+        // Window ending in slice 19 covers slices 10 to 19
+        ErrorStatistics.Snapshot snapshot = statistics.snapshot(19999);
+        assertEquals(10, snapshot.getCount());
+        assertEquals(14.5, snapshot.getMeanError(), 1e-9);
+
+        // Slices 15 to 24, five of them empty
+        snapshot = statistics.snapshot(24000);
+        assertEquals(5, snapshot.getCount());
+        assertEquals(17, snapshot.getMeanError(), 1e-9);
+
+        // Slices newer than the requested time are not counted, slices 3 to 9 were reused by 13 to 19
+        snapshot = statistics.snapshot(12000);
+        assertEquals(3, snapshot.getCount());
+        assertEquals(11, snapshot.getMeanError(), 1e-9);
+
+        assertEquals(0, statistics.snapshot(40000).getCount());
+    }
+
+    @Test
+    public void resetForgetsAllErrors() {
+        final ErrorStatistics statistics = new ErrorStatistics();
+        statistics.add(10, 1, 0);
+        statistics.reset();
+        ErrorStatistics.Snapshot snapshot = statistics.snapshot(0);
+        assertEquals(0, snapshot.getCount());
+        assertTrue(Double.isNaN(snapshot.getMeanError()));
+
+        statistics.add(2, 1, 0);
+        snapshot = statistics.snapshot(0);
+        assertEquals(1, snapshot.getCount());
+        assertEquals(2, snapshot.getMeanError(), 1e-9);
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    private static double variance(double[] values) {
+        final double mean = mean(values);
+        double sum = 0;
+        for (double value : values) {
+            sum += (value - mean) * (value - mean);
+        }
+        return sum / (values.length - 1);
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.galileotestapp.galileo;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FixHistoryTest {
+
+    private static final long SECOND = 1000000000L;
+
+    private File file;
+
+    @After
+    public void deleteFile() {
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Appends count fixes, one per second from the given second, each fix encoding its second in all its fields
+     */
+    private static void appendSeconds(FixHistory history, int from, int count) {
+        for (int second = from; second < from + count; second++) {
+            assertTrue(history.append(second * SECOND, second, -second, 100 + second, second / 10f, second / 100f,
+                    -second / 100f));
+        }
+    }
+
+    private static void assertFix(FixHistory history, int index, int second) {
+        assertEquals(second * SECOND, history.getTimeNanos(index));
+        assertEquals(second, history.getLatitude(index), 0);
+        assertEquals(-second, history.getLongitude(index), 0);
+        assertEquals(100 + second, history.getAltitude(index), 0);
+        assertEquals(second / 10f, history.getAccuracy(index), 0);
+        assertEquals(second / 100f, history.getHorizontalError(index), 0);
+        assertEquals(-second / 100f, history.getVerticalError(index), 0);
+    }
+
+    private static List<Long> visitSeconds(FixHistory history, int fromSecond, int toSecond) {
+        final List<Long> seconds = new ArrayList<>();
+        history.forEach(fromSecond * SECOND, toSecond * SECOND, new FixHistory.Visitor() {
+            @Override
+            public void onFix(long timeNanos, double latitude, double longitude, double altitude, float accuracy,
+                              float horizontalError, float verticalError) {
+                assertEquals(timeNanos / SECOND, latitude, 0);
+                seconds.add(timeNanos / SECOND);
+            }
+        });
+        return seconds;
+    }
+
+    private static List<Long> range(long from, long to) {
+        final List<Long> list = new ArrayList<>();
+        for (long value = from; value < to; value++) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityMustBePositive() {
+        FixHistory.allocate(0);
+    }
+
+    @Test
+    public void oldestFixesAreOverwritten() {
+        final FixHistory history = FixHistory.allocate(8);
+        appendSeconds(history, 0, 5);
+        assertEquals(5, history.size());
+        assertFix(history, 0, 0);
+        assertFix(history, 4, 4);
+
+        // 21 fixes wrap the ring twice, index 0 is always the oldest fix still stored
+        appendSeconds(history, 5, 16);
+        assertEquals(8, history.size());
+        for (int index = 0; index < 8; index++) {
+            assertFix(history, index, 13 + index);
+        }
+
+        try {
+            history.getTimeNanos(8);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+        try {
+            history.getTimeNanos(-1);
+            fail();
+        } catch (IndexOutOfBoundsException expected) {
+        }
+    }
+
+    @Test
+    public void outOfOrderFixesAreDropped() {
+        final FixHistory history = FixHistory.allocate(4);
+        appendSeconds(history, 10, 2);
+        assertFalse(history.append(10 * SECOND, 0, 0, 0, 0));
+        assertEquals(2, history.size());
+        assertFix(history, 1, 11);
+
+        // Same time as the newest fix is still in order
+        assertTrue(history.append(11 * SECOND, 0, 0, 0, 0));
+        assertEquals(3, history.size());
+        assertTrue(Float.isNaN(history.getHorizontalError(2)));
+        assertTrue(Float.isNaN(history.getVerticalError(2)));
+    }
+
+    @Test
+    public void timeRanges() {
+        final FixHistory history = FixHistory.allocate(8);
+        assertEquals(0, history.indexOf(0));
+        assertEquals(0, history.count(0, Long.MAX_VALUE));
+
+        // Stores seconds 12..19, wrapped so the oldest fix is not in slot 0
+        appendSeconds(history, 0, 20);
+
+        assertEquals(0, history.indexOf(0));
+        assertEquals(0, history.indexOf(12 * SECOND));
+        assertEquals(1, history.indexOf(12 * SECOND + 1));
+        assertEquals(4, history.indexOf(16 * SECOND));
+        assertEquals(8, history.indexOf(20 * SECOND));
+
+        assertEquals(8, history.count(0, Long.MAX_VALUE));
+        assertEquals(3, history.count(14 * SECOND, 17 * SECOND));
+        assertEquals(0, history.count(17 * SECOND, 14 * SECOND));
+        assertEquals(0, history.count(0, 12 * SECOND));
+
+        assertEquals(range(14, 17), visitSeconds(history, 14, 17));
+        assertEquals(range(12, 20), visitSeconds(history, 0, 100));
+        assertEquals(range(0, 0), visitSeconds(history, 20, 30));
+
+        history.clear();
+        assertEquals(0, history.size());
+        assertEquals(range(0, 0), visitSeconds(history, 0, 100));
+    }
+
+    @Test
+    public void mappedHistoryResumesInSameBoot() throws IOException {
+        file = File.createTempFile("fixes", ".bin");
+        final FixHistory first = FixHistory.map(file, 8, 7);
+        appendSeconds(first, 0, 11);
+        first.force();
+
+        final FixHistory resumed = FixHistory.map(file, 8, 7);
+        assertEquals(8, resumed.size());
+        for (int index = 0; index < 8; index++) {
+            assertFix(resumed, index, 3 + index);
+        }
+        appendSeconds(resumed, 11, 2);
+        assertFix(resumed, 0, 5);
+        assertFix(resumed, 7, 12);
+        assertFalse(resumed.append(SECOND, 0, 0, 0, 0));
+    }
+
+    @Test
+    public void mappedHistoryStartsOverAfterReboot() throws IOException {
+        file = File.createTempFile("fixes", ".bin");
+        final FixHistory first = FixHistory.map(file, 8, 7);
+        appendSeconds(first, 100, 5);
+        first.force();
+
+        final FixHistory rebooted = FixHistory.map(file, 8, 8);
+        assertEquals(0, rebooted.size());
+        // Elapsed realtime started over, earlier times than before the reboot are accepted
+        appendSeconds(rebooted, 1, 3);
+        assertEquals(3, rebooted.size());
+        assertFix(rebooted, 0, 1);
+
+        // The new boot ID was stored
+        assertEquals(3, FixHistory.map(file, 8, 8).size());
+        assertEquals(0, FixHistory.map(file, 8, 7).size());
+    }
+
+    @Test
+    public void mappedHistoryStartsOverWithOtherCapacity() throws IOException {
+        file = File.createTempFile("fixes", ".bin");
+        appendSeconds(FixHistory.map(file, 8, 7), 0, 5);
+
+        assertEquals(0, FixHistory.map(file, 16, 7).size());
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
+import com.example.galileotestapp.galileo.model.GnssBand;
+import com.example.galileotestapp.galileo.model.GnssType;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GalileoDetectorTest {
+
+    private static final float E1_HZ = 1575.42e6f;
+
+    private static final float E5A_HZ = 1176.45e6f;
+
+    private final GalileoDetector detector = new GalileoDetector();
+
+    private final EpochSnapshot epoch = new EpochSnapshot();
+
+    private static int code(GnssBand band) {
+        return band.ordinal();
+    }
+
+    /**
+     * Sets a status satellite, with a carrier frequency unless carrierFrequencyHz is NaN
+     */
+    private void satellite(int index, GnssType type, int svid, float carrierFrequencyHz) {
+        epoch.setSatellite(index, svid, type, 30, 45, 90, EpochSnapshot.FLAG_USED_IN_FIX);
+        if (!Float.isNaN(carrierFrequencyHz)) {
+            epoch.setCarrierFrequencyHz(index, carrierFrequencyHz);
+        }
+    }
+
+    /**
+     * Processes a measurement epoch with a steadily tracked E1 signal and an E5a signal with the given C/N0 and
+     * code lock, both of Galileo svid 1
+     */
+    private void measureE5a(int epochIndex, float cn0DbHz, boolean codeLock) {
+        epoch.resetMeasurements(0, epochIndex * 1000000000L);
+        measurement(E1_HZ, 30, true);
+        measurement(E5A_HZ, cn0DbHz, codeLock);
+        detector.process(epoch);
+    }
+
+    private void measurement(float carrierFrequencyHz, float cn0DbHz, boolean codeLock) {
+        final int index = epoch.addMeasurement(1, GnssType.GALILEO, cn0DbHz, 0, 0.1f, 0,
+                codeLock ? MeasurementAggregator.STATE_CODE_LOCK : 0);
+        epoch.setCarrierFrequencyHz(index, carrierFrequencyHz);
+    }
+
+    @Test
+    public void unknownBandCountsAsGalileoFound() {
+        epoch.reset(2, 1000);
+        satellite(0, GnssType.NAVSTAR, 5, E1_HZ);
+        satellite(1, GnssType.GALILEO, 5, Float.NaN);
+        detector.process(epoch);
+
+        assertTrue(detector.isGalileoFound());
+        assertFalse(detector.isDualFrequency());
+        assertEquals(code(GnssBand.UNKNOWN), detector.getStatusBandCode(1));
+        assertTrue(detector.getCapabilities().hasBand(GnssType.GALILEO, GnssBand.UNKNOWN));
+        assertEquals(1, detector.getCapabilities().getGalileoFrequency());
+    }
+
+    @Test
+    public void statusDualFrequency() {
+        epoch.reset(1, 1000);
+        satellite(0, GnssType.GALILEO, 5, E1_HZ);
+        detector.process(epoch);
+        assertTrue(detector.isGalileoFound());
+        assertFalse(detector.isDualFrequency());
+
+        epoch.reset(2, 2000);
+        satellite(0, GnssType.GALILEO, 5, E1_HZ);
+        satellite(1, GnssType.GALILEO, 5, E5A_HZ);
+        detector.process(epoch);
+        assertTrue(detector.isDualFrequency());
+        assertEquals(code(GnssBand.E5A), detector.getStatusBandCode(1));
+
+        // Dual frequency is per epoch, the capabilities keep it
+        epoch.reset(1, 3000);
+        satellite(0, GnssType.GALILEO, 5, E1_HZ);
+        detector.process(epoch);
+        assertFalse(detector.isDualFrequency());
+        assertEquals(2, detector.getCapabilities().getGalileoFrequency());
+    }
+
+    @Test
+    public void measuredGalileoIsFoundBeforeItIsTracked() {
+        measureE5a(1, 30, true);
+
+        assertTrue(detector.isGalileoFound());
+        assertFalse(detector.isDualFrequency());
+        assertEquals(0, detector.getCapabilities().getBandMask(GnssType.GALILEO));
+    }
+
+    @Test
+    public void measuredSignalCountsAfterFiveSamples() {
+        for (int i = 1; i <= 4; i++) {
+            measureE5a(i, 30, true);
+            assertFalse(detector.isDualFrequency());
+        }
+        measureE5a(5, 30, true);
+
+        assertTrue(detector.isGalileoFound());
+        assertTrue(detector.isDualFrequency());
+        assertTrue(detector.getCapabilities().hasBand(GnssType.GALILEO, GnssBand.E1));
+        assertTrue(detector.getCapabilities().hasBand(GnssType.GALILEO, GnssBand.E5A));
+        assertEquals(2, detector.getCapabilities().getGalileoFrequency());
+    }
+
+    @Test
+    public void measuredSignalNeedsUsableCn0() {
+        for (int i = 1; i <= 8; i++) {
+            measureE5a(i, 19.9f, true);
+        }
+        assertTrue(detector.isGalileoFound());
+        assertFalse(detector.isDualFrequency());
+        assertFalse(detector.getCapabilities().hasBand(GnssType.GALILEO, GnssBand.E5A));
+
+        detector.reset();
+        for (int i = 1; i <= 5; i++) {
+            measureE5a(i, 20, true);
+        }
+        assertTrue(detector.isDualFrequency());
+    }
+
+    @Test
+    public void measuredSignalNeedsCodeLock() {
+        // 3 of 5 samples with code lock
+        for (int i = 1; i <= 5; i++) {
+            measureE5a(i, 30, i > 2);
+        }
+        assertFalse(detector.isDualFrequency());
+        assertFalse(detector.getCapabilities().hasBand(GnssType.GALILEO, GnssBand.E5A));
+
+        // 4 of 5 samples with code lock
+        detector.reset();
+        for (int i = 1; i <= 5; i++) {
+            measureE5a(i, 30, i > 1);
+        }
+        assertTrue(detector.isDualFrequency());
+    }
+
+    @Test
+    public void unknownGalileoSvidsAreIgnored() {
+        epoch.reset(3, 1000);
+        satellite(0, GnssType.NAVSTAR, 5, E1_HZ);
+        satellite(1, GnssType.GALILEO, 0, E1_HZ);
+        satellite(2, GnssType.GALILEO, 37, E5A_HZ);
+        detector.process(epoch);
+
+        assertFalse(detector.isGalileoFound());
+        assertFalse(detector.isDualFrequency());
+        assertEquals(code(GnssBand.L1), detector.getStatusBandCode(0));
+        assertEquals(code(GnssBand.UNKNOWN), detector.getStatusBandCode(2));
+        assertEquals(1, detector.getSatellites().size());
+
+        epoch.reset(1, 2000);
+        satellite(0, GnssType.GALILEO, 36, E1_HZ);
+        detector.process(epoch);
+        assertTrue(detector.isGalileoFound());
+    }
+}
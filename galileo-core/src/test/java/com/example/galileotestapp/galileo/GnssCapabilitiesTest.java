@@ -0,0 +1,110 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.model.GnssBand;
+import com.example.galileotestapp.galileo.model.GnssType;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GnssCapabilitiesTest {
+
+    private static int code(GnssBand band) {
+        return band.ordinal();
+    }
+
+    private static GnssCapabilities dualFrequencyReceiver() {
+        final GnssCapabilities.Accumulator accumulator = new GnssCapabilities.Accumulator();
+        accumulator.startEpoch();
+        accumulator.add(GnssType.NAVSTAR, code(GnssBand.L1));
+        accumulator.add(GnssType.NAVSTAR, code(GnssBand.L1));
+        accumulator.add(GnssType.NAVSTAR, code(GnssBand.L5));
+        accumulator.add(GnssType.GALILEO, code(GnssBand.E1));
+        accumulator.startEpoch();
+        accumulator.add(GnssType.NAVSTAR, code(GnssBand.L1));
+        accumulator.add(GnssType.GALILEO, code(GnssBand.E1));
+        accumulator.add(GnssType.GALILEO, code(GnssBand.E1));
+        accumulator.add(GnssType.GALILEO, code(GnssBand.E5A));
+        return accumulator.getCapabilities();
+    }
+
+    @Test
+    public void accumulatorCombinesEpochs() {
+        final GnssCapabilities capabilities = dualFrequencyReceiver();
+
+        assertTrue(capabilities.hasBand(GnssType.NAVSTAR, GnssBand.L1));
+        assertTrue(capabilities.hasBand(GnssType.NAVSTAR, GnssBand.L5));
+        assertFalse(capabilities.hasBand(GnssType.NAVSTAR, GnssBand.L2));
+        assertFalse(capabilities.hasConstellation(GnssType.GLONASS));
+        // Per-epoch maximum, not a total
+        assertEquals(2, capabilities.getSatelliteCount(GnssType.NAVSTAR, GnssBand.L1));
+        assertEquals(2, capabilities.getSatelliteCount(GnssType.GALILEO, GnssBand.E1));
+        assertEquals(2, capabilities.getBandCount(GnssType.GALILEO));
+        assertTrue(capabilities.isGalileoAvailable());
+        assertTrue(capabilities.isGalileoDualFrequency());
+        assertEquals(2, capabilities.getGalileoFrequency());
+    }
+
+    @Test
+    public void accumulatorTracksCurrentEpoch() {
+        final GnssCapabilities.Accumulator accumulator = new GnssCapabilities.Accumulator();
+        accumulator.startEpoch();
+        accumulator.add(GnssType.GALILEO, code(GnssBand.E5A));
+        assertTrue(accumulator.isEpochGalileoDualFrequency());
+
+        accumulator.startEpoch();
+        accumulator.add(GnssType.GALILEO, code(GnssBand.E1));
+        accumulator.add(GnssType.GALILEO, code(GnssBand.UNKNOWN));
+        assertFalse(accumulator.isEpochGalileoDualFrequency());
+        assertEquals(1 << code(GnssBand.E1) | 1 << code(GnssBand.UNKNOWN),
+                accumulator.getEpochBandMask(GnssType.GALILEO));
+        assertTrue(accumulator.getCapabilities().isGalileoDualFrequency());
+    }
+
+    @Test
+    public void accumulatorOnlyAllocatesOnChange() {
+        final GnssCapabilities.Accumulator accumulator = new GnssCapabilities.Accumulator();
+        assertSame(GnssCapabilities.NONE, accumulator.getCapabilities());
+
+        accumulator.startEpoch();
+        accumulator.add(GnssType.NAVSTAR, code(GnssBand.L1));
+        final GnssCapabilities first = accumulator.getCapabilities();
+        assertNotSame(GnssCapabilities.NONE, first);
+
+        accumulator.startEpoch();
+        accumulator.add(GnssType.NAVSTAR, code(GnssBand.L1));
+        assertSame(first, accumulator.getCapabilities());
+
+        accumulator.clear();
+        assertSame(GnssCapabilities.NONE, accumulator.getCapabilities());
+    }
+
+    @Test
+    public void encodeDecodeRoundTrip() {
+        final GnssCapabilities capabilities = dualFrequencyReceiver();
+        final GnssCapabilities decoded = GnssCapabilities.decode(capabilities.encode());
+
+        assertEquals(capabilities, decoded);
+        assertEquals(capabilities.hashCode(), decoded.hashCode());
+        assertEquals(capabilities.encode(), decoded.encode());
+        assertEquals(2, decoded.getSatelliteCount(GnssType.GALILEO, GnssBand.E1));
+        assertTrue(decoded.isGalileoDualFrequency());
+
+        assertSame(GnssCapabilities.NONE, GnssCapabilities.decode(GnssCapabilities.NONE.encode()));
+    }
+
+    @Test
+    public void decodeRejectsMalformedValues() {
+        assertNull(GnssCapabilities.decode(null));
+        assertNull(GnssCapabilities.decode("MARS:1,1"));
+        assertNull(GnssCapabilities.decode("GALILEO:x"));
+        assertNull(GnssCapabilities.decode("GALILEO"));
+        // The mask has two bands but only one count follows
+        assertNull(GnssCapabilities.decode("GALILEO:" + (1 << code(GnssBand.E1) | 1 << code(GnssBand.E5A)) + ",3"));
+    }
+}
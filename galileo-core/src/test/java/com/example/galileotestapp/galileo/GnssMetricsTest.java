@@ -0,0 +1,125 @@
+package com.example.galileotestapp.galileo;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+public class GnssMetricsTest {
+
+    @Test
+    public void valuesEqualToABoundStayInItsBucket() {
+        final GnssMetrics.Histogram histogram = GnssMetrics.Histogram.linear(8, 4);
+        histogram.record(0);
+        histogram.record(8);
+        histogram.record(9);
+        histogram.record(32);
+
+        final GnssMetrics.HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(5, snapshot.getBuckets());
+        assertEquals(2, snapshot.getBucketCount(0));
+        assertEquals(1, snapshot.getBucketCount(1));
+        assertEquals(0, snapshot.getBucketCount(2));
+        assertEquals(1, snapshot.getBucketCount(3));
+        assertEquals(0, snapshot.getBucketCount(4));
+        assertEquals(4, snapshot.getCount());
+        assertEquals(49, snapshot.getSum());
+    }
+
+    @Test
+    public void exponentialBounds() {
+        final GnssMetrics.HistogramSnapshot snapshot = GnssMetrics.Histogram.exponential(1000, 3).snapshot();
+        assertEquals(1000, snapshot.getBucketBound(0));
+        assertEquals(2000, snapshot.getBucketBound(1));
+        assertEquals(4000, snapshot.getBucketBound(2));
+        assertEquals(Long.MAX_VALUE, snapshot.getBucketBound(3));
+    }
+
+    @Test
+    public void overflowGoesToTheLastBucket() {
+        final GnssMetrics.Histogram histogram = GnssMetrics.Histogram.exponential(1000, 3);
+        histogram.record(4001);
+        histogram.record(Long.MAX_VALUE / 2);
+
+        final GnssMetrics.HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.getBucketCount(3));
+        assertEquals(Long.MAX_VALUE, snapshot.getQuantileBound(0.5));
+    }
+
+    @Test
+    public void quantileBound() {
+        final GnssMetrics.Histogram histogram = GnssMetrics.Histogram.linear(10, 10);
+        assertEquals(0, histogram.snapshot().getQuantileBound(0.5));
+
+        for (int value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        final GnssMetrics.HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(10, snapshot.getQuantileBound(0));
+        assertEquals(10, snapshot.getQuantileBound(0.1));
+        assertEquals(20, snapshot.getQuantileBound(0.11));
+        assertEquals(50, snapshot.getQuantileBound(0.5));
+        assertEquals(100, snapshot.getQuantileBound(0.99));
+        assertEquals(100, snapshot.getQuantileBound(1));
+    }
+
+    @Test
+    public void quantileBoundSkipsEmptyBuckets() {
+        final GnssMetrics.Histogram histogram = GnssMetrics.Histogram.linear(10, 10);
+        histogram.record(5);
+        histogram.record(95);
+
+        final GnssMetrics.HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(10, snapshot.getQuantileBound(0.5));
+        assertEquals(100, snapshot.getQuantileBound(0.51));
+    }
+
+    @Test
+    public void countersAndClear() {
+        final GnssMetrics metrics = new GnssMetrics();
+        metrics.increment(GnssMetrics.COUNTER_CALLBACKS);
+        metrics.increment(GnssMetrics.COUNTER_CALLBACKS);
+        metrics.add(GnssMetrics.COUNTER_RECEIVER_ON_MILLIS, 1500);
+        metrics.record(GnssMetrics.HISTOGRAM_SATELLITES_PER_EPOCH, 12);
+
+        GnssMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.getCounter(GnssMetrics.COUNTER_CALLBACKS));
+        assertEquals(1500, snapshot.getCounter(GnssMetrics.COUNTER_RECEIVER_ON_MILLIS));
+        assertEquals(0, snapshot.getCounter(GnssMetrics.COUNTER_SESSIONS));
+        assertEquals(1, snapshot.getHistogram(GnssMetrics.HISTOGRAM_SATELLITES_PER_EPOCH).getBucketCount(1));
+
+        metrics.clear();
+        snapshot = metrics.snapshot();
+        assertEquals(0, snapshot.getCounter(GnssMetrics.COUNTER_CALLBACKS));
+        assertEquals(0, snapshot.getHistogram(GnssMetrics.HISTOGRAM_SATELLITES_PER_EPOCH).getCount());
+    }
+
+    @Test
+    public void gaugesAreReadAtSnapshotTime() {
+        final GnssMetrics metrics = new GnssMetrics();
+        final AtomicLong dropped = new AtomicLong(3);
+        metrics.register(GnssMetrics.COUNTER_DROPPED_EPOCHS, new GnssMetrics.Gauge() {
+            @Override
+            public long get() {
+                return dropped.get();
+            }
+        });
+        metrics.increment(GnssMetrics.COUNTER_DROPPED_EPOCHS);
+        assertEquals(3, metrics.snapshot().getCounter(GnssMetrics.COUNTER_DROPPED_EPOCHS));
+
+        dropped.set(7);
+        metrics.clear();
+        assertEquals(7, metrics.snapshot().getCounter(GnssMetrics.COUNTER_DROPPED_EPOCHS));
+    }
+
+    @Test
+    public void ratePerSecond() {
+        final GnssMetrics.Snapshot earlier = new GnssMetrics.Snapshot(1000000000L, new long[]{10},
+                new GnssMetrics.HistogramSnapshot[0]);
+        final GnssMetrics.Snapshot later = new GnssMetrics.Snapshot(3000000000L, new long[]{30},
+                new GnssMetrics.HistogramSnapshot[0]);
+        assertEquals(10, later.getRatePerSecond(0, earlier), 1e-9);
+        assertEquals(0, earlier.getRatePerSecond(0, earlier), 1e-9);
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.model.GnssBand;
+import com.example.galileotestapp.galileo.model.GnssType;
+import com.example.galileotestapp.galileo.utils.SignalKeys;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MeasurementAggregatorTest {
+
+    private static final int WINDOW = 4;
+
+    private static final int E5A = SignalKeys.signalKey(GnssType.GALILEO, 11, GnssBand.E5A.ordinal());
+
+    /**
+     * Samples of one signal, the expected statistics are computed from the last WINDOW of them
+     */
+    private static final class Samples {
+        final List<float[]> values = new ArrayList<>();
+
+        void add(float cn0, float rate, float uncertainty, int multipath, int state) {
+            values.add(new float[]{cn0, rate, uncertainty, multipath, state});
+        }
+
+        void assertMatches(MeasurementAggregator aggregator, int slot) {
+            final int from = Math.max(0, values.size() - WINDOW);
+            final int count = values.size() - from;
+            assertEquals(count, aggregator.getSampleCount(slot));
+            assertEquals(mean(from, 0), aggregator.getMeanCn0DbHz(slot), 1e-3f);
+            assertEquals(stdDev(from, 0), aggregator.getCn0StdDev(slot), 1e-3f);
+            assertEquals(mean(from, 1), aggregator.getMeanPseudorangeRateMetersPerSecond(slot), 1e-3f);
+            assertEquals(stdDev(from, 1), aggregator.getPseudorangeRateStdDev(slot), 1e-3f);
+            assertEquals(mean(from, 2), aggregator.getMeanPseudorangeRateUncertaintyMetersPerSecond(slot), 1e-4f);
+            int multipath = 0;
+            int codeLock = 0;
+            for (int i = from; i < values.size(); i++) {
+                multipath += values.get(i)[3] == MeasurementAggregator.MULTIPATH_INDICATOR_DETECTED ? 1 : 0;
+                codeLock += ((int) values.get(i)[4] & MeasurementAggregator.STATE_CODE_LOCK) != 0 ? 1 : 0;
+            }
+            assertEquals((float) multipath / count, aggregator.getMultipathShare(slot), 0);
+            assertEquals((float) codeLock / count, aggregator.getCodeLockShare(slot), 0);
+            assertEquals((int) values.get(values.size() - 1)[4], aggregator.getLastState(slot));
+        }
+
+        private float mean(int from, int column) {
+            double sum = 0;
+            for (int i = from; i < values.size(); i++) {
+                sum += values.get(i)[column];
+            }
+            return (float) (sum / (values.size() - from));
+        }
+
+        private float stdDev(int from, int column) {
+            final double mean = mean(from, column);
+            double sum = 0;
+            for (int i = from; i < values.size(); i++) {
+                sum += (values.get(i)[column] - mean) * (values.get(i)[column] - mean);
+            }
+            return (float) Math.sqrt(sum / (values.size() - from));
+        }
+    }
+
+    private static void add(MeasurementAggregator aggregator, Samples samples, int key, long timeNanos, float cn0,
+                            float rate, float uncertainty, int multipath, int state) {
+        aggregator.update(key, timeNanos, cn0, rate, uncertainty, multipath, state);
+        samples.add(cn0, rate, uncertainty, multipath, state);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void windowMustBePositive() {
+        new MeasurementAggregator(0, 16);
+    }
+
+    @Test
+    public void emptySignalHasNoStatistics() {
+        final MeasurementAggregator aggregator = new MeasurementAggregator(WINDOW, 16);
+        assertEquals(-1, aggregator.indexOf(E5A));
+        final int slot = 0;
+        assertEquals(0, aggregator.getSampleCount(slot));
+        assertTrue(Float.isNaN(aggregator.getMeanCn0DbHz(slot)));
+        assertTrue(Float.isNaN(aggregator.getCn0StdDev(slot)));
+        assertEquals(0, aggregator.getCodeLockShare(slot), 0);
+        assertEquals(0, aggregator.getMultipathShare(slot), 0);
+    }
+
+    @Test
+    public void windowEvictsOldestSamples() {
+        final MeasurementAggregator aggregator = new MeasurementAggregator(WINDOW, 16);
+        final Samples samples = new Samples();
+
+        add(aggregator, samples, E5A, 1, 20, 1, 0.1f, 0, MeasurementAggregator.STATE_CODE_LOCK);
+        add(aggregator, samples, E5A, 2, 30, -1, 0.3f, MeasurementAggregator.MULTIPATH_INDICATOR_DETECTED, 0);
+        final int slot = aggregator.indexOf(E5A);
+        assertEquals(25, aggregator.getMeanCn0DbHz(slot), 0);
+        assertEquals(5, aggregator.getCn0StdDev(slot), 1e-6f);
+        assertEquals(0.5f, aggregator.getCodeLockShare(slot), 0);
+        assertEquals(0.5f, aggregator.getMultipathShare(slot), 0);
+        samples.assertMatches(aggregator, slot);
+
+        add(aggregator, samples, E5A, 3, 40, 2, 0.2f, 0, MeasurementAggregator.STATE_CODE_LOCK);
+        add(aggregator, samples, E5A, 4, 50, 3, 0.2f, 0, MeasurementAggregator.STATE_CODE_LOCK);
+        samples.assertMatches(aggregator, slot);
+
+        // Evicts the samples at 20 and 30 dB-Hz
+        add(aggregator, samples, E5A, 5, 60, 4, 0.4f, 0, MeasurementAggregator.STATE_CODE_LOCK);
+        add(aggregator, samples, E5A, 6, 70, 5, 0.5f, 0, MeasurementAggregator.STATE_CODE_LOCK | 2);
+        assertEquals(WINDOW, aggregator.getSampleCount(slot));
+        assertEquals(55, aggregator.getMeanCn0DbHz(slot), 1e-4f);
+        assertEquals(1, aggregator.getCodeLockShare(slot), 0);
+        assertEquals(0, aggregator.getMultipathShare(slot), 0);
+        assertEquals(6, aggregator.getLastUpdateNanos(slot));
+        samples.assertMatches(aggregator, slot);
+    }
+
+    @Test
+    public void statisticsMatchLastWindowAcrossWraps() {
+        final MeasurementAggregator aggregator = new MeasurementAggregator(WINDOW, 16);
+        final Samples samples = new Samples();
+        final Random random = new Random(7);
+        // Every WINDOW samples the window wraps and the sums are recomputed
+        for (int i = 0; i < 10 * WINDOW + 3; i++) {
+            add(aggregator, samples, E5A, i, 15 + 30 * random.nextFloat(), 800 * random.nextFloat() - 400,
+                    random.nextFloat(), random.nextInt(3), random.nextInt(4));
+            samples.assertMatches(aggregator, aggregator.indexOf(E5A));
+        }
+        assertEquals(1, aggregator.size());
+    }
+
+    @Test
+    public void windowsSurviveRehash() {
+        final MeasurementAggregator aggregator = new MeasurementAggregator(WINDOW, 2);
+        final List<Integer> keys = new ArrayList<>();
+        final List<Samples> samples = new ArrayList<>();
+        final Random random = new Random(11);
+        long time = 0;
+        for (int svid = 1; svid <= 36; svid++) {
+            for (GnssBand band : new GnssBand[]{GnssBand.E1, GnssBand.E5A}) {
+                final int key = SignalKeys.signalKey(GnssType.GALILEO, svid, band.ordinal());
+                final Samples signal = new Samples();
+                keys.add(key);
+                samples.add(signal);
+                // A different number of samples per signal, so windows are moved with their heads anywhere
+                for (int i = 0; i < svid % (2 * WINDOW + 1); i++) {
+                    add(aggregator, signal, key, time++, 20 + svid + i, svid - i, 0.1f * i,
+                            random.nextInt(2), random.nextInt(2));
+                }
+                if (signal.values.isEmpty()) {
+                    add(aggregator, signal, key, time++, 20 + svid, svid, 0, 0, 1);
+                }
+            }
+        }
+        assertEquals(72, aggregator.size());
+        assertEquals(256, aggregator.capacity());
+
+        for (int i = 0; i < keys.size(); i++) {
+            final int slot = aggregator.indexOf(keys.get(i));
+            assertEquals(keys.get(i).intValue(), aggregator.getKey(slot));
+            samples.get(i).assertMatches(aggregator, slot);
+        }
+
+        // Keep adding after the rehash, eviction must still replace the oldest sample of each window
+        for (int round = 0; round < WINDOW + 1; round++) {
+            for (int i = 0; i < keys.size(); i++) {
+                add(aggregator, samples.get(i), keys.get(i), time++, 25 + 20 * random.nextFloat(),
+                        100 * random.nextFloat(), random.nextFloat(), random.nextInt(2), random.nextInt(2));
+                samples.get(i).assertMatches(aggregator, aggregator.indexOf(keys.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void clearForgetsSignals() {
+        final MeasurementAggregator aggregator = new MeasurementAggregator(WINDOW, 16);
+        final int slot = aggregator.update(E5A, 1000, 40, 1, 0.1f, 0, MeasurementAggregator.STATE_CODE_LOCK);
+        aggregator.clear();
+
+        assertEquals(0, aggregator.size());
+        assertFalse(aggregator.isOccupied(slot));
+        assertEquals(-1, aggregator.indexOf(E5A));
+        assertEquals(0, aggregator.getSampleCount(slot));
+        assertEquals(0, aggregator.getLastState(slot));
+        assertEquals(0, aggregator.getLastUpdateNanos(slot));
+
+        final Samples samples = new Samples();
+        add(aggregator, samples, E5A, 2000, 30, 2, 0.2f, 0, 0);
+        samples.assertMatches(aggregator, aggregator.indexOf(E5A));
+    }
+}
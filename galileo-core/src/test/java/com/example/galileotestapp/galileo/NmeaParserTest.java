@@ -0,0 +1,191 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
+import com.example.galileotestapp.galileo.model.GnssBand;
+import com.example.galileotestapp.galileo.model.GnssType;
+import com.example.galileotestapp.galileo.utils.CarrierFreqUtils;
+import com.example.galileotestapp.galileo.utils.MathUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NmeaParserTest {
+
+    private final EpochSnapshot slot = new EpochSnapshot();
+
+    private int published;
+
+    private final NmeaParser parser = new NmeaParser();
+
+    @Before
+    public void setUp() {
+        parser.setSink(new EpochSink() {
+            @Override
+            public EpochSnapshot claim() {
+                return slot;
+            }
+
+            @Override
+            public void publish() {
+                published++;
+            }
+        });
+    }
+
+    /**
+     * Adds the '$' and the checksum, the XOR of all characters between them
+     */
+    private static String sentence(String body) {
+        int checksum = 0;
+        for (int i = 0; i < body.length(); i++) {
+            checksum ^= body.charAt(i);
+        }
+        return String.format("$%s*%02X", body, checksum);
+    }
+
+    @Test
+    public void checksumIsValidated() {
+        final String valid = sentence("GPGSV,1,1,01,05,45,120,40");
+        assertTrue(parser.parse(valid, 1, 1));
+
+        assertFalse(parser.parse("$GPGSV,1,1,01,05,45,120,40*00", 1, 1));
+        assertFalse(parser.parse("$GPGSV,1,1,01,05,45,120,40", 1, 1));
+        assertFalse(parser.parse(valid.substring(0, valid.length() - 1), 1, 1));
+        assertFalse(parser.parse("GPGSV,1,1,01,05,45,120,40*7B", 1, 1));
+        assertEquals(1, parser.getSentenceCount());
+        assertEquals(4, parser.getInvalidSentenceCount());
+    }
+
+    @Test
+    public void logLinePrefixAndSuffixAreIgnored() {
+        assertTrue(parser.parse("NMEA," + sentence("GAGSV,1,1,01,11,60,10,38,1") + ",2000", 2000, 2));
+        parser.flush();
+        assertEquals(1, published);
+        assertEquals(GnssType.GALILEO, slot.getGnssType(0));
+        assertEquals(11, slot.getSvid(0));
+    }
+
+    @Test
+    public void sentencesOfOneTimestampMakeOneEpoch() {
+        parser.parse(sentence("GNGSA,A,3,05,12,,,,,,,,,,,1.5,0.9,1.2,1"), 1000, 5);
+        parser.parse(sentence("GNGSA,A,3,11,,,,,,,,,,,,1.5,0.9,1.2,3"), 1000, 6);
+        parser.parse(sentence("GPGSV,1,1,02,05,45,120,40,12,30,200,35,1"), 1000, 7);
+        parser.parse(sentence("GAGSV,1,1,02,11,60,10,42,26,25,300,,7"), 1000, 8);
+        parser.parse(sentence("GAGSV,1,1,01,11,60,10,38,1"), 1000, 9);
+        assertEquals(0, published);
+
+        // A new timestamp completes the epoch
+        parser.parse(sentence("GPGSV,1,1,01,05,45,120,40,1"), 2000, 10);
+        assertEquals(1, published);
+        assertEquals(1, parser.getEpochCount());
+
+        assertEquals(EpochSnapshot.KIND_STATUS, slot.getKind());
+        assertTrue(slot.isFromNmea());
+        assertEquals(5, slot.getTimeNanos());
+        assertEquals(5, slot.getSatelliteCount());
+        assertSatellite(0, GnssType.NAVSTAR, 5, 40, GnssBand.L1, true);
+        assertSatellite(1, GnssType.NAVSTAR, 12, 35, GnssBand.L1, true);
+        assertSatellite(2, GnssType.GALILEO, 11, 42, GnssBand.E1, true);
+        assertSatellite(3, GnssType.GALILEO, 26, 0, GnssBand.E1, false);
+        assertSatellite(4, GnssType.GALILEO, 11, 38, GnssBand.E5A, true);
+        assertEquals(60, slot.getElevationDegrees(2), 0);
+        assertEquals(10, slot.getAzimuthDegrees(2), 0);
+
+        final GalileoDetector detector = new GalileoDetector();
+        detector.process(slot);
+        assertTrue(detector.isGalileoFound());
+        assertTrue(detector.isDualFrequency());
+    }
+
+    @Test
+    public void signalIdsMapToBands() {
+        assertBand("GPGSV", 1, GnssType.NAVSTAR, GnssBand.L1);
+        assertBand("GPGSV", 5, GnssType.NAVSTAR, GnssBand.L2);
+        assertBand("GPGSV", 8, GnssType.NAVSTAR, GnssBand.L5);
+        assertBand("GAGSV", 1, GnssType.GALILEO, GnssBand.E5A);
+        assertBand("GAGSV", 2, GnssType.GALILEO, GnssBand.E5B);
+        assertBand("GAGSV", 3, GnssType.GALILEO, GnssBand.E5);
+        assertBand("GAGSV", 5, GnssType.GALILEO, GnssBand.E6);
+        assertBand("GAGSV", 7, GnssType.GALILEO, GnssBand.E1);
+        assertBand("GBGSV", 1, GnssType.BEIDOU, GnssBand.B1);
+        assertBand("GBGSV", 5, GnssType.BEIDOU, GnssBand.B2A);
+        assertBand("GBGSV", 8, GnssType.BEIDOU, GnssBand.B3);
+        assertBand("GQGSV", 7, GnssType.QZSS, GnssBand.L5);
+        assertBand("GQGSV", 9, GnssType.QZSS, GnssBand.L6);
+        // Unknown or missing signal ids leave the carrier frequency unknown
+        assertBand("GAGSV", 0, GnssType.GALILEO, null);
+        assertBand("GAGSV", 15, GnssType.GALILEO, null);
+    }
+
+    @Test
+    public void nmeaSvidsAreConvertedToConstellationSvids() {
+        parser.parse(sentence("GLGSV,1,1,01,70,50,45,33"), 1, 1);
+        parser.parse(sentence("GPGSV,1,1,01,40,20,100,30"), 1, 1);
+        parser.flush();
+
+        assertEquals(2, slot.getSatelliteCount());
+        assertEquals(GnssType.GLONASS, slot.getGnssType(0));
+        assertEquals(6, slot.getSvid(0));
+        assertEquals(GnssType.SBAS, slot.getGnssType(1));
+        assertEquals(127, slot.getSvid(1));
+    }
+
+    @Test
+    public void galileoOnlySkipsEpochsWithoutGalileo() {
+        parser.setGalileoOnly(true);
+        parser.parse(sentence("GPGSV,1,1,01,05,45,120,40"), 1, 1);
+        parser.flush();
+        assertEquals(0, published);
+
+        parser.parse(sentence("GAGSV,1,1,01,11,60,10,38"), 2, 2);
+        parser.flush();
+        assertEquals(1, published);
+    }
+
+    @Test
+    public void fullSinkDropsEpoch() {
+        parser.setSink(new EpochSink() {
+            @Override
+            public EpochSnapshot claim() {
+                return null;
+            }
+
+            @Override
+            public void publish() {
+                throw new AssertionError("nothing was claimed");
+            }
+        });
+        parser.parse(sentence("GAGSV,1,1,01,11,60,10,38"), 1, 1);
+        parser.flush();
+        assertEquals(1, parser.getDroppedEpochCount());
+        assertEquals(0, parser.getEpochCount());
+    }
+
+    private void assertBand(String talker, int signalId, GnssType type, GnssBand band) {
+        parser.clear();
+        parser.parse(sentence(talker + ",1,1,01,01,45,120,40," + Integer.toHexString(signalId).toUpperCase()), 1,
+                1);
+        parser.flush();
+        assertEquals(type, slot.getGnssType(0));
+        if (band == null) {
+            assertFalse(slot.hasCarrierFrequencyHz(0));
+        } else {
+            assertEquals(talker + " signal " + signalId, band, CarrierFreqUtils.getCarrierBand(type,
+                    slot.getSvid(0), MathUtils.toMhz(slot.getCarrierFrequencyHz(0))));
+        }
+    }
+
+    private void assertSatellite(int index, GnssType type, int svid, float cn0DbHz, GnssBand band,
+                                 boolean usedInFix) {
+        assertEquals(type, slot.getGnssType(index));
+        assertEquals(svid, slot.getSvid(index));
+        assertEquals(cn0DbHz, slot.getCn0DbHz(index), 0);
+        assertEquals(band, CarrierFreqUtils.getCarrierBand(type, svid,
+                MathUtils.toMhz(slot.getCarrierFrequencyHz(index))));
+        assertEquals(usedInFix, slot.usedInFix(index));
+    }
+}
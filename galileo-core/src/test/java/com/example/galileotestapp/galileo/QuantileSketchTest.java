@@ -0,0 +1,102 @@
+package com.example.galileotestapp.galileo;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class QuantileSketchTest {
+
+    private static final double[] QUANTILES = {0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99};
+
+    @Test
+    public void quantilesAreWithinRelativeAccuracy() {
+        final Random random = new Random(42);
+        final double[] values = new double[100000];
+        final QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            // Log-normal, errors spanning several orders of magnitude
+            values[i] = 1 + Math.exp(4 + 1.5 * random.nextGaussian());
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, sketch.getCount());
+        assertEquals(values[0], sketch.getMin(), 0);
+        assertEquals(values[values.length - 1], sketch.getMax(), 0);
+        for (double quantile : QUANTILES) {
+            assertWithinAccuracy(values[(int) (quantile * (values.length - 1))], sketch.getQuantile(quantile));
+        }
+        assertEquals(values[0], sketch.getQuantile(0), 0);
+        assertEquals(values[values.length - 1], sketch.getQuantile(1), 0);
+    }
+
+    @Test
+    public void mergeCountsBothSketches() {
+        final QuantileSketch all = new QuantileSketch();
+        final QuantileSketch low = new QuantileSketch();
+        final QuantileSketch high = new QuantileSketch();
+        for (int i = 1; i <= 1000; i++) {
+            all.add(i);
+            (i <= 500 ? low : high).add(i);
+        }
+        low.merge(high);
+
+        assertEquals(all.getCount(), low.getCount());
+        assertEquals(1, low.getMin(), 0);
+        assertEquals(1000, low.getMax(), 0);
+        for (double quantile : QUANTILES) {
+            assertEquals(all.getQuantile(quantile), low.getQuantile(quantile), 0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mergeRejectsOtherParameters() {
+        new QuantileSketch().merge(new QuantileSketch(0.01, QuantileSketch.DEFAULT_MAX_VALUE));
+    }
+
+    @Test
+    public void emptySketchHasNoQuantiles() {
+        final QuantileSketch sketch = new QuantileSketch();
+        assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+        assertTrue(Double.isNaN(sketch.getMin()));
+        assertTrue(Double.isNaN(sketch.getMax()));
+    }
+
+    @Test
+    public void encodeDecodeRoundTrip() {
+        final QuantileSketch sketch = new QuantileSketch();
+        for (int i = 1; i <= 300; i++) {
+            sketch.add(i * 3.7);
+        }
+        final QuantileSketch decoded = QuantileSketch.decode(sketch.encode());
+
+        assertEquals(sketch.getCount(), decoded.getCount());
+        assertEquals(sketch.getMin(), decoded.getMin(), 0);
+        assertEquals(sketch.getMax(), decoded.getMax(), 0);
+        for (double quantile : QUANTILES) {
+            assertEquals(sketch.getQuantile(quantile), decoded.getQuantile(quantile), 0);
+        }
+        assertEquals(sketch.encode(), decoded.encode());
+        assertEquals(0, QuantileSketch.decode(new QuantileSketch().encode()).getCount());
+    }
+
+    @Test
+    public void decodeRejectsMalformedValues() {
+        assertNull(QuantileSketch.decode(null));
+        assertNull(QuantileSketch.decode(""));
+        assertNull(QuantileSketch.decode("2;0.02;1.0E7;0;0;0;"));
+        assertNull(QuantileSketch.decode("1;0.02;1.0E7;1;5;5;x:1"));
+        assertNull(QuantileSketch.decode("1;0.02;1.0E7;1;5;5;100000:1"));
+    }
+
+    private static void assertWithinAccuracy(double expected, double actual) {
+        final double error = Math.abs(actual - expected) / expected;
+        assertTrue("expected " + expected + ", got " + actual,
+                error <= QuantileSketch.DEFAULT_RELATIVE_ACCURACY + 1e-9);
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.galileotestapp.galileo;
+
+import com.example.galileotestapp.galileo.model.GnssBand;
+import com.example.galileotestapp.galileo.model.GnssType;
+import com.example.galileotestapp.galileo.utils.SignalKeys;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SatelliteStateMapTest {
+
+    /**
+     * 16 slots, rounded up from 9
+     */
+    private static final int CAPACITY = 9;
+
+    private static int code(GnssBand band) {
+        return band.ordinal();
+    }
+
+    /**
+     * Returns a satellite key, other than the given ones, that is stored in the given slot of an empty map
+     */
+    private static int keyWithHomeSlot(int slot, int... excluded) {
+        for (GnssType type : GnssType.values()) {
+            for (int svid = 1; svid < 400; svid++) {
+                final int key = SignalKeys.satelliteKey(type, svid);
+                if (contains(excluded, key)) {
+                    continue;
+                }
+                if (new SatelliteStateMap(CAPACITY).update(key, 0, 0, -1, false) == slot) {
+                    return key;
+                }
+            }
+        }
+        fail("no key for slot " + slot);
+        return SignalKeys.NO_KEY;
+    }
+
+    private static boolean contains(int[] keys, int key) {
+        for (int k : keys) {
+            if (k == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void capacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(16, new SatelliteStateMap(CAPACITY).capacity());
+        assertEquals(16, new SatelliteStateMap(16).capacity());
+        assertEquals(2, new SatelliteStateMap(0).capacity());
+    }
+
+    @Test
+    public void emptySlotsHoldNoKey() {
+        final SatelliteStateMap map = new SatelliteStateMap(CAPACITY);
+        for (int slot = 0; slot < map.capacity(); slot++) {
+            assertFalse(map.isOccupied(slot));
+            assertEquals(SignalKeys.NO_KEY, map.getKey(slot));
+        }
+        assertEquals(-1, map.indexOf(SignalKeys.satelliteKey(GnssType.GALILEO, 11)));
+
+        final int slot = map.update(SignalKeys.satelliteKey(GnssType.GALILEO, 11), 1, 30, -1, false);
+        assertTrue(map.isOccupied(slot));
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.isOccupied(slot));
+        assertEquals(-1, map.indexOf(SignalKeys.satelliteKey(GnssType.GALILEO, 11)));
+        assertEquals(16, map.capacity());
+    }
+
+    @Test
+    public void bandIsIgnored() {
+        final SatelliteStateMap map = new SatelliteStateMap(CAPACITY);
+        final int e1 = map.update(SignalKeys.signalKey(GnssType.GALILEO, 11, code(GnssBand.E1)), 1000, 35,
+                code(GnssBand.E1), true);
+        final int e5a = map.update(SignalKeys.signalKey(GnssType.GALILEO, 11, code(GnssBand.E5A)), 1000, 41,
+                code(GnssBand.E5A), false);
+
+        assertEquals(e1, e5a);
+        assertEquals(1, map.size());
+        assertEquals(e1, map.indexOf(SignalKeys.satelliteKey(GnssType.GALILEO, 11)));
+        assertEquals(e1, map.indexOf(SignalKeys.signalKey(GnssType.GALILEO, 11, code(GnssBand.E6))));
+        assertEquals(SignalKeys.satelliteKey(GnssType.GALILEO, 11), map.getKey(e1));
+        assertEquals(1 << code(GnssBand.E1) | 1 << code(GnssBand.E5A), map.getBandMask(e1));
+        assertEquals(41, map.getMaxCn0DbHz(e1), 0);
+        // Both signals were in the same epoch
+        assertEquals(1, map.getEpochsSeen(e1));
+        assertEquals(1, map.getEpochsUsedInFix(e1));
+
+        map.update(SignalKeys.signalKey(GnssType.GALILEO, 11, code(GnssBand.E1)), 2000, 30, code(GnssBand.E1), true);
+        assertEquals(2, map.getEpochsSeen(e1));
+        assertEquals(2, map.getEpochsUsedInFix(e1));
+        assertEquals(1000, map.getFirstSeenNanos(e1));
+        assertEquals(2000, map.getLastSeenNanos(e1));
+
+        // Same svid, other constellation
+        assertNotEquals(e1, map.update(SignalKeys.satelliteKey(GnssType.NAVSTAR, 11), 2000, 30, -1, false));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    public void probeChainsWrapAroundTheTable() {
+        final int last = 15;
+        final int first = keyWithHomeSlot(last);
+        final int second = keyWithHomeSlot(last, first);
+        final int third = keyWithHomeSlot(0, first, second);
+
+        final SatelliteStateMap map = new SatelliteStateMap(CAPACITY);
+        assertEquals(last, map.update(first, 1, 10, -1, false));
+        // Collides with first at the end of the table and continues at slot 0
+        assertEquals(0, map.update(second, 1, 20, -1, false));
+        // Slot 0 is taken by a key from the previous chain
+        assertEquals(1, map.update(third, 1, 30, -1, false));
+
+        assertEquals(last, map.indexOf(first));
+        assertEquals(0, map.indexOf(second));
+        assertEquals(1, map.indexOf(third));
+        assertEquals(20, map.getMaxCn0DbHz(0), 0);
+        assertEquals(30, map.getMaxCn0DbHz(1), 0);
+
+        // Updating an existing key follows the same chain
+        assertEquals(0, map.update(second, 2, 25, -1, false));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    public void entriesSurviveRehash() {
+        final SatelliteStateMap map = new SatelliteStateMap(2);
+        final GnssType[] types = {GnssType.NAVSTAR, GnssType.GLONASS, GnssType.GALILEO, GnssType.BEIDOU};
+        int count = 0;
+        for (GnssType type : types) {
+            for (int svid = 1; svid <= 36; svid++) {
+                map.update(SignalKeys.signalKey(type, svid, code(GnssBand.E1)), svid, svid, code(GnssBand.E1),
+                        svid % 2 == 0);
+                map.update(SignalKeys.signalKey(type, svid, code(GnssBand.E5A)), svid + 1000, svid + 1,
+                        code(GnssBand.E5A), true);
+                count++;
+                assertEquals(count, map.size());
+                assertTrue(map.size() * 2 <= map.capacity());
+            }
+        }
+        assertEquals(512, map.capacity());
+
+        int occupied = 0;
+        for (int slot = 0; slot < map.capacity(); slot++) {
+            if (map.isOccupied(slot)) {
+                occupied++;
+            }
+        }
+        assertEquals(count, occupied);
+
+        for (GnssType type : types) {
+            for (int svid = 1; svid <= 36; svid++) {
+                final int slot = map.indexOf(SignalKeys.satelliteKey(type, svid));
+                assertTrue(slot >= 0);
+                assertEquals(type, SignalKeys.getGnssType(map.getKey(slot)));
+                assertEquals(svid, SignalKeys.getSvid(map.getKey(slot)));
+                assertEquals(svid, map.getFirstSeenNanos(slot));
+                assertEquals(svid + 1000, map.getLastSeenNanos(slot));
+                assertEquals(svid + 1, map.getMaxCn0DbHz(slot), 0);
+                assertEquals(1 << code(GnssBand.E1) | 1 << code(GnssBand.E5A), map.getBandMask(slot));
+                assertEquals(2, map.getEpochsSeen(slot));
+                assertEquals(svid % 2 == 0 ? 2 : 1, map.getEpochsUsedInFix(slot));
+            }
+        }
+        assertEquals(-1, map.indexOf(SignalKeys.satelliteKey(GnssType.QZSS, 1)));
+    }
+}
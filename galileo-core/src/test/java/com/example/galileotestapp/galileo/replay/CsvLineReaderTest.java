@@ -0,0 +1,113 @@
+package com.example.galileotestapp.galileo.replay;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CsvLineReaderTest {
+
+    private static CsvLineReader reader(String text, int bufferSize) {
+        return new CsvLineReader(new ByteArrayInputStream(text.getBytes(Charset.forName("US-ASCII"))), bufferSize);
+    }
+
+    @Test
+    public void parsesDoubles() throws IOException {
+        final CsvLineReader line = reader("0,-12.5,+3,1.57542E9,1176450000.0,6.1e-3,.5,7.,,abc,1e,-,1.2.3\n", 64);
+        assertTrue(line.next());
+        assertEquals(0, line.getDouble(0, Double.NaN), 0);
+        assertEquals(-12.5, line.getDouble(1, Double.NaN), 0);
+        assertEquals(3, line.getDouble(2, Double.NaN), 0);
+        assertEquals(1.57542e9, line.getDouble(3, Double.NaN), 1e-6);
+        assertEquals(1176450000.0, line.getDouble(4, Double.NaN), 1e-6);
+        assertEquals(6.1e-3, line.getDouble(5, Double.NaN), 1e-18);
+        assertEquals(0.5, line.getDouble(6, Double.NaN), 0);
+        assertEquals(7, line.getDouble(7, Double.NaN), 0);
+        // Empty, malformed and missing fields give the default
+        assertEquals(-1, line.getDouble(8, -1), 0);
+        assertEquals(-1, line.getDouble(9, -1), 0);
+        assertEquals(-1, line.getDouble(10, -1), 0);
+        assertEquals(-1, line.getDouble(11, -1), 0);
+        assertEquals(-1, line.getDouble(12, -1), 0);
+        assertEquals(-1, line.getDouble(13, -1), 0);
+    }
+
+    @Test
+    public void doublesMatchDoubleParseDouble() throws IOException {
+        final String[] values = {"45.123456789", "-122.98765", "0.000001", "123456789.123", "39.5", "-0.25",
+                "1575420030.0", "9.87654321E-5"};
+        final StringBuilder text = new StringBuilder();
+        for (String value : values) {
+            text.append(value).append(',');
+        }
+        final CsvLineReader line = reader(text.toString(), 256);
+        assertTrue(line.next());
+        for (int i = 0; i < values.length; i++) {
+            final double expected = Double.parseDouble(values[i]);
+            assertEquals(values[i], expected, line.getDouble(i, Double.NaN), Math.abs(expected) * 1e-15);
+        }
+    }
+
+    @Test
+    public void parsesIntegers() throws IOException {
+        final CsvLineReader line = reader("42,-7,9999999999,x1,", 64);
+        assertTrue(line.next());
+        assertEquals(42, line.getInt(0, 0));
+        assertEquals(-7, line.getInt(1, 0));
+        assertEquals(0, line.getInt(2, 0));
+        assertEquals(9999999999L, line.getLong(2, 0));
+        assertEquals(-1, line.getInt(3, -1));
+        assertEquals(-1, line.getInt(4, -1));
+        assertEquals(5, line.getFieldCount());
+    }
+
+    @Test
+    public void linesSpanBufferRefills() throws IOException {
+        // Lines longer than half the buffer, so most of them start in one fill and end in the next
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            text.append("Status,").append(i).append(",").append(i * 0.5).append(",padding-").append(i)
+                    .append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        // The last line has no line terminator
+        text.append("Fix,end");
+
+        for (int bufferSize = 32; bufferSize <= 64; bufferSize += 7) {
+            final CsvLineReader line = reader(text.toString(), bufferSize);
+            for (int i = 0; i < 200; i++) {
+                assertTrue(line.next());
+                assertEquals(i + 1, line.getLineNumber());
+                assertTrue(line.startsWith("Status"));
+                assertEquals(4, line.getFieldCount());
+                assertEquals(i, line.getInt(1, -1));
+                assertEquals(i * 0.5, line.getDouble(2, Double.NaN), 0);
+                assertEquals("padding-" + i, line.getString(3));
+                assertEquals("Status," + i + "," + i * 0.5 + ",padding-" + i, line.getLine());
+                assertEquals(line.getLine(), line.getLineChars().toString());
+            }
+            assertTrue(line.next());
+            assertTrue(line.fieldEqualsIgnoreCase(0, "FIX"));
+            assertEquals("end", line.getString(1));
+            assertFalse(line.next());
+            line.close();
+        }
+    }
+
+    @Test
+    public void blankAndEmptyLines() throws IOException {
+        final CsvLineReader line = reader("\n  \r\n#comment\n", 16);
+        assertTrue(line.next());
+        assertTrue(line.isBlank());
+        assertTrue(line.next());
+        assertTrue(line.isBlank());
+        assertTrue(line.next());
+        assertFalse(line.isBlank());
+        assertTrue(line.startsWith("#"));
+        assertFalse(line.next());
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.galileotestapp.galileo.replay;
+
+import com.example.galileotestapp.galileo.EpochRing;
+import com.example.galileotestapp.galileo.GnssSource;
+import com.example.galileotestapp.galileo.SynchronousEpochSink;
+import com.example.galileotestapp.galileo.model.EpochSnapshot;
+import com.example.galileotestapp.galileo.model.GnssType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GnssLogReplaySourceTest {
+
+    private static final String RAW_HEADER = "# Raw,utcTimeMillis,TimeNanos,LeapSecond,TimeUncertaintyNanos,"
+            + "FullBiasNanos,BiasNanos,BiasUncertaintyNanos,DriftNanosPerSecond,DriftUncertaintyNanosPerSecond,"
+            + "HardwareClockDiscontinuityCount,Svid,TimeOffsetNanos,State,ReceivedSvTimeNanos,"
+            + "ReceivedSvTimeUncertaintyNanos,Cn0DbHz,PseudorangeRateMetersPerSecond,"
+            + "PseudorangeRateUncertaintyMetersPerSecond,AccumulatedDeltaRangeState,AccumulatedDeltaRangeMeters,"
+            + "AccumulatedDeltaRangeUncertaintyMeters,CarrierFrequencyHz,CarrierCycles,CarrierPhase,"
+            + "CarrierPhaseUncertainty,MultipathIndicator,SnrInDb,ConstellationType,AgcDb";
+
+    private static final GnssSource.Listener LISTENER = new GnssSource.Listener() {
+        @Override
+        public void onGnssStarted() {
+        }
+
+        @Override
+        public void onGnssStopped() {
+        }
+
+        @Override
+        public void onGnssFirstFix(int ttffMillis) {
+        }
+    };
+
+    private File file;
+
+    /**
+     * Kind, time and first satellite of every replayed epoch, in order
+     */
+    private final List<String> epochs = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("replay", ".txt");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private void write(String... lines) throws IOException {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "US-ASCII");
+        try {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    private GnssLogReplaySource replay() throws IOException {
+        final GnssLogReplaySource source = new GnssLogReplaySource(file,
+                GnssLogReplaySource.Playback.AS_FAST_AS_POSSIBLE);
+        source.replay(new SynchronousEpochSink(new EpochRing.Consumer() {
+            @Override
+            public void onEpoch(EpochSnapshot epoch) {
+                final StringBuilder builder = new StringBuilder();
+                builder.append(epoch.getKind()).append('@').append(epoch.getTimeNanos() / 1000000L);
+                for (int i = 0; i < epoch.getSatelliteCount(); i++) {
+                    builder.append(' ').append(epoch.getGnssType(i)).append(epoch.getSvid(i));
+                    if (epoch.hasCarrierFrequencyHz(i)) {
+                        builder.append('/').append((int) (epoch.getCarrierFrequencyHz(i) / 1e6f));
+                    }
+                }
+                epochs.add(builder.toString());
+            }
+        }), LISTENER);
+        return source;
+    }
+
+    private static String raw(long timeMillis, long clockNanos, int svid, int constellation, String carrierHz) {
+        return "Raw," + timeMillis + "," + clockNanos + ",,,,,,,,," + svid + ",0,16431,0,0,35.5,-120.25,0.05,0,0,0,"
+                + carrierHz + ",,,,0,," + constellation + ",";
+    }
+
+    @Test
+    public void replaysStatusRawAndFixLines() throws IOException {
+        write(RAW_HEADER,
+                "Status,1000,2,0,1,5,1575420030,40,100,45,1,1,1",
+                "Status,1000,2,1,6,11,,42,10,60,1,1,1",
+                raw(1000, 5000000000L, 5, 1, "1575420030"),
+                raw(1000, 5000000000L, 11, 6, "1176450000"),
+                raw(2000, 6000000000L, 11, 6, ""),
+                "Fix,gps,45.0,7.0,300,0,5,0,2000",
+                "Fix,network,45.0,7.0,300,0,5,0,2000");
+        final GnssLogReplaySource source = replay();
+
+        assertEquals(4, epochs.size());
+        assertEquals(EpochSnapshot.KIND_STATUS + "@1000 " + GnssType.NAVSTAR + "5/1575 " + GnssType.GALILEO + "11",
+                epochs.get(0));
+        assertEquals(EpochSnapshot.KIND_MEASUREMENTS + "@1000 " + GnssType.NAVSTAR + "5/1575 " + GnssType.GALILEO
+                + "11/1176", epochs.get(1));
+        assertEquals(EpochSnapshot.KIND_MEASUREMENTS + "@2000 " + GnssType.GALILEO + "11", epochs.get(2));
+        assertEquals(EpochSnapshot.KIND_LOCATION + "@2000", epochs.get(3));
+        assertEquals(1, source.getEpochCount());
+        assertEquals(2, source.getMeasurementEpochCount());
+        assertEquals(1, source.getFixCount());
+        assertEquals(0, source.getMalformedLineCount());
+    }
+
+    @Test
+    public void measurementEpochsGrowPastSnapshotCapacity() throws IOException {
+        final String[] lines = new String[201];
+        lines[0] = RAW_HEADER;
+        for (int i = 1; i < lines.length; i++) {
+            lines[i] = raw(1000, 5000000000L, i, 6, "1575420030");
+        }
+        write(lines);
+        final GnssLogReplaySource source = replay();
+
+        assertEquals(1, source.getMeasurementEpochCount());
+        assertTrue(epochs.get(0).endsWith(" " + GnssType.GALILEO + "200/1575"));
+        assertTrue(epochs.get(0).startsWith(EpochSnapshot.KIND_MEASUREMENTS + "@1000 " + GnssType.GALILEO + "1/1575 "));
+    }
+
+    @Test
+    public void malformedRawLinesAreCounted() throws IOException {
+        write(RAW_HEADER,
+                "Raw,1000,,,,,,,,,,5",
+                raw(1000, 5000000000L, 5, 1, "1575420030"));
+        final GnssLogReplaySource source = replay();
+
+        assertEquals(1, source.getMalformedLineCount());
+        assertEquals(1, source.getMeasurementEpochCount());
+    }
+}
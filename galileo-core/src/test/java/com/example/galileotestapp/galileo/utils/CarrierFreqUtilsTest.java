@@ -0,0 +1,170 @@
+package com.example.galileotestapp.galileo.utils;
+
+import com.example.galileotestapp.galileo.model.GnssBand;
+import com.example.galileotestapp.galileo.model.GnssType;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CarrierFreqUtilsTest {
+
+    private static final float TOLERANCE_MHZ = 1f;
+
+    /**
+     * Frequencies closer than this to a band edge may fall in either band once quantized by the tables
+     */
+    private static final float EDGE_MHZ = 0.07f;
+
+    private static final int[] SBAS_SVIDS = {120, 123, 126, 127, 128, 129, 133, 135, 136, 137, 138, 139, 140};
+
+    @Test
+    public void tablesMatchComparisonChains() {
+        for (GnssType type : GnssType.values()) {
+            final int[] svids = type == GnssType.SBAS ? SBAS_SVIDS : new int[]{1};
+            for (int svid : svids) {
+                for (int step = 0; step <= 50000; step++) {
+                    final float mhz = 1150f + step * 0.01f;
+                    final String expected = getLegacyLabel(type, svid, mhz);
+                    if (!equals(expected, getLegacyLabel(type, svid, mhz - EDGE_MHZ))
+                            || !equals(expected, getLegacyLabel(type, svid, mhz + EDGE_MHZ))) {
+                        continue;
+                    }
+                    assertEquals(type + " " + svid + " " + mhz + " MHz", expected,
+                            CarrierFreqUtils.getCarrierFrequencyLabel(type, svid, mhz));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void nominalFrequencies() {
+        assertEquals(GnssBand.L1, CarrierFreqUtils.getCarrierBand(GnssType.NAVSTAR, 1, 1575.42f));
+        assertEquals(GnssBand.L5, CarrierFreqUtils.getCarrierBand(GnssType.NAVSTAR, 1, 1176.45f));
+        assertEquals(GnssBand.E1, CarrierFreqUtils.getCarrierBand(GnssType.GALILEO, 1, 1575.42f));
+        assertEquals(GnssBand.E5A, CarrierFreqUtils.getCarrierBand(GnssType.GALILEO, 1, 1176.45f));
+        assertEquals(GnssBand.E5B, CarrierFreqUtils.getCarrierBand(GnssType.GALILEO, 1, 1207.14f));
+        assertEquals(GnssBand.E5, CarrierFreqUtils.getCarrierBand(GnssType.GALILEO, 1, 1191.795f));
+        assertEquals(GnssBand.E6, CarrierFreqUtils.getCarrierBand(GnssType.GALILEO, 1, 1278.75f));
+        assertEquals(GnssBand.L1_C, CarrierFreqUtils.getCarrierBand(GnssType.GLONASS, 1, 1575.42f));
+        assertEquals(GnssBand.B1, CarrierFreqUtils.getCarrierBand(GnssType.BEIDOU, 1, 1561.098f));
+        // GAGAN does not broadcast on L5
+        assertEquals(GnssBand.L1, CarrierFreqUtils.getCarrierBand(GnssType.SBAS, 127, 1575.42f));
+        assertEquals(GnssBand.UNKNOWN, CarrierFreqUtils.getCarrierBand(GnssType.SBAS, 127, 1176.45f));
+        assertEquals(GnssBand.L5, CarrierFreqUtils.getCarrierBand(GnssType.SBAS, 136, 1176.45f));
+    }
+
+    @Test
+    public void outOfRangeFrequenciesHaveNoBand() {
+        assertEquals(GnssBand.UNKNOWN, CarrierFreqUtils.getCarrierBand(GnssType.GALILEO, 1, 0));
+        assertEquals(GnssBand.UNKNOWN, CarrierFreqUtils.getCarrierBand(GnssType.GALILEO, 1, 1000f));
+        assertEquals(GnssBand.UNKNOWN, CarrierFreqUtils.getCarrierBand(GnssType.GALILEO, 1, 2000f));
+        assertEquals(GnssBand.UNKNOWN, CarrierFreqUtils.getCarrierBand(GnssType.GALILEO, 1, Float.NaN));
+        assertEquals(GnssBand.UNKNOWN, CarrierFreqUtils.getCarrierBand(GnssType.UNKNOWN, 1, 1575.42f));
+        assertNull(CarrierFreqUtils.getCarrierFrequencyLabel(GnssType.GALILEO, 1, 1300f));
+    }
+
+    @Test
+    public void glonassFdmaChannels() {
+        for (int k = -7; k <= 6; k++) {
+            assertEquals(k, CarrierFreqUtils.getGlonassFdmaChannel(1602f + k * 0.5625f));
+            assertEquals(k, CarrierFreqUtils.getGlonassFdmaChannel(1246f + k * 0.4375f));
+        }
+        assertEquals(Integer.MIN_VALUE, CarrierFreqUtils.getGlonassFdmaChannel(1575.42f));
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * The classification the tables replaced, one comparison chain per constellation
+     */
+    private static String getLegacyLabel(GnssType gnssType, int svid, float carrierFrequencyMhz) {
+        switch (gnssType) {
+            case NAVSTAR:
+                if (near(carrierFrequencyMhz, 1575.42f)) {
+                    return "L1";
+                } else if (near(carrierFrequencyMhz, 1227.6f)) {
+                    return "L2";
+                } else if (near(carrierFrequencyMhz, 1381.05f)) {
+                    return "L3";
+                } else if (near(carrierFrequencyMhz, 1379.913f)) {
+                    return "L4";
+                } else if (near(carrierFrequencyMhz, 1176.45f)) {
+                    return "L5";
+                }
+                break;
+            case GLONASS:
+                if (carrierFrequencyMhz >= 1598.0000f && carrierFrequencyMhz <= 1610.000f) {
+                    return "L1";
+                } else if (carrierFrequencyMhz >= 1242.0000f && carrierFrequencyMhz <= 1252.000f) {
+                    return "L2";
+                } else if (near(carrierFrequencyMhz, 1207.14f)) {
+                    return "L3";
+                } else if (near(carrierFrequencyMhz, 1176.45f)) {
+                    return "L5";
+                } else if (near(carrierFrequencyMhz, 1575.42f)) {
+                    return "L1-C";
+                }
+                break;
+            case BEIDOU:
+                if (near(carrierFrequencyMhz, 1561.098f)) {
+                    return "B1";
+                } else if (near(carrierFrequencyMhz, 1589.742f)) {
+                    return "B1-2";
+                } else if (near(carrierFrequencyMhz, 1575.42f)) {
+                    return "B1C";
+                } else if (near(carrierFrequencyMhz, 1207.14f)) {
+                    return "B2";
+                } else if (near(carrierFrequencyMhz, 1176.45f)) {
+                    return "B2a";
+                } else if (near(carrierFrequencyMhz, 1268.52f)) {
+                    return "B3";
+                }
+                break;
+            case QZSS:
+                if (near(carrierFrequencyMhz, 1575.42f)) {
+                    return "L1";
+                } else if (near(carrierFrequencyMhz, 1227.6f)) {
+                    return "L2";
+                } else if (near(carrierFrequencyMhz, 1176.45f)) {
+                    return "L5";
+                } else if (near(carrierFrequencyMhz, 1278.75f)) {
+                    return "L6";
+                }
+                break;
+            case GALILEO:
+                if (near(carrierFrequencyMhz, 1575.42f)) {
+                    return "E1";
+                } else if (near(carrierFrequencyMhz, 1191.795f)) {
+                    return "E5";
+                } else if (near(carrierFrequencyMhz, 1176.45f)) {
+                    return "E5a";
+                } else if (near(carrierFrequencyMhz, 1207.14f)) {
+                    return "E5b";
+                } else if (near(carrierFrequencyMhz, 1278.75f)) {
+                    return "E6";
+                }
+                break;
+            case SBAS:
+                final boolean l5 = svid == 120 || svid == 123 || svid == 126 || svid == 136 || svid == 129
+                        || svid == 137 || svid == 133 || svid == 135 || svid == 138;
+                final boolean l1 = l5 || svid == 127 || svid == 128 || svid == 139;
+                if (l1 && near(carrierFrequencyMhz, 1575.42f)) {
+                    return "L1";
+                } else if (l5 && near(carrierFrequencyMhz, 1176.45f)) {
+                    return "L5";
+                }
+                break;
+            default:
+                break;
+        }
+        return null;
+    }
+
+    private static boolean near(float carrierFrequencyMhz, float centerMhz) {
+        return MathUtils.fuzzyEquals(carrierFrequencyMhz, centerMhz, TOLERANCE_MHZ);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.galileotestapp.galileo.utils;
+
+import com.example.galileotestapp.galileo.model.GnssBand;
+import com.example.galileotestapp.galileo.model.GnssType;
+import com.example.galileotestapp.galileo.model.SatelliteName;
+import com.example.galileotestapp.galileo.model.SbasType;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SatelliteTablesTest {
+
+    @Test
+    public void galileoFlags() {
+        assertEquals(0, SatelliteTables.getGalileoFlags(-1));
+        assertEquals(0, SatelliteTables.getGalileoFlags(0));
+        assertEquals(0, SatelliteTables.getGalileoFlags(37));
+        assertEquals(SatelliteTables.GALILEO_VALID, SatelliteTables.getGalileoFlags(1));
+        assertEquals(SatelliteTables.GALILEO_VALID, SatelliteTables.getGalileoFlags(36));
+        assertEquals(SatelliteTables.GALILEO_VALID | SatelliteTables.GALILEO_IOV, SatelliteTables.getGalileoFlags(11));
+        assertEquals(SatelliteTables.GALILEO_VALID | SatelliteTables.GALILEO_ECCENTRIC_ORBIT,
+                SatelliteTables.getGalileoFlags(18));
+    }
+
+    @Test
+    public void prnRanges() {
+        assertEquals(GnssType.NAVSTAR, SatelliteTables.getGnssTypeForPrn(1));
+        assertEquals(GnssType.SBAS, SatelliteTables.getGnssTypeForPrn(39));
+        assertEquals(GnssType.GLONASS, SatelliteTables.getGnssTypeForPrn(96));
+        assertEquals(GnssType.GALILEO, SatelliteTables.getGnssTypeForPrn(336));
+        assertEquals(GnssType.UNKNOWN, SatelliteTables.getGnssTypeForPrn(337));
+        assertEquals(GnssType.UNKNOWN, SatelliteTables.getGnssTypeForPrn(-1));
+        assertEquals(GnssType.GALILEO, SatelliteTables.getGnssTypeForConstellation(6));
+        assertEquals(GnssType.UNKNOWN, SatelliteTables.getGnssTypeForConstellation(7));
+    }
+
+    @Test
+    public void sbasSatellites() {
+        assertEquals(SbasType.WAAS, SatelliteTables.getSbasType(131));
+        assertEquals(SatelliteName.GEO5, SatelliteTables.getSatelliteName(GnssType.SBAS, 131));
+        assertEquals(SatelliteName.UNKNOWN, SatelliteTables.getSatelliteName(GnssType.GALILEO, 131));
+        assertEquals(1 << GnssBand.L1.ordinal(), SatelliteTables.getSbasBandMask(127));
+        assertEquals(SbasType.UNKNOWN, SatelliteTables.getSbasType(119));
+        assertEquals(0, SatelliteTables.getSbasBandMask(159));
+    }
+}
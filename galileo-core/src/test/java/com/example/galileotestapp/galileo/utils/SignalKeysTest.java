@@ -0,0 +1,51 @@
+package com.example.galileotestapp.galileo.utils;
+
+import com.example.galileotestapp.galileo.model.GnssBand;
+import com.example.galileotestapp.galileo.model.GnssType;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class SignalKeysTest {
+
+    @Test
+    public void fieldsRoundTrip() {
+        for (GnssType type : GnssType.values()) {
+            for (int svid : new int[]{0, 1, 36, 158, 0xFFFF}) {
+                for (GnssBand band : GnssBand.values()) {
+                    final int key = SignalKeys.signalKey(type, svid, band.ordinal());
+                    assertEquals(type, SignalKeys.getGnssType(key));
+                    assertEquals(svid, SignalKeys.getSvid(key));
+                    assertEquals(band.ordinal(), SignalKeys.getBandCode(key));
+                    assertEquals(band, SignalKeys.getBand(key));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void validKeysAreNeverNoKey() {
+        for (GnssType type : GnssType.values()) {
+            assertNotEquals(SignalKeys.NO_KEY, SignalKeys.signalKey(type, 0, 0));
+            assertNotEquals(SignalKeys.NO_KEY, SignalKeys.satelliteKey(type, 0));
+            assertNotEquals(SignalKeys.NO_KEY, SignalKeys.toSatelliteKey(SignalKeys.signalKey(type, 0, 0)));
+        }
+    }
+
+    @Test
+    public void satelliteKeyIgnoresBand() {
+        final int satellite = SignalKeys.satelliteKey(GnssType.GALILEO, 11);
+        assertEquals(SignalKeys.ANY_BAND, SignalKeys.getBandCode(satellite));
+        assertEquals(GnssBand.UNKNOWN, SignalKeys.getBand(satellite));
+        for (GnssBand band : GnssBand.values()) {
+            final int signal = SignalKeys.signalKey(GnssType.GALILEO, 11, band.ordinal());
+            assertNotEquals(satellite, signal);
+            assertEquals(satellite, SignalKeys.toSatelliteKey(signal));
+        }
+        assertEquals(satellite, SignalKeys.toSatelliteKey(satellite));
+        assertNotEquals(satellite, SignalKeys.satelliteKey(GnssType.NAVSTAR, 11));
+        assertNotEquals(satellite, SignalKeys.satelliteKey(GnssType.GALILEO, 12));
+    }
+}